@@ -0,0 +1,217 @@
+package com.kgswitch.benchmark;
+
+import com.kgswitch.models.graph.ConcurrentSchemaGraphBuilder;
+import com.kgswitch.models.graph.SchemaEdge;
+import com.kgswitch.models.graph.SchemaGraph;
+import com.kgswitch.models.graph.SchemaNode;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Contention microbenchmark for {@link ConcurrentSchemaGraphBuilder}, from 1
+ * to N threads. Every thread takes a slice of a synthetic schema and, for
+ * each class, creates the class node, creates the nodes its relationships
+ * point at, and adds the relationships. Relationship targets are shared
+ * across slices and every relationship is offered twice, so threads keep
+ * racing on the same ids and on duplicate edges.
+ *
+ * The baseline runs the same work against a plain SchemaGraph behind one
+ * lock, which is what a parallel transform would have to do without the
+ * builder.
+ */
+public class ConcurrentBuilderBenchmark {
+    private final int classes;
+    private final int edgesPerClass;
+    private final int iterations;
+
+    public ConcurrentBuilderBenchmark(int classes, int edgesPerClass, int iterations) {
+        this.classes = classes;
+        this.edgesPerClass = edgesPerClass;
+        this.iterations = iterations;
+    }
+
+    /**
+     * Timings for one thread count.
+     */
+    public static class Result {
+        public final int threads;
+        public final long builderNanos;
+        public final long lockedNanos;
+        public final int nodes;
+        public final int edges;
+
+        Result(int threads, long builderNanos, long lockedNanos, int nodes, int edges) {
+            this.threads = threads;
+            this.builderNanos = builderNanos;
+            this.lockedNanos = lockedNanos;
+            this.nodes = nodes;
+            this.edges = edges;
+        }
+    }
+
+    /**
+     * Run both variants with a given number of threads.
+     *
+     * @param threads Number of writer threads
+     * @return Average times over the configured iterations (after one warm-up run each)
+     */
+    public Result run(int threads) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            SchemaGraph graph = runBuilder(pool, threads);
+            runLocked(pool, threads);
+
+            long builderNanos = 0;
+            long lockedNanos = 0;
+            for (int i = 0; i < iterations; i++) {
+                long start = System.nanoTime();
+                runBuilder(pool, threads);
+                builderNanos += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                runLocked(pool, threads);
+                lockedNanos += System.nanoTime() - start;
+            }
+            return new Result(threads, builderNanos / iterations, lockedNanos / iterations,
+                              graph.getNodes().size(), graph.getEdges().size());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private SchemaGraph runBuilder(ExecutorService pool, int threads) throws Exception {
+        ConcurrentSchemaGraphBuilder builder = new ConcurrentSchemaGraphBuilder("benchmark");
+        runSlices(pool, threads, (from, to) -> {
+            for (int c = from; c < to; c++) {
+                SchemaNode source = builder.computeNodeIfAbsent(className(c), ConcurrentBuilderBenchmark::newNode);
+                for (int e = 0; e < 2 * edgesPerClass; e++) {
+                    int t = target(c, e % edgesPerClass);
+                    SchemaNode target = builder.computeNodeIfAbsent(className(t), ConcurrentBuilderBenchmark::newNode);
+                    builder.addEdge(new SchemaEdge(source.getId() + "_" + t, source, target, relationship(e)));
+                }
+            }
+        });
+        return builder.build();
+    }
+
+    private SchemaGraph runLocked(ExecutorService pool, int threads) throws Exception {
+        SchemaGraph graph = new SchemaGraph("benchmark");
+        Set<String> seen = new HashSet<>();
+        runSlices(pool, threads, (from, to) -> {
+            for (int c = from; c < to; c++) {
+                SchemaNode source = lockedNode(graph, className(c));
+                for (int e = 0; e < 2 * edgesPerClass; e++) {
+                    int t = target(c, e % edgesPerClass);
+                    SchemaNode target = lockedNode(graph, className(t));
+                    SchemaEdge edge = new SchemaEdge(source.getId() + "_" + t, source, target, relationship(e));
+                    synchronized (graph) {
+                        if (seen.add(source.getId() + "|" + edge.getType() + "|" + target.getId())) {
+                            graph.addEdge(edge);
+                        }
+                    }
+                }
+            }
+        });
+        return graph;
+    }
+
+    private static SchemaNode lockedNode(SchemaGraph graph, String id) {
+        synchronized (graph) {
+            SchemaNode node = graph.getNode(id);
+            if (node == null) {
+                node = newNode(id);
+                graph.addNode(node);
+            }
+            return node;
+        }
+    }
+
+    private interface Slice {
+        void run(int from, int to);
+    }
+
+    private void runSlices(ExecutorService pool, int threads, Slice slice) throws Exception {
+        List<Future<?>> futures = new ArrayList<>();
+        int step = (classes + threads - 1) / threads;
+        for (int t = 0; t < threads; t++) {
+            int from = Math.min(classes, t * step);
+            int to = Math.min(classes, from + step);
+            futures.add(pool.submit((Callable<Void>) () -> {
+                slice.run(from, to);
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+
+    private static SchemaNode newNode(String id) {
+        SchemaNode node = new SchemaNode(id);
+        node.addLabel(id);
+        return node;
+    }
+
+    private static String className(int c) {
+        return "Class" + c;
+    }
+
+    private static String relationship(int e) {
+        return "REL" + (e % 8);
+    }
+
+    /** Deterministic, well-spread relationship target for class c. */
+    private int target(int c, int e) {
+        return (int) ((c * 31L + e * 7919L) % classes);
+    }
+
+    /**
+     * Write results as CSV.
+     *
+     * @param results The results to write
+     * @param outputFile The CSV file
+     * @throws IOException If the file cannot be written
+     */
+    public static void writeCsv(List<Result> results, Path outputFile) throws IOException {
+        Files.createDirectories(outputFile.toAbsolutePath().getParent());
+        try (FileWriter writer = new FileWriter(outputFile.toFile())) {
+            writer.write("Threads,Variant,Nodes,Edges,TimeMicros\n");
+            for (Result r : results) {
+                writer.write(r.threads + ",builder," + r.nodes + "," + r.edges + "," + r.builderNanos / 1000 + "\n");
+                writer.write(r.threads + ",locked," + r.nodes + "," + r.edges + "," + r.lockedNanos / 1000 + "\n");
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int classes = args.length > 1 ? Integer.parseInt(args[1]) : 50000;
+
+        ConcurrentBuilderBenchmark benchmark = new ConcurrentBuilderBenchmark(classes, 8, 5);
+        List<Result> results = new ArrayList<>();
+        for (int threads = 1; threads <= maxThreads; threads = threads < maxThreads ? Math.min(threads * 2, maxThreads) : threads + 1) {
+            Result r = benchmark.run(threads);
+            results.add(r);
+            System.out.println(threads + " thread(s): builder " + r.builderNanos / 1_000_000 + " ms, locked " +
+                               r.lockedNanos / 1_000_000 + " ms (" + r.nodes + " nodes, " + r.edges + " edges)");
+        }
+
+        try {
+            writeCsv(results, Paths.get("benchmark-results", "concurrent_builder.csv"));
+        } catch (IOException e) {
+            System.err.println("Error writing results: " + e.getMessage());
+        }
+    }
+}
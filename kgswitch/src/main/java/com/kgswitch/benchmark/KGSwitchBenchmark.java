@@ -5,10 +5,12 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.kgswitch.core.SchemaTransformationService;
+import com.kgswitch.transforms.rdf.RDFFormats;
 import org.apache.jena.rdf.model.*;
 import org.apache.jena.rdf.model.impl.ResourceImpl;
 import org.apache.jena.riot.Lang;
 import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RDFLanguages;
 import org.apache.jena.vocabulary.RDF;
 
 import java.io.*;
@@ -93,6 +95,29 @@ public class KGSwitchBenchmark {
             results.put(datasetName, result);
         }
         
+        // Allocation of the Model-based vs Graph-level shapes walk
+        List<WalkerAllocationBenchmark.Result> walkerResults = new ArrayList<>();
+        WalkerAllocationBenchmark walkerBenchmark = new WalkerAllocationBenchmark(iterations);
+        for (Path datasetPath : datasets) {
+            if (!Files.exists(datasetPath)) {
+                log("Skipping walker allocation for missing dataset: " + datasetPath);
+                continue;
+            }
+            try {
+                WalkerAllocationBenchmark.Result walker = walkerBenchmark.run(datasetPath);
+                log("Walker allocation for " + walker.dataset + ": model " + walker.modelWalkerBytes +
+                    " bytes, graph " + walker.graphWalkerBytes + " bytes");
+                walkerResults.add(walker);
+            } catch (Exception e) {
+                log("Error measuring walker allocation for " + datasetPath + ": " + e.getMessage());
+            }
+        }
+        try {
+            WalkerAllocationBenchmark.writeCsv(walkerResults, outputDirectory.resolve("walker_allocation.csv"));
+        } catch (IOException e) {
+            log("Error writing walker allocation results: " + e.getMessage());
+        }
+        
         // Generate and save reports
         generateReports();
     }
@@ -203,7 +228,7 @@ public class KGSwitchBenchmark {
         
         // The output files are created in the same directory as the input file
         // with specific naming conventions. We need to copy or move them to our desired output path.
-        String pgSchemaPath = inputPath.toString().replace(".ttl", "_pg_schema.json");
+        String pgSchemaPath = SchemaTransformationService.outputFile(inputPath, "_pg_schema.json");
         Path pgSchemaFile = Paths.get(pgSchemaPath);
         
         // For debugging purposes, if the file doesn't exist, create a simple JSON file
@@ -220,8 +245,8 @@ public class KGSwitchBenchmark {
             
             // Load the RDF data using Jena to extract some basic information
             Model model = ModelFactory.createDefaultModel();
-            try (InputStream is = Files.newInputStream(inputPath)) {
-                RDFDataMgr.read(model, is, null, Lang.TURTLE);
+            try (InputStream is = RDFFormats.open(inputPath, false)) {
+                RDFDataMgr.read(model, is, null, RDFFormats.detect(inputPath));
             }
             
             // Process resources as nodes
@@ -262,8 +287,8 @@ public class KGSwitchBenchmark {
             
             Model originalModel = ModelFactory.createDefaultModel();
             
-            try (InputStream is = Files.newInputStream(inputPath)) {
-                originalModel.read(is, null, "TURTLE");
+            try (InputStream is = RDFFormats.open(inputPath, false)) {
+                RDFDataMgr.read(originalModel, is, null, RDFFormats.detect(inputPath));
             }
             
             // Read the transformed JSON data
@@ -1318,6 +1343,18 @@ public class KGSwitchBenchmark {
             Paths.get("src/test/resources/shapes_to_benchmark/Bio2rdf_QSE.ttl"),
             Paths.get("src/test/resources/shapes_to_benchmark/dbpedia_2020_QSE_FULL_SHACL.ttl")
         );
+
+        // --binary <nt|trdf|rpb>: convert the datasets first and benchmark the converted copies
+        for (int i = 0; i < args.length - 1; i++) {
+            if ("--binary".equals(args[i])) {
+                try {
+                    datasets = convertDatasets(datasets, outputDir.resolve("converted"), args[i + 1]);
+                } catch (IOException e) {
+                    System.err.println("Error converting datasets: " + e.getMessage());
+                    return;
+                }
+            }
+        }
         
         // Use more iterations for better statistical significance
         int iterations = 5;
@@ -1333,6 +1370,42 @@ public class KGSwitchBenchmark {
         }
     }
 
+    /**
+     * Convert datasets to another RDF syntax so parse time can be compared
+     * across formats. Datasets that do not exist are skipped.
+     *
+     * @param datasets The datasets to convert
+     * @param targetDir Directory for the converted files
+     * @param extension Target file extension (nt, trdf/rt or rpb/pbrdf)
+     * @return Paths of the converted files
+     * @throws IOException If a dataset cannot be read or written
+     */
+    public static List<Path> convertDatasets(List<Path> datasets, Path targetDir, String extension)
+            throws IOException {
+        Lang lang = RDFLanguages.fileExtToLang(extension);
+        if (lang == null || !RDFFormats.SUPPORTED.contains(lang) || lang == Lang.TURTLE) {
+            throw new IllegalArgumentException("Unsupported conversion format: " + extension);
+        }
+        Files.createDirectories(targetDir);
+
+        List<Path> converted = new ArrayList<>();
+        for (Path dataset : datasets) {
+            if (!Files.exists(dataset)) {
+                System.err.println("Skipping missing dataset: " + dataset);
+                continue;
+            }
+            String baseName = RDFFormats.stripExtension(dataset.getFileName().toString());
+            Path target = targetDir.resolve(baseName + "." + extension);
+            long start = System.nanoTime();
+            RDFFormats.convert(dataset, target, lang);
+            System.out.println("Converted " + dataset + " -> " + target + " (" +
+                               Files.size(dataset) + " -> " + Files.size(target) + " bytes, " +
+                               TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms)");
+            converted.add(target);
+        }
+        return converted;
+    }
+
     /**
      * Log a message if verbose mode is enabled.
      * 
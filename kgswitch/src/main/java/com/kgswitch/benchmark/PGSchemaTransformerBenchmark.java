@@ -0,0 +1,146 @@
+package com.kgswitch.benchmark;
+
+import com.kgswitch.models.graph.SchemaGraph;
+import com.kgswitch.models.statements.EdgeStatement;
+import com.kgswitch.models.statements.PropertyStatement;
+import com.kgswitch.models.statements.Statement;
+import com.kgswitch.models.statements.StatementNode;
+import com.kgswitch.models.statements.TypeStatement;
+import com.kgswitch.transforms.pg.PGSchemaTransformer;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Scaling benchmark for {@link PGSchemaTransformer#transformToPGSchema} on
+ * synthetic statement graphs of doubling size. Every class has a type
+ * statement, a few property statements and a few edge statements, and the
+ * relationship predicates have property statements of their own, so each
+ * edge resolves relationship properties.
+ *
+ * With the transform linear in the statement count, the time per statement
+ * stays flat as the graph grows.
+ */
+public class PGSchemaTransformerBenchmark {
+    private static final String XSD = "http://www.w3.org/2001/XMLSchema#";
+    private static final int PROPERTIES_PER_CLASS = 4;
+    private static final int EDGES_PER_CLASS = 3;
+    private static final int RELATIONSHIPS = 16;
+
+    private final int iterations;
+
+    public PGSchemaTransformerBenchmark(int iterations) {
+        this.iterations = iterations;
+    }
+
+    /**
+     * Timings for one graph size.
+     */
+    public static class Result {
+        public final int classes;
+        public final int statements;
+        public final long nanos;
+        public final int nodes;
+        public final int edges;
+
+        Result(int classes, int statements, long nanos, int nodes, int edges) {
+            this.classes = classes;
+            this.statements = statements;
+            this.nanos = nanos;
+            this.nodes = nodes;
+            this.edges = edges;
+        }
+
+        public double nanosPerStatement() {
+            return (double) nanos / statements;
+        }
+    }
+
+    /**
+     * @param classes Number of classes in the synthetic schema
+     * @return Average time over the configured iterations (after one warm-up run)
+     */
+    public Result run(int classes) {
+        SchemaGraph statementGraph = statementGraph(classes);
+        PGSchemaTransformer transformer = new PGSchemaTransformer();
+        SchemaGraph pgSchema = transformer.transformToPGSchema(statementGraph);
+
+        long nanos = 0;
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            transformer.transformToPGSchema(statementGraph);
+            nanos += System.nanoTime() - start;
+        }
+        return new Result(classes, statementGraph.getNodes().size(), nanos / iterations,
+                          pgSchema.getNodes().size(), pgSchema.getEdges().size());
+    }
+
+    static SchemaGraph statementGraph(int classes) {
+        SchemaGraph graph = new SchemaGraph("benchmark");
+        for (int c = 0; c < classes; c++) {
+            String subject = "Class" + c;
+            add(graph, "type_" + subject, new TypeStatement(subject, "http://example.org/" + subject));
+            for (int p = 0; p < PROPERTIES_PER_CLASS; p++) {
+                add(graph, "prop_" + subject + "_p" + p, new PropertyStatement(subject, "p" + p,
+                    XSD + (p % 2 == 0 ? "string" : "integer"), p % 2, 1));
+            }
+            for (int e = 0; e < EDGES_PER_CLASS; e++) {
+                int target = (int) ((c * 31L + e * 7919L) % classes);
+                String predicate = "rel" + ((c + e) % RELATIONSHIPS);
+                add(graph, "edge_" + subject + "_" + predicate + "_" + target,
+                    new EdgeStatement(subject, predicate, "Class" + target, 0, Statement.UNSET));
+            }
+        }
+        for (int r = 0; r < RELATIONSHIPS; r++) {
+            add(graph, "prop_rel" + r + "_since", new PropertyStatement("rel" + r, "since", XSD + "string", 0, 1));
+        }
+        return graph;
+    }
+
+    private static void add(SchemaGraph graph, String id, Statement statement) {
+        graph.addNode(new StatementNode(id, statement));
+    }
+
+    /**
+     * Write results as CSV.
+     *
+     * @param results The results to write
+     * @param outputFile The CSV file
+     * @throws IOException If the file cannot be written
+     */
+    public static void writeCsv(List<Result> results, Path outputFile) throws IOException {
+        Files.createDirectories(outputFile.toAbsolutePath().getParent());
+        try (FileWriter writer = new FileWriter(outputFile.toFile())) {
+            writer.write("Classes,Statements,Nodes,Edges,TimeMicros,NanosPerStatement\n");
+            for (Result r : results) {
+                writer.write(r.classes + "," + r.statements + "," + r.nodes + "," + r.edges + "," +
+                             r.nanos / 1000 + "," + String.format("%.1f", r.nanosPerStatement()) + "\n");
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        int maxClasses = args.length > 0 ? Integer.parseInt(args[0]) : 128000;
+
+        PGSchemaTransformerBenchmark benchmark = new PGSchemaTransformerBenchmark(5);
+        List<Result> results = new ArrayList<>();
+        for (int classes = 1000; classes <= maxClasses; classes *= 2) {
+            Result r = benchmark.run(classes);
+            results.add(r);
+            System.out.println(r.statements + " statements: " + r.nanos / 1_000_000 + " ms, " +
+                               String.format("%.1f", r.nanosPerStatement()) + " ns/statement (" +
+                               r.nodes + " nodes, " + r.edges + " edges)");
+        }
+
+        try {
+            writeCsv(results, Paths.get("benchmark-results", "pg_schema_transformer.csv"));
+        } catch (IOException e) {
+            System.err.println("Error writing results: " + e.getMessage());
+        }
+    }
+}
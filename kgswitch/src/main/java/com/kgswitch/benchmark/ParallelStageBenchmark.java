@@ -0,0 +1,155 @@
+package com.kgswitch.benchmark;
+
+import com.kgswitch.models.graph.SchemaGraph;
+import com.kgswitch.transforms.pg.PGSchemaToStatementTransformer;
+import com.kgswitch.transforms.pg.PGStatementToSchemaTransformer;
+import com.kgswitch.transforms.rdf.RDFSchemaTransformer;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Thread scaling of the two PG stages, {@link PGSchemaToStatementTransformer}
+ * (RDF statement graph to PG statement graph) and
+ * {@link PGStatementToSchemaTransformer} (PG statements to PG schema), in
+ * their partitioned parallel mode, from 1 to N threads. Each dataset is
+ * parsed once; only the two stages are timed, with statement tracing off.
+ */
+public class ParallelStageBenchmark {
+    private final int iterations;
+
+    public ParallelStageBenchmark(int iterations) {
+        this.iterations = iterations;
+    }
+
+    /**
+     * Timings for one dataset and thread count.
+     */
+    public static class Result {
+        public final String dataset;
+        public final int threads;
+        public final long statementNanos;
+        public final long schemaNanos;
+        public final int statements;
+        public final int nodes;
+        public final int edges;
+
+        Result(String dataset, int threads, long statementNanos, long schemaNanos,
+               int statements, int nodes, int edges) {
+            this.dataset = dataset;
+            this.threads = threads;
+            this.statementNanos = statementNanos;
+            this.schemaNanos = schemaNanos;
+            this.statements = statements;
+            this.nodes = nodes;
+            this.edges = edges;
+        }
+    }
+
+    /**
+     * Run both stages on one dataset with each of the given thread counts.
+     *
+     * @param dataset The shapes file
+     * @param threadCounts The thread counts to measure
+     * @return Average times over the configured iterations (after one warm-up run each)
+     */
+    public List<Result> run(Path dataset, List<Integer> threadCounts) {
+        SchemaGraph rdfGraph = new RDFSchemaTransformer().transformToStatementGraph(dataset.toString());
+        String name = dataset.getFileName().toString();
+
+        List<Result> results = new ArrayList<>();
+        for (int threads : threadCounts) {
+            SchemaGraph statementGraph = statementGraph(rdfGraph, threads);
+            SchemaGraph pgSchema = pgSchema(statementGraph, threads);
+
+            long statementNanos = 0;
+            long schemaNanos = 0;
+            for (int i = 0; i < iterations; i++) {
+                long start = System.nanoTime();
+                statementGraph(rdfGraph, threads);
+                statementNanos += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                pgSchema(statementGraph, threads);
+                schemaNanos += System.nanoTime() - start;
+            }
+            results.add(new Result(name, threads, statementNanos / iterations, schemaNanos / iterations,
+                                   statementGraph.getNodes().size(), pgSchema.getNodes().size(),
+                                   pgSchema.getEdges().size()));
+        }
+        return results;
+    }
+
+    private static SchemaGraph statementGraph(SchemaGraph rdfGraph, int threads) {
+        PGSchemaToStatementTransformer transformer = new PGSchemaToStatementTransformer(rdfGraph);
+        transformer.setParallelism(threads);
+        return transformer.transformToStatementGraph();
+    }
+
+    private static SchemaGraph pgSchema(SchemaGraph statementGraph, int threads) {
+        PGStatementToSchemaTransformer transformer = new PGStatementToSchemaTransformer(statementGraph);
+        transformer.setParallelism(threads);
+        return transformer.transformToPGSchema();
+    }
+
+    /**
+     * Write results as CSV.
+     *
+     * @param results The results to write
+     * @param outputFile The CSV file
+     * @throws IOException If the file cannot be written
+     */
+    public static void writeCsv(List<Result> results, Path outputFile) throws IOException {
+        Files.createDirectories(outputFile.toAbsolutePath().getParent());
+        try (FileWriter writer = new FileWriter(outputFile.toFile())) {
+            writer.write("Dataset,Threads,Stage,Statements,Nodes,Edges,TimeMicros\n");
+            for (Result r : results) {
+                writer.write(r.dataset + "," + r.threads + ",pg_statements," + r.statements + "," +
+                             r.nodes + "," + r.edges + "," + r.statementNanos / 1000 + "\n");
+                writer.write(r.dataset + "," + r.threads + ",pg_schema," + r.statements + "," +
+                             r.nodes + "," + r.edges + "," + r.schemaNanos / 1000 + "\n");
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        List<Path> datasets = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            datasets.add(Paths.get(args[i]));
+        }
+        if (datasets.isEmpty()) {
+            datasets = Arrays.asList(
+                Paths.get("src/test/resources/datasets/Dbpedia-SHACL-Shape.ttl"),
+                Paths.get("src/test/resources/datasets/biolink_model.shacl.ttl")
+            );
+        }
+        List<Integer> threadCounts = new ArrayList<>();
+        for (int threads = 1; threads <= maxThreads; threads = threads < maxThreads ? Math.min(threads * 2, maxThreads) : threads + 1) {
+            threadCounts.add(threads);
+        }
+
+        ParallelStageBenchmark benchmark = new ParallelStageBenchmark(10);
+        List<Result> results = new ArrayList<>();
+        for (Path dataset : datasets) {
+            for (Result r : benchmark.run(dataset, threadCounts)) {
+                results.add(r);
+                System.out.println(r.dataset + ", " + r.threads + " thread(s): PG statements " +
+                                   r.statementNanos / 1000 + " us, PG schema " + r.schemaNanos / 1000 + " us (" +
+                                   r.statements + " statements, " + r.nodes + " nodes, " + r.edges + " edges)");
+            }
+        }
+
+        try {
+            writeCsv(results, Paths.get("benchmark-results", "parallel_stages.csv"));
+        } catch (IOException e) {
+            System.err.println("Error writing results: " + e.getMessage());
+        }
+    }
+}
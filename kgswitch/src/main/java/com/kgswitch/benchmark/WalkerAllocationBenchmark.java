@@ -0,0 +1,231 @@
+package com.kgswitch.benchmark;
+
+import com.kgswitch.transforms.rdf.RDFSchemaTransformer;
+import com.kgswitch.transforms.rdf.ShapeIndex;
+import org.apache.jena.graph.Node;
+import org.apache.jena.rdf.model.*;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.vocabulary.RDF;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compares heap allocation of the two ways of walking a SHACL shapes graph:
+ * the Model API walk ({@code createProperty}, {@code Resource} and
+ * {@code Statement} wrappers, one lookup per attribute) that the transformer
+ * used to do, and the {@link ShapeIndex} walk over {@code Graph.find} with
+ * static SHACL {@code Node} constants that it does now.
+ *
+ * Allocation is read from the current thread's allocated-bytes counter, so
+ * it is only reported on JVMs that expose {@code com.sun.management.ThreadMXBean}.
+ */
+public class WalkerAllocationBenchmark {
+    private static final String SHACL_NS = "http://www.w3.org/ns/shacl#";
+
+    private final int iterations;
+
+    public WalkerAllocationBenchmark(int iterations) {
+        this.iterations = iterations;
+    }
+
+    /**
+     * Result of walking one dataset with both walkers.
+     */
+    public static class Result {
+        public final String dataset;
+        public final long modelWalkerBytes;
+        public final long graphWalkerBytes;
+        public final long modelWalkerNanos;
+        public final long graphWalkerNanos;
+        public final int modelWalkerShapes;
+        public final int graphWalkerShapes;
+
+        Result(String dataset, long modelWalkerBytes, long graphWalkerBytes,
+               long modelWalkerNanos, long graphWalkerNanos,
+               int modelWalkerShapes, int graphWalkerShapes) {
+            this.dataset = dataset;
+            this.modelWalkerBytes = modelWalkerBytes;
+            this.graphWalkerBytes = graphWalkerBytes;
+            this.modelWalkerNanos = modelWalkerNanos;
+            this.graphWalkerNanos = graphWalkerNanos;
+            this.modelWalkerShapes = modelWalkerShapes;
+            this.graphWalkerShapes = graphWalkerShapes;
+        }
+    }
+
+    /**
+     * Walk a dataset with both walkers and report the average allocation per walk.
+     * Parsing is excluded; both walkers read the same in-memory Model.
+     *
+     * @param dataset The shapes file
+     * @return Averages over the configured iterations (after one warm-up walk each)
+     */
+    public Result run(Path dataset) {
+        Model model = RDFDataMgr.loadModel(dataset.toAbsolutePath().toString());
+
+        // Warm up both paths so class loading and JIT are not counted
+        int modelShapes = walkWithModel(model);
+        int graphShapes = walkWithGraph(model);
+
+        long modelBytes = 0;
+        long graphBytes = 0;
+        long modelNanos = 0;
+        long graphNanos = 0;
+        for (int i = 0; i < iterations; i++) {
+            long bytes = allocatedBytes();
+            long start = System.nanoTime();
+            walkWithModel(model);
+            modelNanos += System.nanoTime() - start;
+            modelBytes += allocatedBytes() - bytes;
+
+            bytes = allocatedBytes();
+            start = System.nanoTime();
+            walkWithGraph(model);
+            graphNanos += System.nanoTime() - start;
+            graphBytes += allocatedBytes() - bytes;
+        }
+
+        return new Result(dataset.getFileName().toString(),
+            modelBytes / iterations, graphBytes / iterations,
+            modelNanos / iterations, graphNanos / iterations,
+            modelShapes, graphShapes);
+    }
+
+    /**
+     * Model API walk: every attribute of every shape is read through a freshly
+     * created Property and a Statement wrapper.
+     *
+     * @return Number of property shapes visited
+     */
+    static int walkWithModel(Model model) {
+        int visited = 0;
+        ResIterator nodeShapes = model.listSubjectsWithProperty(
+            RDF.type, model.createResource(SHACL_NS + "NodeShape"));
+        while (nodeShapes.hasNext()) {
+            Resource nodeShape = nodeShapes.next();
+            Statement targetClass = nodeShape.getProperty(model.createProperty(SHACL_NS + "targetClass"));
+            if (targetClass == null) {
+                continue;
+            }
+            targetClass.getObject().toString();
+
+            StmtIterator properties = nodeShape.listProperties(model.createProperty(SHACL_NS + "property"));
+            while (properties.hasNext()) {
+                Resource propertyShape = properties.next().getObject().asResource();
+                for (String attribute : new String[] {"path", "datatype", "class", "minCount", "maxCount"}) {
+                    Statement value = propertyShape.getProperty(model.createProperty(SHACL_NS + attribute));
+                    if (value != null) {
+                        value.getObject().toString();
+                    }
+                }
+                visited++;
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * Graph-level walk: one {@code Graph.find} pass into a {@link ShapeIndex},
+     * then the same attributes read and turned into strings as in
+     * {@link #walkWithModel}, so the two walks do the same work.
+     *
+     * @return Number of property shapes visited
+     */
+    static int walkWithGraph(Model model) {
+        ShapeIndex index = ShapeIndex.build(model.getGraph());
+        int visited = 0;
+        for (ShapeIndex.Shape nodeShape : index.getNodeShapes()) {
+            if (nodeShape.getTargetClass() == null) {
+                continue;
+            }
+            nodeShape.getTargetClass().toString();
+
+            for (ShapeIndex.Shape propertyShape : nodeShape.getProperties()) {
+                for (Node value : new Node[] {propertyShape.getPath(), propertyShape.getDatatype(),
+                                              propertyShape.getShClass(), propertyShape.getMinCount(),
+                                              propertyShape.getMaxCount()}) {
+                    if (value != null) {
+                        value.toString();
+                    }
+                }
+                visited++;
+            }
+        }
+        return visited;
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getCurrentThreadAllocatedBytes();
+        }
+        return 0;
+    }
+
+    /**
+     * Write results as CSV.
+     *
+     * @param results The results to write
+     * @param outputFile The CSV file
+     * @throws IOException If the file cannot be written
+     */
+    public static void writeCsv(List<Result> results, Path outputFile) throws IOException {
+        Files.createDirectories(outputFile.toAbsolutePath().getParent());
+        try (FileWriter writer = new FileWriter(outputFile.toFile())) {
+            writer.write("Dataset,Walker,PropertyShapes,AllocatedBytes,TimeMicros\n");
+            for (Result r : results) {
+                writer.write(r.dataset + ",model," + r.modelWalkerShapes + "," + r.modelWalkerBytes + "," +
+                             r.modelWalkerNanos / 1000 + "\n");
+                writer.write(r.dataset + ",graph," + r.graphWalkerShapes + "," + r.graphWalkerBytes + "," +
+                             r.graphWalkerNanos / 1000 + "\n");
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        List<Path> datasets = new ArrayList<>();
+        for (String arg : args) {
+            datasets.add(Paths.get(arg));
+        }
+        if (datasets.isEmpty()) {
+            datasets = Arrays.asList(
+                Paths.get("src/test/resources/shapes_to_benchmark/Bio2rdf_QSE.ttl"),
+                Paths.get("src/test/resources/datasets/Dbpedia-SHACL-Shape.ttl"),
+                Paths.get("src/test/resources/datasets/biolink_model.shacl.ttl")
+            );
+        }
+
+        WalkerAllocationBenchmark benchmark = new WalkerAllocationBenchmark(10);
+        List<Result> results = new ArrayList<>();
+        for (Path dataset : datasets) {
+            Result r = benchmark.run(dataset);
+            results.add(r);
+            System.out.println(r.dataset + ": model walker " + r.modelWalkerBytes / 1024 + " KB, " +
+                               r.modelWalkerNanos / 1000 + " us; graph walker " + r.graphWalkerBytes / 1024 +
+                               " KB, " + r.graphWalkerNanos / 1000 + " us (" + r.graphWalkerShapes +
+                               " property shapes)");
+        }
+
+        // Full transformation, for context
+        for (Path dataset : datasets) {
+            long bytes = allocatedBytes();
+            new RDFSchemaTransformer().transformToStatementGraph(dataset.toString());
+            System.out.println(dataset.getFileName() + ": full RDF statement graph build allocated " +
+                               (allocatedBytes() - bytes) / 1024 + " KB");
+        }
+
+        try {
+            writeCsv(results, Paths.get("benchmark-results", "walker_allocation.csv"));
+        } catch (IOException e) {
+            System.err.println("Error writing results: " + e.getMessage());
+        }
+    }
+}
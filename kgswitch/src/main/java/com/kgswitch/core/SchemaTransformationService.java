@@ -1,12 +1,14 @@
 package com.kgswitch.core;
 
 import com.kgswitch.models.graph.SchemaGraph;
+import com.kgswitch.models.graph.SchemaGraphSerializer;
 import com.kgswitch.models.graph.SchemaNode;
 import com.kgswitch.models.graph.SchemaEdge;
 import com.kgswitch.transforms.rdf.RDFSchemaTransformer;
 import com.kgswitch.transforms.pg.PGSchemaToStatementTransformer;
 import com.kgswitch.transforms.pg.PGStatementToSchemaTransformer;
 import com.kgswitch.transforms.rdf.StatementToRDFTransformer;
+import com.kgswitch.transforms.rdf.RDFFormats;
 import com.kgswitch.util.JsonSchemaGenerator;
 import com.kgswitch.util.CypherQueryGenerator;
 import com.kgswitch.util.Neo4jConnector;
@@ -18,6 +20,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.kgswitch.util.GraphVisualizer;
 
 import java.io.FileWriter;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Collection;
@@ -27,12 +30,41 @@ import java.util.Map;
 public class SchemaTransformationService {
     private final RDFSchemaTransformer rdfTransformer;
     private final ObjectMapper objectMapper;
+    private boolean saveSnapshots;
+    private boolean fused;
     
     public SchemaTransformationService() {
         this.rdfTransformer = new RDFSchemaTransformer();
+        // Compressed shape exports (.gz, .bz2) are decompressed alongside parsing
+        this.rdfTransformer.setBackgroundDecompression(true);
         this.objectMapper = new ObjectMapper();
     }
     
+    /**
+     * Save the graph produced by each stage next to the outputs, as
+     * {@code <schema>_rdf_statements.kgsg}, {@code <schema>_pg_statements.kgsg}
+     * and {@code <schema>_pg_schema.kgsg}. Passing one of these files as the
+     * schema file later resumes the pipeline after that stage.
+     *
+     * @param saveSnapshots Whether to save stage snapshots
+     */
+    public void setSaveSnapshots(boolean saveSnapshots) {
+        this.saveSnapshots = saveSnapshots;
+    }
+
+    /**
+     * Go from the shapes straight to the PG schema in one traversal instead
+     * of through the RDF and PG statement graphs. The JSON and Cypher output
+     * is the same; the RDF round trip ({@code _transformed.ttl}) and the
+     * statement graph snapshots are not produced, as they are made from the
+     * skipped statement graphs. The staged default is useful for debugging.
+     *
+     * @param fused Whether to run the fused pipeline
+     */
+    public void setFused(boolean fused) {
+        this.fused = fused;
+    }
+
     /**
      * Transform an RDF/SHACL schema to a Property Graph schema
      * 
@@ -56,31 +88,38 @@ public class SchemaTransformationService {
     public void transformSchema(Path schemaFile, boolean visualizeInNeo4j, 
                                 String neo4jUri, String neo4jUser, String neo4jPassword) 
                                 throws SchemaTransformationException {
+        transformSchema(List.of(schemaFile), schemaFile, visualizeInNeo4j, neo4jUri, neo4jUser, neo4jPassword);
+    }
+
+    /**
+     * Transform SHACL split across several files (or directories of files) into
+     * a single Property Graph schema. The files are parsed concurrently and merged
+     * before the transformation, so shapes may reference classes from other files.
+     * 
+     * @param schemaFiles Paths to the schema files or directories
+     * @param outputBase Path the output files are named after (its RDF extension, if any, is replaced)
+     * @throws SchemaTransformationException If transformation fails
+     */
+    public void transformSchema(List<Path> schemaFiles, Path outputBase) throws SchemaTransformationException {
+        transformSchema(schemaFiles, outputBase, false, null, null, null);
+    }
+
+    private void transformSchema(List<Path> schemaFiles, Path schemaFile, boolean visualizeInNeo4j,
+                                 String neo4jUri, String neo4jUser, String neo4jPassword)
+                                 throws SchemaTransformationException {
         try {
-            System.out.println("Starting transformation for schema: " + schemaFile);
-            
-            // Step 1: RDF to RDF Statement Graph
-            SchemaGraph rdfStatementGraph = rdfTransformer.transformToStatementGraph(
-                schemaFile.toAbsolutePath().normalize().toString());
-            validateGraph(rdfStatementGraph, "RDF Statement Graph");
+            System.out.println("Starting transformation for schema: " + schemaFiles);
             
-            // Step 2: RDF Statement Graph to PG Statement Graph
-            PGSchemaToStatementTransformer pgTransformer = 
-                new PGSchemaToStatementTransformer(rdfStatementGraph);
-            SchemaGraph pgStatementGraph = pgTransformer.transformToStatementGraph();
-            validateGraph(pgStatementGraph, "PG Statement Graph");
-            
-            // Step 3: PG Statement Graph to PG Schema
-            PGStatementToSchemaTransformer schemaTransformer = 
-                new PGStatementToSchemaTransformer(pgStatementGraph);
-            SchemaGraph pgSchema = schemaTransformer.transformToPGSchema();
-            validateGraph(pgSchema, "PG Schema");
+            Stages stages = runStages(schemaFiles, schemaFile);
+            SchemaGraph pgSchema = stages.pgSchema;
             
-            // Convert back to RDF and save
-            StatementToRDFTransformer rdfTransformer = 
-                new StatementToRDFTransformer(pgStatementGraph);
-            Model transformedRDF = rdfTransformer.transformToRDF();
-            saveRDFModel(schemaFile, transformedRDF);
+            // Convert back to RDF and save (not possible when resuming from a PG schema snapshot)
+            if (stages.pgStatementGraph != null) {
+                StatementToRDFTransformer rdfTransformer = 
+                    new StatementToRDFTransformer(stages.pgStatementGraph);
+                Model transformedRDF = rdfTransformer.transformToRDF();
+                saveRDFModel(schemaFile, transformedRDF);
+            }
             
             // Save PG Schema statements
             String jsonSchemaFile = savePGSchema(schemaFile, pgSchema);
@@ -94,7 +133,9 @@ public class SchemaTransformationService {
             }
             
             System.out.println("Transformation completed successfully. Files created:");
-            System.out.println("- RDF: " + schemaFile.toString().replace(".ttl", "_transformed.ttl"));
+            if (stages.pgStatementGraph != null) {
+                System.out.println("- RDF: " + outputFile(schemaFile, "_transformed.ttl"));
+            }
             System.out.println("- PG Schema: " + jsonSchemaFile);
             System.out.println("- Cypher: " + cypherFile);
             
@@ -105,6 +146,114 @@ public class SchemaTransformationService {
         }
     }
     
+    /** The graphs produced by the three transformation stages. */
+    private static class Stages {
+        SchemaGraph rdfStatementGraph;
+        SchemaGraph pgStatementGraph;
+        SchemaGraph pgSchema;
+    }
+
+    /**
+     * Run the three transformation stages. If the input is a single saved
+     * snapshot, the stages up to and including the one it was taken after are
+     * skipped and the graphs they would have produced are left null. In fused
+     * mode only the PG schema is produced.
+     * 
+     * @param schemaFiles Paths to the schema files or directories, or to one snapshot file
+     * @param schemaFile Path the snapshot files are named after
+     * @return The stage graphs
+     * @throws IOException If a snapshot cannot be read or written
+     */
+    private Stages runStages(List<Path> schemaFiles, Path schemaFile) throws IOException {
+        Stages stages = new Stages();
+        SchemaGraphSerializer.Stage resumeAfter = null;
+        if (schemaFiles.size() == 1 && SchemaGraphSerializer.isSnapshotFile(schemaFiles.get(0).toString())) {
+            Path snapshot = schemaFiles.get(0);
+            resumeAfter = SchemaGraphSerializer.readStage(snapshot);
+            System.out.println("Resuming after stage " + resumeAfter + " from snapshot: " + snapshot);
+            SchemaGraph loaded = SchemaGraphSerializer.read(snapshot);
+            switch (resumeAfter) {
+                case RDF_STATEMENTS: stages.rdfStatementGraph = loaded; break;
+                case PG_STATEMENTS: stages.pgStatementGraph = loaded; break;
+                case PG_SCHEMA: stages.pgSchema = loaded; break;
+            }
+        }
+        
+        // Fused: shapes straight to PG Schema
+        if (resumeAfter == null && fused) {
+            stages.pgSchema = readPGSchema(schemaFiles);
+            saveSnapshot(schemaFile, SchemaGraphSerializer.Stage.PG_SCHEMA, stages.pgSchema);
+            validateGraph(stages.pgSchema, "PG Schema");
+            return stages;
+        }
+        
+        // Step 1: RDF to RDF Statement Graph
+        if (resumeAfter == null) {
+            stages.rdfStatementGraph = readStatementGraph(schemaFiles);
+            saveSnapshot(schemaFile, SchemaGraphSerializer.Stage.RDF_STATEMENTS, stages.rdfStatementGraph);
+        }
+        if (stages.rdfStatementGraph != null) {
+            validateGraph(stages.rdfStatementGraph, "RDF Statement Graph");
+        }
+        
+        // Step 2: RDF Statement Graph to PG Statement Graph
+        if (stages.rdfStatementGraph != null) {
+            PGSchemaToStatementTransformer pgTransformer = 
+                new PGSchemaToStatementTransformer(stages.rdfStatementGraph);
+            stages.pgStatementGraph = pgTransformer.transformToStatementGraph();
+            saveSnapshot(schemaFile, SchemaGraphSerializer.Stage.PG_STATEMENTS, stages.pgStatementGraph);
+        }
+        if (stages.pgStatementGraph != null) {
+            validateGraph(stages.pgStatementGraph, "PG Statement Graph");
+        }
+        
+        // Step 3: PG Statement Graph to PG Schema
+        if (stages.pgStatementGraph != null) {
+            PGStatementToSchemaTransformer schemaTransformer = 
+                new PGStatementToSchemaTransformer(stages.pgStatementGraph);
+            stages.pgSchema = schemaTransformer.transformToPGSchema();
+            saveSnapshot(schemaFile, SchemaGraphSerializer.Stage.PG_SCHEMA, stages.pgSchema);
+        }
+        validateGraph(stages.pgSchema, "PG Schema");
+        return stages;
+    }
+
+    private void saveSnapshot(Path schemaFile, SchemaGraphSerializer.Stage stage, SchemaGraph graph)
+            throws IOException {
+        if (saveSnapshots && graph != null) {
+            SchemaGraphSerializer.write(graph, stage, Path.of(outputFile(schemaFile, stage.fileSuffix())));
+        }
+    }
+
+    /**
+     * Read the RDF statement graph from a single shapes file, or from several
+     * files and directories merged together.
+     * 
+     * @param schemaFiles Paths to the schema files or directories
+     * @return The RDF statement graph
+     */
+    private SchemaGraph readStatementGraph(List<Path> schemaFiles) {
+        if (schemaFiles.size() == 1 && !Files.isDirectory(schemaFiles.get(0))) {
+            return rdfTransformer.transformToStatementGraph(
+                schemaFiles.get(0).toAbsolutePath().normalize().toString());
+        }
+        return rdfTransformer.transformToStatementGraph(schemaFiles);
+    }
+
+    /**
+     * Read the PG schema directly from the shapes files, for the fused pipeline.
+     * 
+     * @param schemaFiles Paths to the schema files or directories
+     * @return The PG schema
+     */
+    private SchemaGraph readPGSchema(List<Path> schemaFiles) {
+        if (schemaFiles.size() == 1 && !Files.isDirectory(schemaFiles.get(0))) {
+            return rdfTransformer.transformToPGSchema(
+                schemaFiles.get(0).toAbsolutePath().normalize().toString());
+        }
+        return rdfTransformer.transformToPGSchema(schemaFiles);
+    }
+
     /**
      * Generate Cypher queries for Neo4j visualization
      * 
@@ -119,7 +268,7 @@ public class SchemaTransformationService {
         String cypherQueries = cypherGenerator.generateCypherFromFile(jsonSchemaFile);
         
         // Save Cypher to file
-        String cypherFile = schemaFile.toString().replace(".ttl", "_neo4j.cypher");
+        String cypherFile = outputFile(schemaFile, "_neo4j.cypher");
         cypherGenerator.writeCypherToFile(cypherQueries, cypherFile);
         
         return cypherFile;
@@ -148,6 +297,22 @@ public class SchemaTransformationService {
         }
     }
     
+    /**
+     * Name an output file after the schema file, replacing its RDF extension
+     * (whatever the input syntax) or snapshot suffix with the given suffix.
+     *
+     * @param schemaFile Original schema file path
+     * @param suffix Suffix including the output extension, e.g. "_pg_schema.json"
+     * @return Path of the output file
+     */
+    public static String outputFile(Path schemaFile, String suffix) {
+        String file = schemaFile.toString();
+        if (SchemaGraphSerializer.isSnapshotFile(file)) {
+            return SchemaGraphSerializer.stripExtension(file) + suffix;
+        }
+        return RDFFormats.stripExtension(file) + suffix;
+    }
+
     private void validateGraph(SchemaGraph graph, String phase) {
         if (graph == null) {
             throw new IllegalStateException(phase + " produced null graph");
@@ -157,14 +322,14 @@ public class SchemaTransformationService {
     }
     
     private void saveRDFModel(Path schemaFile, Model model) throws Exception {
-        String outputFile = schemaFile.toString().replace(".ttl", "_transformed.ttl");
+        String outputFile = outputFile(schemaFile, "_transformed.ttl");
         try (FileWriter writer = new FileWriter(outputFile)) {
             model.write(writer, "TURTLE");
         }
     }
     
     private String savePGSchema(Path schemaFile, SchemaGraph pgSchema) throws Exception {
-        String outputFile = schemaFile.toString().replace(".ttl", "_pg_schema.json");
+        String outputFile = outputFile(schemaFile, "_pg_schema.json");
         JsonSchemaGenerator jsonGenerator = new JsonSchemaGenerator();
         String jsonSchema = jsonGenerator.generateJson(pgSchema);
         
@@ -312,22 +477,7 @@ public class SchemaTransformationService {
         try {
             System.out.println("Starting transformation for schema with image output: " + schemaFile);
             
-            // Step 1: RDF to RDF Statement Graph
-            SchemaGraph rdfStatementGraph = rdfTransformer.transformToStatementGraph(
-                schemaFile.toAbsolutePath().normalize().toString());
-            validateGraph(rdfStatementGraph, "RDF Statement Graph");
-            
-            // Step 2: RDF Statement Graph to PG Statement Graph
-            PGSchemaToStatementTransformer pgTransformer = 
-                new PGSchemaToStatementTransformer(rdfStatementGraph);
-            SchemaGraph pgStatementGraph = pgTransformer.transformToStatementGraph();
-            validateGraph(pgStatementGraph, "PG Statement Graph");
-            
-            // Step 3: PG Statement Graph to PG Schema
-            PGStatementToSchemaTransformer schemaTransformer = 
-                new PGStatementToSchemaTransformer(pgStatementGraph);
-            SchemaGraph pgSchema = schemaTransformer.transformToPGSchema();
-            validateGraph(pgSchema, "PG Schema");
+            SchemaGraph pgSchema = runStages(List.of(schemaFile), schemaFile).pgSchema;
             
             // Generate visualization image
             return visualizeSchemaAsImage(schemaFile, pgSchema, outputImageFile);
@@ -23,6 +23,8 @@ public class Main {
             
             // Initialize the transformation service
             SchemaTransformationService transformationService = new SchemaTransformationService();
+            transformationService.setSaveSnapshots(options.containsKey("snapshots"));
+            transformationService.setFused(options.containsKey("fused"));
             
             // Check if image visualization is enabled
             boolean generateImage = options.containsKey("image");
@@ -85,6 +87,12 @@ public class Main {
             } else if (arg.equals("--image")) {
                 // Enable image visualization
                 options.put("image", "true");
+            } else if (arg.equals("--snapshots")) {
+                // Save a binary snapshot after each stage
+                options.put("snapshots", "true");
+            } else if (arg.equals("--fused")) {
+                // Skip the intermediate statement graphs
+                options.put("fused", "true");
             } else if (arg.equals("--output") && i + 1 < args.length) {
                 // Output image file path
                 options.put("output", args[++i]);
@@ -111,7 +119,7 @@ public class Main {
      * Print usage information
      */
     private static void printUsage() {
-        System.out.println("Usage: java -jar kgswitch.jar <path-to-shacl-file> [options]");
+        System.out.println("Usage: java -jar kgswitch.jar <path-to-shacl-file-directory-or-kgsg-snapshot> [options]");
         System.out.println();
         System.out.println("Options:");
         System.out.println("  --neo4j               Enable Neo4j visualization");
@@ -120,6 +128,8 @@ public class Main {
         System.out.println("  --password <password> Neo4j password (default: password)");
         System.out.println("  --image               Generate image visualization");
         System.out.println("  --output <path>       Output image file path (.dot format recommended)");
+        System.out.println("  --snapshots           Save a .kgsg snapshot of each stage's graph");
+        System.out.println("  --fused               Build the PG schema in one pass, without statement graphs (no RDF export)");
         System.out.println("  --help                Display this help message");
         System.out.println();
         System.out.println("Examples:");
@@ -129,6 +139,13 @@ public class Main {
         System.out.println("  # Generate image visualization");
         System.out.println("  java -jar kgswitch.jar schema.ttl --image --output schema.dot");
         System.out.println();
+        System.out.println("  # Save stage snapshots, then rerun from the PG schema snapshot");
+        System.out.println("  java -jar kgswitch.jar schema.ttl --snapshots");
+        System.out.println("  java -jar kgswitch.jar schema_pg_schema.kgsg");
+        System.out.println();
+        System.out.println("  # Large schemas: fused pipeline, same JSON and Cypher output");
+        System.out.println("  java -jar kgswitch.jar schema.ttl --fused");
+        System.out.println();
         System.out.println("  # View the DOT file or convert it to an image using Graphviz:");
         System.out.println("  dot -Tpng schema.dot -o schema.png");
     }
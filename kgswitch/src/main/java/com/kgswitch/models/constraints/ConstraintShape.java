@@ -0,0 +1,127 @@
+package com.kgswitch.models.constraints;
+
+import com.kgswitch.util.ContentHash;
+import com.kgswitch.util.SymbolTable;
+
+import java.lang.ref.WeakReference;
+import java.util.Objects;
+import java.util.WeakHashMap;
+
+/**
+ * The part of a property constraint that does not depend on the property's
+ * name: datatype and cardinality. Most constraints in real SHACL share one
+ * of a handful of shapes (say {@code xsd:string}, 0..1), so shapes are
+ * immutable and interned: {@link #of} hands out one shared instance per
+ * distinct shape, and {@link PropertyConstraint} only adds the name.
+ *
+ * The intern table holds its shapes weakly, so a shape no constraint uses
+ * any more is dropped at the next garbage collection.
+ */
+public final class ConstraintShape {
+    private static final int STRIPES = 16;
+    // Each stripe is guarded by its own lock
+    private static final WeakHashMap<ConstraintShape, WeakReference<ConstraintShape>>[] SHAPES = newStripes();
+
+    private final String dataType;
+    private final int minCardinality;
+    private final int maxCardinality;
+    private final int hash;
+    private final long contentHash;
+
+    private ConstraintShape(String dataType, int minCardinality, int maxCardinality) {
+        this.dataType = dataType;
+        this.minCardinality = minCardinality;
+        this.maxCardinality = maxCardinality;
+        this.hash = Objects.hash(dataType, minCardinality, maxCardinality);
+        this.contentHash = ContentHash.combine(ContentHash.combine(ContentHash.of(dataType),
+            ContentHash.of(minCardinality)), ContentHash.of(maxCardinality));
+    }
+
+    /**
+     * @param dataType The datatype (IRI or simple name), or null
+     * @param minCardinality Minimum cardinality
+     * @param maxCardinality Maximum cardinality (-1 for unbounded)
+     * @return The shared shape with these values
+     */
+    public static ConstraintShape of(String dataType, int minCardinality, int maxCardinality) {
+        ConstraintShape shape = new ConstraintShape(
+            SymbolTable.global().intern(dataType), minCardinality, maxCardinality);
+        WeakHashMap<ConstraintShape, WeakReference<ConstraintShape>> stripe =
+            SHAPES[(shape.hash ^ (shape.hash >>> 16)) & (STRIPES - 1)];
+        synchronized (stripe) {
+            WeakReference<ConstraintShape> shared = stripe.get(shape);
+            ConstraintShape existing = shared != null ? shared.get() : null;
+            if (existing != null) {
+                return existing;
+            }
+            stripe.put(shape, new WeakReference<>(shape));
+            return shape;
+        }
+    }
+
+    /**
+     * @return Number of distinct shapes in use in this JVM
+     */
+    public static int internedCount() {
+        int count = 0;
+        for (WeakHashMap<ConstraintShape, WeakReference<ConstraintShape>> stripe : SHAPES) {
+            synchronized (stripe) {
+                count += stripe.size();
+            }
+        }
+        return count;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static WeakHashMap<ConstraintShape, WeakReference<ConstraintShape>>[] newStripes() {
+        WeakHashMap<ConstraintShape, WeakReference<ConstraintShape>>[] stripes = new WeakHashMap[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new WeakHashMap<>();
+        }
+        return stripes;
+    }
+
+    public String getDataType() { return dataType; }
+    public int getMinCardinality() { return minCardinality; }
+    public int getMaxCardinality() { return maxCardinality; }
+    public boolean isRequired() { return minCardinality > 0; }
+
+    /**
+     * @return Stable 64-bit hash of datatype and cardinality (see {@link ContentHash})
+     */
+    public long contentHash() { return contentHash; }
+
+    /**
+     * @return The shared shape with the same datatype and the given cardinality
+     */
+    public ConstraintShape withCardinality(int min, int max) {
+        if (min == minCardinality && max == maxCardinality) {
+            return this;
+        }
+        return of(dataType, min, max);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ConstraintShape)) {
+            return false;
+        }
+        ConstraintShape other = (ConstraintShape) o;
+        return minCardinality == other.minCardinality &&
+               maxCardinality == other.maxCardinality &&
+               Objects.equals(dataType, other.dataType);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return dataType + "[" + minCardinality + ".." + maxCardinality + "]";
+    }
+}
@@ -1,30 +1,81 @@
 package com.kgswitch.models.constraints;
 
+import com.kgswitch.util.ContentHash;
+import com.kgswitch.util.SymbolTable;
+
+/**
+ * A named property constraint: the property name plus a shared,
+ * immutable {@link ConstraintShape} holding datatype and cardinality.
+ *
+ * Nodes and edges cache hashes over their constraints, so they keep a
+ * {@link #sealedCopy() sealed copy} of each constraint added to them. The
+ * caller's constraint stays its own and can still be changed; the copy held
+ * by the node or edge cannot.
+ */
 public class PropertyConstraint {
-    private String name;
-    private String dataType;
-    private int minCardinality;
-    private int maxCardinality;
-    private boolean required;
+    private final String name;
+    private ConstraintShape shape;
+    private volatile boolean sealed;
 
     public PropertyConstraint(String name, String dataType) {
-        this.name = name;
-        this.dataType = dataType;
-        this.minCardinality = 0;
-        this.maxCardinality = 1;
-        this.required = false;
+        this(name, ConstraintShape.of(dataType, 0, 1));
+    }
+
+    /**
+     * @param name The property name
+     * @param shape The shared datatype and cardinality
+     */
+    public PropertyConstraint(String name, ConstraintShape shape) {
+        this.name = SymbolTable.global().intern(name);
+        this.shape = shape;
     }
 
     // Getters and setters
     public String getName() { return name; }
-    public String getDataType() { return dataType; }
-    public int getMinCardinality() { return minCardinality; }
-    public int getMaxCardinality() { return maxCardinality; }
-    public boolean isRequired() { return required; }
+    public String getDataType() { return shape.getDataType(); }
+    public int getMinCardinality() { return shape.getMinCardinality(); }
+    public int getMaxCardinality() { return shape.getMaxCardinality(); }
+    public boolean isRequired() { return shape.isRequired(); }
+    public ConstraintShape getShape() { return shape; }
 
+    /**
+     * @throws IllegalStateException If this is a sealed copy held by a node or edge
+     */
     public void setCardinality(int min, int max) {
-        this.minCardinality = min;
-        this.maxCardinality = max;
-        this.required = min > 0;
+        if (sealed) {
+            throw new IllegalStateException("Constraint " + name + " is held by a node or edge; change a copy()");
+        }
+        this.shape = shape.withCardinality(min, max);
+    }
+
+    /**
+     * @return This constraint if it is sealed, otherwise a sealed copy sharing
+     *         its shape; what nodes and edges store when a constraint is added
+     */
+    public PropertyConstraint sealedCopy() {
+        if (sealed) {
+            return this;
+        }
+        PropertyConstraint copy = copy();
+        copy.sealed = true;
+        return copy;
+    }
+
+    public boolean isSealed() {
+        return sealed;
+    }
+
+    /**
+     * @return Stable 64-bit hash of name, datatype and cardinality (see {@link ContentHash})
+     */
+    public long contentHash() {
+        return ContentHash.combine(ContentHash.of(name), shape.contentHash());
+    }
+
+    /**
+     * @return An unsealed constraint with the same name sharing this one's shape
+     */
+    public PropertyConstraint copy() {
+        return new PropertyConstraint(name, shape);
     }
-}
\ No newline at end of file
+}
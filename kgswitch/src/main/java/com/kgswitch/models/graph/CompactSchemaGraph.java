@@ -0,0 +1,513 @@
+package com.kgswitch.models.graph;
+
+import com.kgswitch.models.constraints.ConstraintShape;
+import com.kgswitch.models.constraints.PropertyConstraint;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Struct-of-arrays form of a {@link SchemaGraph} for schemas with hundreds of
+ * thousands of classes and millions of property constraints. Nodes and edges
+ * are int indexes; every string is an index into one string table; labels,
+ * property constraints, properties and adjacency are stored CSR-style (an
+ * offsets array per element plus flat value arrays).
+ *
+ * The graph is immutable. Build it with {@link Builder} or {@link #from},
+ * and turn it back into objects with {@link #toSchemaGraph}. Writers can read
+ * it through the int-indexed getters without creating any objects.
+ *
+ * Node and edge order, label order and constraint order are those of the
+ * source graph. Node and edge properties are kept as Strings (null values
+ * stay null).
+ */
+public final class CompactSchemaGraph {
+    private final String name;
+    private final String namespace;
+    private final String[] strings;
+
+    private final int[] nodeIds;
+    private final Csr labels;
+    private final Constraints nodeConstraints;
+    private final Properties nodeProperties;
+
+    private final int[] edgeIds;
+    private final int[] edgeSources;
+    private final int[] edgeTargets;
+    private final int[] edgeTypes;
+    private final int[] edgeLabels;
+    private final Constraints edgeConstraints;
+    private final Properties edgeProperties;
+
+    private final Csr outgoing;
+    private final Csr incoming;
+
+    private final Map<String, Integer> nodeIndex;
+
+    /**
+     * Offsets plus flat values: element {@code i} owns
+     * {@code values[offsets[i] .. offsets[i + 1])}.
+     */
+    private static final class Csr {
+        final int[] offsets;
+        final int[] values;
+
+        Csr(int[] offsets, int[] values) {
+            this.offsets = offsets;
+            this.values = values;
+        }
+
+        int count(int element) {
+            return offsets[element + 1] - offsets[element];
+        }
+
+        int slot(int element, int i) {
+            if (i < 0 || i >= count(element)) {
+                throw new IndexOutOfBoundsException("Index " + i + " of " + count(element));
+            }
+            return offsets[element] + i;
+        }
+    }
+
+    /** Property constraints of nodes or edges: names, datatypes, min and max per slot. */
+    private static final class Constraints {
+        final Csr names;
+        final int[] dataTypes;
+        final int[] minCardinality;
+        final int[] maxCardinality;
+
+        Constraints(Csr names, int[] dataTypes, int[] minCardinality, int[] maxCardinality) {
+            this.names = names;
+            this.dataTypes = dataTypes;
+            this.minCardinality = minCardinality;
+            this.maxCardinality = maxCardinality;
+        }
+    }
+
+    /** Properties of nodes or edges: keys and values per slot. */
+    private static final class Properties {
+        final Csr keys;
+        final int[] values;
+
+        Properties(Csr keys, int[] values) {
+            this.keys = keys;
+            this.values = values;
+        }
+    }
+
+    private CompactSchemaGraph(Builder b) {
+        this.name = b.name;
+        this.namespace = b.namespace;
+        this.strings = b.strings.toArray(new String[0]);
+
+        this.nodeIds = b.nodeIds.toArray();
+        this.labels = new Csr(b.labelOffsets.closedWith(b.labels.size), b.labels.toArray());
+        this.nodeConstraints = b.nodeConstraints.build();
+        this.nodeProperties = b.nodeProperties.build();
+
+        this.edgeIds = b.edgeIds.toArray();
+        this.edgeSources = b.edgeSources.toArray();
+        this.edgeTargets = b.edgeTargets.toArray();
+        this.edgeTypes = b.edgeTypes.toArray();
+        this.edgeLabels = b.edgeLabels.toArray();
+        this.edgeConstraints = b.edgeConstraints.build();
+        this.edgeProperties = b.edgeProperties.build();
+
+        this.outgoing = adjacency(nodeIds.length, edgeSources);
+        this.incoming = adjacency(nodeIds.length, edgeTargets);
+
+        // Built here rather than on first lookup so the graph is safely shared once constructed
+        this.nodeIndex = new HashMap<>(Math.max(16, (int) (nodeIds.length / 0.75f) + 1));
+        for (int n = 0; n < nodeIds.length; n++) {
+            nodeIndex.put(strings[nodeIds[n]], n);
+        }
+    }
+
+    /** Counting sort of edge indexes by endpoint, keeping edge order within a node. */
+    private static Csr adjacency(int nodeCount, int[] endpoints) {
+        int[] offsets = new int[nodeCount + 1];
+        for (int endpoint : endpoints) {
+            offsets[endpoint + 1]++;
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] next = Arrays.copyOf(offsets, nodeCount);
+        int[] edges = new int[endpoints.length];
+        for (int e = 0; e < endpoints.length; e++) {
+            edges[next[endpoints[e]]++] = e;
+        }
+        return new Csr(offsets, edges);
+    }
+
+    /**
+     * Copy an object graph into columnar form.
+     *
+     * @param graph The graph
+     * @return The compact graph
+     * @throws IllegalArgumentException If an edge has an endpoint that is not a node of the graph
+     */
+    public static CompactSchemaGraph from(SchemaGraph graph) {
+        Builder builder = new Builder(graph.getName(), graph.getNamespace());
+        Map<SchemaNode, Integer> indexes = new IdentityHashMap<>();
+
+        for (SchemaNode node : graph.getNodes()) {
+            indexes.put(node, builder.addNode(node.getId()));
+            for (String label : node.getLabels()) {
+                builder.addLabel(label);
+            }
+            for (PropertyConstraint constraint : node.getPropertyConstraints().values()) {
+                builder.addNodeConstraint(constraint.getName(), constraint.getDataType(),
+                                          constraint.getMinCardinality(), constraint.getMaxCardinality());
+            }
+            node.getProperties().forEach((key, value) -> builder.addNodeProperty(key, propertyValue(value)));
+        }
+
+        for (SchemaEdge edge : graph.getEdges()) {
+            Integer source = indexes.get(edge.getSource());
+            Integer target = indexes.get(edge.getTarget());
+            if (source == null || target == null) {
+                throw new IllegalArgumentException("Edge " + edge.getId() + " has an endpoint outside the graph");
+            }
+            builder.addEdge(edge.getId(), source, target, edge.getType(), edge.getLabel());
+            for (PropertyConstraint constraint : edge.getPropertyConstraints().values()) {
+                builder.addEdgeConstraint(constraint.getName(), constraint.getDataType(),
+                                          constraint.getMinCardinality(), constraint.getMaxCardinality());
+            }
+            edge.getProperties().forEach((key, value) -> builder.addEdgeProperty(key, propertyValue(value)));
+        }
+        return builder.build();
+    }
+
+    /** Properties are kept as Strings; a null value stays null (string reference -1). */
+    private static String propertyValue(Object value) {
+        return value != null ? value.toString() : null;
+    }
+
+    /**
+     * Materialize the object form. Constraints share interned {@link ConstraintShape}s.
+     *
+     * @return A new SchemaGraph with the same nodes, edges, constraints and properties
+     */
+    public SchemaGraph toSchemaGraph() {
+        SchemaGraph graph = new SchemaGraph(name, namespace);
+        SchemaNode[] nodes = new SchemaNode[nodeIds.length];
+        for (int n = 0; n < nodes.length; n++) {
+            SchemaNode node = new SchemaNode(getNodeId(n));
+            for (int i = 0; i < getLabelCount(n); i++) {
+                node.addLabel(getLabel(n, i));
+            }
+            for (int i = 0; i < getNodeConstraintCount(n); i++) {
+                int slot = nodeConstraints.names.slot(n, i);
+                node.addPropertyConstraint(constraint(nodeConstraints, slot));
+            }
+            for (int i = 0; i < getNodePropertyCount(n); i++) {
+                node.addProperty(getNodePropertyKey(n, i), getNodePropertyValue(n, i));
+            }
+            nodes[n] = node;
+            graph.addNode(node);
+        }
+        for (int e = 0; e < edgeIds.length; e++) {
+            SchemaEdge edge = new SchemaEdge(getEdgeId(e), nodes[edgeSources[e]], nodes[edgeTargets[e]], getEdgeType(e));
+            edge.setLabel(getEdgeLabel(e));
+            for (int i = 0; i < getEdgeConstraintCount(e); i++) {
+                int slot = edgeConstraints.names.slot(e, i);
+                edge.addPropertyConstraint(constraint(edgeConstraints, slot));
+            }
+            for (int i = 0; i < getEdgePropertyCount(e); i++) {
+                edge.addProperty(getEdgePropertyKey(e, i), getEdgePropertyValue(e, i));
+            }
+            graph.addEdge(edge);
+        }
+        return graph;
+    }
+
+    private PropertyConstraint constraint(Constraints constraints, int slot) {
+        return new PropertyConstraint(strings[constraints.names.values[slot]],
+            ConstraintShape.of(string(constraints.dataTypes[slot]),
+                               constraints.minCardinality[slot], constraints.maxCardinality[slot]));
+    }
+
+    private String string(int index) {
+        return index < 0 ? null : strings[index];
+    }
+
+    public String getName() { return name; }
+    public String getNamespace() { return namespace; }
+
+    // Nodes
+
+    public int getNodeCount() { return nodeIds.length; }
+    public String getNodeId(int node) { return strings[nodeIds[node]]; }
+    public int getLabelCount(int node) { return labels.count(node); }
+    public String getLabel(int node, int i) { return strings[labels.values[labels.slot(node, i)]]; }
+
+    /**
+     * @param id A node id
+     * @return Index of the last node with that id (as {@link SchemaGraph#getNode} does), or -1
+     */
+    public int getNodeIndex(String id) {
+        return nodeIndex.getOrDefault(id, -1);
+    }
+
+    public int getNodeConstraintCount(int node) { return nodeConstraints.names.count(node); }
+
+    public String getNodeConstraintName(int node, int i) {
+        return strings[nodeConstraints.names.values[nodeConstraints.names.slot(node, i)]];
+    }
+
+    public String getNodeConstraintDataType(int node, int i) {
+        return string(nodeConstraints.dataTypes[nodeConstraints.names.slot(node, i)]);
+    }
+
+    public int getNodeConstraintMinCardinality(int node, int i) {
+        return nodeConstraints.minCardinality[nodeConstraints.names.slot(node, i)];
+    }
+
+    public int getNodeConstraintMaxCardinality(int node, int i) {
+        return nodeConstraints.maxCardinality[nodeConstraints.names.slot(node, i)];
+    }
+
+    public int getNodePropertyCount(int node) { return nodeProperties.keys.count(node); }
+
+    public String getNodePropertyKey(int node, int i) {
+        return strings[nodeProperties.keys.values[nodeProperties.keys.slot(node, i)]];
+    }
+
+    public String getNodePropertyValue(int node, int i) {
+        return string(nodeProperties.values[nodeProperties.keys.slot(node, i)]);
+    }
+
+    // Edges
+
+    public int getEdgeCount() { return edgeIds.length; }
+    public String getEdgeId(int edge) { return strings[edgeIds[edge]]; }
+    public int getEdgeSource(int edge) { return edgeSources[edge]; }
+    public int getEdgeTarget(int edge) { return edgeTargets[edge]; }
+    public String getEdgeType(int edge) { return strings[edgeTypes[edge]]; }
+    public String getEdgeLabel(int edge) { return string(edgeLabels[edge]); }
+
+    public int getEdgeConstraintCount(int edge) { return edgeConstraints.names.count(edge); }
+
+    public String getEdgeConstraintName(int edge, int i) {
+        return strings[edgeConstraints.names.values[edgeConstraints.names.slot(edge, i)]];
+    }
+
+    public String getEdgeConstraintDataType(int edge, int i) {
+        return string(edgeConstraints.dataTypes[edgeConstraints.names.slot(edge, i)]);
+    }
+
+    public int getEdgeConstraintMinCardinality(int edge, int i) {
+        return edgeConstraints.minCardinality[edgeConstraints.names.slot(edge, i)];
+    }
+
+    public int getEdgeConstraintMaxCardinality(int edge, int i) {
+        return edgeConstraints.maxCardinality[edgeConstraints.names.slot(edge, i)];
+    }
+
+    public int getEdgePropertyCount(int edge) { return edgeProperties.keys.count(edge); }
+
+    public String getEdgePropertyKey(int edge, int i) {
+        return strings[edgeProperties.keys.values[edgeProperties.keys.slot(edge, i)]];
+    }
+
+    public String getEdgePropertyValue(int edge, int i) {
+        return string(edgeProperties.values[edgeProperties.keys.slot(edge, i)]);
+    }
+
+    // Adjacency
+
+    public int getOutDegree(int node) { return outgoing.count(node); }
+    public int getOutgoingEdge(int node, int i) { return outgoing.values[outgoing.slot(node, i)]; }
+    public int getInDegree(int node) { return incoming.count(node); }
+    public int getIncomingEdge(int node, int i) { return incoming.values[incoming.slot(node, i)]; }
+
+    /**
+     * Appends nodes and edges in order. Labels, constraints and properties
+     * go to the node or edge added last, so each element's attributes must
+     * be added before the next element of the same kind.
+     */
+    public static final class Builder {
+        private final String name;
+        private final String namespace;
+        private final List<String> strings = new ArrayList<>();
+        private final Map<String, Integer> stringIndex = new HashMap<>();
+
+        private final IntList nodeIds = new IntList();
+        private final IntList labelOffsets = new IntList();
+        private final IntList labels = new IntList();
+        private final ConstraintColumns nodeConstraints = new ConstraintColumns();
+        private final PropertyColumns nodeProperties = new PropertyColumns();
+
+        private final IntList edgeIds = new IntList();
+        private final IntList edgeSources = new IntList();
+        private final IntList edgeTargets = new IntList();
+        private final IntList edgeTypes = new IntList();
+        private final IntList edgeLabels = new IntList();
+        private final ConstraintColumns edgeConstraints = new ConstraintColumns();
+        private final PropertyColumns edgeProperties = new PropertyColumns();
+
+        public Builder(String name, String namespace) {
+            this.name = name;
+            this.namespace = namespace;
+        }
+
+        /**
+         * @param id The node id
+         * @return The new node's index
+         */
+        public int addNode(String id) {
+            nodeIds.add(intern(id));
+            labelOffsets.add(labels.size);
+            nodeConstraints.open();
+            nodeProperties.open();
+            return nodeIds.size - 1;
+        }
+
+        public void addLabel(String label) {
+            requireNode();
+            labels.add(intern(label));
+        }
+
+        public void addNodeConstraint(String name, String dataType, int min, int max) {
+            requireNode();
+            nodeConstraints.add(intern(name), intern(dataType), min, max);
+        }
+
+        public void addNodeProperty(String key, String value) {
+            requireNode();
+            nodeProperties.add(intern(key), intern(value));
+        }
+
+        /**
+         * @param id The edge id
+         * @param source Index of the source node
+         * @param target Index of the target node
+         * @param type The edge type
+         * @param label The edge label (usually the type)
+         * @return The new edge's index
+         */
+        public int addEdge(String id, int source, int target, String type, String label) {
+            if (source < 0 || source >= nodeIds.size || target < 0 || target >= nodeIds.size) {
+                throw new IndexOutOfBoundsException("Edge " + id + " refers to a node that was not added");
+            }
+            edgeIds.add(intern(id));
+            edgeSources.add(source);
+            edgeTargets.add(target);
+            edgeTypes.add(intern(type));
+            edgeLabels.add(intern(label));
+            edgeConstraints.open();
+            edgeProperties.open();
+            return edgeIds.size - 1;
+        }
+
+        public void addEdgeConstraint(String name, String dataType, int min, int max) {
+            requireEdge();
+            edgeConstraints.add(intern(name), intern(dataType), min, max);
+        }
+
+        public void addEdgeProperty(String key, String value) {
+            requireEdge();
+            edgeProperties.add(intern(key), intern(value));
+        }
+
+        public CompactSchemaGraph build() {
+            return new CompactSchemaGraph(this);
+        }
+
+        private int intern(String value) {
+            if (value == null) {
+                return -1;
+            }
+            Integer index = stringIndex.get(value);
+            if (index == null) {
+                index = strings.size();
+                strings.add(value);
+                stringIndex.put(value, index);
+            }
+            return index;
+        }
+
+        private void requireNode() {
+            if (nodeIds.size == 0) {
+                throw new IllegalStateException("No node added yet");
+            }
+        }
+
+        private void requireEdge() {
+            if (edgeIds.size == 0) {
+                throw new IllegalStateException("No edge added yet");
+            }
+        }
+
+        private static final class ConstraintColumns {
+            final IntList offsets = new IntList();
+            final IntList names = new IntList();
+            final IntList dataTypes = new IntList();
+            final IntList min = new IntList();
+            final IntList max = new IntList();
+
+            void open() {
+                offsets.add(names.size);
+            }
+
+            void add(int name, int dataType, int minCardinality, int maxCardinality) {
+                names.add(name);
+                dataTypes.add(dataType);
+                min.add(minCardinality);
+                max.add(maxCardinality);
+            }
+
+            Constraints build() {
+                return new Constraints(new Csr(offsets.closedWith(names.size), names.toArray()),
+                                       dataTypes.toArray(), min.toArray(), max.toArray());
+            }
+        }
+
+        private static final class PropertyColumns {
+            final IntList offsets = new IntList();
+            final IntList keys = new IntList();
+            final IntList values = new IntList();
+
+            void open() {
+                offsets.add(keys.size);
+            }
+
+            void add(int key, int value) {
+                keys.add(key);
+                values.add(value);
+            }
+
+            Properties build() {
+                return new Properties(new Csr(offsets.closedWith(keys.size), keys.toArray()), values.toArray());
+            }
+        }
+
+        private static final class IntList {
+            int[] data = new int[16];
+            int size;
+
+            void add(int value) {
+                if (size == data.length) {
+                    data = Arrays.copyOf(data, size * 2);
+                }
+                data[size++] = value;
+            }
+
+            int[] toArray() {
+                return Arrays.copyOf(data, size);
+            }
+
+            /** Offsets with the total appended, so element i spans offsets[i] .. offsets[i + 1] */
+            int[] closedWith(int total) {
+                int[] closed = Arrays.copyOf(data, size + 1);
+                closed[size] = total;
+                return closed;
+            }
+        }
+    }
+}
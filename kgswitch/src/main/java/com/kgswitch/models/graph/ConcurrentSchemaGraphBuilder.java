@@ -0,0 +1,182 @@
+package com.kgswitch.models.graph;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Collects nodes and edges from many threads and turns them into a
+ * {@link SchemaGraph}. Insertion goes through {@link ConcurrentHashMap}s, so
+ * threads only contend when they touch the same hash bin; there is no
+ * builder-wide lock.
+ *
+ * Nodes are keyed by id and the first node stored for an id wins. Edges are
+ * keyed by (source id, type, target id) and duplicates are dropped. Each
+ * stored element gets a sequence number, and {@link #build()} adds them to
+ * the graph in that order, so a single-threaded caller gets the same graph
+ * it would get from SchemaGraph directly. Threads take sequence numbers from
+ * blocks of their own, claiming a new block from the shared counter once
+ * every {@value #SEQUENCE_BLOCK} inserts, so inserting threads do not all
+ * write one counter.
+ *
+ * The builder guards graph membership only: a SchemaNode's labels,
+ * constraints and properties are plain maps, so fill them in from one thread
+ * (for example inside the factory passed to {@link #computeNodeIfAbsent}).
+ */
+public class ConcurrentSchemaGraphBuilder {
+    private static final int SEQUENCE_BLOCK = 1024;
+
+    private final String name;
+    private final String namespace;
+    private final AtomicLong nextBlock;
+    private final ThreadLocal<SequenceBlock> sequenceBlock;
+    private final ConcurrentHashMap<String, Entry<SchemaNode>> nodes;
+    private final ConcurrentHashMap<EdgeKey, Entry<SchemaEdge>> edges;
+
+    /** A stored element and the order it was stored in. */
+    private static final class Entry<T> {
+        final long sequence;
+        final T value;
+
+        Entry(long sequence, T value) {
+            this.sequence = sequence;
+            this.value = value;
+        }
+    }
+
+    /** The sequence numbers one thread has claimed and not used yet. */
+    private static final class SequenceBlock {
+        long next;
+        long end;
+    }
+
+    /** Identity of an edge for duplicate detection. */
+    private static final class EdgeKey {
+        final String source;
+        final String type;
+        final String target;
+
+        EdgeKey(SchemaEdge edge) {
+            this.source = edge.getSource() != null ? edge.getSource().getId() : null;
+            this.type = edge.getType();
+            this.target = edge.getTarget() != null ? edge.getTarget().getId() : null;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof EdgeKey)) return false;
+            EdgeKey other = (EdgeKey) o;
+            return Objects.equals(source, other.source) && Objects.equals(type, other.type) &&
+                   Objects.equals(target, other.target);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(source, type, target);
+        }
+    }
+
+    public ConcurrentSchemaGraphBuilder(String name) {
+        this(name, "http://schema.org/");
+    }
+
+    public ConcurrentSchemaGraphBuilder(String name, String namespace) {
+        this.name = name;
+        this.namespace = namespace;
+        this.nextBlock = new AtomicLong();
+        this.sequenceBlock = ThreadLocal.withInitial(SequenceBlock::new);
+        this.nodes = new ConcurrentHashMap<>();
+        this.edges = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Get the node with an id, creating it if there is none yet. The factory
+     * runs at most once per id, even when several threads ask at once.
+     *
+     * @param id The node id
+     * @param factory Creates the node for an id
+     * @return The node stored for the id
+     */
+    public SchemaNode computeNodeIfAbsent(String id, Function<String, SchemaNode> factory) {
+        return nodes.computeIfAbsent(id, k -> new Entry<>(nextSequence(), factory.apply(k))).value;
+    }
+
+    /**
+     * @param node The node to add
+     * @return true if it was stored; false if a node with the same id was already there
+     */
+    public boolean addNode(SchemaNode node) {
+        Entry<SchemaNode> stored = nodes.computeIfAbsent(node.getId(),
+            k -> new Entry<>(nextSequence(), node));
+        return stored.value == node;
+    }
+
+    /**
+     * @param id The node id
+     * @return The node stored for the id, or null
+     */
+    public SchemaNode getNode(String id) {
+        Entry<SchemaNode> entry = nodes.get(id);
+        return entry != null ? entry.value : null;
+    }
+
+    /**
+     * @param edge The edge to add
+     * @return true if it was stored; false if an edge with the same source, type and target was already there
+     */
+    public boolean addEdge(SchemaEdge edge) {
+        Entry<SchemaEdge> stored = edges.computeIfAbsent(new EdgeKey(edge),
+            k -> new Entry<>(nextSequence(), edge));
+        return stored.value == edge;
+    }
+
+    private long nextSequence() {
+        SequenceBlock block = sequenceBlock.get();
+        if (block.next == block.end) {
+            block.next = nextBlock.getAndAdd(SEQUENCE_BLOCK);
+            block.end = block.next + SEQUENCE_BLOCK;
+        }
+        return block.next++;
+    }
+
+    public int getNodeCount() {
+        return nodes.size();
+    }
+
+    public int getEdgeCount() {
+        return edges.size();
+    }
+
+    /**
+     * Make the graph. Call once all writers have finished; elements added
+     * while this runs may or may not be included.
+     *
+     * @return A new SchemaGraph with the stored nodes and edges, in the order they were stored
+     */
+    public SchemaGraph build() {
+        SchemaGraph graph = new SchemaGraph(name, namespace);
+        for (SchemaNode node : inOrder(nodes.values())) {
+            graph.addNode(node);
+        }
+        for (SchemaEdge edge : inOrder(edges.values())) {
+            graph.addEdge(edge);
+        }
+        return graph;
+    }
+
+    private static <T> List<T> inOrder(Iterable<Entry<T>> entries) {
+        List<Entry<T>> sorted = new ArrayList<>();
+        entries.forEach(sorted::add);
+        sorted.sort(Comparator.comparingLong(e -> e.sequence));
+        List<T> values = new ArrayList<>(sorted.size());
+        for (Entry<T> entry : sorted) {
+            values.add(entry.value);
+        }
+        return values;
+    }
+}
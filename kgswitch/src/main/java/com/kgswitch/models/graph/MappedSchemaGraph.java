@@ -0,0 +1,820 @@
+package com.kgswitch.models.graph;
+
+import com.kgswitch.models.constraints.ConstraintShape;
+import com.kgswitch.models.constraints.PropertyConstraint;
+
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Read-only {@link SchemaGraph} over a memory-mapped schema store, for large
+ * derived schemas that should not live on the heap.
+ *
+ * The store file holds the columns of a {@link CompactSchemaGraph} as int
+ * arrays (node and edge records, CSR labels, constraints and properties),
+ * the string table as UTF-8, CSR outgoing/incoming/by-type edge lists and an
+ * open-addressing id hash table. {@link #open} maps the file and reads only
+ * the section lengths, so opening is O(1) in the size of the schema and the
+ * data stays in the page cache rather than on the heap.
+ *
+ * SchemaNode and SchemaEdge objects are created on access, with labels,
+ * constraints and properties as read-only views that decode the mapped
+ * columns as they are read. Views are cached weakly: while a caller holds a
+ * node, the graph keeps handing out that same instance, and once nobody
+ * does it can be collected. All mutators throw
+ * {@link UnsupportedOperationException}.
+ *
+ * As in CompactSchemaGraph, properties are stored as Strings. A store file
+ * is limited to 2 GB (one mapping).
+ */
+public final class MappedSchemaGraph extends SchemaGraph {
+    /** File extension of schema stores */
+    public static final String EXTENSION = ".kgsm";
+
+    private static final int MAGIC = 0x4B47534D; // "KGSM"
+    private static final int VERSION = 1;
+
+    private final Store store;
+    private final ViewCache<MappedNode> nodeViews = new ViewCache<>();
+    private final ViewCache<MappedEdge> edgeViews = new ViewCache<>();
+
+    private MappedSchemaGraph(Store store) {
+        super(store.string(store.name), store.string(store.namespace));
+        this.store = store;
+    }
+
+    /**
+     * Map a store written by {@link #write}.
+     *
+     * @param file The store file
+     * @return The read-only graph
+     * @throws IOException If the file cannot be mapped or is not a schema store
+     */
+    public static MappedSchemaGraph open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Schema store larger than 2 GB: " + file);
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                .order(ByteOrder.LITTLE_ENDIAN);
+            return new MappedSchemaGraph(new Store(buffer, file));
+        } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Corrupt schema store: " + file, e);
+        }
+    }
+
+    /**
+     * Write a graph as a store.
+     *
+     * @param graph The graph
+     * @param file The store file (replaced if it exists)
+     * @throws IOException If the file cannot be written
+     * @throws IllegalArgumentException If an edge has an endpoint that is not a node of the graph
+     */
+    public static void write(SchemaGraph graph, Path file) throws IOException {
+        write(CompactSchemaGraph.from(graph), file);
+    }
+
+    /**
+     * Write a compact graph as a store.
+     *
+     * @param graph The graph
+     * @param file The store file (replaced if it exists)
+     * @throws IOException If the file cannot be written
+     */
+    public static void write(CompactSchemaGraph graph, Path file) throws IOException {
+        new StoreWriter(graph).write(file);
+    }
+
+    // Read-only SchemaGraph API
+
+    @Override
+    public void addNode(SchemaNode node) {
+        throw new UnsupportedOperationException("MappedSchemaGraph is read-only");
+    }
+
+    @Override
+    public void addEdge(SchemaEdge edge) {
+        throw new UnsupportedOperationException("MappedSchemaGraph is read-only");
+    }
+
+    @Override
+    public Set<SchemaNode> getNodes() {
+        return new IndexedSet<SchemaNode>(store.nodeCount) {
+            @Override
+            SchemaNode element(int index) {
+                return node(index);
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof MappedNode && ((MappedNode) o).owner() == MappedSchemaGraph.this;
+            }
+        };
+    }
+
+    @Override
+    public Set<SchemaEdge> getEdges() {
+        return new IndexedSet<SchemaEdge>(store.edgeCount) {
+            @Override
+            SchemaEdge element(int index) {
+                return edge(index);
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof MappedEdge && ((MappedEdge) o).owner() == MappedSchemaGraph.this;
+            }
+        };
+    }
+
+    @Override
+    public SchemaNode getNode(String id) {
+        int index = store.nodeIndex(id);
+        return index >= 0 ? node(index) : null;
+    }
+
+    @Override
+    public boolean hasNode(String id) {
+        return store.nodeIndex(id) >= 0;
+    }
+
+    @Override
+    public List<SchemaEdge> getOutgoingEdges(String nodeId) {
+        int index = store.nodeIndex(nodeId);
+        return index >= 0 ? edgeList(store.outgoing, index) : Collections.emptyList();
+    }
+
+    @Override
+    public List<SchemaEdge> getIncomingEdges(String nodeId) {
+        int index = store.nodeIndex(nodeId);
+        return index >= 0 ? edgeList(store.incoming, index) : Collections.emptyList();
+    }
+
+    @Override
+    public List<SchemaEdge> getEdgesByType(String type) {
+        for (int t = 0; t < store.edgeTypeIds.limit(); t++) {
+            if (store.stringEquals(store.edgeTypeIds.get(t), type)) {
+                return edgeList(store.edgesByType, t);
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Set<String> getEdgeTypes() {
+        return new IndexedSet<String>(store.edgeTypeIds.limit()) {
+            @Override
+            String element(int index) {
+                return store.string(store.edgeTypeIds.get(index));
+            }
+        };
+    }
+
+    public int getNodeCount() {
+        return store.nodeCount;
+    }
+
+    public int getEdgeCount() {
+        return store.edgeCount;
+    }
+
+    private SchemaNode node(int index) {
+        return nodeViews.get(index, MappedNode::new);
+    }
+
+    private SchemaEdge edge(int index) {
+        return edgeViews.get(index, MappedEdge::new);
+    }
+
+    private List<SchemaEdge> edgeList(Csr csr, int element) {
+        int from = csr.offsets.get(element);
+        int size = csr.offsets.get(element + 1) - from;
+        return new IndexedList<>(size, i -> edge(csr.values.get(from + i)));
+    }
+
+    // Views
+
+    private final class MappedNode extends SchemaNode {
+        MappedNode(int index) {
+            super(store.string(store.nodeIds.get(index)),
+                  new StringSet(store.labels, index),
+                  new ConstraintMap(store.nodeConstraints, index),
+                  new PropertyMap(store.nodeProperties, index));
+        }
+
+        MappedSchemaGraph owner() {
+            return MappedSchemaGraph.this;
+        }
+    }
+
+    private final class MappedEdge extends SchemaEdge {
+        MappedEdge(int index) {
+            super(store.string(store.edgeIds.get(index)),
+                  node(store.edgeSources.get(index)),
+                  node(store.edgeTargets.get(index)),
+                  store.string(store.edgeTypes.get(index)),
+                  store.string(store.edgeLabels.get(index)),
+                  new PropertyMap(store.edgeProperties, index),
+                  new ConstraintMap(store.edgeConstraints, index));
+        }
+
+        MappedSchemaGraph owner() {
+            return MappedSchemaGraph.this;
+        }
+    }
+
+    /** Strings of one element of a CSR column, in stored order. */
+    private final class StringSet extends IndexedSet<String> {
+        private final Csr csr;
+        private final int from;
+
+        StringSet(Csr csr, int element) {
+            super(csr.count(element));
+            this.csr = csr;
+            this.from = csr.offsets.get(element);
+        }
+
+        @Override
+        String element(int index) {
+            return store.string(csr.values.get(from + index));
+        }
+    }
+
+    /** Constraints of one node or edge, keyed by name. */
+    private final class ConstraintMap extends AbstractMap<String, PropertyConstraint> {
+        private final Constraints constraints;
+        private final int from;
+        private final int size;
+
+        ConstraintMap(Constraints constraints, int element) {
+            this.constraints = constraints;
+            this.from = constraints.names.offsets.get(element);
+            this.size = constraints.names.count(element);
+        }
+
+        @Override
+        public Set<Map.Entry<String, PropertyConstraint>> entrySet() {
+            return new IndexedSet<Map.Entry<String, PropertyConstraint>>(size) {
+                @Override
+                Map.Entry<String, PropertyConstraint> element(int index) {
+                    int slot = from + index;
+                    PropertyConstraint constraint = new PropertyConstraint(
+                        store.string(constraints.names.values.get(slot)),
+                        ConstraintShape.of(store.string(constraints.dataTypes.get(slot)),
+                                           constraints.minCardinality.get(slot),
+                                           constraints.maxCardinality.get(slot)));
+                    return new AbstractMap.SimpleImmutableEntry<>(constraint.getName(), constraint);
+                }
+            };
+        }
+    }
+
+    /** Properties of one node or edge, values as Strings. */
+    private final class PropertyMap extends AbstractMap<String, Object> {
+        private final Properties properties;
+        private final int from;
+        private final int size;
+
+        PropertyMap(Properties properties, int element) {
+            this.properties = properties;
+            this.from = properties.keys.offsets.get(element);
+            this.size = properties.keys.count(element);
+        }
+
+        @Override
+        public Set<Map.Entry<String, Object>> entrySet() {
+            return new IndexedSet<Map.Entry<String, Object>>(size) {
+                @Override
+                Map.Entry<String, Object> element(int index) {
+                    int slot = from + index;
+                    return new AbstractMap.SimpleImmutableEntry<>(store.string(properties.keys.values.get(slot)),
+                                                                   store.string(properties.values.get(slot)));
+                }
+            };
+        }
+    }
+
+    /** Read-only set of a fixed number of elements produced by index. */
+    private abstract static class IndexedSet<T> extends AbstractSet<T> {
+        private final int size;
+
+        IndexedSet(int size) {
+            this.size = size;
+        }
+
+        abstract T element(int index);
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new Iterator<T>() {
+                private int next;
+
+                @Override
+                public boolean hasNext() {
+                    return next < size;
+                }
+
+                @Override
+                public T next() {
+                    if (next >= size) {
+                        throw new NoSuchElementException();
+                    }
+                    return element(next++);
+                }
+            };
+        }
+    }
+
+    /** Read-only list of a fixed number of elements produced by index. */
+    private static final class IndexedList<T> extends AbstractList<T> implements RandomAccess {
+        private final int size;
+        private final IntFunction<T> element;
+
+        IndexedList(int size, IntFunction<T> element) {
+            this.size = size;
+            this.element = element;
+        }
+
+        @Override
+        public T get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index " + index + " of " + size);
+            }
+            return element.apply(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Views by index, held weakly so that only the views callers still use
+     * stay on the heap.
+     */
+    private static final class ViewCache<T> {
+        private final ConcurrentHashMap<Integer, ViewRef<T>> views = new ConcurrentHashMap<>();
+        private final ReferenceQueue<T> cleared = new ReferenceQueue<>();
+
+        private static final class ViewRef<T> extends WeakReference<T> {
+            final int index;
+
+            ViewRef(int index, T view, ReferenceQueue<T> queue) {
+                super(view, queue);
+                this.index = index;
+            }
+        }
+
+        T get(int index, IntFunction<T> create) {
+            for (Reference<? extends T> ref; (ref = cleared.poll()) != null; ) {
+                views.remove(((ViewRef<?>) ref).index, ref);
+            }
+            ViewRef<T> ref = views.get(index);
+            T view = ref != null ? ref.get() : null;
+            if (view != null) {
+                return view;
+            }
+            List<T> result = new ArrayList<>(1);
+            views.compute(index, (k, old) -> {
+                T existing = old != null ? old.get() : null;
+                if (existing != null) {
+                    result.add(existing);
+                    return old;
+                }
+                T created = create.apply(k);
+                result.add(created);
+                return new ViewRef<>(k, created, cleared);
+            });
+            return result.get(0);
+        }
+    }
+
+    // Mapped layout
+
+    /**
+     * Offsets plus flat values, as in CompactSchemaGraph: element {@code i}
+     * owns {@code values[offsets[i] .. offsets[i + 1])}.
+     */
+    private static final class Csr {
+        final IntBuffer offsets;
+        final IntBuffer values;
+
+        Csr(IntBuffer offsets, IntBuffer values) {
+            this.offsets = offsets;
+            this.values = values;
+        }
+
+        int count(int element) {
+            return offsets.get(element + 1) - offsets.get(element);
+        }
+    }
+
+    private static final class Constraints {
+        final Csr names;
+        final IntBuffer dataTypes;
+        final IntBuffer minCardinality;
+        final IntBuffer maxCardinality;
+
+        Constraints(Csr names, IntBuffer dataTypes, IntBuffer minCardinality, IntBuffer maxCardinality) {
+            this.names = names;
+            this.dataTypes = dataTypes;
+            this.minCardinality = minCardinality;
+            this.maxCardinality = maxCardinality;
+        }
+    }
+
+    private static final class Properties {
+        final Csr keys;
+        final IntBuffer values;
+
+        Properties(Csr keys, IntBuffer values) {
+            this.keys = keys;
+            this.values = values;
+        }
+    }
+
+    /**
+     * The mapped sections. The file is a header (magic, version, name and
+     * namespace string indexes) followed by sections, each an int length and
+     * that many ints (bytes for the string data, padded to 4). Only absolute
+     * buffer reads are used, so any number of threads can read at once.
+     */
+    private static final class Store {
+        final int name;
+        final int namespace;
+        final int nodeCount;
+        final int edgeCount;
+
+        final IntBuffer nodeIds;
+        final Csr labels;
+        final Constraints nodeConstraints;
+        final Properties nodeProperties;
+
+        final IntBuffer edgeIds;
+        final IntBuffer edgeSources;
+        final IntBuffer edgeTargets;
+        final IntBuffer edgeTypes;
+        final IntBuffer edgeLabels;
+        final Constraints edgeConstraints;
+        final Properties edgeProperties;
+
+        final Csr outgoing;
+        final Csr incoming;
+        final IntBuffer edgeTypeIds;
+        final Csr edgesByType;
+        final IntBuffer idTable;
+
+        final IntBuffer stringOffsets;
+        final ByteBuffer stringData;
+
+        private final ByteBuffer buffer;
+        private int position;
+
+        Store(ByteBuffer buffer, Path file) throws IOException {
+            this.buffer = buffer;
+            if (buffer.limit() < 16 || buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not a schema store: " + file);
+            }
+            if (buffer.getInt(4) != VERSION) {
+                throw new IOException("Unsupported schema store version " + buffer.getInt(4) + ": " + file);
+            }
+            this.name = buffer.getInt(8);
+            this.namespace = buffer.getInt(12);
+            this.position = 16;
+
+            this.nodeIds = ints();
+            this.labels = csr();
+            this.nodeConstraints = constraints();
+            this.nodeProperties = properties();
+
+            this.edgeIds = ints();
+            this.edgeSources = ints();
+            this.edgeTargets = ints();
+            this.edgeTypes = ints();
+            this.edgeLabels = ints();
+            this.edgeConstraints = constraints();
+            this.edgeProperties = properties();
+
+            this.outgoing = csr();
+            this.incoming = csr();
+            this.edgeTypeIds = ints();
+            this.edgesByType = csr();
+            this.idTable = ints();
+
+            this.stringOffsets = ints();
+            this.stringData = bytes();
+
+            this.nodeCount = nodeIds.limit();
+            this.edgeCount = edgeIds.limit();
+        }
+
+        private IntBuffer ints() {
+            int length = buffer.getInt(position);
+            IntBuffer section = buffer.slice(position + 4, length * 4).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            position += 4 + length * 4;
+            return section;
+        }
+
+        private ByteBuffer bytes() {
+            int length = buffer.getInt(position);
+            ByteBuffer section = buffer.slice(position + 4, length);
+            position += 4 + align(length);
+            return section;
+        }
+
+        private Csr csr() {
+            return new Csr(ints(), ints());
+        }
+
+        private Constraints constraints() {
+            return new Constraints(csr(), ints(), ints(), ints());
+        }
+
+        private Properties properties() {
+            return new Properties(csr(), ints());
+        }
+
+        String string(int index) {
+            if (index < 0) {
+                return null;
+            }
+            int from = stringOffsets.get(index);
+            byte[] utf8 = new byte[stringOffsets.get(index + 1) - from];
+            stringData.get(from, utf8);
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+
+        boolean stringEquals(int index, String value) {
+            return value != null && index >= 0 && bytesEqual(index, value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private boolean bytesEqual(int index, byte[] utf8) {
+            int from = stringOffsets.get(index);
+            if (stringOffsets.get(index + 1) - from != utf8.length) {
+                return false;
+            }
+            for (int i = 0; i < utf8.length; i++) {
+                if (stringData.get(from + i) != utf8[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @return Index of the last node with the id (as {@link SchemaGraph#getNode} does), or -1
+         */
+        int nodeIndex(String id) {
+            if (id == null || idTable.limit() == 0) {
+                return -1;
+            }
+            byte[] utf8 = id.getBytes(StandardCharsets.UTF_8);
+            int mask = idTable.limit() - 1;
+            for (int slot = hash(utf8) & mask; ; slot = (slot + 1) & mask) {
+                int entry = idTable.get(slot);
+                if (entry == 0) {
+                    return -1;
+                }
+                if (bytesEqual(nodeIds.get(entry - 1), utf8)) {
+                    return entry - 1;
+                }
+            }
+        }
+    }
+
+    /** Builds the sections from a compact graph and writes them out. */
+    private static final class StoreWriter {
+        private final CompactSchemaGraph graph;
+        private final List<String> strings = new ArrayList<>();
+        private final Map<String, Integer> stringIndex = new HashMap<>();
+        private final List<int[]> sections = new ArrayList<>();
+
+        StoreWriter(CompactSchemaGraph graph) {
+            this.graph = graph;
+        }
+
+        void write(Path file) throws IOException {
+            int nodes = graph.getNodeCount();
+            int edges = graph.getEdgeCount();
+            int[] header = {MAGIC, VERSION, intern(graph.getName()), intern(graph.getNamespace())};
+
+            int[] nodeIds = column(nodes, n -> intern(graph.getNodeId(n)));
+            sections.add(nodeIds);
+            csr(nodes, graph::getLabelCount, (n, i) -> intern(graph.getLabel(n, i)));
+            int[] offsets = csr(nodes, graph::getNodeConstraintCount, (n, i) -> intern(graph.getNodeConstraintName(n, i)));
+            sections.add(slots(offsets, (n, i) -> intern(graph.getNodeConstraintDataType(n, i))));
+            sections.add(slots(offsets, graph::getNodeConstraintMinCardinality));
+            sections.add(slots(offsets, graph::getNodeConstraintMaxCardinality));
+            offsets = csr(nodes, graph::getNodePropertyCount, (n, i) -> intern(graph.getNodePropertyKey(n, i)));
+            sections.add(slots(offsets, (n, i) -> intern(graph.getNodePropertyValue(n, i))));
+
+            sections.add(column(edges, e -> intern(graph.getEdgeId(e))));
+            sections.add(column(edges, graph::getEdgeSource));
+            sections.add(column(edges, graph::getEdgeTarget));
+            int[] edgeTypes = column(edges, e -> intern(graph.getEdgeType(e)));
+            sections.add(edgeTypes);
+            sections.add(column(edges, e -> intern(graph.getEdgeLabel(e))));
+            offsets = csr(edges, graph::getEdgeConstraintCount, (e, i) -> intern(graph.getEdgeConstraintName(e, i)));
+            sections.add(slots(offsets, (e, i) -> intern(graph.getEdgeConstraintDataType(e, i))));
+            sections.add(slots(offsets, graph::getEdgeConstraintMinCardinality));
+            sections.add(slots(offsets, graph::getEdgeConstraintMaxCardinality));
+            offsets = csr(edges, graph::getEdgePropertyCount, (e, i) -> intern(graph.getEdgePropertyKey(e, i)));
+            sections.add(slots(offsets, (e, i) -> intern(graph.getEdgePropertyValue(e, i))));
+
+            // Edges are indexed under the node SchemaGraph.getNode returns for their endpoint's id
+            int[] idTable = idTable(nodeIds);
+            int[] canonical = column(nodes, n -> graph.getNodeIndex(graph.getNodeId(n)));
+            group(nodes, column(edges, e -> canonical[graph.getEdgeSource(e)]));
+            group(nodes, column(edges, e -> canonical[graph.getEdgeTarget(e)]));
+            Map<Integer, Integer> typeIndex = new HashMap<>();
+            List<Integer> typeIds = new ArrayList<>();
+            int[] edgeTypeIndex = column(edges, e -> typeIndex.computeIfAbsent(edgeTypes[e], t -> {
+                typeIds.add(t);
+                return typeIds.size() - 1;
+            }));
+            sections.add(typeIds.stream().mapToInt(Integer::intValue).toArray());
+            group(typeIds.size(), edgeTypeIndex);
+            sections.add(idTable);
+
+            byte[][] utf8 = new byte[strings.size()][];
+            int[] stringOffsets = new int[strings.size() + 1];
+            for (int s = 0; s < utf8.length; s++) {
+                utf8[s] = strings.get(s).getBytes(StandardCharsets.UTF_8);
+                stringOffsets[s + 1] = stringOffsets[s] + utf8[s].length;
+            }
+            sections.add(stringOffsets);
+
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer out = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+                for (int value : header) {
+                    out.putInt(value);
+                }
+                for (int[] section : sections) {
+                    putInt(channel, out, section.length);
+                    for (int value : section) {
+                        putInt(channel, out, value);
+                    }
+                }
+                int length = stringOffsets[utf8.length];
+                putInt(channel, out, length);
+                for (byte[] s : utf8) {
+                    for (byte b : s) {
+                        if (!out.hasRemaining()) {
+                            flush(channel, out);
+                        }
+                        out.put(b);
+                    }
+                }
+                for (int pad = length; pad < align(length); pad++) {
+                    if (!out.hasRemaining()) {
+                        flush(channel, out);
+                    }
+                    out.put((byte) 0);
+                }
+                flush(channel, out);
+            }
+        }
+
+        private interface SlotValue {
+            int apply(int element, int i);
+        }
+
+        private static int[] column(int count, IntUnaryOperator value) {
+            int[] column = new int[count];
+            for (int i = 0; i < count; i++) {
+                column[i] = value.applyAsInt(i);
+            }
+            return column;
+        }
+
+        /** Add a CSR column (offsets, values) and return its offsets. */
+        private int[] csr(int count, IntUnaryOperator sizeOf, SlotValue value) {
+            int[] offsets = new int[count + 1];
+            for (int i = 0; i < count; i++) {
+                offsets[i + 1] = offsets[i] + sizeOf.applyAsInt(i);
+            }
+            sections.add(offsets);
+            sections.add(slots(offsets, value));
+            return offsets;
+        }
+
+        /** A column parallel to the values of a CSR column. */
+        private static int[] slots(int[] offsets, SlotValue value) {
+            int[] slots = new int[offsets[offsets.length - 1]];
+            for (int element = 0; element + 1 < offsets.length; element++) {
+                for (int slot = offsets[element]; slot < offsets[element + 1]; slot++) {
+                    slots[slot] = value.apply(element, slot - offsets[element]);
+                }
+            }
+            return slots;
+        }
+
+        /** Add a CSR of item indexes grouped by key, by counting sort, keeping item order within a key. */
+        private void group(int keys, int[] keyOf) {
+            int[] offsets = new int[keys + 1];
+            for (int key : keyOf) {
+                offsets[key + 1]++;
+            }
+            for (int k = 0; k < keys; k++) {
+                offsets[k + 1] += offsets[k];
+            }
+            int[] next = Arrays.copyOf(offsets, keys);
+            int[] items = new int[keyOf.length];
+            for (int item = 0; item < keyOf.length; item++) {
+                items[next[keyOf[item]]++] = item;
+            }
+            sections.add(offsets);
+            sections.add(items);
+        }
+
+        /** Open-addressing table of node index + 1 by id hash; a later node replaces an earlier one with its id. */
+        private int[] idTable(int[] nodeIds) {
+            if (nodeIds.length == 0) {
+                return new int[0];
+            }
+            int size = Integer.highestOneBit(Math.max(2, nodeIds.length * 2 - 1)) << 1;
+            int[] table = new int[size];
+            for (int n = 0; n < nodeIds.length; n++) {
+                String id = strings.get(nodeIds[n]);
+                int slot = hash(id.getBytes(StandardCharsets.UTF_8)) & (size - 1);
+                while (table[slot] != 0 && nodeIds[table[slot] - 1] != nodeIds[n]) {
+                    slot = (slot + 1) & (size - 1);
+                }
+                table[slot] = n + 1;
+            }
+            return table;
+        }
+
+        private int intern(String value) {
+            if (value == null) {
+                return -1;
+            }
+            return stringIndex.computeIfAbsent(value, v -> {
+                strings.add(v);
+                return strings.size() - 1;
+            });
+        }
+
+        private static void putInt(FileChannel channel, ByteBuffer out, int value) throws IOException {
+            if (out.remaining() < 4) {
+                flush(channel, out);
+            }
+            out.putInt(value);
+        }
+
+        private static void flush(FileChannel channel, ByteBuffer out) throws IOException {
+            out.flip();
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            out.clear();
+        }
+    }
+
+    /** FNV-1a over the UTF-8 bytes of an id. */
+    private static int hash(byte[] utf8) {
+        int hash = 0x811C9DC5;
+        for (byte b : utf8) {
+            hash ^= b & 0xFF;
+            hash *= 0x01000193;
+        }
+        return hash;
+    }
+
+    private static int align(int length) {
+        return (length + 3) & ~3;
+    }
+}
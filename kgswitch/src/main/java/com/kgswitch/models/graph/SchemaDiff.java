@@ -0,0 +1,112 @@
+package com.kgswitch.models.graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * What changed between two versions of a schema, found by comparing
+ * content hashes: identical graphs are recognised from the graph hash
+ * alone, and otherwise each node and edge costs one cached-hash lookup.
+ *
+ * Nodes are matched by id and edges by (source id, type, target id). An
+ * edge's hash covers its endpoints, so an edge counts as changed when
+ * either endpoint node changed.
+ */
+public final class SchemaDiff {
+    private final List<SchemaNode> addedNodes = new ArrayList<>();
+    private final List<SchemaNode> removedNodes = new ArrayList<>();
+    private final List<SchemaNode> changedNodes = new ArrayList<>();
+    private final List<SchemaEdge> addedEdges = new ArrayList<>();
+    private final List<SchemaEdge> removedEdges = new ArrayList<>();
+    private final List<SchemaEdge> changedEdges = new ArrayList<>();
+
+    private SchemaDiff() {
+    }
+
+    /**
+     * @param before The old version
+     * @param after The new version
+     * @return The differences; changed elements are given as they are in {@code after}
+     */
+    public static SchemaDiff between(SchemaGraph before, SchemaGraph after) {
+        SchemaDiff diff = new SchemaDiff();
+        if (before.contentHash() == after.contentHash()) {
+            return diff;
+        }
+
+        Map<String, SchemaNode> oldNodes = new LinkedHashMap<>();
+        for (SchemaNode node : before.getNodes()) {
+            oldNodes.put(node.getId(), node);
+        }
+        for (SchemaNode node : after.getNodes()) {
+            SchemaNode old = oldNodes.remove(node.getId());
+            if (old == null) {
+                diff.addedNodes.add(node);
+            } else if (old.contentHash() != node.contentHash()) {
+                diff.changedNodes.add(node);
+            }
+        }
+        diff.removedNodes.addAll(oldNodes.values());
+
+        Map<EdgeKey, SchemaEdge> oldEdges = new LinkedHashMap<>();
+        for (SchemaEdge edge : before.getEdges()) {
+            oldEdges.put(new EdgeKey(edge), edge);
+        }
+        for (SchemaEdge edge : after.getEdges()) {
+            SchemaEdge old = oldEdges.remove(new EdgeKey(edge));
+            if (old == null) {
+                diff.addedEdges.add(edge);
+            } else if (old.contentHash() != edge.contentHash()) {
+                diff.changedEdges.add(edge);
+            }
+        }
+        diff.removedEdges.addAll(oldEdges.values());
+        return diff;
+    }
+
+    /**
+     * @return Whether the two versions have the same content
+     */
+    public boolean isEmpty() {
+        return addedNodes.isEmpty() && removedNodes.isEmpty() && changedNodes.isEmpty() &&
+               addedEdges.isEmpty() && removedEdges.isEmpty() && changedEdges.isEmpty();
+    }
+
+    public List<SchemaNode> getAddedNodes() { return Collections.unmodifiableList(addedNodes); }
+    public List<SchemaNode> getRemovedNodes() { return Collections.unmodifiableList(removedNodes); }
+    public List<SchemaNode> getChangedNodes() { return Collections.unmodifiableList(changedNodes); }
+    public List<SchemaEdge> getAddedEdges() { return Collections.unmodifiableList(addedEdges); }
+    public List<SchemaEdge> getRemovedEdges() { return Collections.unmodifiableList(removedEdges); }
+    public List<SchemaEdge> getChangedEdges() { return Collections.unmodifiableList(changedEdges); }
+
+    /** Identity of an edge across versions. */
+    private static final class EdgeKey {
+        final String source;
+        final String type;
+        final String target;
+
+        EdgeKey(SchemaEdge edge) {
+            this.source = edge.getSource() != null ? edge.getSource().getId() : null;
+            this.type = edge.getType();
+            this.target = edge.getTarget() != null ? edge.getTarget().getId() : null;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof EdgeKey)) return false;
+            EdgeKey other = (EdgeKey) o;
+            return Objects.equals(source, other.source) && Objects.equals(type, other.type) &&
+                   Objects.equals(target, other.target);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(source, type, target);
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package com.kgswitch.models.graph;
 
 import com.kgswitch.models.constraints.PropertyConstraint;
+import com.kgswitch.util.ContentHash;
+import com.kgswitch.util.SymbolTable;
+import java.util.Collections;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class SchemaEdge {
     private String id;
@@ -13,14 +17,32 @@ public class SchemaEdge {
     private Map<String, Object> properties;
     private Map<String, PropertyConstraint> propertyConstraints;
 
+    // Cached by contentHash() together with the endpoint hashes it was built from
+    private long contentHash;
+    private long sourceHash;
+    private long targetHash;
+    private volatile boolean contentHashValid;
+    // Change counters of the graphs holding this edge (see SchemaGraph.addContentOwner)
+    private Object contentOwners;
+
     public SchemaEdge(String id, SchemaNode source, SchemaNode target, String type) {
+        this(id, source, target, type, type, new HashMap<>(), new HashMap<>());
+    }
+
+    /**
+     * For subclasses that keep their own, more compact, state and pass
+     * shared or immutable maps here.
+     */
+    protected SchemaEdge(String id, SchemaNode source, SchemaNode target, String type, String label,
+                         Map<String, Object> properties,
+                         Map<String, PropertyConstraint> propertyConstraints) {
         this.id = id;
         this.source = source;
         this.target = target;
-        this.type = type;
-        this.label = type;
-        this.properties = new HashMap<>();
-        this.propertyConstraints = new HashMap<>();
+        this.type = SymbolTable.global().intern(type);
+        this.label = SymbolTable.global().intern(label);
+        this.properties = properties;
+        this.propertyConstraints = propertyConstraints;
     }
 
     public String getId() {
@@ -44,23 +66,27 @@ public class SchemaEdge {
     }
 
     public void setLabel(String label) {
-        this.label = label;
+        this.label = SymbolTable.global().intern(label);
+        invalidateContentHash();
     }
 
+    // Read-only: change the edge through the add methods so the content hash stays in step
     public Map<String, Object> getProperties() {
-        return properties;
+        return Collections.unmodifiableMap(properties);
     }
 
     public void addProperty(String key, Object value) {
         properties.put(key, value);
+        invalidateContentHash();
     }
 
     public Map<String, PropertyConstraint> getPropertyConstraints() {
-        return propertyConstraints;
+        return Collections.unmodifiableMap(propertyConstraints);
     }
 
     public void addPropertyConstraint(PropertyConstraint constraint) {
-        propertyConstraints.put(constraint.getName(), constraint);
+        propertyConstraints.put(constraint.getName(), constraint.sealedCopy());
+        invalidateContentHash();
     }
 
     public boolean hasProperty(String key) {
@@ -70,4 +96,41 @@ public class SchemaEdge {
     public Object getProperty(String key) {
         return properties.get(key);
     }
-}
\ No newline at end of file
+
+    /**
+     * Stable hash of the edge's id, type, label, properties and property
+     * constraints, chained with the content hashes of its endpoints. Cached
+     * until the edge changes or one of its endpoints does.
+     *
+     * @return The edge's content hash
+     */
+    public long contentHash() {
+        long sourceNow = source != null ? source.contentHash() : ContentHash.NULL;
+        long targetNow = target != null ? target.contentHash() : ContentHash.NULL;
+        if (contentHashValid && sourceNow == sourceHash && targetNow == targetHash) {
+            return contentHash;
+        }
+        long hash = ContentHash.combine(ContentHash.of(id), ContentHash.of(type));
+        hash = ContentHash.combine(hash, ContentHash.of(label));
+        hash = ContentHash.combine(hash, SchemaNode.constraintsHash(getPropertyConstraints()));
+        hash = ContentHash.combine(hash, SchemaNode.propertiesHash(getProperties()));
+        hash = ContentHash.combine(hash, sourceNow);
+        hash = ContentHash.combine(hash, targetNow);
+        contentHash = hash;
+        sourceHash = sourceNow;
+        targetHash = targetNow;
+        contentHashValid = true;
+        return hash;
+    }
+
+    private void invalidateContentHash() {
+        if (contentHashValid) {
+            contentHashValid = false;
+            SchemaGraph.contentChanged(contentOwners);
+        }
+    }
+
+    void addContentOwner(AtomicLong changes) {
+        contentOwners = SchemaGraph.addContentOwner(contentOwners, changes);
+    }
+}
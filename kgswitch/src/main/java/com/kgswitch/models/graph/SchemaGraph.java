@@ -1,9 +1,16 @@
 package com.kgswitch.models.graph;
 
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.Map;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.kgswitch.util.ContentHash;
 
 public class SchemaGraph {
     private String name;
@@ -12,6 +19,19 @@ public class SchemaGraph {
     private Set<SchemaEdge> edges;
     private Map<String, SchemaNode> nodeMap;
 
+    // Edge indexes, kept up to date by addEdge
+    private Map<String, List<SchemaEdge>> outgoingEdges;
+    private Map<String, List<SchemaEdge>> incomingEdges;
+    private Map<String, List<SchemaEdge>> edgesByType;
+
+    // Bumped by this graph's nodes and edges (and edge endpoints) when they drop a
+    // cached content hash; the graph's cached hash is only reused while this has
+    // not moved since it was computed
+    private final AtomicLong contentChanges = new AtomicLong();
+    private long contentHash;
+    private long contentHashStamp;
+    private volatile boolean contentHashValid;
+
     public SchemaGraph(String name) {
         this(name, "http://schema.org/");
     }
@@ -19,23 +39,124 @@ public class SchemaGraph {
     public SchemaGraph(String name, String namespace) {
         this.name = name;
         this.namespace = namespace;
-        this.nodes = new HashSet<>();
-        this.edges = new HashSet<>();
-        this.nodeMap = new HashMap<>();
+        // Insertion-ordered so nodes and edges come back in the order they were added
+        this.nodes = new LinkedHashSet<>();
+        this.edges = new LinkedHashSet<>();
+        this.nodeMap = new LinkedHashMap<>();
+        this.outgoingEdges = new LinkedHashMap<>();
+        this.incomingEdges = new LinkedHashMap<>();
+        this.edgesByType = new LinkedHashMap<>();
     }
 
     public void addNode(SchemaNode node) {
         nodes.add(node);
         nodeMap.put(node.getId(), node);
+        node.addContentOwner(contentChanges);
+        contentHashValid = false;
     }
 
     public void addEdge(SchemaEdge edge) {
-        edges.add(edge);
+        if (!edges.add(edge)) {
+            return;
+        }
+        if (edge.getSource() != null) {
+            outgoingEdges.computeIfAbsent(edge.getSource().getId(), k -> new ArrayList<>()).add(edge);
+        }
+        if (edge.getTarget() != null) {
+            incomingEdges.computeIfAbsent(edge.getTarget().getId(), k -> new ArrayList<>()).add(edge);
+        }
+        edgesByType.computeIfAbsent(edge.getType(), k -> new ArrayList<>()).add(edge);
+        // The edge's hash includes its endpoints', which may not be nodes of this graph
+        edge.addContentOwner(contentChanges);
+        if (edge.getSource() != null) {
+            edge.getSource().addContentOwner(contentChanges);
+        }
+        if (edge.getTarget() != null) {
+            edge.getTarget().addContentOwner(contentChanges);
+        }
+        contentHashValid = false;
+    }
+
+    /**
+     * Stable hash of the graph's nodes and edges, independent of the order
+     * they were added in; name and namespace are not included. Built from
+     * the cached node and edge hashes and cached itself, so asking again
+     * while nothing has changed is O(1), and after a change only the
+     * changed parts are rehashed.
+     *
+     * @return The graph's content hash
+     */
+    public long contentHash() {
+        long stamp = contentChanges.get();
+        if (contentHashValid && stamp == contentHashStamp) {
+            return contentHash;
+        }
+        long nodesHash = ContentHash.of(getNodes().size());
+        for (SchemaNode node : getNodes()) {
+            nodesHash += ContentHash.mix(node.contentHash());
+        }
+        long edgesHash = ContentHash.of(getEdges().size());
+        for (SchemaEdge edge : getEdges()) {
+            edgesHash += ContentHash.mix(edge.contentHash());
+        }
+        contentHash = ContentHash.combine(nodesHash, edgesHash);
+        contentHashStamp = stamp;
+        contentHashValid = true;
+        return contentHash;
+    }
+
+    /**
+     * Add a graph's change counter to a node's or edge's owners. The owners
+     * are null, one counter, or an array of counters for parts held by
+     * several graphs. Parts hold the counters rather than the graphs, so a
+     * part that outlives a graph does not keep it reachable.
+     *
+     * @return The new owners
+     */
+    static Object addContentOwner(Object owners, AtomicLong changes) {
+        if (owners == null) {
+            return changes;
+        }
+        if (owners instanceof AtomicLong) {
+            return owners == changes ? owners : new AtomicLong[] { (AtomicLong) owners, changes };
+        }
+        AtomicLong[] counters = (AtomicLong[]) owners;
+        for (AtomicLong counter : counters) {
+            if (counter == changes) {
+                return owners;
+            }
+        }
+        AtomicLong[] grown = Arrays.copyOf(counters, counters.length + 1);
+        grown[counters.length] = changes;
+        return grown;
+    }
+
+    /** Called when a node or edge with a cached content hash changes. */
+    static void contentChanged(Object owners) {
+        if (owners instanceof AtomicLong) {
+            ((AtomicLong) owners).incrementAndGet();
+        } else if (owners != null) {
+            for (AtomicLong counter : (AtomicLong[]) owners) {
+                counter.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Take an immutable copy of the graph as it is now. Later changes to this
+     * graph do not show up in the snapshot, and the snapshot can be read from
+     * any number of threads without locking.
+     *
+     * @return The snapshot
+     */
+    public SchemaGraphSnapshot freeze() {
+        return SchemaGraphSnapshot.of(this);
     }
 
     // Getters
-    public Set<SchemaNode> getNodes() { return nodes; }
-    public Set<SchemaEdge> getEdges() { return edges; }
+    // Read-only: add nodes and edges through addNode/addEdge so the indexes stay in step
+    public Set<SchemaNode> getNodes() { return Collections.unmodifiableSet(nodes); }
+    public Set<SchemaEdge> getEdges() { return Collections.unmodifiableSet(edges); }
     public String getName() { return name; }
     public String getNamespace() { return namespace; }
 
@@ -46,4 +167,39 @@ public class SchemaGraph {
     public boolean hasNode(String id) {
         return nodeMap.containsKey(id);
     }
-}
\ No newline at end of file
+
+    /**
+     * @param nodeId Id of the source node
+     * @return Read-only view of the edges leaving the node, in insertion order
+     */
+    public List<SchemaEdge> getOutgoingEdges(String nodeId) {
+        return readOnly(outgoingEdges.get(nodeId));
+    }
+
+    /**
+     * @param nodeId Id of the target node
+     * @return Read-only view of the edges entering the node, in insertion order
+     */
+    public List<SchemaEdge> getIncomingEdges(String nodeId) {
+        return readOnly(incomingEdges.get(nodeId));
+    }
+
+    /**
+     * @param type Edge type (as given to the SchemaEdge, case-sensitive)
+     * @return Read-only view of the edges of that type, in insertion order
+     */
+    public List<SchemaEdge> getEdgesByType(String type) {
+        return readOnly(edgesByType.get(type));
+    }
+
+    /**
+     * @return Read-only view of the edge types present, in first-seen order
+     */
+    public Set<String> getEdgeTypes() {
+        return Collections.unmodifiableSet(edgesByType.keySet());
+    }
+
+    private static List<SchemaEdge> readOnly(List<SchemaEdge> edges) {
+        return edges != null ? Collections.unmodifiableList(edges) : Collections.emptyList();
+    }
+}
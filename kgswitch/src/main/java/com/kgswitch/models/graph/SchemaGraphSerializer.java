@@ -0,0 +1,533 @@
+package com.kgswitch.models.graph;
+
+import com.kgswitch.models.constraints.ConstraintShape;
+import com.kgswitch.models.constraints.PropertyConstraint;
+import com.kgswitch.models.statements.EdgeStatement;
+import com.kgswitch.models.statements.PropertyStatement;
+import com.kgswitch.models.statements.Statement;
+import com.kgswitch.models.statements.StatementNode;
+import com.kgswitch.models.statements.TypeStatement;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Saves a {@link SchemaGraph} in a compact binary file and loads it back, so
+ * a run can start from a stage that was already computed instead of parsing
+ * the shapes again.
+ *
+ * Layout: the magic "KGSG", a format version byte and a {@link Stage} byte,
+ * then a string table (count, then length-prefixed UTF-8) and the graph
+ * body. Every string in the body is a reference into the table, and counts,
+ * references and cardinalities are varints (cardinalities zigzag-encoded),
+ * so a typical record is a handful of bytes.
+ *
+ * The body holds the graph's nodes in order, then any nodes that edges point
+ * at without being in the graph, then the edges, which refer to their
+ * endpoints by position. Statement nodes are stored as their typed statement
+ * and come back as {@link StatementNode}s. Property values are kept as
+ * String, Integer, Long, Boolean or Double; any other value is saved as its
+ * toString().
+ *
+ * Files are read with a single read-only mapping of the whole file.
+ */
+public final class SchemaGraphSerializer {
+    /** File extension of saved graphs */
+    public static final String EXTENSION = ".kgsg";
+
+    private static final byte[] MAGIC = {'K', 'G', 'S', 'G'};
+    private static final int VERSION = 1;
+
+    private static final int NODE_PLAIN = 0;
+    private static final int NODE_TYPE_STATEMENT = 1;
+    private static final int NODE_PROPERTY_STATEMENT = 2;
+    private static final int NODE_EDGE_STATEMENT = 3;
+
+    private static final int VALUE_NULL = 0;
+    private static final int VALUE_STRING = 1;
+    private static final int VALUE_INT = 2;
+    private static final int VALUE_LONG = 3;
+    private static final int VALUE_BOOLEAN = 4;
+    private static final int VALUE_DOUBLE = 5;
+
+    /**
+     * The pipeline stage a saved graph was taken after. Each stage has its own
+     * file suffix, so the snapshots of one schema can sit side by side.
+     */
+    public enum Stage {
+        RDF_STATEMENTS("_rdf_statements"),
+        PG_STATEMENTS("_pg_statements"),
+        PG_SCHEMA("_pg_schema");
+
+        private final String suffix;
+
+        Stage(String suffix) {
+            this.suffix = suffix;
+        }
+
+        /**
+         * @return The file suffix for this stage, including the extension
+         */
+        public String fileSuffix() {
+            return suffix + EXTENSION;
+        }
+    }
+
+    private SchemaGraphSerializer() {
+    }
+
+    /**
+     * @param file A file name or path
+     * @return Whether the name has the snapshot extension
+     */
+    public static boolean isSnapshotFile(String file) {
+        return file.endsWith(EXTENSION);
+    }
+
+    /**
+     * Drop a stage suffix ("_pg_schema.kgsg", ...) or the bare extension from a
+     * snapshot file name.
+     *
+     * @param file A file name or path
+     * @return The name without it, or the name unchanged if it is not a snapshot file
+     */
+    public static String stripExtension(String file) {
+        for (Stage stage : Stage.values()) {
+            if (file.endsWith(stage.fileSuffix())) {
+                return file.substring(0, file.length() - stage.fileSuffix().length());
+            }
+        }
+        return isSnapshotFile(file) ? file.substring(0, file.length() - EXTENSION.length()) : file;
+    }
+
+    /**
+     * Save a graph.
+     *
+     * @param graph The graph to save
+     * @param stage The stage the graph was taken after
+     * @param file The file to write (replaced if it exists)
+     * @throws IOException If the file cannot be written
+     */
+    public static void write(SchemaGraph graph, Stage stage, Path file) throws IOException {
+        Writer writer = new Writer();
+        writer.writeGraph(graph);
+
+        Output header = new Output();
+        header.bytes(MAGIC);
+        header.write(VERSION);
+        header.write(stage.ordinal());
+        header.varint(writer.strings.size());
+        for (String s : writer.strings.keySet()) {
+            byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+            header.varint(utf8.length);
+            header.bytes(utf8);
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer[] buffers = {header.toBuffer(), writer.body.toBuffer()};
+            while (buffers[1].hasRemaining()) {
+                channel.write(buffers);
+            }
+        }
+    }
+
+    /**
+     * @param file A saved graph
+     * @return The stage the graph was taken after
+     * @throws IOException If the file cannot be read or is not a saved graph
+     */
+    public static Stage readStage(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(MAGIC.length + 2);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // keep reading until the header is complete or the file ends
+            }
+            header.flip();
+            return readHeader(header, file);
+        }
+    }
+
+    /**
+     * Load a saved graph.
+     *
+     * @param file A saved graph
+     * @return A new graph with the saved nodes and edges, in their saved order
+     * @throws IOException If the file cannot be read or is not a saved graph
+     */
+    public static SchemaGraph read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            readHeader(buffer, file);
+            return new Reader(buffer).readGraph();
+        } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IOException("Corrupt schema graph file: " + file, e);
+        }
+    }
+
+    private static Stage readHeader(ByteBuffer buffer, Path file) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        if (buffer.remaining() < MAGIC.length + 2) {
+            throw new IOException("Not a schema graph file: " + file);
+        }
+        buffer.get(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a schema graph file: " + file);
+        }
+        int version = buffer.get() & 0xFF;
+        if (version != VERSION) {
+            throw new IOException("Unsupported schema graph file version " + version + ": " + file);
+        }
+        int stage = buffer.get() & 0xFF;
+        if (stage >= Stage.values().length) {
+            throw new IOException("Unknown schema graph stage " + stage + ": " + file);
+        }
+        return Stage.values()[stage];
+    }
+
+    /** Encodes the graph body and collects the string table as it goes. */
+    private static final class Writer {
+        final Map<String, Integer> strings = new LinkedHashMap<>();
+        final Output body = new Output();
+
+        void writeGraph(SchemaGraph graph) {
+            Map<SchemaNode, Integer> positions = new IdentityHashMap<>();
+            List<SchemaNode> nodes = new ArrayList<>(graph.getNodes());
+            for (SchemaNode node : nodes) {
+                positions.putIfAbsent(node, positions.size());
+            }
+            int members = nodes.size();
+            for (SchemaEdge edge : graph.getEdges()) {
+                for (SchemaNode endpoint : Arrays.asList(edge.getSource(), edge.getTarget())) {
+                    if (endpoint != null && positions.putIfAbsent(endpoint, nodes.size()) == null) {
+                        nodes.add(endpoint);
+                    }
+                }
+            }
+
+            string(graph.getName());
+            string(graph.getNamespace());
+            body.varint(members);
+            body.varint(nodes.size() - members);
+            for (SchemaNode node : nodes) {
+                writeNode(node);
+            }
+            body.varint(graph.getEdges().size());
+            for (SchemaEdge edge : graph.getEdges()) {
+                string(edge.getId());
+                string(edge.getType());
+                string(edge.getLabel());
+                position(positions, edge.getSource());
+                position(positions, edge.getTarget());
+                writeProperties(edge.getProperties());
+                writeConstraints(edge.getPropertyConstraints());
+            }
+        }
+
+        private void writeNode(SchemaNode node) {
+            string(node.getId());
+            Statement statement = node instanceof StatementNode ? ((StatementNode) node).getStatement() : null;
+            if (statement instanceof TypeStatement) {
+                body.write(NODE_TYPE_STATEMENT);
+                string(statement.getSubject());
+                string(statement.getObject());
+            } else if (statement instanceof PropertyStatement) {
+                PropertyStatement property = (PropertyStatement) statement;
+                body.write(NODE_PROPERTY_STATEMENT);
+                string(property.getSubject());
+                string(property.getPredicate());
+                string(property.getDatatype());
+                body.zigzag(property.getMinCount());
+                body.zigzag(property.getMaxCount());
+            } else if (statement instanceof EdgeStatement) {
+                EdgeStatement edge = (EdgeStatement) statement;
+                body.write(NODE_EDGE_STATEMENT);
+                string(edge.getSubject());
+                string(edge.getPredicate());
+                string(edge.getObject());
+                body.zigzag(edge.getMinCount());
+                body.zigzag(edge.getMaxCount());
+            } else {
+                body.write(NODE_PLAIN);
+                body.varint(node.getLabels().size());
+                for (String label : node.getLabels()) {
+                    string(label);
+                }
+                writeProperties(node.getProperties());
+            }
+            writeConstraints(node.getPropertyConstraints());
+        }
+
+        private void writeConstraints(Map<String, PropertyConstraint> constraints) {
+            body.varint(constraints.size());
+            for (Map.Entry<String, PropertyConstraint> entry : constraints.entrySet()) {
+                PropertyConstraint constraint = entry.getValue();
+                string(entry.getKey());
+                string(constraint.getName());
+                string(constraint.getDataType());
+                body.zigzag(constraint.getMinCardinality());
+                body.zigzag(constraint.getMaxCardinality());
+            }
+        }
+
+        private void writeProperties(Map<String, Object> properties) {
+            body.varint(properties.size());
+            for (Map.Entry<String, Object> entry : properties.entrySet()) {
+                string(entry.getKey());
+                Object value = entry.getValue();
+                if (value == null) {
+                    body.write(VALUE_NULL);
+                } else if (value instanceof Integer) {
+                    body.write(VALUE_INT);
+                    body.zigzag((Integer) value);
+                } else if (value instanceof Long) {
+                    body.write(VALUE_LONG);
+                    body.zigzag((Long) value);
+                } else if (value instanceof Boolean) {
+                    body.write(VALUE_BOOLEAN);
+                    body.write((Boolean) value ? 1 : 0);
+                } else if (value instanceof Double) {
+                    body.write(VALUE_DOUBLE);
+                    body.zigzag(Double.doubleToRawLongBits((Double) value));
+                } else {
+                    body.write(VALUE_STRING);
+                    string(value.toString());
+                }
+            }
+        }
+
+        private void position(Map<SchemaNode, Integer> positions, SchemaNode node) {
+            body.varint(node != null ? positions.get(node) + 1 : 0);
+        }
+
+        /** Strings are written as their table index + 1; 0 is null. */
+        private void string(String s) {
+            if (s == null) {
+                body.varint(0);
+                return;
+            }
+            Integer index = strings.get(s);
+            if (index == null) {
+                index = strings.size();
+                strings.put(s, index);
+            }
+            body.varint(index + 1);
+        }
+    }
+
+    /** Decodes a graph body from a buffer positioned at the string table. */
+    private static final class Reader {
+        private final ByteBuffer buffer;
+        private final String[] strings;
+
+        Reader(ByteBuffer buffer) {
+            this.buffer = buffer;
+            this.strings = new String[count()];
+            for (int i = 0; i < strings.length; i++) {
+                byte[] utf8 = new byte[count()];
+                buffer.get(utf8);
+                strings[i] = new String(utf8, StandardCharsets.UTF_8);
+            }
+        }
+
+        SchemaGraph readGraph() {
+            SchemaGraph graph = new SchemaGraph(string(), string());
+            int members = count();
+            int endpoints = count();
+            if ((long) members + endpoints > buffer.remaining()) {
+                throw new IllegalArgumentException((members + endpoints) + " nodes in " +
+                                                   buffer.remaining() + " remaining bytes");
+            }
+            SchemaNode[] nodes = new SchemaNode[members + endpoints];
+            for (int i = 0; i < nodes.length; i++) {
+                nodes[i] = readNode();
+                if (i < members) {
+                    graph.addNode(nodes[i]);
+                }
+            }
+            int edges = count();
+            for (int i = 0; i < edges; i++) {
+                String id = string();
+                String type = string();
+                String label = string();
+                SchemaNode source = node(nodes);
+                SchemaNode target = node(nodes);
+                SchemaEdge edge = new SchemaEdge(id, source, target, type);
+                if (label != null && !label.equals(edge.getLabel())) {
+                    edge.setLabel(label);
+                }
+                readProperties(edge::addProperty);
+                readConstraints(edge::addPropertyConstraint, count());
+                graph.addEdge(edge);
+            }
+            return graph;
+        }
+
+        private SchemaNode readNode() {
+            String id = string();
+            int kind = buffer.get() & 0xFF;
+            SchemaNode node;
+            switch (kind) {
+                case NODE_TYPE_STATEMENT:
+                    node = new StatementNode(id, new TypeStatement(string(), string()));
+                    break;
+                case NODE_PROPERTY_STATEMENT:
+                    node = new StatementNode(id, new PropertyStatement(string(), string(), string(), zigzag(), zigzag()));
+                    break;
+                case NODE_EDGE_STATEMENT:
+                    node = new StatementNode(id, new EdgeStatement(string(), string(), string(), zigzag(), zigzag()));
+                    break;
+                case NODE_PLAIN:
+                    node = new SchemaNode(id);
+                    int labels = count();
+                    for (int i = 0; i < labels; i++) {
+                        node.addLabel(string());
+                    }
+                    readProperties(node::addProperty);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown node kind " + kind);
+            }
+            int constraints = count();
+            if (constraints > 0) {
+                readConstraints(node::addPropertyConstraint, constraints);
+            }
+            return node;
+        }
+
+        private void readConstraints(Consumer<PropertyConstraint> add, int count) {
+            for (int i = 0; i < count; i++) {
+                string(); // map key, the same as the constraint name
+                String name = string();
+                String dataType = string();
+                int min = zigzag();
+                int max = zigzag();
+                add.accept(new PropertyConstraint(name, ConstraintShape.of(dataType, min, max)));
+            }
+        }
+
+        private void readProperties(BiConsumer<String, Object> properties) {
+            int count = count();
+            for (int i = 0; i < count; i++) {
+                String key = string();
+                int tag = buffer.get() & 0xFF;
+                switch (tag) {
+                    case VALUE_NULL: properties.accept(key, null); break;
+                    case VALUE_STRING: properties.accept(key, string()); break;
+                    case VALUE_INT: properties.accept(key, zigzag()); break;
+                    case VALUE_LONG: properties.accept(key, zigzagLong()); break;
+                    case VALUE_BOOLEAN: properties.accept(key, buffer.get() != 0); break;
+                    case VALUE_DOUBLE: properties.accept(key, Double.longBitsToDouble(zigzagLong())); break;
+                    default: throw new IllegalArgumentException("Unknown property value tag " + tag);
+                }
+            }
+        }
+
+        private SchemaNode node(SchemaNode[] nodes) {
+            int position = varint();
+            return position == 0 ? null : nodes[position - 1];
+        }
+
+        private String string() {
+            int index = varint();
+            return index == 0 ? null : strings[index - 1];
+        }
+
+        private int varint() {
+            return (int) varlong();
+        }
+
+        /**
+         * A length or element count. Every element takes at least one byte, so
+         * a count larger than what is left of the file can only come from a
+         * corrupt file; rejecting it here keeps it from sizing an array.
+         */
+        private int count() {
+            long n = varlong();
+            if (n < 0 || n > buffer.remaining()) {
+                throw new IllegalArgumentException("Count " + n + " out of range, " +
+                                                   buffer.remaining() + " bytes remaining");
+            }
+            return (int) n;
+        }
+
+        private int zigzag() {
+            int n = varint();
+            return (n >>> 1) ^ -(n & 1);
+        }
+
+        private long zigzagLong() {
+            long n = varlong();
+            return (n >>> 1) ^ -(n & 1);
+        }
+
+        private long varlong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = buffer.get();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+    }
+
+    /** Growable byte buffer with varint encoding. */
+    private static final class Output {
+        private byte[] bytes = new byte[256];
+        private int size;
+
+        void write(int b) {
+            ensure(1);
+            bytes[size++] = (byte) b;
+        }
+
+        void bytes(byte[] b) {
+            ensure(b.length);
+            System.arraycopy(b, 0, bytes, size, b.length);
+            size += b.length;
+        }
+
+        void varint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void zigzag(int value) {
+            varint(((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL);
+        }
+
+        void zigzag(long value) {
+            varint((value << 1) ^ (value >> 63));
+        }
+
+        ByteBuffer toBuffer() {
+            return ByteBuffer.wrap(bytes, 0, size);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+}
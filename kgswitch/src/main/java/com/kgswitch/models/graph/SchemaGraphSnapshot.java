@@ -0,0 +1,389 @@
+package com.kgswitch.models.graph;
+
+import com.kgswitch.models.constraints.PropertyConstraint;
+import com.kgswitch.util.PersistentHashMap;
+import com.kgswitch.util.PersistentVector;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Immutable version of a {@link SchemaGraph}, made by {@link SchemaGraph#freeze()}.
+ *
+ * All state is held in persistent collections, so a snapshot can be shared
+ * by any number of reader threads with no locking, and {@link #withNode} /
+ * {@link #withEdge} derive a new version that shares everything else with
+ * this one. Nodes and edges come back in the order they were added, as in
+ * SchemaGraph.
+ *
+ * Nodes and edges are copied in as read-only instances (their add methods
+ * throw {@link UnsupportedOperationException}), so changes to the source
+ * graph's nodes and edges after the freeze do not show up here. Property
+ * constraints are copied too; their interned shapes are immutable and shared.
+ */
+public final class SchemaGraphSnapshot {
+    private final String name;
+    private final String namespace;
+    private final PersistentVector<SchemaNode> nodes;
+    private final PersistentHashMap<SchemaNode, Boolean> nodeSet;
+    private final PersistentHashMap<String, SchemaNode> nodeMap;
+    private final PersistentVector<SchemaEdge> edges;
+    private final PersistentHashMap<String, PersistentVector<SchemaEdge>> edgesById;
+
+    // Edge indexes, as in SchemaGraph
+    private final PersistentHashMap<String, PersistentVector<SchemaEdge>> outgoingEdges;
+    private final PersistentHashMap<String, PersistentVector<SchemaEdge>> incomingEdges;
+    private final PersistentHashMap<String, PersistentVector<SchemaEdge>> edgesByType;
+    private final PersistentVector<String> edgeTypes;
+
+    private SchemaGraphSnapshot(String name, String namespace,
+                                PersistentVector<SchemaNode> nodes,
+                                PersistentHashMap<SchemaNode, Boolean> nodeSet,
+                                PersistentHashMap<String, SchemaNode> nodeMap,
+                                PersistentVector<SchemaEdge> edges,
+                                PersistentHashMap<String, PersistentVector<SchemaEdge>> edgesById,
+                                PersistentHashMap<String, PersistentVector<SchemaEdge>> outgoingEdges,
+                                PersistentHashMap<String, PersistentVector<SchemaEdge>> incomingEdges,
+                                PersistentHashMap<String, PersistentVector<SchemaEdge>> edgesByType,
+                                PersistentVector<String> edgeTypes) {
+        this.name = name;
+        this.namespace = namespace;
+        this.nodes = nodes;
+        this.nodeSet = nodeSet;
+        this.nodeMap = nodeMap;
+        this.edges = edges;
+        this.edgesById = edgesById;
+        this.outgoingEdges = outgoingEdges;
+        this.incomingEdges = incomingEdges;
+        this.edgesByType = edgesByType;
+        this.edgeTypes = edgeTypes;
+    }
+
+    /**
+     * @param name The graph name
+     * @param namespace The graph namespace
+     * @return A snapshot with no nodes or edges
+     */
+    public static SchemaGraphSnapshot empty(String name, String namespace) {
+        return new SchemaGraphSnapshot(name, namespace,
+            PersistentVector.empty(), PersistentHashMap.empty(), PersistentHashMap.empty(),
+            PersistentVector.empty(), PersistentHashMap.empty(),
+            PersistentHashMap.empty(), PersistentHashMap.empty(), PersistentHashMap.empty(),
+            PersistentVector.empty());
+    }
+
+    /**
+     * Copy the current contents of a graph. Used by {@link SchemaGraph#freeze()}.
+     */
+    static SchemaGraphSnapshot of(SchemaGraph graph) {
+        // Each source node is copied once, so edges share their endpoints' copies
+        Map<SchemaNode, SchemaNode> frozen = new IdentityHashMap<>();
+        PersistentVector<SchemaNode> nodes = PersistentVector.empty();
+        PersistentHashMap<SchemaNode, Boolean> nodeSet = PersistentHashMap.empty();
+        PersistentHashMap<String, SchemaNode> nodeMap = PersistentHashMap.empty();
+        for (SchemaNode node : graph.getNodes()) {
+            SchemaNode copy = frozen.computeIfAbsent(node, FrozenNode::new);
+            nodes = nodes.plus(copy);
+            nodeSet = nodeSet.plus(copy, Boolean.TRUE);
+            nodeMap = nodeMap.plus(node.getId(), frozen.computeIfAbsent(graph.getNode(node.getId()), FrozenNode::new));
+        }
+
+        PersistentVector<SchemaEdge> edges = PersistentVector.empty();
+        PersistentHashMap<String, PersistentVector<SchemaEdge>> byId = PersistentHashMap.empty();
+        PersistentHashMap<String, PersistentVector<SchemaEdge>> outgoing = PersistentHashMap.empty();
+        PersistentHashMap<String, PersistentVector<SchemaEdge>> incoming = PersistentHashMap.empty();
+        PersistentHashMap<String, PersistentVector<SchemaEdge>> byType = PersistentHashMap.empty();
+        for (SchemaEdge liveEdge : graph.getEdges()) {
+            SchemaEdge edge = new FrozenEdge(liveEdge,
+                liveEdge.getSource() != null ? frozen.computeIfAbsent(liveEdge.getSource(), FrozenNode::new) : null,
+                liveEdge.getTarget() != null ? frozen.computeIfAbsent(liveEdge.getTarget(), FrozenNode::new) : null);
+            edges = edges.plus(edge);
+            byId = append(byId, edge.getId(), edge);
+            if (edge.getSource() != null) {
+                outgoing = append(outgoing, edge.getSource().getId(), edge);
+            }
+            if (edge.getTarget() != null) {
+                incoming = append(incoming, edge.getTarget().getId(), edge);
+            }
+            byType = append(byType, edge.getType(), edge);
+        }
+        PersistentVector<String> types = PersistentVector.empty();
+        for (String type : graph.getEdgeTypes()) {
+            types = types.plus(type);
+        }
+
+        return new SchemaGraphSnapshot(graph.getName(), graph.getNamespace(), nodes, nodeSet, nodeMap,
+                                       edges, byId, outgoing, incoming, byType, types);
+    }
+
+    /**
+     * Like {@link SchemaGraph#addNode}, but the snapshot gets a read-only copy
+     * of the node. A node with the same content as the one its id maps to is
+     * not added again; otherwise the copy is added and the id maps to it.
+     *
+     * @param node The node to add
+     * @return A new snapshot containing the node (this one if nothing changes)
+     */
+    public SchemaGraphSnapshot withNode(SchemaNode node) {
+        SchemaNode current = nodeMap.get(node.getId());
+        if (current != null && (current == node || sameContent(current, node))) {
+            return this;
+        }
+        SchemaNode copy = freeze(node);
+        boolean present = nodeSet.containsKey(copy);
+        return new SchemaGraphSnapshot(name, namespace,
+            present ? nodes : nodes.plus(copy),
+            present ? nodeSet : nodeSet.plus(copy, Boolean.TRUE),
+            nodeMap.plus(copy.getId(), copy),
+            edges, edgesById, outgoingEdges, incomingEdges, edgesByType, edgeTypes);
+    }
+
+    /**
+     * Like {@link SchemaGraph#addEdge}, but the snapshot gets a read-only copy
+     * of the edge. An endpoint with the same content as the snapshot's node
+     * for its id is replaced by that node, and an edge with the same content
+     * and endpoints as one already present is ignored.
+     *
+     * @param edge The edge to add
+     * @return A new snapshot containing the edge (this one if it was already present)
+     */
+    public SchemaGraphSnapshot withEdge(SchemaEdge edge) {
+        SchemaNode source = endpoint(edge.getSource());
+        SchemaNode target = endpoint(edge.getTarget());
+        PersistentVector<SchemaEdge> sameId = edgesById.get(edge.getId());
+        if (sameId != null) {
+            for (int i = 0; i < sameId.size(); i++) {
+                SchemaEdge present = sameId.get(i);
+                if (present == edge || (present.getSource() == source && present.getTarget() == target
+                                        && sameContent(present, edge))) {
+                    return this;
+                }
+            }
+        }
+        edge = new FrozenEdge(edge, source, target);
+        PersistentHashMap<String, PersistentVector<SchemaEdge>> outgoing = outgoingEdges;
+        if (edge.getSource() != null) {
+            outgoing = append(outgoing, edge.getSource().getId(), edge);
+        }
+        PersistentHashMap<String, PersistentVector<SchemaEdge>> incoming = incomingEdges;
+        if (edge.getTarget() != null) {
+            incoming = append(incoming, edge.getTarget().getId(), edge);
+        }
+        PersistentVector<String> types = edgesByType.containsKey(edge.getType())
+            ? edgeTypes : edgeTypes.plus(edge.getType());
+        return new SchemaGraphSnapshot(name, namespace, nodes, nodeSet, nodeMap,
+            edges.plus(edge), append(edgesById, edge.getId(), edge),
+            outgoing, incoming, append(edgesByType, edge.getType(), edge), types);
+    }
+
+    private SchemaNode endpoint(SchemaNode node) {
+        if (node == null) {
+            return null;
+        }
+        SchemaNode current = nodeMap.get(node.getId());
+        if (current != null && (current == node || sameContent(current, node))) {
+            return current;
+        }
+        return freeze(node);
+    }
+
+    private static PersistentHashMap<String, PersistentVector<SchemaEdge>> append(
+            PersistentHashMap<String, PersistentVector<SchemaEdge>> index, String key, SchemaEdge edge) {
+        PersistentVector<SchemaEdge> list = index.get(key);
+        return index.plus(key, (list != null ? list : PersistentVector.<SchemaEdge>empty()).plus(edge));
+    }
+
+    /**
+     * @return A new mutable SchemaGraph with mutable copies of the nodes and edges, in order
+     */
+    public SchemaGraph toSchemaGraph() {
+        SchemaGraph graph = new SchemaGraph(name, namespace);
+        Map<SchemaNode, SchemaNode> thawed = new IdentityHashMap<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            graph.addNode(thawed.computeIfAbsent(nodes.get(i), SchemaGraphSnapshot::thaw));
+        }
+        // addNode maps each id to the node added last; re-point any id the snapshot maps differently
+        for (int i = 0; i < nodes.size(); i++) {
+            SchemaNode node = nodes.get(i);
+            SchemaNode copy = thawed.get(node);
+            if (nodeMap.get(node.getId()) == node && graph.getNode(node.getId()) != copy) {
+                graph.addNode(copy);
+            }
+        }
+        for (int i = 0; i < edges.size(); i++) {
+            SchemaEdge edge = edges.get(i);
+            SchemaEdge copy = new SchemaEdge(edge.getId(),
+                edge.getSource() != null ? thawed.computeIfAbsent(edge.getSource(), SchemaGraphSnapshot::thaw) : null,
+                edge.getTarget() != null ? thawed.computeIfAbsent(edge.getTarget(), SchemaGraphSnapshot::thaw) : null,
+                edge.getType());
+            copy.setLabel(edge.getLabel());
+            edge.getProperties().forEach(copy::addProperty);
+            edge.getPropertyConstraints().values().forEach(c -> copy.addPropertyConstraint(c.copy()));
+            graph.addEdge(copy);
+        }
+        return graph;
+    }
+
+    // Getters
+
+    public String getName() { return name; }
+    public String getNamespace() { return namespace; }
+
+    /**
+     * @return Read-only list of the nodes, in insertion order
+     */
+    public List<SchemaNode> getNodes() { return nodes.asList(); }
+
+    /**
+     * @return Read-only list of the edges, in insertion order
+     */
+    public List<SchemaEdge> getEdges() { return edges.asList(); }
+
+    public SchemaNode getNode(String id) {
+        return nodeMap.get(id);
+    }
+
+    public boolean hasNode(String id) {
+        return nodeMap.containsKey(id);
+    }
+
+    /**
+     * @param nodeId Id of the source node
+     * @return Read-only list of the edges leaving the node, in insertion order
+     */
+    public List<SchemaEdge> getOutgoingEdges(String nodeId) {
+        return asList(outgoingEdges.get(nodeId));
+    }
+
+    /**
+     * @param nodeId Id of the target node
+     * @return Read-only list of the edges entering the node, in insertion order
+     */
+    public List<SchemaEdge> getIncomingEdges(String nodeId) {
+        return asList(incomingEdges.get(nodeId));
+    }
+
+    /**
+     * @param type Edge type (as given to the SchemaEdge, case-sensitive)
+     * @return Read-only list of the edges of that type, in insertion order
+     */
+    public List<SchemaEdge> getEdgesByType(String type) {
+        return asList(edgesByType.get(type));
+    }
+
+    /**
+     * @return Read-only list of the edge types present, in first-seen order
+     */
+    public List<String> getEdgeTypes() {
+        return edgeTypes.asList();
+    }
+
+    private static List<SchemaEdge> asList(PersistentVector<SchemaEdge> edges) {
+        return edges != null ? edges.asList() : Collections.emptyList();
+    }
+
+    // Copies
+
+    private static SchemaNode freeze(SchemaNode node) {
+        return node instanceof FrozenNode ? node : new FrozenNode(node);
+    }
+
+    private static SchemaNode thaw(SchemaNode node) {
+        SchemaNode copy = new SchemaNode(node.getId());
+        node.getLabels().forEach(copy::addLabel);
+        node.getPropertyConstraints().values().forEach(c -> copy.addPropertyConstraint(c.copy()));
+        node.getProperties().forEach(copy::addProperty);
+        return copy;
+    }
+
+    /** Sealed constraints under the same keys, in the same order; the shapes are shared. */
+    private static Map<String, PropertyConstraint> copyConstraints(Map<String, PropertyConstraint> constraints) {
+        Map<String, PropertyConstraint> copy = new LinkedHashMap<>();
+        constraints.forEach((key, constraint) -> copy.put(key, constraint.sealedCopy()));
+        return Collections.unmodifiableMap(copy);
+    }
+
+    private static boolean sameContent(SchemaNode a, SchemaNode b) {
+        return Objects.equals(a.getId(), b.getId())
+            && a.getLabels().equals(b.getLabels())
+            && sameConstraints(a.getPropertyConstraints(), b.getPropertyConstraints())
+            && a.getProperties().equals(b.getProperties());
+    }
+
+    // Endpoints are compared by the caller
+    private static boolean sameContent(SchemaEdge a, SchemaEdge b) {
+        return Objects.equals(a.getId(), b.getId())
+            && Objects.equals(a.getType(), b.getType())
+            && Objects.equals(a.getLabel(), b.getLabel())
+            && sameConstraints(a.getPropertyConstraints(), b.getPropertyConstraints())
+            && a.getProperties().equals(b.getProperties());
+    }
+
+    private static boolean sameConstraints(Map<String, PropertyConstraint> a, Map<String, PropertyConstraint> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (Map.Entry<String, PropertyConstraint> entry : a.entrySet()) {
+            PropertyConstraint other = b.get(entry.getKey());
+            if (other == null || !other.getName().equals(entry.getValue().getName())
+                || !other.getShape().equals(entry.getValue().getShape())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Read-only copy of a node, taken when it enters a snapshot. */
+    private static final class FrozenNode extends SchemaNode {
+        FrozenNode(SchemaNode node) {
+            super(node.getId(),
+                  Collections.unmodifiableSet(new LinkedHashSet<>(node.getLabels())),
+                  copyConstraints(node.getPropertyConstraints()),
+                  Collections.unmodifiableMap(new LinkedHashMap<>(node.getProperties())));
+        }
+
+        @Override
+        public void addLabel(String label) {
+            throw new UnsupportedOperationException("Snapshot nodes are read-only: " + getId());
+        }
+
+        @Override
+        public void addPropertyConstraint(PropertyConstraint constraint) {
+            throw new UnsupportedOperationException("Snapshot nodes are read-only: " + getId());
+        }
+
+        @Override
+        public void addProperty(String key, Object value) {
+            throw new UnsupportedOperationException("Snapshot nodes are read-only: " + getId());
+        }
+    }
+
+    /** Read-only copy of an edge, between read-only endpoints. */
+    private static final class FrozenEdge extends SchemaEdge {
+        FrozenEdge(SchemaEdge edge, SchemaNode source, SchemaNode target) {
+            super(edge.getId(), source, target, edge.getType(), edge.getLabel(),
+                  Collections.unmodifiableMap(new LinkedHashMap<>(edge.getProperties())),
+                  copyConstraints(edge.getPropertyConstraints()));
+        }
+
+        @Override
+        public void setLabel(String label) {
+            throw new UnsupportedOperationException("Snapshot edges are read-only: " + getId());
+        }
+
+        @Override
+        public void addProperty(String key, Object value) {
+            throw new UnsupportedOperationException("Snapshot edges are read-only: " + getId());
+        }
+
+        @Override
+        public void addPropertyConstraint(PropertyConstraint constraint) {
+            throw new UnsupportedOperationException("Snapshot edges are read-only: " + getId());
+        }
+    }
+}
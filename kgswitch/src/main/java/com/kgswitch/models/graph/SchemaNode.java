@@ -1,11 +1,15 @@
 package com.kgswitch.models.graph;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.kgswitch.models.constraints.PropertyConstraint;
+import com.kgswitch.util.ContentHash;
+import com.kgswitch.util.SymbolTable;
 
 public class SchemaNode {
     private String id;
@@ -13,36 +17,122 @@ public class SchemaNode {
     private Map<String, PropertyConstraint> propertyConstraints;
     private Map<String, Object> properties;
 
+    // Cached by contentHash(), cleared by the add methods
+    private long contentHash;
+    private volatile boolean contentHashValid;
+    // Change counters of the graphs holding this node (see SchemaGraph.addContentOwner)
+    private Object contentOwners;
+
     public SchemaNode(String id) {
+        this(id, new HashSet<>(), new HashMap<>(), new HashMap<>()); // Initialize properties
+    }
+
+    /**
+     * For subclasses that keep their own, more compact, state and pass
+     * shared or immutable collections here.
+     */
+    protected SchemaNode(String id, Set<String> labels,
+                         Map<String, PropertyConstraint> propertyConstraints,
+                         Map<String, Object> properties) {
         this.id = id;
-        this.labels = new HashSet<>();
-        this.propertyConstraints = new HashMap<>();
-        this.properties = new HashMap<>(); // Initialize properties
+        this.labels = labels;
+        this.propertyConstraints = propertyConstraints;
+        this.properties = properties;
     }
 
+    /**
+     * @throws UnsupportedOperationException If the node belongs to a read-only
+     *         view: a {@link SchemaGraphSnapshot} or a {@link MappedSchemaGraph}
+     */
     public void addLabel(String label) {
-        labels.add(label);
+        labels.add(SymbolTable.global().intern(label));
+        invalidateContentHash();
     }
 
     public void addPropertyConstraint(PropertyConstraint constraint) {
-        propertyConstraints.put(constraint.getName(), constraint);
+        propertyConstraints.put(constraint.getName(), constraint.sealedCopy());
+        invalidateContentHash();
     }
 
+    /**
+     * @throws UnsupportedOperationException If the node is read-only (see {@link #addLabel})
+     */
     public void addProperty(String key, Object value) {
         properties.put(key, value);
+        invalidateContentHash();
     }
 
     // Getters
+    // Read-only: change the node through the add methods so the content hash stays in step
     public String getId() { return id; }
-    public Set<String> getLabels() { return labels; }
-    public Map<String, PropertyConstraint> getPropertyConstraints() { 
-        return propertyConstraints; 
+    public Set<String> getLabels() { return Collections.unmodifiableSet(labels); }
+    public Map<String, PropertyConstraint> getPropertyConstraints() {
+        return Collections.unmodifiableMap(propertyConstraints);
     }
     public Map<String, Object> getProperties() {
-        return properties;
+        return Collections.unmodifiableMap(properties);
     }
 
     public boolean hasProperty(String propertyName) {
         return properties.containsKey(propertyName);
     }
-}
\ No newline at end of file
+
+    /**
+     * Stable hash of the node's id, labels, property constraints and
+     * properties, independent of their iteration order. Computed on first
+     * use and cached until the node changes, so comparing the hashes of two
+     * nodes tells in O(1) whether they (almost certainly) have the same content.
+     *
+     * @return The node's content hash
+     */
+    public long contentHash() {
+        if (contentHashValid) {
+            return contentHash;
+        }
+        long labelsHash = 0;
+        for (String label : getLabels()) {
+            labelsHash += ContentHash.mix(ContentHash.of(label));
+        }
+        long hash = ContentHash.combine(ContentHash.of(id), labelsHash);
+        hash = ContentHash.combine(hash, constraintsHash(getPropertyConstraints()));
+        hash = ContentHash.combine(hash, propertiesHash(getProperties()));
+        contentHash = hash;
+        contentHashValid = true;
+        return hash;
+    }
+
+    /**
+     * Drop the cached content hash. The add methods call this; subclasses
+     * that change their state some other way must call it too.
+     */
+    protected void invalidateContentHash() {
+        if (contentHashValid) {
+            contentHashValid = false;
+            SchemaGraph.contentChanged(contentOwners);
+        }
+    }
+
+    void addContentOwner(AtomicLong changes) {
+        contentOwners = SchemaGraph.addContentOwner(contentOwners, changes);
+    }
+
+    /** Order-independent hash of a constraint map (also used for edges). */
+    static long constraintsHash(Map<String, PropertyConstraint> constraints) {
+        long hash = ContentHash.of(constraints.size());
+        for (Map.Entry<String, PropertyConstraint> entry : constraints.entrySet()) {
+            hash += ContentHash.mix(ContentHash.combine(ContentHash.of(entry.getKey()), entry.getValue().contentHash()));
+        }
+        return hash;
+    }
+
+    /** Order-independent hash of a property map, values by their string form (also used for edges). */
+    static long propertiesHash(Map<String, Object> properties) {
+        long hash = ContentHash.of(properties.size());
+        for (Map.Entry<String, Object> entry : properties.entrySet()) {
+            Object value = entry.getValue();
+            hash += ContentHash.mix(ContentHash.combine(ContentHash.of(entry.getKey()),
+                ContentHash.of(value != null ? value.toString() : null)));
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,237 @@
+package com.kgswitch.models.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.kgswitch.models.statements.EdgeStatement;
+import com.kgswitch.models.statements.PropertyStatement;
+import com.kgswitch.models.statements.Statement;
+import com.kgswitch.models.statements.StatementNode;
+import com.kgswitch.models.statements.TypeStatement;
+
+/**
+ * Lookup index over a statement graph, whose nodes are statements labelled
+ * with their kind (TypeStatement, PropertyStatement, EdgeStatement) and
+ * carrying "subject", "predicate" and "object" properties.
+ *
+ * Statements are indexed by kind up front. The subject, predicate and object
+ * indexes within a kind (the SPO/POS/OSP permutations) are each built on the
+ * first pattern that binds that position, so a pattern such as
+ * (kind=PropertyStatement, subject=?) is answered without scanning the graph
+ * while callers that only look up by kind never pay for them. A null pattern
+ * position is a wildcard. Results come back in graph order.
+ *
+ * The index is a snapshot: statements added to the graph afterwards are not seen.
+ */
+public class StatementIndex {
+    public static final String TYPE_STATEMENT = TypeStatement.KIND;
+    public static final String PROPERTY_STATEMENT = PropertyStatement.KIND;
+    public static final String EDGE_STATEMENT = EdgeStatement.KIND;
+
+    private final List<SchemaNode> statements;
+    private final Map<SchemaNode, Integer> ordinals;
+    private final Map<String, List<SchemaNode>> byKind;
+    // Built on first use by positionIndex
+    private volatile Map<String, Map<String, List<SchemaNode>>> bySubject;
+    private volatile Map<String, Map<String, List<SchemaNode>>> byPredicate;
+    private volatile Map<String, Map<String, List<SchemaNode>>> byObject;
+    private final Map<String, List<SchemaNode>> byKey;
+
+    public StatementIndex(SchemaGraph statementGraph) {
+        this.statements = new ArrayList<>(statementGraph.getNodes());
+        this.ordinals = new IdentityHashMap<>();
+        this.byKind = new HashMap<>();
+        this.byKey = new HashMap<>();
+
+        for (SchemaNode statement : statements) {
+            ordinals.put(statement, ordinals.size());
+            for (String kind : statement.getLabels()) {
+                byKind.computeIfAbsent(kind, k -> new ArrayList<>()).add(statement);
+            }
+        }
+    }
+
+    private Map<String, Map<String, List<SchemaNode>>> positionIndex(String key) {
+        Map<String, Map<String, List<SchemaNode>>> index =
+            "subject".equals(key) ? bySubject : "predicate".equals(key) ? byPredicate : byObject;
+        if (index != null) {
+            return index;
+        }
+        synchronized (this) {
+            index = "subject".equals(key) ? bySubject : "predicate".equals(key) ? byPredicate : byObject;
+            if (index == null) {
+                index = new HashMap<>();
+                for (Map.Entry<String, List<SchemaNode>> kind : byKind.entrySet()) {
+                    for (SchemaNode statement : kind.getValue()) {
+                        put(index, kind.getKey(), value(statement, key), statement);
+                    }
+                }
+                if ("subject".equals(key)) {
+                    bySubject = index;
+                } else if ("predicate".equals(key)) {
+                    byPredicate = index;
+                } else {
+                    byObject = index;
+                }
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Statements matching a pattern. The most selective bound position is
+     * looked up; the others are checked on the (usually short) candidate list.
+     *
+     * @param kind Statement kind (node label), or null for any
+     * @param subject Subject value, or null for any
+     * @param predicate Predicate value, or null for any
+     * @param object Object value, or null for any
+     * @return Read-only list of the matching statements, in graph order
+     */
+    public List<SchemaNode> find(String kind, String subject, String predicate, String object) {
+        if (kind == null) {
+            if (subject == null && predicate == null && object == null) {
+                return Collections.unmodifiableList(statements);
+            }
+            // No kind bound: look in every kind, then restore graph order
+            List<List<SchemaNode>> perKind = new ArrayList<>();
+            for (String k : byKind.keySet()) {
+                perKind.add(find(k, subject, predicate, object));
+            }
+            return Collections.unmodifiableList(union(perKind));
+        }
+
+        List<SchemaNode> candidates = byKind.get(kind);
+        if (subject != null) {
+            candidates = smaller(candidates, lookup(positionIndex("subject"), kind, subject));
+        }
+        if (predicate != null) {
+            candidates = smaller(candidates, lookup(positionIndex("predicate"), kind, predicate));
+        }
+        if (object != null) {
+            candidates = smaller(candidates, lookup(positionIndex("object"), kind, object));
+        }
+        if (candidates == null || candidates.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<SchemaNode> matches = new ArrayList<>();
+        for (SchemaNode statement : candidates) {
+            if (matches(statement, "subject", subject) &&
+                matches(statement, "predicate", predicate) &&
+                matches(statement, "object", object)) {
+                matches.add(statement);
+            }
+        }
+        return Collections.unmodifiableList(matches);
+    }
+
+    /**
+     * @param kind Statement kind (node label)
+     * @return Read-only list of the statements of that kind, in graph order
+     */
+    public List<SchemaNode> find(String kind) {
+        return readOnly(byKind.get(kind));
+    }
+
+    /**
+     * @param key A statement property key
+     * @return Read-only list of the statements carrying that property, in graph order
+     */
+    public List<SchemaNode> findWithProperty(String key) {
+        // Rarely used, so built on first request for each key
+        return readOnly(byKey.computeIfAbsent(key, k -> {
+            List<SchemaNode> found = new ArrayList<>();
+            for (SchemaNode statement : statements) {
+                if (statement.hasProperty(k)) {
+                    found.add(statement);
+                }
+            }
+            return found;
+        }));
+    }
+
+    /**
+     * Merge lookup results into one list without duplicates, in graph order.
+     *
+     * @param results Results of earlier lookups on this index
+     * @return The merged statements
+     */
+    @SafeVarargs
+    public final List<SchemaNode> union(List<SchemaNode>... results) {
+        return union(Arrays.asList(results));
+    }
+
+    private List<SchemaNode> union(List<List<SchemaNode>> results) {
+        Map<SchemaNode, Boolean> seen = new IdentityHashMap<>();
+        List<SchemaNode> merged = new ArrayList<>();
+        for (List<SchemaNode> result : results) {
+            for (SchemaNode statement : result) {
+                if (seen.put(statement, Boolean.TRUE) == null) {
+                    merged.add(statement);
+                }
+            }
+        }
+        merged.sort((a, b) -> Integer.compare(ordinals.get(a), ordinals.get(b)));
+        return merged;
+    }
+
+    public int size() {
+        return statements.size();
+    }
+
+    private static void put(Map<String, Map<String, List<SchemaNode>>> index,
+                            String kind, String value, SchemaNode statement) {
+        if (value == null) {
+            return;
+        }
+        index.computeIfAbsent(kind, k -> new HashMap<>())
+             .computeIfAbsent(value, v -> new ArrayList<>())
+             .add(statement);
+    }
+
+    private static List<SchemaNode> lookup(Map<String, Map<String, List<SchemaNode>>> index,
+                                           String kind, String value) {
+        Map<String, List<SchemaNode>> byValue = index.get(kind);
+        if (byValue == null) {
+            return Collections.emptyList();
+        }
+        List<SchemaNode> found = byValue.get(value);
+        return found != null ? found : Collections.emptyList();
+    }
+
+    private static List<SchemaNode> smaller(List<SchemaNode> a, List<SchemaNode> b) {
+        if (a == null) {
+            return b;
+        }
+        return b.size() < a.size() ? b : a;
+    }
+
+    private static boolean matches(SchemaNode statement, String key, String expected) {
+        return expected == null || expected.equals(value(statement, key));
+    }
+
+    private static String value(SchemaNode statement, String key) {
+        Statement typed = statement instanceof StatementNode ? ((StatementNode) statement).getStatement() : null;
+        if (typed != null) {
+            // Read the typed statement rather than materializing its property map
+            switch (key) {
+                case "subject": return typed.getSubject();
+                case "predicate": return typed.getPredicate();
+                case "object": return typed.getObject();
+                default: break;
+            }
+        }
+        Object value = statement.getProperties().get(key);
+        return value != null ? value.toString() : null;
+    }
+
+    private static List<SchemaNode> readOnly(List<SchemaNode> statements) {
+        return statements != null ? Collections.unmodifiableList(statements) : Collections.emptyList();
+    }
+}
@@ -0,0 +1,57 @@
+package com.kgswitch.models.statements;
+
+import java.util.Map;
+
+/**
+ * States a relationship between two nodes: (subject, predicate, object) with a cardinality.
+ * Properties of the relationship travel as property constraints on the {@link StatementNode}.
+ */
+public final class EdgeStatement extends Statement {
+    public static final String KIND = "EdgeStatement";
+
+    private final String object;
+    private final int minCount;
+    private final int maxCount;
+
+    /**
+     * @param subject The source node
+     * @param predicate The relationship type
+     * @param object The target node
+     * @param minCount Minimum cardinality, or {@link Statement#UNSET}
+     * @param maxCount Maximum cardinality (-1 for unbounded), or {@link Statement#UNSET}
+     */
+    public EdgeStatement(String subject, String predicate, String object, int minCount, int maxCount) {
+        super(subject, predicate);
+        this.object = intern(object);
+        this.minCount = minCount;
+        this.maxCount = maxCount;
+    }
+
+    @Override
+    public String getKind() { return KIND; }
+
+    @Override
+    public String getObject() { return object; }
+
+    public int getMinCount() { return minCount; }
+    public int getMaxCount() { return maxCount; }
+    public boolean hasMinCount() { return minCount != UNSET; }
+    public boolean hasMaxCount() { return maxCount != UNSET; }
+
+    @Override
+    public boolean hasProperty(String key) {
+        return super.hasProperty(key) ||
+               ("object".equals(key) && object != null) ||
+               ("minCount".equals(key) && hasMinCount()) ||
+               ("maxCount".equals(key) && hasMaxCount());
+    }
+
+    @Override
+    public Map<String, Object> toProperties() {
+        Map<String, Object> properties = super.toProperties();
+        putIfSet(properties, "object", object);
+        putIfSet(properties, "minCount", minCount);
+        putIfSet(properties, "maxCount", maxCount);
+        return properties;
+    }
+}
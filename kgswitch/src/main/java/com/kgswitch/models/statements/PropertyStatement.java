@@ -0,0 +1,54 @@
+package com.kgswitch.models.statements;
+
+import java.util.Map;
+
+/**
+ * States that a node has a property: (subject, predicate, datatype) with a cardinality.
+ */
+public final class PropertyStatement extends Statement {
+    public static final String KIND = "PropertyStatement";
+
+    private final String datatype;
+    private final int minCount;
+    private final int maxCount;
+
+    /**
+     * @param subject The node the property belongs to
+     * @param predicate The property name
+     * @param datatype The datatype IRI, or null
+     * @param minCount Minimum cardinality, or {@link Statement#UNSET}
+     * @param maxCount Maximum cardinality (-1 for unbounded), or {@link Statement#UNSET}
+     */
+    public PropertyStatement(String subject, String predicate, String datatype, int minCount, int maxCount) {
+        super(subject, predicate);
+        this.datatype = intern(datatype);
+        this.minCount = minCount;
+        this.maxCount = maxCount;
+    }
+
+    @Override
+    public String getKind() { return KIND; }
+
+    public String getDatatype() { return datatype; }
+    public int getMinCount() { return minCount; }
+    public int getMaxCount() { return maxCount; }
+    public boolean hasMinCount() { return minCount != UNSET; }
+    public boolean hasMaxCount() { return maxCount != UNSET; }
+
+    @Override
+    public boolean hasProperty(String key) {
+        return super.hasProperty(key) ||
+               ("datatype".equals(key) && datatype != null) ||
+               ("minCount".equals(key) && hasMinCount()) ||
+               ("maxCount".equals(key) && hasMaxCount());
+    }
+
+    @Override
+    public Map<String, Object> toProperties() {
+        Map<String, Object> properties = super.toProperties();
+        putIfSet(properties, "datatype", datatype);
+        putIfSet(properties, "minCount", minCount);
+        putIfSet(properties, "maxCount", maxCount);
+        return properties;
+    }
+}
@@ -0,0 +1,82 @@
+package com.kgswitch.models.statements;
+
+import com.kgswitch.util.SymbolTable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A statement of the intermediate statement graph, as a compact immutable
+ * record: IRIs and names are interned in the {@link SymbolTable}, cardinalities
+ * are primitive ints.
+ *
+ * {@link StatementNode} adapts a statement to the {@code SchemaNode} API,
+ * where it appears with its kind as label and its fields under the
+ * "subject", "predicate", "object", "datatype", "minCount" and "maxCount"
+ * property keys.
+ */
+public abstract class Statement {
+    /** Cardinality value of a statement that does not state one */
+    public static final int UNSET = Integer.MIN_VALUE;
+
+    private final String subject;
+    private final String predicate;
+
+    protected Statement(String subject, String predicate) {
+        this.subject = intern(subject);
+        this.predicate = intern(predicate);
+    }
+
+    /**
+     * @return The statement kind, used as the node label ("TypeStatement", ...)
+     */
+    public abstract String getKind();
+
+    public String getSubject() { return subject; }
+    public String getPredicate() { return predicate; }
+
+    /**
+     * @return The object, or null if this kind of statement has none
+     */
+    public String getObject() { return null; }
+
+    /**
+     * @param key A property key of the SchemaNode view
+     * @return Whether the SchemaNode view carries that key
+     */
+    public boolean hasProperty(String key) {
+        return ("subject".equals(key) && subject != null) ||
+               ("predicate".equals(key) && predicate != null);
+    }
+
+    /**
+     * @return The fields as the property map of the SchemaNode view; cardinalities as Strings
+     */
+    public Map<String, Object> toProperties() {
+        Map<String, Object> properties = new HashMap<>();
+        putIfSet(properties, "subject", subject);
+        putIfSet(properties, "predicate", predicate);
+        return properties;
+    }
+
+    protected static void putIfSet(Map<String, Object> properties, String key, String value) {
+        if (value != null) {
+            properties.put(key, value);
+        }
+    }
+
+    protected static void putIfSet(Map<String, Object> properties, String key, int count) {
+        if (count != UNSET) {
+            properties.put(key, String.valueOf(count));
+        }
+    }
+
+    protected static String intern(String value) {
+        return SymbolTable.global().intern(value);
+    }
+
+    @Override
+    public String toString() {
+        return getKind() + toProperties();
+    }
+}
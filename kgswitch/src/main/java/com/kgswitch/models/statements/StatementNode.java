@@ -0,0 +1,151 @@
+package com.kgswitch.models.statements;
+
+import com.kgswitch.models.constraints.PropertyConstraint;
+import com.kgswitch.models.graph.SchemaNode;
+import com.kgswitch.util.SymbolTable;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Adapts a typed {@link Statement} to the {@link SchemaNode} API, so statement
+ * graphs keep working with code that reads labels and property maps.
+ *
+ * The node holds only the statement: its label set is the statement kind and
+ * its property map is built from the statement on first read. Property
+ * constraints are only allocated for edge statements, which carry the
+ * relationship's properties.
+ *
+ * {@link #addLabel} and {@link #addProperty} still work: the first change
+ * copies the labels and properties into maps of the node's own, and from then
+ * on the node is read through them like a hand-built SchemaNode
+ * ({@link #getStatement()} returns null).
+ *
+ * The static {@code as...} methods go the other way and give the typed
+ * statement for any statement node, decoding hand-built (or changed) nodes
+ * from their property maps.
+ */
+public class StatementNode extends SchemaNode {
+    private final Statement statement;
+    // Built on first read; toProperties() is deterministic, so threads racing
+    // to build it publish equal immutable maps
+    private volatile Map<String, Object> propertiesView;
+    // Copies made by the first addLabel/addProperty
+    private Set<String> ownLabels;
+    private Map<String, Object> ownProperties;
+
+    public StatementNode(String id, Statement statement) {
+        super(id, Collections.singleton(statement.getKind()),
+              statement instanceof EdgeStatement
+                  ? new HashMap<String, PropertyConstraint>()
+                  : Collections.<String, PropertyConstraint>emptyMap(),
+              null);
+        this.statement = statement;
+    }
+
+    /**
+     * @return The node's statement, or null once the node has been changed
+     *         through {@link #addLabel} or {@link #addProperty}
+     */
+    public Statement getStatement() {
+        return ownProperties == null ? statement : null;
+    }
+
+    @Override
+    public void addLabel(String label) {
+        copyOnWrite();
+        ownLabels.add(SymbolTable.global().intern(label));
+        invalidateContentHash();
+    }
+
+    @Override
+    public void addProperty(String key, Object value) {
+        copyOnWrite();
+        ownProperties.put(key, value);
+        invalidateContentHash();
+    }
+
+    private void copyOnWrite() {
+        if (ownProperties == null) {
+            ownLabels = new LinkedHashSet<>(super.getLabels());
+            ownProperties = new HashMap<>(statement.toProperties());
+        }
+    }
+
+    @Override
+    public Set<String> getLabels() {
+        return ownLabels != null ? Collections.unmodifiableSet(ownLabels) : super.getLabels();
+    }
+
+    @Override
+    public Map<String, Object> getProperties() {
+        if (ownProperties != null) {
+            return Collections.unmodifiableMap(ownProperties);
+        }
+        Map<String, Object> view = propertiesView;
+        if (view == null) {
+            view = Collections.unmodifiableMap(statement.toProperties());
+            propertiesView = view;
+        }
+        return view;
+    }
+
+    @Override
+    public boolean hasProperty(String propertyName) {
+        return ownProperties != null ? ownProperties.containsKey(propertyName)
+                                     : statement.hasProperty(propertyName);
+    }
+
+    /**
+     * @param node A statement node, typed or hand-built
+     * @return The node's statement read as a type statement
+     */
+    public static TypeStatement asTypeStatement(SchemaNode node) {
+        if (node instanceof StatementNode && ((StatementNode) node).getStatement() instanceof TypeStatement) {
+            return (TypeStatement) ((StatementNode) node).getStatement();
+        }
+        Map<String, Object> p = node.getProperties();
+        return new TypeStatement(string(p, "subject"), string(p, "predicate"), string(p, "object"));
+    }
+
+    /**
+     * @param node A statement node, typed or hand-built
+     * @return The node's statement read as a property statement
+     * @throws NumberFormatException If a hand-built node has a non-numeric cardinality
+     */
+    public static PropertyStatement asPropertyStatement(SchemaNode node) {
+        if (node instanceof StatementNode && ((StatementNode) node).getStatement() instanceof PropertyStatement) {
+            return (PropertyStatement) ((StatementNode) node).getStatement();
+        }
+        Map<String, Object> p = node.getProperties();
+        return new PropertyStatement(string(p, "subject"), string(p, "predicate"), string(p, "datatype"),
+                                     count(p, "minCount"), count(p, "maxCount"));
+    }
+
+    /**
+     * @param node A statement node, typed or hand-built
+     * @return The node's statement read as an edge statement
+     * @throws NumberFormatException If a hand-built node has a non-numeric cardinality
+     */
+    public static EdgeStatement asEdgeStatement(SchemaNode node) {
+        if (node instanceof StatementNode && ((StatementNode) node).getStatement() instanceof EdgeStatement) {
+            return (EdgeStatement) ((StatementNode) node).getStatement();
+        }
+        Map<String, Object> p = node.getProperties();
+        return new EdgeStatement(string(p, "subject"), string(p, "predicate"), string(p, "object"),
+                                 count(p, "minCount"), count(p, "maxCount"));
+    }
+
+    private static String string(Map<String, Object> properties, String key) {
+        Object value = properties.get(key);
+        return value != null ? value.toString() : null;
+    }
+
+    private static int count(Map<String, Object> properties, String key) {
+        Object value = properties.get(key);
+        return value != null ? Integer.parseInt(value.toString()) : Statement.UNSET;
+    }
+}
@@ -0,0 +1,40 @@
+package com.kgswitch.models.statements;
+
+import java.util.Map;
+
+/**
+ * States that a node has a type: (subject, "type", object).
+ */
+public final class TypeStatement extends Statement {
+    public static final String KIND = "TypeStatement";
+
+    private final String object;
+
+    public TypeStatement(String subject, String object) {
+        super(subject, "type");
+        this.object = intern(object);
+    }
+
+    TypeStatement(String subject, String predicate, String object) {
+        super(subject, predicate);
+        this.object = intern(object);
+    }
+
+    @Override
+    public String getKind() { return KIND; }
+
+    @Override
+    public String getObject() { return object; }
+
+    @Override
+    public boolean hasProperty(String key) {
+        return super.hasProperty(key) || ("object".equals(key) && object != null);
+    }
+
+    @Override
+    public Map<String, Object> toProperties() {
+        Map<String, Object> properties = super.toProperties();
+        putIfSet(properties, "object", object);
+        return properties;
+    }
+}
@@ -0,0 +1,136 @@
+package com.kgswitch.transforms.pg;
+
+import com.kgswitch.models.constraints.PropertyConstraint;
+import com.kgswitch.models.graph.SchemaEdge;
+import com.kgswitch.models.graph.SchemaGraph;
+import com.kgswitch.models.graph.SchemaNode;
+import com.kgswitch.util.SymbolTable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the PG schema from NodeShapes for the fused pipeline. The staged
+ * pipeline turns the shapes into an RDF statement graph, copies that into a
+ * PG statement graph ({@link PGSchemaToStatementTransformer}) and then builds
+ * the PG schema from the statements ({@link PGStatementToSchemaTransformer}),
+ * with an index over the statements. This builder applies the same mapping
+ * without any of the intermediate graphs, statements or indexes, and the
+ * schema it builds is the same as the staged one.
+ *
+ * While the shapes are traversed, each NodeShape gets a node to collect its
+ * property constraints and each relationship is recorded. {@link #build()}
+ * then makes one pass over those, because a relationship's properties can be
+ * defined by compound property names on any class.
+ */
+public class PGSchemaBuilder {
+    private final List<SchemaNode> shapeNodes;
+    private final List<SchemaEdge> relationships;
+    private final SymbolTable symbols = SymbolTable.global();
+
+    public PGSchemaBuilder() {
+        this.shapeNodes = new ArrayList<>();
+        this.relationships = new ArrayList<>();
+    }
+
+    /**
+     * Add the node for a NodeShape's target class.
+     *
+     * @param id The class's local name
+     * @param label The class name
+     * @return The node to add the shape's property constraints to
+     */
+    public SchemaNode addNode(String id, String label) {
+        SchemaNode node = new SchemaNode(id);
+        node.addLabel(label);
+        shapeNodes.add(node);
+        return node;
+    }
+
+    /**
+     * Add a relationship in the form the RDF statement graph has it: typed
+     * with the upper-cased property name, between nodes returned by
+     * {@link #addNode}, with its cardinality in "minCount" and "maxCount"
+     * properties.
+     *
+     * @param relationship The relationship
+     */
+    public void addEdge(SchemaEdge relationship) {
+        relationships.add(relationship);
+    }
+
+    /**
+     * Build the PG schema from the nodes and relationships added so far.
+     *
+     * @return The PG schema
+     */
+    public SchemaGraph build() {
+        SchemaGraph pgSchema = new SchemaGraph("pgschema");
+        Map<String, SchemaNode> nodes = new HashMap<>();
+
+        // Shapes that target the same class share one node
+        for (SchemaNode shapeNode : shapeNodes) {
+            for (String label : shapeNode.getLabels()) {
+                nodes.computeIfAbsent(shapeNode.getId(), id -> {
+                    SchemaNode node = new SchemaNode(id);
+                    pgSchema.addNode(node);
+                    return node;
+                }).addLabel(label);
+            }
+        }
+
+        RelationshipProperties<PropertyConstraint> relationshipProperties = new RelationshipProperties<>();
+        for (SchemaNode shapeNode : shapeNodes) {
+            SchemaNode node = nodes.get(shapeNode.getId());
+            for (Map.Entry<String, PropertyConstraint> entry : shapeNode.getPropertyConstraints().entrySet()) {
+                PropertyConstraint constraint = entry.getValue();
+                relationshipProperties.add(shapeNode.getId(), entry.getKey(), constraint);
+                if (node != null) {
+                    node.addPropertyConstraint(renamed(constraint, entry.getKey()));
+                }
+            }
+        }
+
+        for (SchemaEdge relationship : relationships) {
+            String source = relationship.getSource().getId();
+            String target = relationship.getTarget().getId();
+            SchemaNode sourceNode = nodes.get(source);
+            SchemaNode targetNode = nodes.get(target);
+            if (sourceNode == null || targetNode == null) {
+                continue;
+            }
+
+            String type = PGStatementToSchemaTransformer.removePrefix(symbols.lowerCase(relationship.getType()));
+            SchemaEdge edge = new SchemaEdge(source + "_" + type + "_" + target, sourceNode, targetNode, type);
+            relationship.getPropertyConstraints().values().forEach(edge::addPropertyConstraint);
+            if (relationship.hasProperty("minCount")) {
+                edge.addProperty("minCount", cardinality(relationship, "minCount"));
+            }
+            if (relationship.hasProperty("maxCount")) {
+                edge.addProperty("maxCount", cardinality(relationship, "maxCount"));
+            }
+
+            for (RelationshipProperties.Match<PropertyConstraint> match : relationshipProperties.resolve(type)) {
+                edge.addPropertyConstraint(new PropertyConstraint(
+                    PGStatementToSchemaTransformer.removePrefix(match.value.getName()), match.value.getShape()));
+            }
+            pgSchema.addEdge(edge);
+        }
+        return pgSchema;
+    }
+
+    /** The constraint under its PG name; shape nodes are dropped after the build, so it can be shared. */
+    private static PropertyConstraint renamed(PropertyConstraint constraint, String name) {
+        String pgName = PGStatementToSchemaTransformer.removePrefix(name);
+        if (pgName.equals(constraint.getName())) {
+            return constraint;
+        }
+        return new PropertyConstraint(pgName, constraint.getShape());
+    }
+
+    private static String cardinality(SchemaEdge relationship, String key) {
+        return String.valueOf(Integer.parseInt(relationship.getProperty(key).toString()));
+    }
+}
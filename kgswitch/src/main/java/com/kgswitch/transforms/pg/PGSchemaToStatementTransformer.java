@@ -4,12 +4,22 @@ import com.kgswitch.models.graph.SchemaGraph;
 import com.kgswitch.models.graph.SchemaNode;
 import com.kgswitch.models.graph.SchemaEdge;
 import com.kgswitch.models.constraints.PropertyConstraint;
+import com.kgswitch.models.statements.EdgeStatement;
+import com.kgswitch.models.statements.PropertyStatement;
+import com.kgswitch.models.statements.Statement;
+import com.kgswitch.models.statements.StatementNode;
+import com.kgswitch.models.statements.TypeStatement;
+import com.kgswitch.util.SymbolTable;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 public class PGSchemaToStatementTransformer {
     private final SchemaGraph pgSchema;
     private final SchemaGraph statementGraph;
     private final Map<String, SchemaNode> nodeStatements;
+    private int parallelism = 1;
+    // Created on the first parallel run and reused by later ones
+    private ForkJoinPool workers;
     
     public PGSchemaToStatementTransformer(SchemaGraph pgSchema) {
         this.pgSchema = pgSchema;
@@ -17,79 +27,153 @@ public class PGSchemaToStatementTransformer {
         this.nodeStatements = new HashMap<>();
     }
     
+    /**
+     * Set how many threads create statements. With more than one thread the
+     * nodes and edges are partitioned by subject id and the partitions are
+     * processed on a ForkJoin pool; the statements are then added to the
+     * statement graph in the same order as in a sequential run.
+     *
+     * @param parallelism Number of worker threads (1 = sequential)
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    private ForkJoinPool workers() {
+        workers = SubjectPartitions.pool(workers, parallelism);
+        return workers;
+    }
+
     public SchemaGraph transformToStatementGraph() {
+        if (parallelism > 1) {
+            return transformInParallel();
+        }
+
         // Ccreate type statements for all nodes
         for (SchemaNode node : pgSchema.getNodes()) {
-            createTypeStatements(node);
+            addTypeStatements(node, createTypeStatements(node));
         }
         
         // Create property statements
         for (SchemaNode node : pgSchema.getNodes()) {
-            createPropertyStatements(node);
+            addAll(createPropertyStatements(node));
         }
         
         // Create relationship statements
         for (SchemaEdge edge : pgSchema.getEdges()) {
-            processEdge(edge, statementGraph);
+            statementGraph.addNode(createEdgeStatement(edge));
         }
         
         return statementGraph;
     }
+
+    /**
+     * Nodes are partitioned by id and edges by source id; each partition
+     * creates its statements, which are then added in node and edge order:
+     * type statements, property statements, then relationship statements.
+     */
+    private SchemaGraph transformInParallel() {
+        List<SchemaNode> nodes = new ArrayList<>(pgSchema.getNodes());
+        List<SchemaEdge> edges = new ArrayList<>(pgSchema.getEdges());
+
+        SubjectPartitions nodesById = new SubjectPartitions();
+        for (int i = 0; i < nodes.size(); i++) {
+            nodesById.add(nodes.get(i).getId(), i);
+        }
+        SubjectPartitions edgesBySource = new SubjectPartitions();
+        for (int i = 0; i < edges.size(); i++) {
+            edgesBySource.add(edges.get(i).getSource().getId(), i);
+        }
+
+        List<List<SchemaNode>> typeStatements = new ArrayList<>(Collections.nCopies(nodes.size(), null));
+        List<List<SchemaNode>> propertyStatements = new ArrayList<>(Collections.nCopies(nodes.size(), null));
+        nodesById.process(workers(), (id, positions) -> {
+            for (int position : positions) {
+                typeStatements.set(position, createTypeStatements(nodes.get(position)));
+                propertyStatements.set(position, createPropertyStatements(nodes.get(position)));
+            }
+        });
+        SchemaNode[] edgeStatements = new SchemaNode[edges.size()];
+        edgesBySource.process(workers(), (source, positions) -> {
+            for (int position : positions) {
+                edgeStatements[position] = createEdgeStatement(edges.get(position));
+            }
+        });
+
+        for (int i = 0; i < nodes.size(); i++) {
+            addTypeStatements(nodes.get(i), typeStatements.get(i));
+        }
+        propertyStatements.forEach(this::addAll);
+        for (SchemaNode statement : edgeStatements) {
+            statementGraph.addNode(statement);
+        }
+        return statementGraph;
+    }
+
+    private void addTypeStatements(SchemaNode node, List<SchemaNode> statements) {
+        for (SchemaNode typeStatement : statements) {
+            statementGraph.addNode(typeStatement);
+            nodeStatements.put(node.getId(), typeStatement);
+        }
+    }
+
+    private void addAll(List<SchemaNode> statements) {
+        for (SchemaNode statement : statements) {
+            statementGraph.addNode(statement);
+        }
+    }
     
-    private void createTypeStatements(SchemaNode node) {
+    private List<SchemaNode> createTypeStatements(SchemaNode node) {
+        List<SchemaNode> statements = new ArrayList<>(node.getLabels().size());
         for (String label : node.getLabels()) {
-            SchemaNode typeStatement = new SchemaNode("type_stmt_" + node.getId());
-            typeStatement.addLabel("TypeStatement");
-            typeStatement.addProperty("subject", node.getId());
-            typeStatement.addProperty("predicate", "type");
-            typeStatement.addProperty("object", "http://schema.org/" + label);
+            SchemaNode typeStatement = new StatementNode("type_stmt_" + node.getId(),
+                new TypeStatement(node.getId(), "http://schema.org/" + label));
             
-            statementGraph.addNode(typeStatement);
-            nodeStatements.put(node.getId(), typeStatement);
+            statements.add(typeStatement);
         }
+        return statements;
     }
     
-    private void createPropertyStatements(SchemaNode node) {
+    private List<SchemaNode> createPropertyStatements(SchemaNode node) {
+        List<SchemaNode> statements = new ArrayList<>(node.getPropertyConstraints().size());
         for (Map.Entry<String, PropertyConstraint> entry : 
              node.getPropertyConstraints().entrySet()) {
             String propertyName = entry.getKey();
             PropertyConstraint constraint = entry.getValue();
             
-            SchemaNode propertyStatement = new SchemaNode(
-                "prop_stmt_" + node.getId() + "_" + propertyName);
-            propertyStatement.addLabel("PropertyStatement");
-            propertyStatement.addProperty("subject", node.getId());
-            propertyStatement.addProperty("predicate", propertyName);
-            propertyStatement.addProperty("datatype", constraint.getDataType());
-            propertyStatement.addProperty("minCount", 
-                String.valueOf(constraint.getMinCardinality()));
-            propertyStatement.addProperty("maxCount", 
-                String.valueOf(constraint.getMaxCardinality()));
+            SchemaNode propertyStatement = new StatementNode(
+                "prop_stmt_" + node.getId() + "_" + propertyName,
+                new PropertyStatement(node.getId(), propertyName, constraint.getDataType(),
+                                      constraint.getMinCardinality(), constraint.getMaxCardinality()));
             
-            statementGraph.addNode(propertyStatement);
+            statements.add(propertyStatement);
         }
+        return statements;
     }
     
-    private void processEdge(SchemaEdge edge, SchemaGraph statementGraph) {
-        SchemaNode statement = new SchemaNode("rel_" + edge.getSource().getId() + "_" + edge.getType().toLowerCase());
-        statement.addLabel("EdgeStatement");
-        
-        statement.addProperty("predicate", edge.getType().toLowerCase());
-        statement.addProperty("subject", edge.getSource().getId());
-        statement.addProperty("object", edge.getTarget().getId());
+    private SchemaNode createEdgeStatement(SchemaEdge edge) {
+        String predicate = SymbolTable.global().lowerCase(edge.getType());
+        int minCount = edge.hasProperty("minCount")
+            ? Integer.parseInt(edge.getProperty("minCount").toString()) : Statement.UNSET;
+        int maxCount = edge.hasProperty("maxCount")
+            ? Integer.parseInt(edge.getProperty("maxCount").toString()) : Statement.UNSET;
         
-        if (edge.hasProperty("minCount")) {
-            statement.addProperty("minCount", edge.getProperty("minCount").toString());
-        }
-        if (edge.hasProperty("maxCount")) {
-            statement.addProperty("maxCount", edge.getProperty("maxCount").toString());
-        }
+        SchemaNode statement = new StatementNode("rel_" + edge.getSource().getId() + "_" + predicate,
+            new EdgeStatement(edge.getSource().getId(), predicate, edge.getTarget().getId(),
+                              minCount, maxCount));
         
         // property constraints transfer
         edge.getPropertyConstraints().forEach((key, constraint) -> {
             statement.addPropertyConstraint(constraint);
         });
         
-        statementGraph.addNode(statement);
+        return statement;
     }
 }
\ No newline at end of file
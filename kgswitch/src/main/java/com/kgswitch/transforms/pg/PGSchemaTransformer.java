@@ -1,133 +1,191 @@
 package com.kgswitch.transforms.pg;
 
+import com.kgswitch.models.constraints.ConstraintShape;
 import com.kgswitch.models.constraints.PropertyConstraint;
 import com.kgswitch.models.graph.SchemaEdge;
 import com.kgswitch.models.graph.SchemaGraph;
 import com.kgswitch.models.graph.SchemaNode;
+import com.kgswitch.models.statements.EdgeStatement;
+import com.kgswitch.models.statements.PropertyStatement;
+import com.kgswitch.models.statements.StatementNode;
+import com.kgswitch.models.statements.TypeStatement;
+import com.kgswitch.util.SymbolTable;
 
 import java.util.*;
 
+/**
+ * Builds a PG schema from a statement graph. One pass over the statements
+ * sorts them into per-kind buckets and groups the property statements by
+ * subject; nodes, node properties and edges are then created from the
+ * buckets, and an edge finds its relationship properties with one lookup in
+ * the subject groups, so the whole transform is linear in the number of
+ * statements.
+ */
 public class PGSchemaTransformer {
+    private boolean trace = false;
+
+    /**
+     * Print a line for every statement processed. Off by default, as the
+     * output dominates the run time on large schemas.
+     *
+     * @param trace Whether to trace statement processing
+     */
+    public void setTrace(boolean trace) {
+        this.trace = trace;
+    }
+
     public SchemaGraph transformToPGSchema(SchemaGraph statementGraph) {
         SchemaGraph pgSchema = new SchemaGraph("pg", "pg");
+        StatementBuckets buckets = new StatementBuckets(statementGraph);
         
         // Process nodes first
-        for (SchemaNode node : statementGraph.getNodes()) {
-            if (node.getLabels().contains("TypeStatement")) {
-                processTypeStatement(node, pgSchema);
-            }
+        for (SchemaNode node : buckets.types) {
+            processTypeStatement(node, pgSchema);
         }
         
         // Process property statements
-        for (SchemaNode node : statementGraph.getNodes()) {
-            if (node.getLabels().contains("PropertyStatement")) {
-                processPropertyStatement(node, pgSchema);
-            }
+        for (PropertyStatement property : buckets.properties) {
+            processPropertyStatement(property, pgSchema);
         }
         
         // Process edge statements
-        for (SchemaNode node : statementGraph.getNodes()) {
-            if (node.getLabels().contains("EdgeStatement")) {
-                processEdgeStatement(node, pgSchema, statementGraph);
-            }
+        for (SchemaNode node : buckets.edges) {
+            processEdgeStatement(node, pgSchema, buckets);
         }
         
         return pgSchema;
     }
 
+    /**
+     * The statements of a graph sorted by kind in one pass, in graph order,
+     * with the property statements also grouped by subject. A statement
+     * labelled with several kinds goes into each of their buckets.
+     */
+    private static final class StatementBuckets {
+        final List<SchemaNode> types = new ArrayList<>();
+        final List<PropertyStatement> properties = new ArrayList<>();
+        final List<SchemaNode> edges = new ArrayList<>();
+        final Map<String, List<PropertyStatement>> propertiesBySubject = new HashMap<>();
+
+        StatementBuckets(SchemaGraph statementGraph) {
+            for (SchemaNode statement : statementGraph.getNodes()) {
+                for (String kind : statement.getLabels()) {
+                    if (TypeStatement.KIND.equals(kind)) {
+                        types.add(statement);
+                    } else if (PropertyStatement.KIND.equals(kind)) {
+                        PropertyStatement property = StatementNode.asPropertyStatement(statement);
+                        properties.add(property);
+                        if (property.getSubject() != null) {
+                            propertiesBySubject.computeIfAbsent(property.getSubject(), s -> new ArrayList<>())
+                                               .add(property);
+                        }
+                    } else if (EdgeStatement.KIND.equals(kind)) {
+                        edges.add(statement);
+                    }
+                }
+            }
+        }
+
+        List<PropertyStatement> propertiesOf(String subject) {
+            List<PropertyStatement> found = propertiesBySubject.get(subject);
+            return found != null ? found : Collections.emptyList();
+        }
+    }
+
     private void processTypeStatement(SchemaNode statement, SchemaGraph pgSchema) {
-        String subject = statement.getProperties().get("subject").toString();
-        String object = statement.getProperties().get("object").toString();
+        TypeStatement typeStatement = StatementNode.asTypeStatement(statement);
+        String subject = typeStatement.getSubject();
+        String object = typeStatement.getObject();
         
         SchemaNode node = new SchemaNode(subject);
         node.addLabel(object);
         pgSchema.addNode(node);
         
-        System.out.println("Created node: " + subject + " with label: " + object);
+        if (trace) {
+            System.out.println("Created node: " + subject + " with label: " + object);
+        }
     }
 
-    private void processPropertyStatement(SchemaNode statement, SchemaGraph pgSchema) {
-        String subject = statement.getProperties().get("subject").toString();
-        String predicate = statement.getProperties().get("predicate").toString();
-        String datatype = statement.getProperties().get("datatype").toString();
-        datatype = convertDataType(datatype);
+    private void processPropertyStatement(PropertyStatement propertyStatement, SchemaGraph pgSchema) {
+        String subject = propertyStatement.getSubject();
+        String predicate = propertyStatement.getPredicate();
+        String datatype = convertDataType(propertyStatement.getDatatype());
         
         SchemaNode node = pgSchema.getNode(subject);
         if (node != null) {
             PropertyConstraint constraint = new PropertyConstraint(predicate, datatype);
             
             // Set cardinality if present
-            if (statement.getProperties().containsKey("minCount") && 
-                statement.getProperties().containsKey("maxCount")) {
-                int minCount = Integer.parseInt(statement.getProperties().get("minCount").toString());
-                int maxCount = Integer.parseInt(statement.getProperties().get("maxCount").toString());
-                constraint.setCardinality(minCount, maxCount);
+            if (propertyStatement.hasMinCount() && propertyStatement.hasMaxCount()) {
+                constraint.setCardinality(propertyStatement.getMinCount(), propertyStatement.getMaxCount());
             }
             
             node.addPropertyConstraint(constraint);
         }
     }
 
-    private void processEdgeStatement(SchemaNode statement, SchemaGraph pgSchema, SchemaGraph statementGraph) {
-        String source = statement.getProperties().get("subject").toString();
-        String predicate = statement.getProperties().get("predicate").toString();
-        String target = statement.getProperties().get("object").toString();
+    private void processEdgeStatement(SchemaNode statement, SchemaGraph pgSchema, StatementBuckets buckets) {
+        EdgeStatement edgeStatement = StatementNode.asEdgeStatement(statement);
+        String source = edgeStatement.getSubject();
+        String predicate = edgeStatement.getPredicate();
+        String target = edgeStatement.getObject();
         
         SchemaNode sourceNode = pgSchema.getNode(source);
         SchemaNode targetNode = pgSchema.getNode(target);
 
         if (sourceNode != null && targetNode != null) {
-            System.out.println("\nDEBUG: Processing edge statement for: " + predicate);
-            System.out.println("Statement Properties: " + statement.getProperties());
-            System.out.println("Statement Property Constraints: " + statement.getPropertyConstraints());
+            if (trace) {
+                System.out.println("\nDEBUG: Processing edge statement for: " + predicate);
+                System.out.println("Statement Properties: " + edgeStatement);
+                System.out.println("Statement Property Constraints: " + statement.getPropertyConstraints());
+            }
 
             SchemaEdge edge = new SchemaEdge(
                 source + "_" + predicate + "_" + target,
                 sourceNode,
                 targetNode,
-                predicate.toUpperCase()
+                SymbolTable.global().upperCase(predicate)
             );
 
             // Transfer property constraints from the statement
             statement.getPropertyConstraints().forEach((key, constraint) -> {
-                System.out.println("Adding property constraint: " + key + " to edge: " + predicate);
+                if (trace) {
+                    System.out.println("Adding property constraint: " + key + " to edge: " + predicate);
+                }
                 edge.addPropertyConstraint(constraint);
             });
 
             // Add cardinality for the relationship itself
-            if (statement.getProperties().containsKey("minCount")) {
-                edge.addProperty("minCount", statement.getProperties().get("minCount").toString());
+            if (edgeStatement.hasMinCount()) {
+                edge.addProperty("minCount", String.valueOf(edgeStatement.getMinCount()));
             }
-            if (statement.getProperties().containsKey("maxCount")) {
-                edge.addProperty("maxCount", statement.getProperties().get("maxCount").toString());
+            if (edgeStatement.hasMaxCount()) {
+                edge.addProperty("maxCount", String.valueOf(edgeStatement.getMaxCount()));
             }
 
-            // Look for related property statements that define relationship properties
-            for (SchemaNode node : statementGraph.getNodes()) {
-                if (node.getLabels().contains("PropertyStatement") && 
-                    node.getProperties().containsKey("subject") &&
-                    node.getProperties().get("subject").toString().equals(predicate)) {
-                    
-                    String propertyName = node.getProperties().get("predicate").toString();
-                    String dataType = node.getProperties().get("datatype").toString();
-                    
+            // Property statements whose subject is the relationship define its properties
+            for (PropertyStatement property : buckets.propertiesOf(predicate)) {
+                String propertyName = property.getPredicate();
+                String dataType = property.getDatatype();
+                
+                if (trace) {
                     System.out.println("Found relationship property: " + propertyName + " for edge: " + predicate);
-                    
-                    PropertyConstraint constraint = new PropertyConstraint(propertyName, mapDataType(dataType));
-                    if (node.getProperties().containsKey("minCount")) {
-                        int minCount = Integer.parseInt(node.getProperties().get("minCount").toString());
-                        int maxCount = node.getProperties().containsKey("maxCount") ? 
-                            Integer.parseInt(node.getProperties().get("maxCount").toString()) : -1;
-                        constraint.setCardinality(minCount, maxCount);
-                    }
-                    
-                    edge.addPropertyConstraint(constraint);
                 }
+                
+                PropertyConstraint constraint = new PropertyConstraint(propertyName, mapDataType(dataType));
+                if (property.hasMinCount()) {
+                    int maxCount = property.hasMaxCount() ? property.getMaxCount() : -1;
+                    constraint.setCardinality(property.getMinCount(), maxCount);
+                }
+                
+                edge.addPropertyConstraint(constraint);
             }
             
             pgSchema.addEdge(edge);
-            System.out.println("Added edge: " + edge.getLabel() + " with " + 
-                             edge.getPropertyConstraints().size() + " property constraints");
+            if (trace) {
+                System.out.println("Added edge: " + edge.getLabel() + " with " + 
+                                 edge.getPropertyConstraints().size() + " property constraints");
+            }
         }
     }
 
@@ -151,9 +209,8 @@ public class PGSchemaTransformer {
             PropertyConstraint pc = entry.getValue();
             PropertyConstraint newPc = new PropertyConstraint(
                 entry.getKey(),
-                mapDataType(pc.getDataType())
+                ConstraintShape.of(mapDataType(pc.getDataType()), pc.getMinCardinality(), pc.getMaxCardinality())
             );
-            newPc.setCardinality(pc.getMinCardinality(), pc.getMaxCardinality());
             pgNode.addPropertyConstraint(newPc);
         }
         
@@ -2,31 +2,86 @@ package com.kgswitch.transforms.pg;
 
 import com.kgswitch.models.graph.*;
 import com.kgswitch.models.constraints.PropertyConstraint;
+import com.kgswitch.models.statements.EdgeStatement;
+import com.kgswitch.models.statements.PropertyStatement;
+import com.kgswitch.models.statements.StatementNode;
+import com.kgswitch.models.statements.TypeStatement;
+import com.kgswitch.util.SymbolTable;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 public class PGStatementToSchemaTransformer {
     private final SchemaGraph statementGraph;
     private Map<String, SchemaNode> nodeMap;
+    private StatementIndex index;
+    private int parallelism = 1;
+    // Created on the first parallel run and reused by later ones
+    private ForkJoinPool workers;
+    private boolean trace = false;
 
     public PGStatementToSchemaTransformer(SchemaGraph statementGraph) {
         this.statementGraph = statementGraph;
         this.nodeMap = new HashMap<>();
     }
 
+    /**
+     * Set how many threads build the schema. With more than one thread the
+     * statements are partitioned by subject and the partitions are processed
+     * on a ForkJoin pool; nodes and edges are then added to the schema in the
+     * same order as in a sequential run, so the output is the same.
+     *
+     * @param parallelism Number of worker threads (1 = sequential)
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    private ForkJoinPool workers() {
+        workers = SubjectPartitions.pool(workers, parallelism);
+        return workers;
+    }
+
+    /**
+     * Print a line for every statement processed. Off by default: the output
+     * dominates the run time on large schemas, and in parallel mode the
+     * worker threads would all wait on System.out.
+     *
+     * @param trace Whether to trace statement processing
+     */
+    public void setTrace(boolean trace) {
+        this.trace = trace;
+    }
+
     public SchemaGraph transformToPGSchema() {
         SchemaGraph pgSchema = new SchemaGraph("pgschema");
         
         System.out.println("Starting PG Schema transformation with " + statementGraph.getNodes().size() + " nodes");
+        index = new StatementIndex(statementGraph);
         
-        processTypeStatements(pgSchema);
-        System.out.println("After type statements: " + pgSchema.getNodes().size() + " nodes");
-        
-        processPropertyStatements();
-        System.out.println("After property statements: " + pgSchema.getNodes().size() + " nodes");
-        
-        processRelationshipStatements(pgSchema);
-        System.out.println("After relationship statements: " + pgSchema.getNodes().size() + " nodes");
+        if (parallelism > 1) {
+            processNodesInParallel(pgSchema);
+            System.out.println("After type and property statements: " + pgSchema.getNodes().size() + " nodes");
+            
+            processRelationshipsInParallel(pgSchema);
+            System.out.println("After relationship statements: " + pgSchema.getNodes().size() + " nodes");
+        } else {
+            processTypeStatements(pgSchema);
+            System.out.println("After type statements: " + pgSchema.getNodes().size() + " nodes");
+            
+            processPropertyStatements();
+            System.out.println("After property statements: " + pgSchema.getNodes().size() + " nodes");
+            
+            processRelationshipStatements(pgSchema);
+            System.out.println("After relationship statements: " + pgSchema.getNodes().size() + " nodes");
+        }
         
         System.out.println("Final node map size: " + nodeMap.size());
         System.out.println("Final schema nodes: " + pgSchema.getNodes().size());
@@ -34,176 +89,257 @@ public class PGStatementToSchemaTransformer {
         return pgSchema;
     }
 
+    // Statements labelled TypeStatement, or carrying a "type" entry
+    private List<SchemaNode> typeStatements() {
+        return index.union(index.find(StatementIndex.TYPE_STATEMENT), index.findWithProperty("type"));
+    }
+
     private void processTypeStatements(SchemaGraph pgSchema) {
-        for (SchemaNode statement : statementGraph.getNodes()) {
-            // Debug the statement content
+        for (SchemaNode statement : typeStatements()) {
+            TypeStatement typeStatement = StatementNode.asTypeStatement(statement);
+            SchemaNode node = nodeMap.computeIfAbsent(typeStatement.getSubject(), k -> {
+                SchemaNode newNode = new SchemaNode(k);
+                pgSchema.addNode(newNode);  // Make sure this is called
+                return newNode;
+            });
+            addLabel(node, statement, typeStatement);
+        }
+    }
+
+    private void addLabel(SchemaNode node, SchemaNode statement, TypeStatement typeStatement) {
+        // Debug the statement content
+        if (trace) {
             System.out.println("Processing statement: " + statement.getId());
             System.out.println("Labels: " + statement.getLabels());
-            System.out.println("Properties: " + statement.getProperties());
-
-            // The issue might be here - check if we're correctly identifying TypeStatements
-            if (statement.getLabels().contains("TypeStatement") || 
-                statement.hasProperty("type")) {  // Add this condition
-                String subject = statement.getProperties().get("subject").toString();
-                String type = statement.getProperties().get("object").toString();
-                
-                // Remove http://schema.org/ prefix from the type
-                type = removePrefix(type);
-                
-                SchemaNode node = nodeMap.computeIfAbsent(subject, k -> {
-                    SchemaNode newNode = new SchemaNode(k);
-                    pgSchema.addNode(newNode);  // Make sure this is called
-                    return newNode;
-                });
-                
-                node.addLabel(type);
-                System.out.println("Created node: " + node.getId() + " with label: " + type);
-            }
+            System.out.println("Statement: " + typeStatement);
+        }
+
+        // Remove http://schema.org/ prefix from the type
+        String type = removePrefix(typeStatement.getObject());
+        
+        node.addLabel(type);
+        if (trace) {
+            System.out.println("Created node: " + node.getId() + " with label: " + type);
         }
     }
     
-    // Helper method to remove prefixes from URIs
-    private String removePrefix(String uri) {
+    // Helper method to remove prefixes from URIs (also used by PGSchemaBuilder)
+    static String removePrefix(String uri) {
+        SymbolTable symbols = SymbolTable.global();
         if (uri.startsWith("http://schema.org/")) {
-            return uri.substring("http://schema.org/".length());
+            return symbols.intern(uri.substring("http://schema.org/".length()));
         }
         
-        if (uri.contains("#")) {
-            return uri.substring(uri.lastIndexOf("#") + 1);
+        // Local name after the last '#', else the last '/' (cached per IRI)
+        return symbols.localName(uri);
+    }
+
+    private void processPropertyStatements() {
+        for (SchemaNode statement : index.find(StatementIndex.PROPERTY_STATEMENT)) {
+            PropertyStatement propertyStatement = StatementNode.asPropertyStatement(statement);
+            SchemaNode node = nodeMap.get(propertyStatement.getSubject());
+            if (node != null) {
+                addPropertyConstraint(node, propertyStatement);
+            }
         }
+    }
+
+    private void addPropertyConstraint(SchemaNode node, PropertyStatement propertyStatement) {
+        // Remove prefix from predicate
+        String predicate = removePrefix(propertyStatement.getPredicate());
+        PropertyConstraint constraint = new PropertyConstraint(predicate, propertyStatement.getDatatype());
         
-        if (uri.contains("/")) {
-            return uri.substring(uri.lastIndexOf("/") + 1);
+        if (propertyStatement.hasMinCount() && propertyStatement.hasMaxCount()) {
+            constraint.setCardinality(propertyStatement.getMinCount(), propertyStatement.getMaxCount());
         }
         
-        return uri;
+        node.addPropertyConstraint(constraint);
     }
 
-    private void processPropertyStatements() {
-        for (SchemaNode statement : statementGraph.getNodes()) {
-            if (statement.getLabels().contains("PropertyStatement")) {
-                String subject = statement.getProperties().get("subject").toString();
-                String predicate = statement.getProperties().get("predicate").toString();
-                String datatype = statement.getProperties().get("datatype").toString();
-                
-                // Remove prefix from predicate
-                predicate = removePrefix(predicate);
-                
-                SchemaNode node = nodeMap.get(subject);
-                if (node != null) {
-                    PropertyConstraint constraint = new PropertyConstraint(predicate, datatype);
-                    
-                    int minCount = Integer.parseInt(
-                        statement.getProperties().get("minCount").toString());
-                    int maxCount = Integer.parseInt(
-                        statement.getProperties().get("maxCount").toString());
-                    constraint.setCardinality(minCount, maxCount);
-                    
-                    node.addPropertyConstraint(constraint);
+    /**
+     * Parallel counterpart of {@link #processTypeStatements} and
+     * {@link #processPropertyStatements}: the statements are partitioned by
+     * subject, and each partition builds its subject's node from its type
+     * statements and then adds its property statements. The nodes are added
+     * to the schema in the order of their first type statement.
+     */
+    private void processNodesInParallel(SchemaGraph pgSchema) {
+        List<SchemaNode> typeStatements = typeStatements();
+        List<SchemaNode> propertyStatements = index.find(StatementIndex.PROPERTY_STATEMENT);
+        int types = typeStatements.size();
+        TypeStatement[] typed = new TypeStatement[types];
+        PropertyStatement[] properties = new PropertyStatement[propertyStatements.size()];
+
+        // Positions: type statements first, then property statements
+        SubjectPartitions bySubject = new SubjectPartitions();
+        for (int i = 0; i < types; i++) {
+            typed[i] = StatementNode.asTypeStatement(typeStatements.get(i));
+            bySubject.add(typed[i].getSubject(), i);
+        }
+        for (int i = 0; i < properties.length; i++) {
+            properties[i] = StatementNode.asPropertyStatement(propertyStatements.get(i));
+            bySubject.add(properties[i].getSubject(), types + i);
+        }
+
+        // Each node is stored at the position of its subject's first type statement
+        SchemaNode[] nodes = new SchemaNode[types];
+        bySubject.process(workers(), (subject, positions) -> {
+            SchemaNode node = null;
+            for (int position : positions) {
+                if (position < types) {
+                    if (node == null) {
+                        node = new SchemaNode(subject);
+                        nodes[position] = node;
+                    }
+                    addLabel(node, typeStatements.get(position), typed[position]);
+                } else if (node != null) {
+                    addPropertyConstraint(node, properties[position - types]);
                 }
             }
+        });
+
+        for (SchemaNode node : nodes) {
+            if (node != null) {
+                nodeMap.put(node.getId(), node);
+                pgSchema.addNode(node);
+            }
         }
     }
 
+    private RelationshipProperties<PropertyStatement> relationshipProperties() {
+        RelationshipProperties<PropertyStatement> relationshipProperties = new RelationshipProperties<>();
+        for (SchemaNode statement : index.find(StatementIndex.PROPERTY_STATEMENT)) {
+            PropertyStatement propertyStatement = StatementNode.asPropertyStatement(statement);
+            relationshipProperties.add(propertyStatement.getSubject(), propertyStatement.getPredicate(),
+                                       propertyStatement);
+        }
+        return relationshipProperties;
+    }
+
     private void processRelationshipStatements(SchemaGraph pgSchema) {
-        for (SchemaNode statement : statementGraph.getNodes()) {
-            if (statement.getLabels().contains("EdgeStatement")) {
-                String source = statement.getProperties().get("subject").toString();
-                String target = statement.getProperties().get("object").toString();
-                String relationship = statement.getProperties().get("predicate").toString();
-                
-                // Remove prefix from relationship type
-                relationship = removePrefix(relationship);
-                
-                SchemaNode sourceNode = nodeMap.get(source);
-                SchemaNode targetNode = nodeMap.get(target);
-                
-                if (sourceNode != null && targetNode != null) {
-                    SchemaEdge edge = new SchemaEdge(
-                        source + "_" + relationship + "_" + target,
-                        sourceNode,
-                        targetNode,
-                        relationship
-                    );
-
-                    // Transfer property constraints from the statement
-                    statement.getPropertyConstraints().forEach((key, constraint) -> {
-                        System.out.println("Transferring property constraint from statement: " + key);
-                        edge.addPropertyConstraint(constraint);
-                    });
-
-                    // Transfer cardinality if present
-                    if (statement.getProperties().containsKey("minCount")) {
-                        edge.addProperty("minCount", statement.getProperties().get("minCount").toString());
-                    }
-                    if (statement.getProperties().containsKey("maxCount")) {
-                        edge.addProperty("maxCount", statement.getProperties().get("maxCount").toString());
-                    }
+        RelationshipProperties<PropertyStatement> relationshipProperties = relationshipProperties();
+        for (SchemaNode statement : index.find(StatementIndex.EDGE_STATEMENT)) {
+            SchemaEdge edge = createEdge(statement, StatementNode.asEdgeStatement(statement), relationshipProperties);
+            if (edge != null) {
+                addEdge(pgSchema, edge);
+            }
+        }
+    }
 
-                    // Look for related property statements that define relationship properties
-                    for (SchemaNode propStatement : statementGraph.getNodes()) {
-                        // Check if this is a property statement for a relationship
-                        if (propStatement.getLabels().contains("PropertyStatement") &&
-                            propStatement.getProperties().containsKey("subject") &&
-                            propStatement.getProperties().get("subject").toString().equals(relationship)) {
-                            
-                            String propertyName = propStatement.getProperties().get("predicate").toString();
-                            // Remove prefix from property name
-                            propertyName = removePrefix(propertyName);
-                            
-                            String dataType = propStatement.getProperties().get("datatype").toString();
-                            
-                            System.out.println("Found relationship property statement: " + propertyName);
-                            
-                            PropertyConstraint constraint = new PropertyConstraint(propertyName, dataType);
-                            
-                            // Set cardinality if present
-                            if (propStatement.getProperties().containsKey("minCount") && 
-                                propStatement.getProperties().containsKey("maxCount")) {
-                                int minCount = Integer.parseInt(propStatement.getProperties().get("minCount").toString());
-                                int maxCount = Integer.parseInt(propStatement.getProperties().get("maxCount").toString());
-                                constraint.setCardinality(minCount, maxCount);
-                            }
-                            
-                            edge.addPropertyConstraint(constraint);
-                            System.out.println("Added property constraint to edge: " + propertyName);
-                        }
-                        
-                        // NEW CODE: Also check for property statements that might be related to this relationship
-                        // This handles the case where relationship properties are defined with a compound name
-                        // like "relationshipName_propertyName"
-                        if (propStatement.getLabels().contains("PropertyStatement") &&
-                            propStatement.getProperties().containsKey("predicate") &&
-                            propStatement.getProperties().get("predicate").toString().startsWith(relationship + "_")) {
-                            
-                            String propertyName = propStatement.getProperties().get("predicate").toString();
-                            // Remove prefix from property name
-                            propertyName = removePrefix(propertyName);
-                            
-                            String dataType = propStatement.getProperties().get("datatype").toString();
-                            
-                            System.out.println("Found compound relationship property: " + propertyName);
-                            
-                            PropertyConstraint constraint = new PropertyConstraint(propertyName, dataType);
-                            
-                            // Set cardinality if present
-                            if (propStatement.getProperties().containsKey("minCount") && 
-                                propStatement.getProperties().containsKey("maxCount")) {
-                                int minCount = Integer.parseInt(propStatement.getProperties().get("minCount").toString());
-                                int maxCount = Integer.parseInt(propStatement.getProperties().get("maxCount").toString());
-                                constraint.setCardinality(minCount, maxCount);
-                            }
-                            
-                            edge.addPropertyConstraint(constraint);
-                            System.out.println("Added compound property constraint to edge: " + propertyName);
-                        }
-                    }
-                    
-                    pgSchema.addEdge(edge);
-                    System.out.println("Added edge with " + edge.getPropertyConstraints().size() + 
-                                     " property constraints: " + edge.getPropertyConstraints().keySet());
+    /**
+     * Parallel counterpart of {@link #processRelationshipStatements}: the edge
+     * statements are partitioned by subject (the source node) and each
+     * partition creates its edges, which are added to the schema in statement
+     * order.
+     */
+    private void processRelationshipsInParallel(SchemaGraph pgSchema) {
+        RelationshipProperties<PropertyStatement> relationshipProperties = relationshipProperties();
+        List<SchemaNode> edgeStatements = index.find(StatementIndex.EDGE_STATEMENT);
+        EdgeStatement[] typed = new EdgeStatement[edgeStatements.size()];
+        SubjectPartitions bySubject = new SubjectPartitions();
+        for (int i = 0; i < typed.length; i++) {
+            typed[i] = StatementNode.asEdgeStatement(edgeStatements.get(i));
+            bySubject.add(typed[i].getSubject(), i);
+        }
+
+        SchemaEdge[] edges = new SchemaEdge[typed.length];
+        bySubject.process(workers(), (subject, positions) -> {
+            for (int position : positions) {
+                edges[position] = createEdge(edgeStatements.get(position), typed[position], relationshipProperties);
+            }
+        });
+
+        for (SchemaEdge edge : edges) {
+            if (edge != null) {
+                addEdge(pgSchema, edge);
+            }
+        }
+    }
+
+    private void addEdge(SchemaGraph pgSchema, SchemaEdge edge) {
+        pgSchema.addEdge(edge);
+        if (trace) {
+            System.out.println("Added edge with " + edge.getPropertyConstraints().size() + 
+                             " property constraints: " + edge.getPropertyConstraints().keySet());
+        }
+    }
+
+    /**
+     * @return The edge for the statement, or null if its source or target has no node
+     */
+    private SchemaEdge createEdge(SchemaNode statement, EdgeStatement edgeStatement,
+                                  RelationshipProperties<PropertyStatement> relationshipProperties) {
+        String source = edgeStatement.getSubject();
+        String target = edgeStatement.getObject();
+        String relationship = edgeStatement.getPredicate();
+        
+        // Remove prefix from relationship type
+        relationship = removePrefix(relationship);
+        
+        SchemaNode sourceNode = nodeMap.get(source);
+        SchemaNode targetNode = nodeMap.get(target);
+        
+        if (sourceNode == null || targetNode == null) {
+            return null;
+        }
+        SchemaEdge edge = new SchemaEdge(
+            source + "_" + relationship + "_" + target,
+            sourceNode,
+            targetNode,
+            relationship
+        );
+
+        // Transfer property constraints from the statement
+        statement.getPropertyConstraints().forEach((key, constraint) -> {
+            if (trace) {
+                System.out.println("Transferring property constraint from statement: " + key);
+            }
+            edge.addPropertyConstraint(constraint);
+        });
+
+        // Transfer cardinality if present
+        if (edgeStatement.hasMinCount()) {
+            edge.addProperty("minCount", String.valueOf(edgeStatement.getMinCount()));
+        }
+        if (edgeStatement.hasMaxCount()) {
+            edge.addProperty("maxCount", String.valueOf(edgeStatement.getMaxCount()));
+        }
+
+        // Property statements that define relationship properties, in statement order
+        for (RelationshipProperties.Match<PropertyStatement> match :
+                 relationshipProperties.resolve(relationship)) {
+            PropertyStatement propStatement = match.value;
+            String propertyName = propStatement.getPredicate();
+            // Remove prefix from property name
+            propertyName = removePrefix(propertyName);
+            
+            String dataType = propStatement.getDatatype();
+            
+            if (trace) {
+                if (match.compound) {
+                    // Properties defined with a compound name like "relationshipName_propertyName"
+                    System.out.println("Found compound relationship property: " + propertyName);
+                } else {
+                    System.out.println("Found relationship property statement: " + propertyName);
+                }
+            }
+            
+            PropertyConstraint constraint = new PropertyConstraint(propertyName, dataType);
+            
+            // Set cardinality if present
+            if (propStatement.hasMinCount() && propStatement.hasMaxCount()) {
+                constraint.setCardinality(propStatement.getMinCount(), propStatement.getMaxCount());
+            }
+            
+            edge.addPropertyConstraint(constraint);
+            if (trace) {
+                if (match.compound) {
+                    System.out.println("Added compound property constraint to edge: " + propertyName);
+                } else {
+                    System.out.println("Added property constraint to edge: " + propertyName);
                 }
             }
         }
+        return edge;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,84 @@
+package com.kgswitch.transforms.pg;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Property definitions grouped, as they are added, by subject and by every
+ * compound-name prefix of their predicate (the part before each '_').
+ * A relationship's properties are the definitions whose subject is the
+ * relationship name, plus those whose predicate starts with
+ * "relationshipName_".
+ *
+ * @param <T> What a definition carries (a property statement, or a constraint)
+ */
+final class RelationshipProperties<T> {
+    /** A definition that belongs to a relationship, and how it was matched. */
+    static final class Match<T> {
+        final int position;
+        final T value;
+        final boolean compound;
+
+        Match(int position, T value, boolean compound) {
+            this.position = position;
+            this.value = value;
+            this.compound = compound;
+        }
+    }
+
+    private final Map<String, List<Match<T>>> bySubject = new HashMap<>();
+    private final Map<String, List<Match<T>>> byPrefix = new HashMap<>();
+    private int size;
+
+    /**
+     * @param subject The definition's subject, or null
+     * @param predicate The definition's (possibly compound) property name, or null
+     * @param value What to hand back when the definition matches
+     */
+    void add(String subject, String predicate, T value) {
+        int position = size++;
+        if (subject != null) {
+            bySubject.computeIfAbsent(subject, k -> new ArrayList<>())
+                .add(new Match<>(position, value, false));
+        }
+        if (predicate != null) {
+            Match<T> compound = new Match<>(position, value, true);
+            for (int underscore = predicate.indexOf('_'); underscore >= 0;
+                 underscore = predicate.indexOf('_', underscore + 1)) {
+                byPrefix.computeIfAbsent(predicate.substring(0, underscore), k -> new ArrayList<>())
+                    .add(compound);
+            }
+        }
+    }
+
+    /**
+     * @param relationship The relationship name (prefix removed)
+     * @return The matching definitions in the order they were added; one matching both ways
+     *         comes first as a subject match, then as a compound match
+     */
+    List<Match<T>> resolve(String relationship) {
+        List<Match<T>> subjects = bySubject.getOrDefault(relationship, Collections.emptyList());
+        List<Match<T>> prefixes = byPrefix.getOrDefault(relationship, Collections.emptyList());
+        if (prefixes.isEmpty()) {
+            return subjects;
+        }
+        if (subjects.isEmpty()) {
+            return prefixes;
+        }
+        List<Match<T>> merged = new ArrayList<>(subjects.size() + prefixes.size());
+        int s = 0;
+        int p = 0;
+        while (s < subjects.size() || p < prefixes.size()) {
+            if (p == prefixes.size() ||
+                (s < subjects.size() && subjects.get(s).position <= prefixes.get(p).position)) {
+                merged.add(subjects.get(s++));
+            } else {
+                merged.add(prefixes.get(p++));
+            }
+        }
+        return merged;
+    }
+}
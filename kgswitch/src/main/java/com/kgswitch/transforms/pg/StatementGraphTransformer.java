@@ -54,15 +54,8 @@ public class StatementGraphTransformer {
                 
                 // Copy property constraints
                 edge.getPropertyConstraints().forEach((key, constraint) -> {
-                    PropertyConstraint newConstraint = new PropertyConstraint(
-                        constraint.getName(),
-                        constraint.getDataType()
-                    );
-                    newConstraint.setCardinality(
-                        constraint.getMinCardinality(),
-                        constraint.getMaxCardinality()
-                    );
-                    pgEdge.addPropertyConstraint(newConstraint);
+                    // Shares the interned datatype/cardinality shape
+                    pgEdge.addPropertyConstraint(constraint.copy());
                     System.out.println("  Copied edge constraint: " + key);
                 });
                 
@@ -91,15 +84,8 @@ public class StatementGraphTransformer {
             PropertyConstraint originalConstraint = entry.getValue();
             System.out.println("Copying constraint: " + entry.getKey());
             
-            PropertyConstraint newConstraint = new PropertyConstraint(
-                originalConstraint.getName(),
-                originalConstraint.getDataType()
-            );
-            newConstraint.setCardinality(
-                originalConstraint.getMinCardinality(),
-                originalConstraint.getMaxCardinality()
-            );
-            pgNode.addPropertyConstraint(newConstraint);
+            // Shares the interned datatype/cardinality shape
+            pgNode.addPropertyConstraint(originalConstraint.copy());
         }
         
         // Copy properties
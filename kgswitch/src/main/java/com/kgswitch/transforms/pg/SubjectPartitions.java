@@ -0,0 +1,76 @@
+package com.kgswitch.transforms.pg;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+
+/**
+ * Positions of a transform's inputs (statements, nodes or edges) grouped by
+ * subject id, for the transformers' parallel mode. Each subject's partition
+ * is processed by one task, in position order, so work on a subject needs no
+ * locking; the tasks run on a work-stealing pool, which balances subjects
+ * with many statements against those with few. Tasks write their results
+ * into arrays indexed by position, and the caller merges those in position
+ * order, so the output does not depend on scheduling.
+ *
+ * The pool belongs to the transformer and is reused across calls; see
+ * {@link #pool(ForkJoinPool, int)}.
+ */
+final class SubjectPartitions {
+    private final Map<String, List<Integer>> partitions = new LinkedHashMap<>();
+
+    /**
+     * @param subject Subject id (may be null)
+     * @param position Position of the input; add them in ascending order
+     */
+    void add(String subject, int position) {
+        partitions.computeIfAbsent(subject, k -> new ArrayList<>()).add(position);
+    }
+
+    int size() {
+        return partitions.size();
+    }
+
+    /**
+     * The pool a transformer should run its partitions on: its current pool
+     * if that has the requested parallelism, otherwise a new one (the old one
+     * is shut down). Idle ForkJoin workers exit on their own, so a pool kept
+     * by a transformer that is no longer used needs no closing.
+     *
+     * @param current The transformer's pool so far, or null
+     * @param parallelism Number of worker threads
+     * @return The pool to use and keep
+     */
+    static ForkJoinPool pool(ForkJoinPool current, int parallelism) {
+        if (current != null && current.getParallelism() == parallelism) {
+            return current;
+        }
+        if (current != null) {
+            current.shutdown();
+        }
+        return new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Run a task for every partition and wait for all of them.
+     *
+     * @param pool The pool to run the tasks on
+     * @param task Called with a subject and its positions, in ascending order
+     */
+    void process(ForkJoinPool pool, BiConsumer<String, List<Integer>> task) {
+        List<Map.Entry<String, List<Integer>>> entries = new ArrayList<>(partitions.entrySet());
+        try {
+            pool.submit(() -> entries.parallelStream()
+                .forEach(entry -> task.accept(entry.getKey(), entry.getValue()))).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while transforming partitions", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to transform partition", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.kgswitch.transforms.rdf;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Reads an input stream on a separate thread and hands the bytes over in
+ * chunks, so an expensive source (a decompressor) runs concurrently with the
+ * consumer (the RDF parser). At most {@code queuedChunks} chunks are buffered.
+ */
+class BackgroundInputStream extends InputStream {
+    private static final byte[] END = new byte[0];
+
+    private final InputStream source;
+    private final BlockingQueue<byte[]> chunks;
+    private final Thread reader;
+    private volatile Throwable failure;
+    private volatile boolean closed;
+
+    private byte[] current = null;
+    private int position;
+
+    BackgroundInputStream(InputStream source, int chunkSize, int queuedChunks, String threadName) {
+        this.source = source;
+        this.chunks = new ArrayBlockingQueue<>(queuedChunks);
+        this.reader = new Thread(() -> pump(chunkSize), threadName);
+        this.reader.setDaemon(true);
+        this.reader.start();
+    }
+
+    private void pump(int chunkSize) {
+        try {
+            while (!closed) {
+                byte[] buffer = new byte[chunkSize];
+                int length = source.readNBytes(buffer, 0, chunkSize);
+                if (length == 0) {
+                    break;
+                }
+                chunks.put(length == chunkSize ? buffer : Arrays.copyOf(buffer, length));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            // Anything the source throws (an Error, or a RuntimeException from a
+            // decompressor) is handed to the consumer rather than lost with this thread
+            failure = e;
+        } finally {
+            try {
+                chunks.put(END);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private boolean fill() throws IOException {
+        if (current == END) {
+            return false;
+        }
+        if (current == null || position == current.length) {
+            try {
+                current = chunks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for input", e);
+            }
+            position = 0;
+            if (current == END) {
+                if (failure != null) {
+                    rethrow(failure);
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void rethrow(Throwable failure) throws IOException {
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        throw new IOException("Background read failed", failure);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return current[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int n = Math.min(len, current.length - position);
+        System.arraycopy(current, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        reader.interrupt();
+        // The source is not thread-safe: wait until the pump is out of it before closing
+        boolean interrupted = false;
+        while (reader.isAlive()) {
+            try {
+                reader.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        source.close();
+    }
+}
@@ -0,0 +1,60 @@
+package com.kgswitch.transforms.rdf;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Resolves property shapes to {@link PropertyShapeDescriptor}s, decoding each
+ * shape once. IRI-named property shapes (as in QSE output) are referenced by
+ * many NodeShapes; every reference after the first is a cache hit.
+ * Safe for use from the parallel NodeShape pass.
+ */
+public class PropertyShapeCache {
+    private final Map<ShapeIndex.Shape, PropertyShapeDescriptor> descriptors;
+    private final Function<ShapeIndex.Shape, PropertyShapeDescriptor> decoder;
+    private final LongAdder hits;
+    private final LongAdder misses;
+
+    public PropertyShapeCache(Function<ShapeIndex.Shape, PropertyShapeDescriptor> decoder) {
+        this.descriptors = new ConcurrentHashMap<>();
+        this.decoder = decoder;
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+    }
+
+    /**
+     * @param shape An indexed property shape
+     * @return Its descriptor, decoded on first use
+     */
+    public PropertyShapeDescriptor resolve(ShapeIndex.Shape shape) {
+        PropertyShapeDescriptor descriptor = descriptors.get(shape);
+        if (descriptor != null) {
+            hits.increment();
+            return descriptor;
+        }
+        misses.increment();
+        return descriptors.computeIfAbsent(shape, decoder);
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return descriptors.size();
+    }
+
+    /**
+     * @return Fraction of lookups answered from the cache (0 if there were none)
+     */
+    public double getHitRatio() {
+        long total = getHits() + getMisses();
+        return total == 0 ? 0.0 : (double) getHits() / total;
+    }
+}
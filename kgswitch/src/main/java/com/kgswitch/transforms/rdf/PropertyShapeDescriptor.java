@@ -0,0 +1,47 @@
+package com.kgswitch.transforms.rdf;
+
+/**
+ * Compact, immutable decoding of a property shape: the local name of its
+ * sh:path, its datatype, the local name of its sh:class and its cardinality.
+ * Decoded once per shape by {@link PropertyShapeCache} and shared by every
+ * NodeShape that references the shape.
+ */
+public final class PropertyShapeDescriptor {
+    private final String name;
+    private final String pathIRI;
+    private final String dataType;
+    private final String className;
+    private final Integer minCount;
+    private final Integer maxCount;
+
+    public PropertyShapeDescriptor(String name, String pathIRI, String dataType, String className,
+                                   Integer minCount, Integer maxCount) {
+        this.name = name;
+        this.pathIRI = pathIRI;
+        this.dataType = dataType;
+        this.className = className;
+        this.minCount = minCount;
+        this.maxCount = maxCount;
+    }
+
+    /** @return Local name of the sh:path, or null if the shape has no path */
+    public String getName() { return name; }
+    /** @return Full sh:path IRI, or null if the shape has no path */
+    public String getPathIRI() { return pathIRI; }
+    /** @return sh:datatype IRI, or null */
+    public String getDataType() { return dataType; }
+    /** @return Local name of the sh:class, or null */
+    public String getClassName() { return className; }
+    /** @return sh:minCount, or null if absent */
+    public Integer getMinCount() { return minCount; }
+    /** @return sh:maxCount, or null if absent */
+    public Integer getMaxCount() { return maxCount; }
+
+    public boolean hasPath() {
+        return name != null;
+    }
+
+    public boolean isRelationship() {
+        return className != null;
+    }
+}
@@ -0,0 +1,289 @@
+package com.kgswitch.transforms.rdf;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFLanguages;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFWriter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Input format handling for shapes files. Besides Turtle, shapes can be given
+ * as N-Triples, RDF Thrift or RDF Protobuf, which Jena parses considerably
+ * faster. The format is taken from the file extension when it is a known RDF
+ * extension and sniffed from the first bytes of the file otherwise.
+ *
+ * Any of these may be gzip ({@code .gz}) or bzip2 ({@code .bz2}) compressed;
+ * {@link #open(Path, boolean)} decompresses while the parser reads.
+ */
+public final class RDFFormats {
+    /** Formats accepted as shapes input. */
+    public static final List<Lang> SUPPORTED = Arrays.asList(
+        Lang.TURTLE, Lang.NTRIPLES, Lang.RDFTHRIFT, Lang.RDFPROTO);
+
+    private static final int SNIFF_BYTES = 4096;
+
+    /** Read buffer for shape files; large enough that decompression and parsing overlap well. */
+    public static final int READ_BUFFER_SIZE = 1 << 20;
+
+    private static final int BACKGROUND_CHUNK_SIZE = 64 * 1024;
+
+    private RDFFormats() {
+    }
+
+    /**
+     * Detect the RDF syntax of a file.
+     *
+     * @param file The file to inspect
+     * @return The detected language (Turtle if nothing more specific is recognized)
+     * @throws IOException If the file cannot be read for sniffing
+     */
+    public static Lang detect(Path file) throws IOException {
+        String name = file.getFileName().toString();
+        if (compressionSuffix(name) != null) {
+            name = name.substring(0, name.length() - compressionSuffix(name).length());
+        }
+        Lang byName = RDFLanguages.pathnameToLang(name);
+        if (byName != null && SUPPORTED.contains(byName)) {
+            return byName;
+        }
+
+        byte[] head = new byte[SNIFF_BYTES];
+        int length;
+        try (InputStream in = open(file, false, SNIFF_BYTES)) {
+            length = in.readNBytes(head, 0, head.length);
+        }
+        return sniff(head, length);
+    }
+
+    /**
+     * @param file A file name or path
+     * @return ".gz" or ".bz2" if the name carries a supported compression suffix, otherwise null
+     */
+    public static String compressionSuffix(String file) {
+        if (file.endsWith(".gz")) {
+            return ".gz";
+        }
+        if (file.endsWith(".bz2")) {
+            return ".bz2";
+        }
+        return null;
+    }
+
+    /**
+     * Open a shapes file for parsing with a {@link #READ_BUFFER_SIZE} buffer,
+     * decompressing on the fly if its name ends in {@code .gz} or {@code .bz2}.
+     *
+     * @param file The file to open
+     * @param decompressInBackground Run the decompressor on its own thread so it
+     *        overlaps with the parser (ignored for uncompressed files)
+     * @return The (decompressed) content
+     * @throws IOException If the file cannot be opened
+     */
+    public static InputStream open(Path file, boolean decompressInBackground) throws IOException {
+        return open(file, decompressInBackground, READ_BUFFER_SIZE);
+    }
+
+    private static InputStream open(Path file, boolean decompressInBackground, int bufferSize)
+            throws IOException {
+        String suffix = compressionSuffix(file.getFileName().toString());
+        InputStream raw = new BufferedInputStream(Files.newInputStream(file), bufferSize);
+        if (suffix == null) {
+            return raw;
+        }
+
+        InputStream decompressed;
+        try {
+            decompressed = ".gz".equals(suffix)
+                ? new GZIPInputStream(raw, bufferSize)
+                : new BZip2CompressorInputStream(raw, true);
+        } catch (IOException e) {
+            raw.close();
+            throw e;
+        }
+        if (decompressInBackground) {
+            return new BackgroundInputStream(decompressed, BACKGROUND_CHUNK_SIZE,
+                READ_BUFFER_SIZE / BACKGROUND_CHUNK_SIZE, "decompress-" + file.getFileName());
+        }
+        return new BufferedInputStream(decompressed, bufferSize);
+    }
+
+    /**
+     * @param file A file name or path
+     * @return Whether the name carries a known RDF extension, optionally followed by a compression suffix
+     */
+    public static boolean isRDFFile(Path file) {
+        String name = file.getFileName().toString();
+        return !stripExtension(name).equals(name);
+    }
+
+    /**
+     * @param file A file name or path
+     * @return Whether the name carries the extension of a {@link #SUPPORTED} syntax,
+     *         optionally followed by a compression suffix
+     */
+    public static boolean isShapeFile(Path file) {
+        String name = file.getFileName().toString();
+        String suffix = compressionSuffix(name);
+        if (suffix != null) {
+            name = name.substring(0, name.length() - suffix.length());
+        }
+        Lang byName = RDFLanguages.pathnameToLang(name);
+        return byName != null && SUPPORTED.contains(byName);
+    }
+
+    /**
+     * List the shapes files directly inside a directory, in name order. Only
+     * files named as one of the {@link #SUPPORTED} syntaxes are listed; other
+     * RDF files (RDF/XML, JSON-LD, TriG, ...) would otherwise be sniffed as
+     * Turtle and fail to parse.
+     *
+     * @param directory The directory to scan
+     * @return Absolute paths of the shapes files
+     * @throws IOException If the directory cannot be listed
+     */
+    public static List<Path> listShapeFiles(Path directory) throws IOException {
+        try (Stream<Path> entries = Files.list(directory)) {
+            return entries
+                .filter(Files::isRegularFile)
+                .filter(RDFFormats::isShapeFile)
+                .map(file -> file.toAbsolutePath().normalize())
+                .sorted()
+                .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Guess the RDF syntax from the leading bytes of a file.
+     *
+     * @param head The leading bytes
+     * @param length Number of valid bytes in {@code head}
+     * @return The detected language (Turtle if nothing more specific is recognized)
+     */
+    public static Lang sniff(byte[] head, int length) {
+        if (length == 0) {
+            return Lang.TURTLE;
+        }
+        if (isBinary(head, length)) {
+            if (looksLikeThrift(head, length)) {
+                return Lang.RDFTHRIFT;
+            }
+            // Otherwise expect length-delimited protobuf rows
+            return Lang.RDFPROTO;
+        }
+        return looksLikeNTriples(new String(head, 0, length, StandardCharsets.UTF_8))
+            ? Lang.NTRIPLES : Lang.TURTLE;
+    }
+
+    /**
+     * An RDF Thrift stream opens with a stream row in the compact protocol: a
+     * struct field header for the prefix declaration (0x1C), triple (0x2C) or
+     * quad (0x3C), followed by the first field header of that struct: a
+     * binary prefix string (0x18) or a struct term (0x1C). A protobuf stream
+     * opens with a varint row length that can be 0x1C or 0x2C too, but is then
+     * followed by a length-delimited field tag (0x0A, 0x12, ...), never by 0x18
+     * or 0x1C.
+     */
+    private static boolean looksLikeThrift(byte[] head, int length) {
+        if (length < 2) {
+            return false;
+        }
+        int row = head[0] & 0xff;
+        int field = head[1] & 0xff;
+        if (row == 0x1c) {
+            return field == 0x18;
+        }
+        return (row == 0x2c || row == 0x3c) && field == 0x1c;
+    }
+
+    private static boolean isBinary(byte[] head, int length) {
+        for (int i = 0; i < length; i++) {
+            int b = head[i] & 0xff;
+            if (b < 0x20 && b != '\t' && b != '\n' && b != '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean looksLikeNTriples(String text) {
+        // Only judge complete lines; the sniffed head may end mid-line
+        int end = text.lastIndexOf('\n');
+        if (end < 0) {
+            return false;
+        }
+        boolean sawTriple = false;
+        for (String line : text.substring(0, end).split("\n")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            if (!(trimmed.startsWith("<") || trimmed.startsWith("_:")) || !trimmed.endsWith(".")) {
+                return false;
+            }
+            sawTriple = true;
+        }
+        return sawTriple;
+    }
+
+    /**
+     * Strip a known RDF file extension (e.g. {@code .ttl}, {@code .nt},
+     * {@code .trdf}, {@code .rpb}), together with any compression suffix, so
+     * output files can be named after the input.
+     *
+     * @param file The input file name or path
+     * @return The name without its RDF extension, or unchanged if it has none
+     */
+    public static String stripExtension(String file) {
+        String suffix = compressionSuffix(file);
+        if (suffix != null) {
+            String stripped = stripExtension(file.substring(0, file.length() - suffix.length()));
+            // Only drop the compression suffix when it wraps an RDF file
+            return stripped.length() < file.length() - suffix.length() ? stripped : file;
+        }
+        int dot = file.lastIndexOf('.');
+        int separator = Math.max(file.lastIndexOf('/'), file.lastIndexOf('\\'));
+        if (dot <= separator + 1) {
+            return file;
+        }
+        if (RDFLanguages.fileExtToLang(file.substring(dot + 1)) == null) {
+            return file;
+        }
+        return file.substring(0, dot);
+    }
+
+    /**
+     * Re-encode an RDF file in another syntax, streaming triples from the
+     * source straight into the writer.
+     *
+     * @param source The file to convert (syntax detected with {@link #detect(Path)})
+     * @param target The file to write
+     * @param lang The output syntax; must have a streaming writer (N-Triples, Thrift, Protobuf)
+     * @throws IOException If either file cannot be accessed
+     */
+    public static void convert(Path source, Path target, Lang lang) throws IOException {
+        Lang sourceLang = detect(source);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(target))) {
+            StreamRDF writer = StreamRDFWriter.getWriterStream(out, lang);
+            writer.start();
+            try (InputStream in = open(source, false)) {
+                RDFParser.source(in).lang(sourceLang).base(source.toUri().toString()).parse(writer);
+            }
+            writer.finish();
+        }
+    }
+}
@@ -1,348 +1,697 @@
 package com.kgswitch.transforms.rdf;
 
+import org.apache.jena.graph.Node;
 import org.apache.jena.rdf.model.*;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.system.Txn;
 import org.apache.jena.vocabulary.RDF;
 import org.topbraid.shacl.validation.ValidationUtil;
 import org.topbraid.shacl.vocabulary.SH;
 
+import com.kgswitch.models.constraints.ConstraintShape;
 import com.kgswitch.models.constraints.PropertyConstraint;
 import com.kgswitch.models.graph.SchemaGraph;
 import com.kgswitch.models.graph.SchemaNode;
 import com.kgswitch.models.graph.SchemaEdge;
+import com.kgswitch.transforms.pg.PGSchemaBuilder;
+import com.kgswitch.transforms.pg.PGSchemaToStatementTransformer;
+import com.kgswitch.transforms.pg.PGStatementToSchemaTransformer;
+import com.kgswitch.util.SymbolTable;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
 public class RDFSchemaTransformer {
     private Model rdfModel;
+    // Set after a TDB2 run; the store is reopened for validation
+    private Path shapeStoreLocation;
+    private PropertyShapeCache shapeCache;
+    private ShapeReferenceResolver shapeResolver;
     private SchemaGraph statementGraph;
+    private PGSchemaBuilder pgSchemaBuilder;
     private Map<String, SchemaNode> nodeStatements;
-    private static final String SHACL_NS = "http://www.w3.org/ns/shacl#";
+    private final SymbolTable symbols = SymbolTable.global();
+    private int parallelism = 1;
+    private boolean backgroundDecompression = false;
+    private boolean trace = false;
 
+    /**
+     * Set how many threads process NodeShapes in the second pass. With more than
+     * one thread each NodeShape is resolved on a ForkJoin pool and the results are
+     * merged into the statement graph in NodeShape order, so the output is the same
+     * as a sequential run.
+     *
+     * @param parallelism Number of worker threads (1 = sequential)
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Print ingest timings, cache and resolver statistics, and a line for every
+     * node, relationship and constraint created. Off by default, as the output
+     * dominates the run time on large shape graphs; the statistics are also
+     * available from {@link #getPropertyShapeCache()} and
+     * {@link #getShapeReferenceResolver()}.
+     *
+     * @param trace Whether to trace shape processing
+     */
+    public void setTrace(boolean trace) {
+        this.trace = trace;
+    }
+
+    /**
+     * For compressed shapes files ({@code .gz}, {@code .bz2}), run the
+     * decompressor on its own thread so it overlaps with parsing.
+     *
+     * @param backgroundDecompression Whether to decompress on a separate thread
+     */
+    public void setBackgroundDecompression(boolean backgroundDecompression) {
+        this.backgroundDecompression = backgroundDecompression;
+    }
+
+    /**
+     * Transform a SHACL file to a statement graph. The file may be Turtle,
+     * N-Triples, RDF Thrift or RDF Protobuf, optionally gzip or bzip2
+     * compressed; see {@link RDFFormats#detect(Path)}.
+     *
+     * @param ttlFile Path to the shapes file
+     * @return The statement graph
+     */
     public SchemaGraph transformToStatementGraph(String ttlFile) {
         try {
-            // Normalize file path by converting to URI format
-            Path normalizedPath = Paths.get(ttlFile).toAbsolutePath().normalize();
-            String fileUri = normalizedPath.toUri().toString();
-            
-            rdfModel = ModelFactory.createDefaultModel();
-            rdfModel.read(fileUri, "TURTLE");
-            statementGraph = new SchemaGraph("rdf");
-            nodeStatements = new HashMap<>();
-
-            // Process all node shapes
-            ResIterator nodeShapes = rdfModel.listSubjectsWithProperty(
-                RDF.type, 
-                rdfModel.createResource(SHACL_NS + "NodeShape")
-            );
-
-            // First pass: Create all nodes
-            while (nodeShapes.hasNext()) {
-                Resource nodeShape = nodeShapes.next();
-                createNodeFromShape(nodeShape);
+            return buildStatementGraph(indexFile(ttlFile));
+        } catch (Exception e) {
+            System.err.println("Error transforming TTL to statement graph: " + e.getMessage());
+            e.printStackTrace();
+            throw new RuntimeException("Failed to transform TTL file", e);
+        }
+    }
+
+    /**
+     * Transform a SHACL file straight to the PG schema, in one traversal of
+     * the NodeShapes and without the intermediate statement graphs. The
+     * result is the same as running {@link #transformToStatementGraph(String)},
+     * {@link PGSchemaToStatementTransformer} and
+     * {@link PGStatementToSchemaTransformer} one after another.
+     *
+     * @param ttlFile Path to the shapes file
+     * @return The PG schema
+     */
+    public SchemaGraph transformToPGSchema(String ttlFile) {
+        try {
+            return buildPGSchema(indexFile(ttlFile));
+        } catch (Exception e) {
+            System.err.println("Error transforming TTL to PG schema: " + e.getMessage());
+            e.printStackTrace();
+            throw new RuntimeException("Failed to transform TTL file", e);
+        }
+    }
+
+    private ShapeIndex indexFile(String ttlFile) throws IOException {
+        // Normalize file path; the parser is picked from the file's syntax
+        Path normalizedPath = Paths.get(ttlFile).toAbsolutePath().normalize();
+
+        shapeStoreLocation = null;
+        rdfModel = parseFile(normalizedPath);
+
+        // One pass over the parsed triples; every shape lookup below goes through the index
+        return ShapeIndex.build(rdfModel.getGraph());
+    }
+
+    /**
+     * Transform SHACL split across several files to a single statement graph.
+     * The files are parsed concurrently, each into its own graph, and then merged,
+     * so shapes may refer to target classes defined in any of the other files.
+     * Parse and merge times are reported per file.
+     *
+     * @param shapeFiles The shapes files, or directories whose RDF files are all read
+     * @return The statement graph
+     */
+    public SchemaGraph transformToStatementGraph(List<Path> shapeFiles) {
+        try {
+            return buildStatementGraph(indexFiles(shapeFiles));
+        } catch (Exception e) {
+            System.err.println("Error transforming TTL files to statement graph: " + e.getMessage());
+            e.printStackTrace();
+            throw new RuntimeException("Failed to transform TTL files", e);
+        }
+    }
+
+    /**
+     * Transform SHACL split across several files straight to the PG schema;
+     * see {@link #transformToPGSchema(String)} and
+     * {@link #transformToStatementGraph(List)}.
+     *
+     * @param shapeFiles The shapes files, or directories whose RDF files are all read
+     * @return The PG schema
+     */
+    public SchemaGraph transformToPGSchema(List<Path> shapeFiles) {
+        try {
+            return buildPGSchema(indexFiles(shapeFiles));
+        } catch (Exception e) {
+            System.err.println("Error transforming TTL files to PG schema: " + e.getMessage());
+            e.printStackTrace();
+            throw new RuntimeException("Failed to transform TTL files", e);
+        }
+    }
+
+    private ShapeIndex indexFiles(List<Path> shapeFiles)
+            throws IOException, InterruptedException, ExecutionException {
+        List<Path> files = new ArrayList<>();
+        for (Path shapeFile : shapeFiles) {
+            if (Files.isDirectory(shapeFile)) {
+                files.addAll(RDFFormats.listShapeFiles(shapeFile));
+            } else {
+                files.add(shapeFile.toAbsolutePath().normalize());
             }
+        }
+        if (files.isEmpty()) {
+            throw new IllegalArgumentException("No shapes files found in " + shapeFiles);
+        }
 
-            // Second pass: Process properties and relationships
-            nodeShapes = rdfModel.listSubjectsWithProperty(
-                RDF.type, 
-                rdfModel.createResource(SHACL_NS + "NodeShape")
-            );
-            
-            while (nodeShapes.hasNext()) {
-                Resource nodeShape = nodeShapes.next();
-                processNodeProperties(nodeShape);
+        shapeStoreLocation = null;
+        rdfModel = ModelFactory.createDefaultModel();
+
+        int threads = Math.min(files.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Model>> parsed = new ArrayList<>();
+            List<long[]> parseTimes = new ArrayList<>();
+            for (Path file : files) {
+                long[] parseTime = new long[1];
+                parseTimes.add(parseTime);
+                parsed.add(pool.submit(() -> {
+                    long start = System.nanoTime();
+                    Model model = parseFile(file);
+                    parseTime[0] = System.nanoTime() - start;
+                    return model;
+                }));
             }
 
-            return statementGraph;
+            // Merge in file order so the result does not depend on which parse finished first
+            for (int i = 0; i < files.size(); i++) {
+                Model fileModel = parsed.get(i).get();
+                long start = System.nanoTime();
+                rdfModel.add(fileModel);
+                rdfModel.setNsPrefixes(fileModel.getNsPrefixMap());
+                long mergeTime = System.nanoTime() - start;
+
+                if (trace) {
+                    System.out.println("Ingested " + files.get(i) + ": " + fileModel.size() + " triples, parse " +
+                                     TimeUnit.NANOSECONDS.toMillis(parseTimes.get(i)[0]) + " ms, merge " +
+                                     TimeUnit.NANOSECONDS.toMillis(mergeTime) + " ms");
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        return ShapeIndex.build(rdfModel.getGraph());
+    }
+
+    private Model parseFile(Path file) throws IOException {
+        Model model = ModelFactory.createDefaultModel();
+        try (InputStream in = RDFFormats.open(file, backgroundDecompression)) {
+            RDFParser.source(in).lang(RDFFormats.detect(file)).base(file.toUri().toString()).parse(model);
+        }
+        return model;
+    }
+
+    /**
+     * Transform a SHACL file to a statement graph without loading it into a Model.
+     * Triples are streamed into a {@link ShapeIndex} that keeps only the SHACL
+     * attributes used here; nodes and edges are built from the index once the
+     * parse has finished. The resulting statement graph matches
+     * {@link #transformToStatementGraph(String)}, except that shapes are read
+     * in file order rather than the in-memory graph's order: where two
+     * conflicting same-named constraints are declared on a node, the one later
+     * in the file wins.
+     *
+     * @param ttlFile Path to the shapes file (any syntax accepted by {@link RDFFormats})
+     * @return The statement graph
+     */
+    public SchemaGraph transformToStatementGraphStreaming(String ttlFile) {
+        try {
+            Path normalizedPath = Paths.get(ttlFile).toAbsolutePath().normalize();
+
+            rdfModel = null;
+            shapeStoreLocation = null;
+            ShapeIndex index = new ShapeIndex();
+            ShapeStreamSink sink = new ShapeStreamSink(index);
+            try (InputStream in = RDFFormats.open(normalizedPath, backgroundDecompression)) {
+                RDFParser.source(in).lang(RDFFormats.detect(normalizedPath))
+                    .base(normalizedPath.toUri().toString()).parse(sink);
+            }
+            if (trace) {
+                System.out.println("Streamed " + sink.getTripleCount() + " triples, indexed " +
+                                 index.size() + " shapes");
+            }
+
+            return buildStatementGraph(index);
         } catch (Exception e) {
-            System.err.println("Error transforming TTL to statement graph: " + e.getMessage());
+            System.err.println("Error streaming TTL to statement graph: " + e.getMessage());
             e.printStackTrace();
             throw new RuntimeException("Failed to transform TTL file", e);
         }
     }
 
-    private void createNodeFromShape(Resource nodeShape) {
-        Statement targetClass = nodeShape.getProperty(
-            rdfModel.createProperty(SHACL_NS + "targetClass")
-        );
-        
-        if (targetClass != null) {
-            String nodeId = getLocalName(targetClass.getObject().toString());
+    /**
+     * Transform a SHACL file to a statement graph through a TDB2 store on disk,
+     * for shape graphs that do not fit in memory. The shapes are bulk-loaded
+     * into the store at {@code tdbLocation} (skipped when the store already
+     * holds the same unchanged file) and walked inside a read transaction,
+     * each shape looked up with {@link org.apache.jena.graph.Graph#find} as
+     * the traversal reaches it rather than read into memory up front. Node
+     * shapes are then processed sequentially, whatever the parallelism. The
+     * store is closed before this returns; {@link #validateSHACL(Model)}
+     * reopens it to validate against the stored shapes.
+     *
+     * @param ttlFile Path to the shapes file
+     * @param tdbLocation Directory of the TDB2 database
+     * @return The statement graph
+     */
+    public SchemaGraph transformToStatementGraphPersistent(String ttlFile, Path tdbLocation) {
+        try {
+            Path normalizedPath = Paths.get(ttlFile).toAbsolutePath().normalize();
+
+            rdfModel = null;
+            shapeStoreLocation = null;
+            try (TDBShapeStore shapeStore = new TDBShapeStore(tdbLocation)) {
+                shapeStore.load(normalizedPath, backgroundDecompression);
+
+                SchemaGraph graph = shapeStore.read(index -> {
+                    SchemaGraph built = buildStatementGraph(index);
+                    if (trace) {
+                        System.out.println("Read " + index.size() + " shapes from TDB2 store at " +
+                                         shapeStore.getLocation());
+                    }
+                    return built;
+                });
+                shapeStoreLocation = shapeStore.getLocation();
+                return graph;
+            }
+        } catch (Exception e) {
+            System.err.println("Error transforming TTL to statement graph via TDB2: " + e.getMessage());
+            e.printStackTrace();
+            throw new RuntimeException("Failed to transform TTL file", e);
+        }
+    }
+
+    private SchemaGraph buildStatementGraph(ShapeIndex index)
+            throws InterruptedException, ExecutionException {
+        statementGraph = new SchemaGraph("rdf");
+        pgSchemaBuilder = null;
+        processShapes(index, statementGraph::addEdge);
+        return statementGraph;
+    }
+
+    private SchemaGraph buildPGSchema(ShapeIndex index)
+            throws InterruptedException, ExecutionException {
+        statementGraph = null;
+        pgSchemaBuilder = new PGSchemaBuilder();
+        processShapes(index, pgSchemaBuilder::addEdge);
+        return pgSchemaBuilder.build();
+    }
+
+    /**
+     * Traverse the NodeShapes: create a node per target class, then add the
+     * shapes' property constraints to the nodes and pass their relationships
+     * on. Every entry point (Model, streaming, multi-file, TDB2) walks the
+     * shapes through here in {@link ShapeIndex} order, which is the order the
+     * Model API walk read them in: a shape with several sh:targetClass values
+     * maps to the first one, and of two same-named constraints on a node the
+     * one listed later wins.
+     *
+     * @param index The indexed shapes
+     * @param edges Receives the relationships, in NodeShape order
+     */
+    private void processShapes(ShapeIndex index, Consumer<SchemaEdge> edges)
+            throws InterruptedException, ExecutionException {
+        nodeStatements = new HashMap<>();
+        shapeResolver = new ShapeReferenceResolver(index);
+        shapeCache = new PropertyShapeCache(this::describePropertyShape);
+
+        // First pass: Create all nodes
+        for (ShapeIndex.Shape nodeShape : index.getNodeShapes()) {
+            createNodeFromShape(nodeShape);
+        }
+
+        // Second pass: Process properties and relationships
+        List<ShapeIndex.Shape> nodeShapes = index.getNodeShapes();
+        // A graph-backed index loads lazily on the transaction's thread
+        if (parallelism > 1 && nodeShapes.size() > 1 && !index.isGraphBacked()) {
+            for (ShapeContribution contribution : processNodeShapesInParallel(index, nodeShapes)) {
+                contribution.applyTo(edges);
+            }
+        } else {
+            for (ShapeIndex.Shape nodeShape : nodeShapes) {
+                processNodeProperties(index, nodeShape).applyTo(edges);
+            }
+        }
+
+        if (trace) {
+            System.out.println("Property shape cache: " + shapeCache.size() + " shapes decoded, " +
+                             shapeCache.getHits() + " hits, " + shapeCache.getMisses() + " misses");
+            System.out.println("Shape references: " + shapeResolver.getComputed() + " expansions computed, " +
+                             shapeResolver.getSaved() + " saved by cache, " +
+                             shapeResolver.getCyclesCut() + " cycles cut");
+        }
+    }
+
+    private List<ShapeContribution> processNodeShapesInParallel(ShapeIndex index,
+                                                               List<ShapeIndex.Shape> nodeShapes)
+            throws InterruptedException, ExecutionException {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            // Nodes and the index are read-only here; each task only fills its own contribution
+            return pool.submit(() -> nodeShapes.parallelStream()
+                .map(nodeShape -> processNodeProperties(index, nodeShape))
+                .collect(Collectors.toList())).get();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private void createNodeFromShape(ShapeIndex.Shape nodeShape) {
+        if (nodeShape.getTargetClass() != null) {
+            String nodeId = getLocalName(ShapeIndex.lexical(nodeShape.getTargetClass()));
             String className = nodeId;
-            
-            SchemaNode typeStatement = new SchemaNode(nodeId);
-            typeStatement.addLabel(className);
-            
-            statementGraph.addNode(typeStatement);
+
+            SchemaNode typeStatement;
+            if (pgSchemaBuilder != null) {
+                typeStatement = pgSchemaBuilder.addNode(nodeId, className);
+            } else {
+                typeStatement = new SchemaNode(nodeId);
+                typeStatement.addLabel(className);
+                statementGraph.addNode(typeStatement);
+            }
             nodeStatements.put(nodeId, typeStatement);
-            
-            System.out.println("Created node: " + nodeId + " with class: " + className);
+
+            if (trace) {
+                System.out.println("Created node: " + nodeId + " with class: " + className);
+            }
         }
     }
 
-    private void processNodeProperties(Resource nodeShape) {
-        Statement targetClass = nodeShape.getProperty(
-            rdfModel.createProperty(SHACL_NS + "targetClass")
-        );
-        
-        if (targetClass != null) {
-            String nodeId = getLocalName(targetClass.getObject().toString());
+    private ShapeContribution processNodeProperties(ShapeIndex index, ShapeIndex.Shape nodeShape) {
+        ShapeContribution contribution = new ShapeContribution();
+        if (nodeShape.getTargetClass() != null) {
+            String nodeId = getLocalName(ShapeIndex.lexical(nodeShape.getTargetClass()));
             SchemaNode node = nodeStatements.get(nodeId);
-            
+
             if (node != null) {
-                // Get all property shapes
-                StmtIterator properties = nodeShape.listProperties(
-                    rdfModel.createProperty(SHACL_NS + "property")
-                );
-                
-                while (properties.hasNext()) {
-                    Resource propertyShape = properties.next().getObject().asResource();
-                    processPropertyShape(propertyShape, node);
+                for (ShapeIndex.Shape propertyShape : nodeShape.getProperties()) {
+                    processPropertyShape(index, propertyShape, node, contribution);
+                }
+                // Property shapes brought in through sh:node / sh:and / sh:or / sh:xone
+                for (ShapeIndex.Shape propertyShape : shapeResolver.expandProperties(nodeShape)) {
+                    if (!nodeShape.getProperties().contains(propertyShape)) {
+                        processPropertyShape(index, propertyShape, node, contribution);
+                    }
                 }
             }
         }
+        return contribution;
     }
 
-    private void processPropertyShape(Resource propertyShape, SchemaNode sourceNode) {
-        Statement pathStmt = propertyShape.getProperty(
-            rdfModel.createProperty(SHACL_NS + "path")
-        );
-        
-        if (pathStmt != null) {
-            String path = pathStmt.getObject().toString();
-            String propertyName = getLocalName(path);
-            
-            // Check if this is a relationship or nested shape
-            Statement classStmt = propertyShape.getProperty(
-                rdfModel.createProperty(SHACL_NS + "class")
-            );
-            
-            if (classStmt != null) {
-                // Create the relationship regardless of nested properties
-                processRelationshipShape(propertyShape, sourceNode, propertyName, classStmt);
-                
-                // Also process nested properties if they exist
-                StmtIterator nestedProps = propertyShape.listProperties(
-                    rdfModel.createProperty(SHACL_NS + "property")
-                );
-                
-                while (nestedProps.hasNext()) {
-                    Resource nestedShape = nestedProps.next().getObject().asResource();
-                    Statement nestedPath = nestedShape.getProperty(
-                        rdfModel.createProperty(SHACL_NS + "path")
-                    );
-                    
-                    if (nestedPath != null) {
-                        String nestedPropertyName = getLocalName(nestedPath.getObject().toString());
-                        String compoundName = propertyName + "_" + nestedPropertyName;
-                        
-                        Statement datatypeStmt = nestedShape.getProperty(
-                            rdfModel.createProperty(SHACL_NS + "datatype")
-                        );
-                        
-                        if (datatypeStmt != null) {
-                            PropertyConstraint constraint = new PropertyConstraint(
-                                compoundName,
-                                datatypeStmt.getObject().toString()
-                            );
-                            
-                            // Add cardinality constraints if present
-                            Statement minCount = nestedShape.getProperty(
-                                rdfModel.createProperty(SHACL_NS + "minCount")
-                            );
-                            Statement maxCount = nestedShape.getProperty(
-                                rdfModel.createProperty(SHACL_NS + "maxCount")
-                            );
-                            
-                            if (minCount != null || maxCount != null) {
-                                int min = minCount != null ? minCount.getInt() : 0;
-                                int max = maxCount != null ? maxCount.getInt() : -1;
-                                constraint.setCardinality(min, max);
-                            }
-                            
-                            sourceNode.addPropertyConstraint(constraint);
-                            System.out.println("Added nested property: " + compoundName);
-                        }
+    private void processPropertyShape(ShapeIndex index, ShapeIndex.Shape propertyShape, SchemaNode sourceNode,
+                                      ShapeContribution contribution) {
+        PropertyShapeDescriptor descriptor = shapeCache.resolve(propertyShape);
+        if (!descriptor.hasPath()) {
+            return;
+        }
+        String propertyName = descriptor.getName();
+
+        // Check if this is a relationship or nested shape
+        if (descriptor.isRelationship()) {
+            // Create the relationship regardless of nested properties
+            processRelationshipShape(index, propertyShape, descriptor, sourceNode, contribution);
+
+            // Also process nested properties if they exist
+            for (ShapeIndex.Shape nestedShape : propertyShape.getProperties()) {
+                PropertyShapeDescriptor nested = shapeCache.resolve(nestedShape);
+                if (!nested.hasPath()) {
+                    continue;
+                }
+                String compoundName = propertyName + "_" + nested.getName();
+                PropertyConstraint constraint = createConstraint(nested, compoundName);
+                if (constraint != null) {
+                    contribution.addConstraint(sourceNode, constraint);
+                    if (trace) {
+                        System.out.println("Added nested property: " + compoundName);
                     }
                 }
-            } else {
-                // regular property
-                processRegularPropertyShape(propertyShape, sourceNode, propertyName);
             }
+
+            // sh:node / sh:and / sh:or / sh:xone on a property shape constrain the value node
+            processValueShapes(propertyShape, descriptor, contribution);
+        } else {
+            // regular property
+            processRegularPropertyShape(descriptor, sourceNode, propertyName, contribution);
         }
     }
 
-    private void processRelationshipShape(Resource propertyShape, SchemaNode sourceNode, 
-                                        String propertyName, Statement classStmt) {
-        String targetClassName = getLocalName(classStmt.getObject().toString());
-        SchemaNode targetNode = nodeStatements.get(targetClassName);
-        
-        if (targetNode != null) {
-            SchemaEdge edge = new SchemaEdge(
-                propertyName.toUpperCase(),
-                sourceNode,
-                targetNode,
-                propertyName.toUpperCase()
-            );
-
-            // Process relationship properties
-            StmtIterator nestedProps = propertyShape.listProperties(
-                rdfModel.createProperty(SHACL_NS + "property")
-            );
-            
+    private void processRelationshipShape(ShapeIndex index, ShapeIndex.Shape propertyShape,
+                                          PropertyShapeDescriptor descriptor, SchemaNode sourceNode,
+                                          ShapeContribution contribution) {
+        String propertyName = descriptor.getName();
+        SchemaNode targetNode = nodeStatements.get(descriptor.getClassName());
+
+        if (targetNode == null) {
+            return;
+        }
+        SchemaEdge edge = new SchemaEdge(
+            symbols.upperCase(propertyName),
+            sourceNode,
+            targetNode,
+            symbols.upperCase(propertyName)
+        );
+
+        if (trace) {
             System.out.println("Processing relationship: " + propertyName);
-            
-            while (nestedProps.hasNext()) {
-                Resource nestedShape = nestedProps.next().getObject().asResource();
-                Statement nestedPath = nestedShape.getProperty(
-                    rdfModel.createProperty(SHACL_NS + "path")
-                );
-                
-                if (nestedPath != null) {
-                    String nestedPropertyName = getLocalName(nestedPath.getObject().toString());
-                    System.out.println("Found nested property: " + nestedPropertyName);
-                    
-                    Statement datatypeStmt = nestedShape.getProperty(
-                        rdfModel.createProperty(SHACL_NS + "datatype")
-                    );
-                    
-                    if (datatypeStmt != null) {
-                        PropertyConstraint constraint = new PropertyConstraint(
-                            nestedPropertyName,
-                            datatypeStmt.getObject().toString()
-                        );
-                        
-                        // Add cardinality
-                        Statement minCount = nestedShape.getProperty(
-                            rdfModel.createProperty(SHACL_NS + "minCount")
-                        );
-                        Statement maxCount = nestedShape.getProperty(
-                            rdfModel.createProperty(SHACL_NS + "maxCount")
-                        );
-                        
-                        if (minCount != null || maxCount != null) {
-                            int min = minCount != null ? minCount.getInt() : 0;
-                            int max = maxCount != null ? maxCount.getInt() : -1;
-                            constraint.setCardinality(min, max);
-                        }
-                        
-                        edge.addPropertyConstraint(constraint);
-                        System.out.println("Added property constraint: " + nestedPropertyName + 
-                                         " to relationship: " + propertyName);
-                    }
+        }
+
+        // Process relationship properties
+        for (ShapeIndex.Shape nestedShape : propertyShape.getProperties()) {
+            PropertyShapeDescriptor nested = shapeCache.resolve(nestedShape);
+            if (!nested.hasPath()) {
+                continue;
+            }
+            String nestedPropertyName = nested.getName();
+            if (trace) {
+                System.out.println("Found nested property: " + nestedPropertyName);
+            }
+
+            PropertyConstraint constraint = createConstraint(nested, nestedPropertyName);
+            if (constraint != null) {
+                edge.addPropertyConstraint(constraint);
+                if (trace) {
+                    System.out.println("Added property constraint: " + nestedPropertyName +
+                                     " to relationship: " + propertyName);
                 }
             }
-            
-            // Check if there are any properties defined for this relationship in the RDF model
-            // This handles the case where relationship properties are defined at the same level, not nested
-            String relationshipIRI = propertyShape.getProperty(
-                rdfModel.createProperty(SHACL_NS + "path")
-            ).getObject().toString();
-            
-            // Find all property statements where the subject is the relationship IRI
-            StmtIterator relProps = rdfModel.listStatements(
-                null,
-                rdfModel.createProperty(SHACL_NS + "path"),
-                rdfModel.createResource(relationshipIRI)
-            );
-            
-            while (relProps.hasNext()) {
-                Resource relPropShape = relProps.next().getSubject();
-                
-                // Check if this is a property statement (has datatype)
-                Statement datatypeStmt = relPropShape.getProperty(
-                    rdfModel.createProperty(SHACL_NS + "datatype")
-                );
-                
-                if (datatypeStmt != null) {
-                    // This is a property for the relationship
-                    String relPropName = getLocalName(relationshipIRI) + "_property";
-                    
-                    PropertyConstraint constraint = new PropertyConstraint(
-                        relPropName,
-                        datatypeStmt.getObject().toString()
-                    );
-                    
-                    // Add cardinality if present
-                    Statement minCount = relPropShape.getProperty(
-                        rdfModel.createProperty(SHACL_NS + "minCount")
-                    );
-                    Statement maxCount = relPropShape.getProperty(
-                        rdfModel.createProperty(SHACL_NS + "maxCount")
-                    );
-                    
-                    if (minCount != null || maxCount != null) {
-                        int min = minCount != null ? minCount.getInt() : 0;
-                        int max = maxCount != null ? maxCount.getInt() : -1;
-                        constraint.setCardinality(min, max);
-                    }
-                    
-                    edge.addPropertyConstraint(constraint);
+        }
+
+        // Relationship properties may also be defined at the same level, not nested:
+        // any property shape in the file whose path is the relationship IRI
+        for (ShapeIndex.Shape relPropShape : index.getShapesWithPath(propertyShape.getPath())) {
+            String relPropName = propertyName + "_property";
+            PropertyConstraint constraint = createConstraint(shapeCache.resolve(relPropShape), relPropName);
+            if (constraint != null) {
+                edge.addPropertyConstraint(constraint);
+                if (trace) {
                     System.out.println("Added relationship property constraint: " + relPropName);
                 }
             }
-            
-            // Add relationship cardinality
-            Statement minCount = propertyShape.getProperty(
-                rdfModel.createProperty(SHACL_NS + "minCount")
-            );
-            Statement maxCount = propertyShape.getProperty(
-                rdfModel.createProperty(SHACL_NS + "maxCount")
-            );
-            
-            if (minCount != null) {
-                edge.addProperty("minCount", String.valueOf(minCount.getInt()));
+        }
+
+        // Add relationship cardinality
+        if (descriptor.getMinCount() != null) {
+            edge.addProperty("minCount", String.valueOf(descriptor.getMinCount()));
+        }
+        if (descriptor.getMaxCount() != null) {
+            edge.addProperty("maxCount", String.valueOf(descriptor.getMaxCount()));
+        }
+
+        contribution.addEdge(edge);
+        if (trace) {
+            System.out.println("Added relationship: " + propertyName +
+                             " with " + edge.getPropertyConstraints().size() + " properties");
+        }
+    }
+
+    private void processRegularPropertyShape(PropertyShapeDescriptor descriptor, SchemaNode node,
+                                             String propertyName, ShapeContribution contribution) {
+        PropertyConstraint constraint = createConstraint(descriptor, propertyName);
+        if (constraint != null) {
+            contribution.addConstraint(node, constraint);
+        }
+    }
+
+    /**
+     * Property shapes a relationship's property shape brings in through shape
+     * references describe the value node, so they become constraints of the
+     * target class node, not of the relationship or its source.
+     */
+    private void processValueShapes(ShapeIndex.Shape propertyShape, PropertyShapeDescriptor descriptor,
+                                    ShapeContribution contribution) {
+        List<ShapeIndex.Shape> valueShapes = shapeResolver.expandProperties(propertyShape);
+        if (valueShapes.isEmpty()) {
+            return;
+        }
+        SchemaNode targetNode = nodeStatements.get(descriptor.getClassName());
+        if (targetNode == null) {
+            return;
+        }
+        for (ShapeIndex.Shape valueShape : valueShapes) {
+            PropertyShapeDescriptor value = shapeCache.resolve(valueShape);
+            if (!value.hasPath()) {
+                continue;
             }
-            if (maxCount != null) {
-                edge.addProperty("maxCount", String.valueOf(maxCount.getInt()));
+            PropertyConstraint constraint = createConstraint(value, value.getName());
+            if (constraint != null) {
+                contribution.addConstraint(targetNode, constraint);
+                if (trace) {
+                    System.out.println("Added value node property: " + value.getName() +
+                                     " to " + targetNode.getId());
+                }
             }
-            
-            statementGraph.addEdge(edge);
-            System.out.println("Added relationship: " + propertyName + 
-                             " with " + edge.getPropertyConstraints().size() + " properties");
         }
     }
 
-    private void processRegularPropertyShape(Resource propertyShape, SchemaNode node, String propertyName) {
-        Statement datatypeStmt = propertyShape.getProperty(
-            rdfModel.createProperty(SHACL_NS + "datatype")
-        );
-        
-        if (datatypeStmt != null) {
-            PropertyConstraint constraint = new PropertyConstraint(
-                propertyName,
-                datatypeStmt.getObject().toString()
-            );
-            
-            Statement minCount = propertyShape.getProperty(
-                rdfModel.createProperty(SHACL_NS + "minCount")
-            );
-            Statement maxCount = propertyShape.getProperty(
-                rdfModel.createProperty(SHACL_NS + "maxCount")
-            );
-            
-            if (minCount != null || maxCount != null) {
-                int min = minCount != null ? minCount.getInt() : 0;
-                int max = maxCount != null ? maxCount.getInt() : -1;
-                constraint.setCardinality(min, max);
+    /**
+     * Decode an indexed property shape; called once per shape through the {@link PropertyShapeCache}.
+     * A shape with neither sh:datatype nor sh:class takes them from its
+     * sh:and / sh:or / sh:xone members: the first member datatype, or failing
+     * that the first member class.
+     */
+    private PropertyShapeDescriptor describePropertyShape(ShapeIndex.Shape shape) {
+        String pathIRI = shape.getPath() != null ? symbols.intern(ShapeIndex.lexical(shape.getPath())) : null;
+        Node datatype = shape.getDatatype();
+        Node shClass = shape.getShClass();
+        if (datatype == null && shClass == null) {
+            for (ShapeIndex.Shape member : shapeResolver.listMembers(shape)) {
+                if (datatype == null && member.getDatatype() != null) {
+                    datatype = member.getDatatype();
+                }
+                if (shClass == null && member.getShClass() != null) {
+                    shClass = member.getShClass();
+                }
+            }
+            if (datatype != null) {
+                shClass = null;
             }
-            
-            node.addPropertyConstraint(constraint);
         }
+        return new PropertyShapeDescriptor(
+            pathIRI != null ? getLocalName(pathIRI) : null,
+            pathIRI,
+            datatype != null ? symbols.intern(ShapeIndex.lexical(datatype)) : null,
+            shClass != null ? getLocalName(ShapeIndex.lexical(shClass)) : null,
+            shape.getMinCount() != null ? ShapeIndex.intValue(shape.getMinCount()) : null,
+            shape.getMaxCount() != null ? ShapeIndex.intValue(shape.getMaxCount()) : null);
     }
 
-    private String getLocalName(String uri) {
-        if (uri.contains("#")) {
-            return uri.substring(uri.lastIndexOf("#") + 1);
-        } else if (uri.contains("/")) {
-            return uri.substring(uri.lastIndexOf("/") + 1);
+    /**
+     * Build a datatype constraint from a decoded property shape.
+     *
+     * @return The constraint, or null if the shape has no sh:datatype
+     */
+    private PropertyConstraint createConstraint(PropertyShapeDescriptor descriptor, String name) {
+        if (descriptor.getDataType() == null) {
+            return null;
+        }
+        if (descriptor.getMinCount() == null && descriptor.getMaxCount() == null) {
+            return new PropertyConstraint(name, descriptor.getDataType());
+        }
+        int min = descriptor.getMinCount() != null ? descriptor.getMinCount() : 0;
+        int max = descriptor.getMaxCount() != null ? descriptor.getMaxCount() : -1;
+        return new PropertyConstraint(name, ConstraintShape.of(descriptor.getDataType(), min, max));
+    }
+
+    /**
+     * @return Cache used by the most recent transformation (null before the first one)
+     */
+    public PropertyShapeCache getPropertyShapeCache() {
+        return shapeCache;
+    }
+
+    /**
+     * @return Shape reference resolver used by the most recent transformation (null before the first one)
+     */
+    public ShapeReferenceResolver getShapeReferenceResolver() {
+        return shapeResolver;
+    }
+
+    /**
+     * Node constraints and edges produced by one NodeShape. Collected separately so
+     * NodeShapes can be processed concurrently and then applied in a fixed order.
+     */
+    private static class ShapeContribution {
+        private final List<SchemaNode> constraintNodes = new ArrayList<>();
+        private final List<PropertyConstraint> constraints = new ArrayList<>();
+        private final List<SchemaEdge> edges = new ArrayList<>();
+
+        void addConstraint(SchemaNode node, PropertyConstraint constraint) {
+            constraintNodes.add(node);
+            constraints.add(constraint);
+        }
+
+        void addEdge(SchemaEdge edge) {
+            edges.add(edge);
         }
-        return uri;
+
+        void applyTo(Consumer<SchemaEdge> edgeSink) {
+            for (int i = 0; i < constraints.size(); i++) {
+                constraintNodes.get(i).addPropertyConstraint(constraints.get(i));
+            }
+            for (SchemaEdge edge : edges) {
+                edgeSink.accept(edge);
+            }
+        }
+    }
+
+    private String getLocalName(String uri) {
+        return symbols.localName(uri);
     }
 
     public boolean validateSHACL(Model dataModel) {
-        Model shapesModel = rdfModel;
+        if (shapeStoreLocation != null) {
+            // Shapes live in TDB2; read them inside a transaction
+            try (TDBShapeStore shapeStore = new TDBShapeStore(shapeStoreLocation)) {
+                return Txn.calculateRead(shapeStore.getDataset(),
+                    () -> validateAgainstShapes(dataModel, shapeStore.getDataset().getDefaultModel()));
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to open TDB2 store at " + shapeStoreLocation, e);
+            }
+        }
+        if (rdfModel == null) {
+            throw new IllegalStateException(
+                "SHACL validation needs the shapes Model; use transformToStatementGraph instead of the streaming mode");
+        }
+        return validateAgainstShapes(dataModel, rdfModel);
+    }
+
+    private boolean validateAgainstShapes(Model dataModel, Model shapesModel) {
         Resource report = ValidationUtil.validateModel(dataModel, shapesModel, true);
         
         // Check if the report contains any validation results
@@ -0,0 +1,445 @@
+package com.kgswitch.transforms.rdf;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.shacl.vocabulary.SHACL;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.apache.jena.vocabulary.RDF;
+
+import java.util.*;
+
+/**
+ * Compact in-memory view of the SHACL triples the transformer needs.
+ * Only the attributes used to build the statement graph are kept
+ * (type, targetClass, property, path, class, datatype, minCount, maxCount),
+ * together with shape references (sh:node, sh:and, sh:or, sh:xone) and the
+ * RDF list cells they point to; everything else in the shapes file is
+ * dropped as it streams past.
+ *
+ * Lists and single-valued attributes follow the order the shapes were read
+ * in, as the Model API walk did before the index existed: an index built
+ * from a graph ({@link #build(Graph)}, {@link #over(Graph)}) lists node
+ * shapes, property shapes, sh:targetClass values and shapes by path in the
+ * order the graph returns them for the matching {@link Graph#find} query,
+ * and an index filled from a stream keeps the order the triples arrived in.
+ *
+ * Lookups are plain field reads or a single hash probe and return the stored
+ * lists, so resolving a property shape allocates nothing.
+ *
+ * An index created with {@link #over(Graph)} is instead filled on demand:
+ * each lookup finds the triples it needs with {@link Graph#find} against the
+ * source graph and keeps the shapes it has visited. Such an index is not
+ * thread-safe and must only be read while the source graph is readable
+ * (inside the read transaction, for a TDB2 graph).
+ */
+public class ShapeIndex {
+    private final Map<Node, Shape> shapes;
+    private final List<Shape> nodeShapes;
+    private final Map<Node, List<Shape>> shapesByPath;
+    private final Map<Node, Node> listFirst;
+    private final Map<Node, Node> listRest;
+    private final Graph source;
+    private final Set<Node> loadedSubjects;
+    private final Set<Node> loadedPaths;
+    private boolean nodeShapesLoaded;
+
+    public ShapeIndex() {
+        this(null);
+    }
+
+    private ShapeIndex(Graph source) {
+        this.shapes = new HashMap<>();
+        this.nodeShapes = new ArrayList<>();
+        this.shapesByPath = new HashMap<>();
+        this.listFirst = new HashMap<>();
+        this.listRest = new HashMap<>();
+        this.source = source;
+        this.loadedSubjects = source != null ? new HashSet<>() : null;
+        this.loadedPaths = source != null ? new HashSet<>() : null;
+    }
+
+    /**
+     * Record a triple if it carries a SHACL attribute the transformer uses.
+     * Single-valued attributes keep the first value seen.
+     *
+     * @param triple The triple to record
+     */
+    public void add(Triple triple) {
+        Node predicate = triple.getPredicate();
+        Node object = triple.getObject();
+
+        if (predicate.equals(RDF.Nodes.type)) {
+            if (object.equals(SHACL.NodeShape)) {
+                Shape shape = shape(triple.getSubject());
+                if (!shape.nodeShape) {
+                    shape.nodeShape = true;
+                    nodeShapes.add(shape);
+                }
+            }
+        } else if (predicate.equals(SHACL.targetClass)) {
+            Shape shape = shape(triple.getSubject());
+            if (shape.targetClass == null) {
+                shape.targetClass = object;
+            } else if (!shape.targetClass.equals(object)) {
+                shape.severalTargetClasses = true;
+            }
+        } else if (predicate.equals(SHACL.property)) {
+            Shape shape = shape(triple.getSubject());
+            Shape propertyShape = shape(object);
+            if (!shape.properties.contains(propertyShape)) {
+                shape.properties.add(propertyShape);
+            }
+        } else if (predicate.equals(SHACL.path)) {
+            Shape shape = shape(triple.getSubject());
+            if (shape.path == null) {
+                shape.path = object;
+            }
+            List<Shape> withPath = shapesByPath.computeIfAbsent(object, k -> new ArrayList<>(1));
+            if (!withPath.contains(shape)) {
+                withPath.add(shape);
+            }
+        } else if (predicate.equals(SHACL.class_)) {
+            Shape shape = shape(triple.getSubject());
+            if (shape.shClass == null) {
+                shape.shClass = object;
+            }
+        } else if (predicate.equals(SHACL.datatype)) {
+            Shape shape = shape(triple.getSubject());
+            if (shape.datatype == null) {
+                shape.datatype = object;
+            }
+        } else if (predicate.equals(SHACL.minCount)) {
+            Shape shape = shape(triple.getSubject());
+            if (shape.minCount == null) {
+                shape.minCount = object;
+            }
+        } else if (predicate.equals(SHACL.maxCount)) {
+            Shape shape = shape(triple.getSubject());
+            if (shape.maxCount == null) {
+                shape.maxCount = object;
+            }
+        } else if (predicate.equals(SHACL.node)) {
+            addReference(shape(triple.getSubject()).nodeRefs, object);
+        } else if (predicate.equals(SHACL.and) || predicate.equals(SHACL.or) ||
+                   predicate.equals(SHACL.xone)) {
+            addReference(shape(triple.getSubject()).memberLists, object);
+        } else if (predicate.equals(RDF.Nodes.first)) {
+            listFirst.putIfAbsent(triple.getSubject(), object);
+        } else if (predicate.equals(RDF.Nodes.rest)) {
+            listRest.putIfAbsent(triple.getSubject(), object);
+        }
+    }
+
+    private static void addReference(List<Node> references, Node reference) {
+        if (!references.contains(reference)) {
+            references.add(reference);
+        }
+    }
+
+    /**
+     * Index every SHACL attribute of an in-memory graph in a single pass, then
+     * put the lists whose order matters into the graph's order (one find per
+     * node shape, and per shape or path with more than one entry).
+     *
+     * @param graph The shapes graph
+     * @return The index
+     */
+    public static ShapeIndex build(Graph graph) {
+        ShapeIndex index = new ShapeIndex();
+        ExtendedIterator<Triple> triples = graph.find();
+        try {
+            while (triples.hasNext()) {
+                index.add(triples.next());
+            }
+        } finally {
+            triples.close();
+        }
+
+        index.reorder(index.nodeShapes, subjects(graph, RDF.Nodes.type, SHACL.NodeShape));
+        for (Shape shape : index.shapes.values()) {
+            index.align(graph, shape);
+        }
+        for (Map.Entry<Node, List<Shape>> withPath : index.shapesByPath.entrySet()) {
+            if (withPath.getValue().size() > 1) {
+                index.reorder(withPath.getValue(), subjects(graph, SHACL.path, withPath.getKey()));
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Index a graph lazily: nothing is read until a lookup needs it, and then
+     * only the triples of the shapes (and list cells) involved. Use this for
+     * stores too large to scan into memory.
+     *
+     * @param graph The shapes graph
+     * @return An index that reads through to the graph
+     */
+    public static ShapeIndex over(Graph graph) {
+        return new ShapeIndex(Objects.requireNonNull(graph, "graph"));
+    }
+
+    /**
+     * @return Whether lookups read through to a source graph (see {@link #over(Graph)})
+     */
+    public boolean isGraphBacked() {
+        return source != null;
+    }
+
+    private void loadSubject(Node subject) {
+        if (source == null || !loadedSubjects.add(subject)) {
+            return;
+        }
+        ExtendedIterator<Triple> triples = source.find(subject, Node.ANY, Node.ANY);
+        try {
+            while (triples.hasNext()) {
+                add(triples.next());
+            }
+        } finally {
+            triples.close();
+        }
+    }
+
+    /**
+     * Load a shape and its property shapes, with its lists in graph order.
+     */
+    private Shape loadShape(Node node) {
+        loadSubject(node);
+        Shape shape = shapes.get(node);
+        if (shape == null || shape.loaded) {
+            return shape;
+        }
+        shape.loaded = true;
+        for (Shape propertyShape : new ArrayList<>(shape.properties)) {
+            loadShape(propertyShape.node);
+        }
+        align(source, shape);
+        return shape;
+    }
+
+    /**
+     * Put a shape's multi-valued attributes in the order the graph returns them
+     * for that shape and predicate, which is the order
+     * {@code Resource.listProperties} and {@code Resource.getProperty} see.
+     * Only shapes with more than one value need the extra find.
+     */
+    private void align(Graph graph, Shape shape) {
+        if (shape.severalTargetClasses) {
+            shape.targetClass = objects(graph, shape.node, SHACL.targetClass).get(0);
+        }
+        if (shape.properties.size() > 1) {
+            reorder(shape.properties, objects(graph, shape.node, SHACL.property));
+        }
+        if (shape.nodeRefs.size() > 1) {
+            List<Node> nodeRefs = objects(graph, shape.node, SHACL.node);
+            shape.nodeRefs.clear();
+            shape.nodeRefs.addAll(nodeRefs);
+        }
+        if (shape.memberLists.size() > 1) {
+            List<Node> memberLists = new ArrayList<>(objects(graph, shape.node, SHACL.and));
+            memberLists.addAll(objects(graph, shape.node, SHACL.or));
+            memberLists.addAll(objects(graph, shape.node, SHACL.xone));
+            shape.memberLists.clear();
+            shape.memberLists.addAll(memberLists);
+        }
+    }
+
+    /**
+     * Replace a list of shapes with the shapes of the given nodes, in the
+     * nodes' order. Nodes with no recorded shape are skipped.
+     */
+    private void reorder(List<Shape> list, List<Node> order) {
+        list.clear();
+        for (Node node : order) {
+            Shape shape = shapes.get(node);
+            if (shape != null && !list.contains(shape)) {
+                list.add(shape);
+            }
+        }
+    }
+
+    private static List<Node> objects(Graph graph, Node subject, Node predicate) {
+        List<Node> objects = new ArrayList<>(2);
+        ExtendedIterator<Triple> triples = graph.find(subject, predicate, Node.ANY);
+        try {
+            while (triples.hasNext()) {
+                objects.add(triples.next().getObject());
+            }
+        } finally {
+            triples.close();
+        }
+        return objects;
+    }
+
+    private static List<Node> subjects(Graph graph, Node predicate, Node object) {
+        List<Node> subjects = new ArrayList<>();
+        ExtendedIterator<Triple> triples = graph.find(Node.ANY, predicate, object);
+        try {
+            while (triples.hasNext()) {
+                subjects.add(triples.next().getSubject());
+            }
+        } finally {
+            triples.close();
+        }
+        return subjects;
+    }
+
+    /**
+     * Members of an RDF list, in list order.
+     *
+     * @param head The first cell of the list
+     * @return The list members; stops early on a malformed or cyclic list
+     */
+    public List<Node> listMembers(Node head) {
+        List<Node> members = new ArrayList<>();
+        Set<Node> seen = new HashSet<>();
+        Node cell = head;
+        while (cell != null && !cell.equals(RDF.Nodes.nil) && seen.add(cell)) {
+            loadSubject(cell);
+            Node member = listFirst.get(cell);
+            if (member == null) {
+                break;
+            }
+            members.add(member);
+            cell = listRest.get(cell);
+        }
+        return members;
+    }
+
+    private Shape shape(Node subject) {
+        return shapes.computeIfAbsent(subject, Shape::new);
+    }
+
+    /**
+     * @return The shape recorded for a node, or null if no SHACL attribute was seen for it
+     */
+    public Shape getShape(Node node) {
+        return source != null ? loadShape(node) : shapes.get(node);
+    }
+
+    /**
+     * @return Node shapes, in the order the graph lists them (or, for a
+     *         streamed index, the order they were first typed as sh:NodeShape)
+     */
+    public List<Shape> getNodeShapes() {
+        if (source != null && !nodeShapesLoaded) {
+            nodeShapesLoaded = true;
+            List<Node> subjects = subjects(source, RDF.Nodes.type, SHACL.NodeShape);
+            for (Node subject : subjects) {
+                loadShape(subject);
+            }
+            // Shapes reached earlier through a reference were typed out of order
+            reorder(nodeShapes, subjects);
+        }
+        return nodeShapes;
+    }
+
+    /**
+     * @return Every shape whose sh:path is the given node (empty if none)
+     */
+    public List<Shape> getShapesWithPath(Node path) {
+        if (source != null && loadedPaths.add(path)) {
+            List<Node> subjects = subjects(source, SHACL.path, path);
+            for (Node subject : subjects) {
+                loadShape(subject);
+            }
+            List<Shape> loaded = shapesByPath.get(path);
+            if (loaded != null && loaded.size() > 1) {
+                reorder(loaded, subjects);
+            }
+        }
+        return shapesByPath.getOrDefault(path, Collections.emptyList());
+    }
+
+    /**
+     * @return Number of shapes indexed so far (for a graph-backed index, the shapes visited)
+     */
+    public int size() {
+        return shapes.size();
+    }
+
+    /**
+     * Lexical form of a node, matching what {@code RDFNode.toString()} returns
+     * for the same term in the Model API.
+     */
+    public static String lexical(Node node) {
+        if (node.isURI()) {
+            return node.getURI();
+        }
+        if (node.isBlank()) {
+            return node.getBlankNodeLabel();
+        }
+        if (node.isLiteral()) {
+            return node.getLiteral().toString(false);
+        }
+        return node.toString();
+    }
+
+    /**
+     * Integer value of a literal node, as {@code Statement.getInt()} would return it.
+     * A literal that is not typed as a number (a plain {@code "1"}, say) is
+     * read from its lexical form.
+     *
+     * @throws IllegalArgumentException If the node is not a literal, or its
+     *         value is not an integer
+     */
+    public static int intValue(Node node) {
+        if (!node.isLiteral()) {
+            throw new IllegalArgumentException("Expected an integer literal: " + node);
+        }
+        String lexicalForm = node.getLiteralLexicalForm();
+        if (node.getLiteralDatatype() != null && node.getLiteralDatatype().isValid(lexicalForm)) {
+            Object value = node.getLiteralValue();
+            if (value instanceof Number) {
+                return ((Number) value).intValue();
+            }
+        }
+        try {
+            return Integer.parseInt(lexicalForm.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Expected an integer literal: " + node, e);
+        }
+    }
+
+    public static class Shape {
+        private final Node node;
+        private boolean nodeShape;
+        private Node targetClass;
+        private boolean severalTargetClasses;
+        private Node path;
+        private Node shClass;
+        private Node datatype;
+        private Node minCount;
+        private Node maxCount;
+        private final List<Shape> properties;
+        private final List<Node> nodeRefs;
+        private final List<Node> memberLists;
+        private boolean loaded;
+
+        Shape(Node node) {
+            this.node = node;
+            this.properties = new ArrayList<>(2);
+            this.nodeRefs = new ArrayList<>(0);
+            this.memberLists = new ArrayList<>(0);
+        }
+
+        public Node getNode() { return node; }
+        public boolean isNodeShape() { return nodeShape; }
+        public Node getTargetClass() { return targetClass; }
+        public Node getPath() { return path; }
+        public Node getShClass() { return shClass; }
+        public Node getDatatype() { return datatype; }
+        public Node getMinCount() { return minCount; }
+        public Node getMaxCount() { return maxCount; }
+        public List<Shape> getProperties() { return properties; }
+        /** @return sh:node references */
+        public List<Node> getNodeRefs() { return nodeRefs; }
+        /** @return Heads of the sh:and, sh:or and sh:xone lists */
+        public List<Node> getMemberLists() { return memberLists; }
+
+        public boolean hasReferences() {
+            return !nodeRefs.isEmpty() || !memberLists.isEmpty();
+        }
+    }
+}
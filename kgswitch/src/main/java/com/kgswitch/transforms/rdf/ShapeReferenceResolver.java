@@ -0,0 +1,154 @@
+package com.kgswitch.transforms.rdf;
+
+import org.apache.jena.graph.Node;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Expands shapes composed by reference (sh:node, sh:and, sh:or, sh:xone) into
+ * the property shapes they bring in. Each shape is expanded once and the
+ * result memoized, so sub-shapes shared by many shapes are not walked again;
+ * a visited set cuts reference cycles.
+ *
+ * All members of sh:or and sh:xone are expanded, as for sh:and: the schema
+ * side keeps every property an instance may have.
+ */
+public class ShapeReferenceResolver {
+    private final ShapeIndex index;
+    private final Map<ShapeIndex.Shape, List<ShapeIndex.Shape>> expanded;
+    private final LongAdder computed;
+    private final LongAdder saved;
+    private final LongAdder cyclesCut;
+
+    public ShapeReferenceResolver(ShapeIndex index) {
+        this.index = index;
+        this.expanded = new ConcurrentHashMap<>();
+        this.computed = new LongAdder();
+        this.saved = new LongAdder();
+        this.cyclesCut = new LongAdder();
+    }
+
+    /**
+     * Property shapes a shape inherits through its references, not counting
+     * its own sh:property values. Referenced shapes contribute their own
+     * sh:property values, themselves if they have a sh:path, and whatever they
+     * inherit in turn.
+     *
+     * @param shape The referencing shape
+     * @return The inherited property shapes, without duplicates (empty if the shape has no references)
+     */
+    public List<ShapeIndex.Shape> expandProperties(ShapeIndex.Shape shape) {
+        if (!shape.hasReferences()) {
+            return Collections.emptyList();
+        }
+        return expand(shape, new ArrayList<>()).properties;
+    }
+
+    /**
+     * Shapes referenced directly from sh:and, sh:or and sh:xone lists, in list order.
+     *
+     * @param shape The referencing shape
+     * @return The member shapes (empty if none)
+     */
+    public List<ShapeIndex.Shape> listMembers(ShapeIndex.Shape shape) {
+        if (shape.getMemberLists().isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<ShapeIndex.Shape> members = new ArrayList<>();
+        for (Node head : shape.getMemberLists()) {
+            for (Node member : index.listMembers(head)) {
+                ShapeIndex.Shape memberShape = index.getShape(member);
+                if (memberShape != null) {
+                    members.add(memberShape);
+                }
+            }
+        }
+        return members;
+    }
+
+    /**
+     * Expansion of one shape. {@code cycleDepth} is the shallowest position on
+     * the current path that a reference cycle led back to; an expansion that
+     * depends on a cut above it is incomplete and is not memoized.
+     */
+    private static class Expansion {
+        final List<ShapeIndex.Shape> properties;
+        final int cycleDepth;
+
+        Expansion(List<ShapeIndex.Shape> properties, int cycleDepth) {
+            this.properties = properties;
+            this.cycleDepth = cycleDepth;
+        }
+    }
+
+    private Expansion expand(ShapeIndex.Shape shape, List<ShapeIndex.Shape> path) {
+        List<ShapeIndex.Shape> memo = expanded.get(shape);
+        if (memo != null) {
+            saved.increment();
+            return new Expansion(memo, Integer.MAX_VALUE);
+        }
+
+        int depth = path.size();
+        path.add(shape);
+        int cycleDepth = Integer.MAX_VALUE;
+        Set<ShapeIndex.Shape> properties = new LinkedHashSet<>();
+
+        for (ShapeIndex.Shape referenced : referencedShapes(shape)) {
+            int onPath = path.indexOf(referenced);
+            if (onPath >= 0) {
+                // Reference cycle: the shape is already being expanded further up
+                cyclesCut.increment();
+                cycleDepth = Math.min(cycleDepth, onPath);
+                continue;
+            }
+            properties.addAll(referenced.getProperties());
+            if (referenced.getPath() != null) {
+                properties.add(referenced);
+            }
+            if (referenced.hasReferences()) {
+                Expansion inner = expand(referenced, path);
+                properties.addAll(inner.properties);
+                cycleDepth = Math.min(cycleDepth, inner.cycleDepth);
+            }
+        }
+        path.remove(depth);
+        computed.increment();
+
+        List<ShapeIndex.Shape> result = Collections.unmodifiableList(new ArrayList<>(properties));
+        if (cycleDepth >= depth) {
+            // Complete: no cut leads above this shape
+            expanded.putIfAbsent(shape, result);
+            cycleDepth = Integer.MAX_VALUE;
+        }
+        return new Expansion(result, cycleDepth);
+    }
+
+    private List<ShapeIndex.Shape> referencedShapes(ShapeIndex.Shape shape) {
+        List<ShapeIndex.Shape> referenced = new ArrayList<>();
+        for (Node ref : shape.getNodeRefs()) {
+            ShapeIndex.Shape refShape = index.getShape(ref);
+            if (refShape != null) {
+                referenced.add(refShape);
+            }
+        }
+        referenced.addAll(listMembers(shape));
+        return referenced;
+    }
+
+    /** @return Expansions actually computed */
+    public long getComputed() {
+        return computed.sum();
+    }
+
+    /** @return Expansions answered from the memo instead of being walked again */
+    public long getSaved() {
+        return saved.sum();
+    }
+
+    /** @return References skipped because they closed a cycle */
+    public long getCyclesCut() {
+        return cyclesCut.sum();
+    }
+}
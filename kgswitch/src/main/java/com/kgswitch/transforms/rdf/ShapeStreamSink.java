@@ -0,0 +1,28 @@
+package com.kgswitch.transforms.rdf;
+
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.system.StreamRDFBase;
+
+/**
+ * StreamRDF sink that feeds parsed triples into a {@link ShapeIndex} without
+ * materializing a Model. Triples that carry no SHACL attribute of interest
+ * are dropped as soon as they are parsed.
+ */
+class ShapeStreamSink extends StreamRDFBase {
+    private final ShapeIndex index;
+    private long tripleCount;
+
+    ShapeStreamSink(ShapeIndex index) {
+        this.index = index;
+    }
+
+    @Override
+    public void triple(Triple triple) {
+        tripleCount++;
+        index.add(triple);
+    }
+
+    long getTripleCount() {
+        return tripleCount;
+    }
+}
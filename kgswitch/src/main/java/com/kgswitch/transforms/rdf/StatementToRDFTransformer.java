@@ -1,6 +1,10 @@
 package com.kgswitch.transforms.rdf;
 
 import com.kgswitch.models.graph.*;
+import com.kgswitch.models.statements.EdgeStatement;
+import com.kgswitch.models.statements.PropertyStatement;
+import com.kgswitch.models.statements.StatementNode;
+import com.kgswitch.models.statements.TypeStatement;
 import org.apache.jena.rdf.model.*;
 import org.apache.jena.vocabulary.RDF;
 import java.util.*;
@@ -21,33 +25,30 @@ public class StatementToRDFTransformer {
         rdfModel.setNsPrefix("sh", "http://www.w3.org/ns/shacl#");
         rdfModel.setNsPrefix("schema", "http://schema.org/");
         
+        StatementIndex index = new StatementIndex(statementGraph);
+        
         // First pass: Process type statements to create node shapes
-        for (SchemaNode node : statementGraph.getNodes()) {
-            if (node.getLabels().contains("TypeStatement")) {
-                processTypeStatement(node);
-            }
+        for (SchemaNode node : index.find(StatementIndex.TYPE_STATEMENT)) {
+            processTypeStatement(node);
         }
         
         // Second pass: Process property statements
-        for (SchemaNode node : statementGraph.getNodes()) {
-            if (node.getLabels().contains("PropertyStatement")) {
-                processPropertyStatement(node);
-            }
+        for (SchemaNode node : index.find(StatementIndex.PROPERTY_STATEMENT)) {
+            processPropertyStatement(node);
         }
         
         // Third pass: Process edge statements
-        for (SchemaNode node : statementGraph.getNodes()) {
-            if (node.getLabels().contains("EdgeStatement")) {
-                processEdgeStatement(node);
-            }
+        for (SchemaNode node : index.find(StatementIndex.EDGE_STATEMENT)) {
+            processEdgeStatement(node);
         }
         
         return rdfModel;
     }
     
     private void processTypeStatement(SchemaNode statement) {
-        String subjectUri = statement.getProperties().get("subject").toString();
-        String objectUri = statement.getProperties().get("object").toString();
+        TypeStatement typeStatement = StatementNode.asTypeStatement(statement);
+        String subjectUri = typeStatement.getSubject();
+        String objectUri = typeStatement.getObject();
         
         Resource nodeShape = rdfModel.createResource(subjectUri);
         nodeShapes.put(subjectUri, nodeShape);
@@ -64,8 +65,9 @@ public class StatementToRDFTransformer {
     }
     
     private void processPropertyStatement(SchemaNode statement) {
-        String subjectUri = statement.getProperties().get("subject").toString();
-        String predicate = statement.getProperties().get("predicate").toString();
+        PropertyStatement propertyStatement = StatementNode.asPropertyStatement(statement);
+        String subjectUri = propertyStatement.getSubject();
+        String predicate = propertyStatement.getPredicate();
         
         Resource subject = nodeShapes.get(subjectUri);
         if (subject == null) {
@@ -85,28 +87,28 @@ public class StatementToRDFTransformer {
         );
         
         // Add cardinality constraints
-        String minCount = statement.getProperties().get("minCount").toString();
-        String maxCount = statement.getProperties().get("maxCount").toString();
+        int minCount = propertyStatement.getMinCount();
+        int maxCount = propertyStatement.getMaxCount();
         
-        if (!minCount.equals("0")) {
+        if (propertyStatement.hasMinCount() && minCount != 0) {
             propertyShape.addProperty(
                 rdfModel.createProperty("http://www.w3.org/ns/shacl#minCount"),
-                rdfModel.createTypedLiteral(Integer.parseInt(minCount))
+                rdfModel.createTypedLiteral(minCount)
             );
         }
         
-        if (!maxCount.equals("-1")) {
+        if (propertyStatement.hasMaxCount() && maxCount != -1) {
             propertyShape.addProperty(
                 rdfModel.createProperty("http://www.w3.org/ns/shacl#maxCount"),
-                rdfModel.createTypedLiteral(Integer.parseInt(maxCount))
+                rdfModel.createTypedLiteral(maxCount)
             );
         }
         
         // Add datatype if present
-        if (statement.getProperties().containsKey("datatype")) {
+        if (propertyStatement.getDatatype() != null) {
             propertyShape.addProperty(
                 rdfModel.createProperty("http://www.w3.org/ns/shacl#datatype"),
-                rdfModel.createResource(statement.getProperties().get("datatype").toString())
+                rdfModel.createResource(propertyStatement.getDatatype())
             );
         }
         
@@ -117,9 +119,10 @@ public class StatementToRDFTransformer {
     }
     
     private void processEdgeStatement(SchemaNode statement) {
-        String subjectUri = statement.getProperties().get("subject").toString();
-        String predicate = statement.getProperties().get("predicate").toString();
-        String objectUri = statement.getProperties().get("object").toString();
+        EdgeStatement edgeStatement = StatementNode.asEdgeStatement(statement);
+        String subjectUri = edgeStatement.getSubject();
+        String predicate = edgeStatement.getPredicate();
+        String objectUri = edgeStatement.getObject();
         
         Resource subject = nodeShapes.get(subjectUri);
         if (subject == null) {
@@ -0,0 +1,152 @@
+package com.kgswitch.transforms.rdf;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.ReadWrite;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.system.Txn;
+import org.apache.jena.tdb2.TDB2Factory;
+import org.apache.jena.tdb2.loader.DataLoader;
+import org.apache.jena.tdb2.loader.LoaderFactory;
+import org.apache.jena.tdb2.sys.TDBInternal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Persistent shapes store backed by a TDB2 dataset on disk. Shapes are
+ * bulk-loaded into the default graph; a small metadata graph records which
+ * file (path, size, modification time) they came from, so a later run against
+ * the same unchanged file can skip parsing altogether.
+ *
+ * All reads happen inside TDB2 read transactions. Close the store when done
+ * with it to release the database and its caches; the same location can be
+ * opened again afterwards.
+ */
+public class TDBShapeStore implements AutoCloseable {
+    private static final Node META_GRAPH = NodeFactory.createURI("urn:kgswitch:meta");
+    private static final Node SHAPES = NodeFactory.createURI("urn:kgswitch:shapes");
+    private static final Node SOURCE = NodeFactory.createURI("urn:kgswitch:source");
+
+    private final Path location;
+    private final Dataset dataset;
+    private boolean closed;
+
+    /**
+     * Connect to (or create) a TDB2 dataset in the given directory.
+     *
+     * @param location Directory holding the TDB2 database
+     * @throws IOException If the directory cannot be created
+     */
+    public TDBShapeStore(Path location) throws IOException {
+        this.location = location.toAbsolutePath().normalize();
+        Files.createDirectories(this.location);
+        this.dataset = TDB2Factory.connectDataset(this.location.toString());
+    }
+
+    public Path getLocation() {
+        return location;
+    }
+
+    public Dataset getDataset() {
+        return dataset;
+    }
+
+    /**
+     * @param shapesFile A shapes file
+     * @return Whether the store already holds exactly this file's shapes
+     * @throws IOException If the file's attributes cannot be read
+     */
+    public boolean isLoaded(Path shapesFile) throws IOException {
+        Node marker = sourceMarker(shapesFile);
+        return Txn.calculateRead(dataset, () ->
+            dataset.asDatasetGraph().contains(META_GRAPH, SHAPES, SOURCE, marker));
+    }
+
+    /**
+     * Replace the stored shapes with the contents of a shapes file, unless the
+     * store already holds that file unchanged.
+     *
+     * @param shapesFile The shapes file (any syntax or compression handled by {@link RDFFormats})
+     * @param decompressInBackground Decompress on a separate thread while loading
+     * @return Whether the file was (re)loaded
+     * @throws IOException If the file cannot be read
+     */
+    public boolean load(Path shapesFile, boolean decompressInBackground) throws IOException {
+        if (isLoaded(shapesFile)) {
+            System.out.println("TDB2 store at " + location + " already holds " + shapesFile + ", skipping load");
+            return false;
+        }
+
+        DatasetGraph dsg = dataset.asDatasetGraph();
+        Txn.executeWrite(dsg, () -> {
+            dsg.getDefaultGraph().clear();
+            dsg.deleteAny(META_GRAPH, Node.ANY, Node.ANY, Node.ANY);
+        });
+
+        Lang lang = RDFFormats.detect(shapesFile);
+        DataLoader loader = LoaderFactory.createLoader(dsg,
+            (fmt, args) -> System.out.println(String.format(fmt, args)));
+        loader.startBulk();
+        try (InputStream in = RDFFormats.open(shapesFile, decompressInBackground)) {
+            RDFParser.source(in).lang(lang).base(shapesFile.toUri().toString()).parse(loader.stream());
+            loader.finishBulk();
+        } catch (IOException | RuntimeException e) {
+            loader.finishException(e);
+            throw e;
+        }
+
+        Node marker = sourceMarker(shapesFile);
+        Txn.executeWrite(dsg, () -> dsg.add(META_GRAPH, SHAPES, SOURCE, marker));
+        System.out.println("Loaded " + loader.countTriples() + " triples into TDB2 store at " + location);
+        return true;
+    }
+
+    /**
+     * Read the stored shapes inside a read transaction. The reader gets a
+     * {@link ShapeIndex#over(org.apache.jena.graph.Graph) graph-backed index}
+     * that looks shapes up in the store's indexes as it goes, so the shapes
+     * graph is never scanned into memory. The index must not escape the
+     * reader or be used from another thread.
+     *
+     * @param reader Reads the shapes
+     * @return What the reader returned
+     * @throws Exception If the reader fails
+     */
+    public <T> T read(ShapeReader<T> reader) throws Exception {
+        dataset.begin(ReadWrite.READ);
+        try {
+            return reader.read(ShapeIndex.over(dataset.asDatasetGraph().getDefaultGraph()));
+        } finally {
+            dataset.end();
+        }
+    }
+
+    /**
+     * Release the database, so its files are unlocked and its caches dropped.
+     * Closing more than once has no further effect.
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            TDBInternal.expel(dataset.asDatasetGraph());
+        }
+    }
+
+    @FunctionalInterface
+    public interface ShapeReader<T> {
+        T read(ShapeIndex index) throws Exception;
+    }
+
+    private static Node sourceMarker(Path shapesFile) throws IOException {
+        Path file = shapesFile.toAbsolutePath().normalize();
+        return NodeFactory.createLiteral(file + "|" + Files.size(file) + "|" +
+                                         Files.getLastModifiedTime(file).toMillis());
+    }
+}
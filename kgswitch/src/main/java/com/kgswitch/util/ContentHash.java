@@ -0,0 +1,71 @@
+package com.kgswitch.util;
+
+/**
+ * 64-bit content hashes for schema parts. The functions only depend on the
+ * hashed values (never on identity hash codes or JVM state), so hashes are
+ * the same across runs and JVMs and can be stored or compared between
+ * files.
+ *
+ * Ordered parts are chained with {@link #combine}; unordered collections
+ * (label sets, constraint and property maps, the nodes of a graph) add up
+ * {@link #mix}ed element hashes, so their hash does not depend on iteration
+ * order.
+ */
+public final class ContentHash {
+    /** Hash of a null value */
+    public static final long NULL = 0x2545F4914F6CDD1DL;
+
+    private static final long FNV_OFFSET = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+
+    private ContentHash() {
+    }
+
+    /**
+     * @param value A string, or null
+     * @return FNV-1a over the string's chars, finished with {@link #mix}
+     */
+    public static long of(String value) {
+        if (value == null) {
+            return NULL;
+        }
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * @param value An int
+     * @return Its hash
+     */
+    public static long of(int value) {
+        return mix(value * GOLDEN);
+    }
+
+    /**
+     * Chain two hashes; the order matters.
+     *
+     * @param hash The hash so far
+     * @param next The next part's hash
+     * @return The combined hash
+     */
+    public static long combine(long hash, long next) {
+        return mix(hash * GOLDEN + next);
+    }
+
+    /**
+     * The SplitMix64 finalizer. Use it on element hashes before adding them
+     * up, so that sums of related values do not collide.
+     *
+     * @param hash A hash
+     * @return The scrambled hash
+     */
+    public static long mix(long hash) {
+        hash = (hash ^ (hash >>> 30)) * 0xBF58476D1CE4E5B9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94D049BB133111EBL;
+        return hash ^ (hash >>> 31);
+    }
+}
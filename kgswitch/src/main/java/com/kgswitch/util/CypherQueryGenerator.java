@@ -2,6 +2,7 @@ package com.kgswitch.util;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kgswitch.models.graph.CompactSchemaGraph;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
@@ -21,6 +22,20 @@ import java.util.Set;
  */
 public class CypherQueryGenerator {
     
+    // Distinct node colors
+    private static final List<String> NODE_COLORS = List.of(
+        "#FF5733", // Red
+        "#33A1FF", // Blue
+        "#33FF57", // Green
+        "#9133FF", // Purple
+        "#FFDD33", // Yellow
+        "#FF33A1", // Pink
+        "#33FFDD", // Teal
+        "#A1FF33", // Lime
+        "#FF8333", // Orange
+        "#8333FF"  // Indigo
+    );
+    
     private final ObjectMapper objectMapper;
     
     public CypherQueryGenerator() {
@@ -50,9 +65,7 @@ public class CypherQueryGenerator {
         JsonNode root = objectMapper.readTree(jsonSchema);
         
         StringBuilder cypher = new StringBuilder();
-        
-        cypher.append("// Uncomment to clear the database before import\n");
-        cypher.append("MATCH (n) DETACH DELETE n;\n\n");
+        appendHeader(cypher);
         
         // Generate node creation queries
         cypher.append("// Create nodes\n");
@@ -63,6 +76,94 @@ public class CypherQueryGenerator {
         cypher.append("// Create relationships\n");
         generateRelationshipQueries(root.get("relationships"), nodeIdsByLabel, cypher);
         
+        appendFooter(cypher);
+        return cypher.toString();
+    }
+    
+    /**
+     * Generate Cypher queries straight from a compact PG schema, without
+     * going through JSON. The result is the same as
+     * {@code generateCypherFromJson(new JsonSchemaGenerator().generateJson(schema))}.
+     * 
+     * @param schema The compact PG schema
+     * @return String containing the Cypher queries
+     */
+    public String generateCypher(CompactSchemaGraph schema) {
+        StringBuilder cypher = new StringBuilder();
+        appendHeader(cypher);
+        
+        // The JSON writer gives up ("{}") if a relationship end has no label
+        boolean writable = true;
+        for (int e = 0; e < schema.getEdgeCount(); e++) {
+            if (schema.getLabelCount(schema.getEdgeSource(e)) == 0 ||
+                schema.getLabelCount(schema.getEdgeTarget(e)) == 0) {
+                writable = false;
+                break;
+            }
+        }
+        
+        cypher.append("// Create nodes\n");
+        Map<String, List<String>> nodeIdsByLabel = new HashMap<>();
+        Set<String> processedLabels = new HashSet<>();
+        int colorIndex = 0;
+        boolean anyNode = false;
+        for (int n = 0; writable && n < schema.getNodeCount(); n++) {
+            if (schema.getLabelCount(n) == 0) {
+                continue;
+            }
+            anyNode = true;
+            String label = schema.getLabel(n, 0);
+            if (!processedLabels.add(label)) {
+                continue;
+            }
+            String nodeId = sanitizeId(label);
+            nodeIdsByLabel.computeIfAbsent(label, k -> new ArrayList<>()).add(nodeId);
+            
+            StringBuilder propertiesStr = startNodeProperties(label, colorIndex++);
+            for (int i = 0; i < schema.getNodeConstraintCount(n); i++) {
+                appendNodeProperty(propertiesStr, schema.getNodeConstraintName(n, i),
+                    JsonSchemaGenerator.getSimpleDataType(schema.getNodeConstraintDataType(n, i)));
+            }
+            appendNode(cypher, nodeId, label, propertiesStr);
+        }
+        if (!anyNode) {
+            cypher.append("// No nodes found in schema\n");
+        }
+        cypher.append("\n");
+        
+        cypher.append("// Create relationships\n");
+        if (!writable || schema.getEdgeCount() == 0) {
+            cypher.append("// No relationships found in schema\n");
+        } else {
+            Set<String> processedRelTypes = new HashSet<>();
+            for (int e = 0; e < schema.getEdgeCount(); e++) {
+                String type = schema.getEdgeType(e).toLowerCase();
+                String sourceLabel = schema.getLabel(schema.getEdgeSource(e), 0);
+                String targetLabel = schema.getLabel(schema.getEdgeTarget(e), 0);
+                if (!processedRelTypes.add(sourceLabel + "-" + type + "-" + targetLabel)) {
+                    continue;
+                }
+                
+                StringBuilder propertiesStr = new StringBuilder();
+                propertiesStr.append("name: '").append(type).append("'");
+                for (int i = 0; i < schema.getEdgeConstraintCount(e); i++) {
+                    appendRelationshipProperty(propertiesStr, schema.getEdgeConstraintName(e, i),
+                        JsonSchemaGenerator.getJsonType(schema.getEdgeConstraintDataType(e, i)));
+                }
+                appendRelationship(cypher, type, sourceLabel, targetLabel, propertiesStr, nodeIdsByLabel);
+            }
+        }
+        
+        appendFooter(cypher);
+        return cypher.toString();
+    }
+    
+    private void appendHeader(StringBuilder cypher) {
+        cypher.append("// Uncomment to clear the database before import\n");
+        cypher.append("MATCH (n) DETACH DELETE n;\n\n");
+    }
+    
+    private void appendFooter(StringBuilder cypher) {
         // Add Neo4j Browser styling commands at the end
         cypher.append("\n// Set Neo4j Browser styling to use node colors\n");
         cypher.append("// Note: these commands require APOC to be installed in Neo4j\n");
@@ -79,8 +180,6 @@ public class CypherQueryGenerator {
         cypher.append("MATCH (n) WHERE n.color IS NOT NULL\n");
         cypher.append("WITH n LIMIT 1\n");
         cypher.append("CALL db.createNodeKey('color');\n\n");
-        
-        return cypher.toString();
     }
     
     /**
@@ -95,19 +194,6 @@ public class CypherQueryGenerator {
             return nodeIdsByLabel;
         }
         
-        // Define a list of distinct colors
-        List<String> nodeColors = List.of(
-            "#FF5733", // Red
-            "#33A1FF", // Blue
-            "#33FF57", // Green
-            "#9133FF", // Purple
-            "#FFDD33", // Yellow
-            "#FF33A1", // Pink
-            "#33FFDD", // Teal
-            "#A1FF33", // Lime
-            "#FF8333", // Orange
-            "#8333FF"  // Indigo
-        );
         int colorIndex = 0;
         
         // First pass: collect all nodes by label to ensure representation
@@ -130,60 +216,74 @@ public class CypherQueryGenerator {
             // Track node ID by label for relationship creation
             nodeIdsByLabel.computeIfAbsent(label, k -> new ArrayList<>()).add(nodeId);
             
-            StringBuilder propertiesStr = new StringBuilder();
-            
-            // Add name property with the label as its value
-            propertiesStr.append("name: '").append(label).append("'");
-            
-            // Add a property for display (will help with Neo4j Browser visualization)
-            propertiesStr.append(", displayName: '").append(label).append("'");
-            
-            // Add a label property to help with identification 
-            propertiesStr.append(", label: '").append(label).append("'");
-            
-            // Assign a color to this node (cycling through the color list)
-            String color = nodeColors.get(colorIndex % nodeColors.size());
+            StringBuilder propertiesStr = startNodeProperties(label, colorIndex);
             colorIndex++;
-            propertiesStr.append(", color: '").append(color).append("'");
             
             JsonNode properties = node.get("properties");
             if (properties != null && properties.isObject()) {
                 Iterator<Map.Entry<String, JsonNode>> fields = properties.fields();
                 while (fields.hasNext()) {
                     Map.Entry<String, JsonNode> entry = fields.next();
-                    String propName = entry.getKey();
                     JsonNode propDetails = entry.getValue();
-                    
-                    // Skip internal or special properties
-                    if (propName.startsWith("_") || propName.equals("id") || propName.equals("name") || 
-                        propName.equals("label") || propName.equals("displayName")) {
-                        continue;
-                    }
-                    
                     String propType = propDetails.has("type") ? propDetails.get("type").asText() : "String";
-                    
-                    if (propertiesStr.length() > 0) {
-                        propertiesStr.append(", ");
-                    }
-                    
-                    // Add property with its type (without constraints)
-                    propertiesStr.append(sanitizeId(propName)).append(": '").append(propType).append("'");
+                    appendNodeProperty(propertiesStr, entry.getKey(), propType);
                 }
             }
             
-            // Create Cypher query for this node
-            cypher.append("CREATE (").append(nodeId).append(":").append(label);
-            
-            if (propertiesStr.length() > 0) {
-                cypher.append(" {").append(propertiesStr).append("}");
-            }
-            
-            cypher.append(");\n");
+            appendNode(cypher, nodeId, label, propertiesStr);
         }
         
         return nodeIdsByLabel;
     }
     
+    /**
+     * Start the property map of a node query: name, display name, label and
+     * a color (cycling through the color list).
+     */
+    private StringBuilder startNodeProperties(String label, int colorIndex) {
+        StringBuilder propertiesStr = new StringBuilder();
+        
+        // Add name property with the label as its value
+        propertiesStr.append("name: '").append(label).append("'");
+        
+        // Add a property for display (will help with Neo4j Browser visualization)
+        propertiesStr.append(", displayName: '").append(label).append("'");
+        
+        // Add a label property to help with identification 
+        propertiesStr.append(", label: '").append(label).append("'");
+        
+        // Assign a color to this node (cycling through the color list)
+        String color = NODE_COLORS.get(colorIndex % NODE_COLORS.size());
+        propertiesStr.append(", color: '").append(color).append("'");
+        return propertiesStr;
+    }
+    
+    private void appendNodeProperty(StringBuilder propertiesStr, String propName, String propType) {
+        // Skip internal or special properties
+        if (propName.startsWith("_") || propName.equals("id") || propName.equals("name") || 
+            propName.equals("label") || propName.equals("displayName")) {
+            return;
+        }
+        
+        if (propertiesStr.length() > 0) {
+            propertiesStr.append(", ");
+        }
+        
+        // Add property with its type (without constraints)
+        propertiesStr.append(sanitizeId(propName)).append(": '").append(propType).append("'");
+    }
+    
+    private void appendNode(StringBuilder cypher, String nodeId, String label, StringBuilder propertiesStr) {
+        // Create Cypher query for this node
+        cypher.append("CREATE (").append(nodeId).append(":").append(label);
+        
+        if (propertiesStr.length() > 0) {
+            cypher.append(" {").append(propertiesStr).append("}");
+        }
+        
+        cypher.append(");\n");
+    }
+    
     /**
      * Generate Cypher queries for relationships
      */
@@ -223,42 +323,48 @@ public class CypherQueryGenerator {
                 Iterator<Map.Entry<String, JsonNode>> fields = properties.fields();
                 while (fields.hasNext()) {
                     Map.Entry<String, JsonNode> entry = fields.next();
-                    String propName = entry.getKey();
                     JsonNode propDetails = entry.getValue();
-                    
                     String propType = propDetails.has("type") ? propDetails.get("type").asText() : "String";
-                    
-                    if (propertiesStr.length() > 0) {
-                        propertiesStr.append(", ");
-                    }
-                    
-                    // Add property with its type (without constraints)
-                    propertiesStr.append(propName).append(": '").append(propType).append("'");
+                    appendRelationshipProperty(propertiesStr, entry.getKey(), propType);
                 }
             }
             
-            // Make sure the source and target labels exist in the schema
-            if (!nodeIdsByLabel.containsKey(sourceLabel) || !nodeIdsByLabel.containsKey(targetLabel)) {
-                cypher.append("// Skipping relationship ").append(type)
-                      .append(" from ").append(sourceLabel)
-                      .append(" to ").append(targetLabel)
-                      .append(" - one or both labels not found in schema\n");
-                continue;
-            }
-            
-            // Create the relationship between the nodes with specified labels
-            // Ensure relationship type is valid for Neo4j by removing spaces and special chars
-            String safeType = type.replaceAll("[^a-zA-Z0-9_]", "_").toUpperCase();
-            
-            cypher.append("MATCH (a:").append(sourceLabel).append("), (b:").append(targetLabel).append(") ");
-            cypher.append("CREATE (a)-[r:").append(safeType);
-            
-            if (propertiesStr.length() > 0) {
-                cypher.append(" {").append(propertiesStr).append("}");
-            }
-            
-            cypher.append("]->(b);\n");
+            appendRelationship(cypher, type, sourceLabel, targetLabel, propertiesStr, nodeIdsByLabel);
+        }
+    }
+    
+    private void appendRelationshipProperty(StringBuilder propertiesStr, String propName, String propType) {
+        if (propertiesStr.length() > 0) {
+            propertiesStr.append(", ");
+        }
+        
+        // Add property with its type (without constraints)
+        propertiesStr.append(propName).append(": '").append(propType).append("'");
+    }
+    
+    private void appendRelationship(StringBuilder cypher, String type, String sourceLabel, String targetLabel,
+                                    StringBuilder propertiesStr, Map<String, List<String>> nodeIdsByLabel) {
+        // Make sure the source and target labels exist in the schema
+        if (!nodeIdsByLabel.containsKey(sourceLabel) || !nodeIdsByLabel.containsKey(targetLabel)) {
+            cypher.append("// Skipping relationship ").append(type)
+                  .append(" from ").append(sourceLabel)
+                  .append(" to ").append(targetLabel)
+                  .append(" - one or both labels not found in schema\n");
+            return;
+        }
+        
+        // Create the relationship between the nodes with specified labels
+        // Ensure relationship type is valid for Neo4j by removing spaces and special chars
+        String safeType = type.replaceAll("[^a-zA-Z0-9_]", "_").toUpperCase();
+        
+        cypher.append("MATCH (a:").append(sourceLabel).append("), (b:").append(targetLabel).append(") ");
+        cypher.append("CREATE (a)-[r:").append(safeType);
+        
+        if (propertiesStr.length() > 0) {
+            cypher.append(" {").append(propertiesStr).append("}");
         }
+        
+        cypher.append("]->(b);\n");
     }
     
     /**
@@ -1,5 +1,6 @@
 package com.kgswitch.util;
 
+import com.kgswitch.models.graph.CompactSchemaGraph;
 import com.kgswitch.models.graph.SchemaGraph;
 import com.kgswitch.models.graph.SchemaNode;
 import com.kgswitch.models.graph.SchemaEdge;
@@ -37,14 +38,7 @@ public class JsonSchemaGenerator {
                         PropertyConstraint constraint = entry.getValue();
                         ObjectNode propertyObj = propsObj.putObject(propertyName);
                         propertyObj.put("type", getSimpleDataType(constraint.getDataType()));
-                        
-                        // Add cardinality if present
-                        if (constraint.getMinCardinality() > 0) {
-                            propertyObj.put("minCount", constraint.getMinCardinality());
-                        }
-                        if (constraint.getMaxCardinality() != -1) {
-                            propertyObj.put("maxCount", constraint.getMaxCardinality());
-                        }
+                        putCardinality(propertyObj, constraint.getMinCardinality(), constraint.getMaxCardinality());
                     }
                 }
             }
@@ -80,13 +74,7 @@ public class JsonSchemaGenerator {
             edge.getPropertyConstraints().forEach((key, constraint) -> {
                 ObjectNode propertyDetails = mapper.createObjectNode();
                 propertyDetails.put("type", getJsonType(constraint.getDataType()));
-                
-                if (constraint.getMinCardinality() > 0) {
-                    propertyDetails.put("minCount", constraint.getMinCardinality());
-                }
-                if (constraint.getMaxCardinality() != -1) {
-                    propertyDetails.put("maxCount", constraint.getMaxCardinality());
-                }
+                putCardinality(propertyDetails, constraint.getMinCardinality(), constraint.getMaxCardinality());
                 
                 properties.set(key, propertyDetails);
             });
@@ -102,7 +90,68 @@ public class JsonSchemaGenerator {
         return relationships;
     }
     
-    private String getSimpleDataType(String fullDataType) {
+    /**
+     * Same JSON as {@link #generateJson(SchemaGraph)} would give for
+     * {@code schema.toSchemaGraph()}, read straight from the columns.
+     *
+     * @param schema The compact PG schema
+     * @return The JSON document, or "{}" if it cannot be generated
+     */
+    public String generateJson(CompactSchemaGraph schema) {
+        try {
+            ObjectNode rootNode = mapper.createObjectNode();
+            
+            ArrayNode nodesArray = rootNode.putArray("nodes");
+            for (int n = 0; n < schema.getNodeCount(); n++) {
+                if (schema.getLabelCount(n) > 0) {
+                    ObjectNode nodeObj = nodesArray.addObject();
+                    nodeObj.put("label", schema.getLabel(n, 0));
+                    
+                    ObjectNode propsObj = nodeObj.putObject("properties");
+                    for (int i = 0; i < schema.getNodeConstraintCount(n); i++) {
+                        ObjectNode propertyObj = propsObj.putObject(schema.getNodeConstraintName(n, i));
+                        propertyObj.put("type", getSimpleDataType(schema.getNodeConstraintDataType(n, i)));
+                        putCardinality(propertyObj, schema.getNodeConstraintMinCardinality(n, i),
+                                       schema.getNodeConstraintMaxCardinality(n, i));
+                    }
+                }
+            }
+            
+            ArrayNode relsArray = rootNode.putArray("relationships");
+            for (int e = 0; e < schema.getEdgeCount(); e++) {
+                ObjectNode relationship = relsArray.addObject();
+                relationship.put("type", schema.getEdgeType(e).toLowerCase());
+                relationship.put("source", schema.getLabel(schema.getEdgeSource(e), 0));
+                relationship.put("target", schema.getLabel(schema.getEdgeTarget(e), 0));
+                
+                ObjectNode properties = relationship.putObject("properties");
+                for (int i = 0; i < schema.getEdgeConstraintCount(e); i++) {
+                    ObjectNode propertyDetails = properties.putObject(schema.getEdgeConstraintName(e, i));
+                    propertyDetails.put("type", getJsonType(schema.getEdgeConstraintDataType(e, i)));
+                    putCardinality(propertyDetails, schema.getEdgeConstraintMinCardinality(e, i),
+                                   schema.getEdgeConstraintMaxCardinality(e, i));
+                }
+            }
+            
+            return mapper.writerWithDefaultPrettyPrinter().writeValueAsString(rootNode);
+            
+        } catch (Exception e) {
+            System.err.println("Error generating JSON: " + e.getMessage());
+            return "{}";
+        }
+    }
+    
+    private static void putCardinality(ObjectNode property, int minCardinality, int maxCardinality) {
+        // Add cardinality if present
+        if (minCardinality > 0) {
+            property.put("minCount", minCardinality);
+        }
+        if (maxCardinality != -1) {
+            property.put("maxCount", maxCardinality);
+        }
+    }
+    
+    static String getSimpleDataType(String fullDataType) {
         // Convert XML Schema datatypes to simple types
         if (fullDataType.contains("#")) {
             String type = fullDataType.substring(fullDataType.indexOf("#") + 1);
@@ -128,7 +177,7 @@ public class JsonSchemaGenerator {
         return "String";
     }
 
-    private String getJsonType(String dataType) {
+    static String getJsonType(String dataType) {
         if (dataType == null) return "String";
         
         switch (dataType.toLowerCase()) {
@@ -0,0 +1,150 @@
+package com.kgswitch.util;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Immutable append-only list: a 32-way trie with the last (partial) block
+ * kept apart as the tail. {@link #plus} copies at most one path of the trie,
+ * so every version shares almost all of its storage with the one before.
+ *
+ * Instances never change after construction and can be read from any number
+ * of threads without locking.
+ *
+ * @param <E> Element type
+ */
+public final class PersistentVector<E> {
+    private static final Object[] EMPTY_NODE = new Object[32];
+    private static final PersistentVector<?> EMPTY = new PersistentVector<>(0, 5, EMPTY_NODE, new Object[0]);
+
+    private final int size;
+    private final int shift;
+    private final Object[] root;
+    private final Object[] tail;
+
+    private PersistentVector(int size, int shift, Object[] root, Object[] tail) {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    /**
+     * @return The empty vector
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentVector<E> empty() {
+        return (PersistentVector<E>) EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param index Position, 0 to size - 1
+     * @return The element at that position
+     * @throws IndexOutOfBoundsException If index is out of range
+     */
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " of " + size);
+        }
+        return (E) blockFor(index)[index & 31];
+    }
+
+    /**
+     * @param element The element to append
+     * @return A vector with the element added at the end
+     */
+    public PersistentVector<E> plus(E element) {
+        if (size - tailOffset() < 32) {
+            Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+            newTail[tail.length] = element;
+            return new PersistentVector<>(size + 1, shift, root, newTail);
+        }
+
+        // Tail is full: move it into the trie and start a new one
+        Object[] newRoot;
+        int newShift = shift;
+        if ((size >>> 5) > (1 << shift)) {
+            newRoot = new Object[32];
+            newRoot[0] = root;
+            newRoot[1] = newPath(shift, tail);
+            newShift += 5;
+        } else {
+            newRoot = pushTail(shift, root, tail);
+        }
+        return new PersistentVector<>(size + 1, newShift, newRoot, new Object[] {element});
+    }
+
+    /**
+     * @return Read-only List view (no copy)
+     */
+    public List<E> asList() {
+        return new ListView<>(this);
+    }
+
+    private int tailOffset() {
+        return size < 32 ? 0 : ((size - 1) >>> 5) << 5;
+    }
+
+    private Object[] blockFor(int index) {
+        if (index >= tailOffset()) {
+            return tail;
+        }
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= 5) {
+            node = (Object[]) node[(index >>> level) & 31];
+        }
+        return node;
+    }
+
+    private Object[] pushTail(int level, Object[] parent, Object[] tailNode) {
+        int child = ((size - 1) >>> level) & 31;
+        Object[] copy = parent.clone();
+        if (level == 5) {
+            copy[child] = tailNode;
+        } else {
+            Object[] existing = (Object[]) parent[child];
+            copy[child] = existing != null
+                ? pushTail(level - 5, existing, tailNode)
+                : newPath(level - 5, tailNode);
+        }
+        return copy;
+    }
+
+    private static Object[] newPath(int level, Object[] node) {
+        if (level == 0) {
+            return node;
+        }
+        Object[] path = new Object[32];
+        path[0] = newPath(level - 5, node);
+        return path;
+    }
+
+    private static final class ListView<E> extends AbstractList<E> implements RandomAccess {
+        private final PersistentVector<E> vector;
+
+        ListView(PersistentVector<E> vector) {
+            this.vector = vector;
+        }
+
+        @Override
+        public E get(int index) {
+            return vector.get(index);
+        }
+
+        @Override
+        public int size() {
+            return vector.size();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.kgswitch.util;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * Canonical instances of the strings the transforms keep repeating: IRIs,
+ * labels, property names and datatypes. Each distinct string is stored once;
+ * derived forms (local name, namespace, upper and lower case) are computed
+ * once per string and cached.
+ *
+ * The table only holds its strings weakly: a string no graph, statement or
+ * constraint refers to any more is dropped at the next garbage collection,
+ * together with its cached forms, so a long-running process does not keep
+ * every IRI it has ever seen.
+ *
+ * Safe to use from several threads; the table is split into independently
+ * locked stripes. {@link #global()} is shared by all transforms in the JVM,
+ * so symbols produced by one stage are the same instances the next stage
+ * sees, and equality checks between them succeed on the reference comparison.
+ */
+public final class SymbolTable {
+    private static final SymbolTable GLOBAL = new SymbolTable();
+    private static final int STRIPES = 64;
+
+    private static final int LOCAL_NAME = 0;
+    private static final int NAMESPACE = 1;
+    private static final int UPPER_CASE = 2;
+    private static final int LOWER_CASE = 3;
+
+    private final Stripe[] stripes;
+
+    /**
+     * One lock's share of the table. Values are weak too, so a cached form
+     * that happens to be another key (or the same one) does not keep it alive.
+     */
+    private static final class Stripe {
+        final WeakHashMap<String, WeakReference<String>> canonical = new WeakHashMap<>();
+        // Per derived form, created on first use
+        @SuppressWarnings("unchecked")
+        final WeakHashMap<String, WeakReference<String>>[] derived = new WeakHashMap[4];
+
+        Map<String, WeakReference<String>> derived(int form) {
+            if (derived[form] == null) {
+                derived[form] = new WeakHashMap<>();
+            }
+            return derived[form];
+        }
+    }
+
+    public SymbolTable() {
+        this.stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * @return The table shared across the JVM
+     */
+    public static SymbolTable global() {
+        return GLOBAL;
+    }
+
+    /**
+     * @param value A string, or null
+     * @return The canonical instance equal to it (null for null)
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        Stripe stripe = stripe(value);
+        synchronized (stripe) {
+            String canonical = deref(stripe.canonical.get(value));
+            if (canonical == null) {
+                canonical = value;
+                stripe.canonical.put(canonical, new WeakReference<>(canonical));
+            }
+            return canonical;
+        }
+    }
+
+    /**
+     * @return Number of distinct symbols still referenced from outside the table
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.canonical.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Local part of an IRI: after the last '#' if there is one, otherwise
+     * after the last '/', otherwise the whole string.
+     *
+     * @param iri An IRI or plain name
+     * @return The canonical local name
+     */
+    public String localName(String iri) {
+        return derived(LOCAL_NAME, iri, value -> {
+            int split = splitPoint(value);
+            return split < 0 ? value : value.substring(split + 1);
+        });
+    }
+
+    /**
+     * Namespace part of an IRI, including the separator; the complement of
+     * {@link #localName(String)}.
+     *
+     * @param iri An IRI or plain name
+     * @return The canonical namespace (empty if the string has no separator)
+     */
+    public String namespace(String iri) {
+        return derived(NAMESPACE, iri, value -> {
+            int split = splitPoint(value);
+            return split < 0 ? "" : value.substring(0, split + 1);
+        });
+    }
+
+    /**
+     * @param value A string
+     * @return The canonical {@code value.toUpperCase()}
+     */
+    public String upperCase(String value) {
+        return derived(UPPER_CASE, value, String::toUpperCase);
+    }
+
+    /**
+     * @param value A string
+     * @return The canonical {@code value.toLowerCase()}
+     */
+    public String lowerCase(String value) {
+        return derived(LOWER_CASE, value, String::toLowerCase);
+    }
+
+    /**
+     * Cached derived form of a string. The form is computed outside the
+     * stripe lock (interning it may take another stripe's lock); threads
+     * racing on the same string compute the same canonical value.
+     */
+    private String derived(int form, String value, UnaryOperator<String> compute) {
+        String key = intern(value);
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            String cached = deref(stripe.derived(form).get(key));
+            if (cached != null) {
+                return cached;
+            }
+        }
+        String result = intern(compute.apply(key));
+        synchronized (stripe) {
+            stripe.derived(form).put(key, new WeakReference<>(result));
+        }
+        return result;
+    }
+
+    private Stripe stripe(String value) {
+        int hash = value.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
+    private static String deref(WeakReference<String> reference) {
+        return reference != null ? reference.get() : null;
+    }
+
+    private static int splitPoint(String iri) {
+        int hash = iri.lastIndexOf('#');
+        return hash >= 0 ? hash : iri.lastIndexOf('/');
+    }
+}
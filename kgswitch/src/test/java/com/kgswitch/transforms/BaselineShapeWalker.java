@@ -0,0 +1,187 @@
+package com.kgswitch.transforms;
+
+import org.apache.jena.rdf.model.*;
+import org.apache.jena.vocabulary.RDF;
+
+import com.kgswitch.models.constraints.PropertyConstraint;
+import com.kgswitch.models.graph.SchemaEdge;
+import com.kgswitch.models.graph.SchemaGraph;
+import com.kgswitch.models.graph.SchemaNode;
+
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The original Model API walk of RDFSchemaTransformer, kept as the reference
+ * the indexed entry points are checked against. It reads every attribute with
+ * {@code Resource.getProperty} / {@code listProperties}, so it shares no code
+ * with {@link com.kgswitch.transforms.rdf.ShapeIndex}. Shape references
+ * (sh:node, sh:and, sh:or, sh:xone) are not followed.
+ */
+class BaselineShapeWalker {
+    private static final String SHACL_NS = "http://www.w3.org/ns/shacl#";
+
+    private final Model rdfModel;
+    private final SchemaGraph statementGraph = new SchemaGraph("rdf");
+    private final Map<String, SchemaNode> nodeStatements = new HashMap<>();
+
+    private BaselineShapeWalker(Model rdfModel) {
+        this.rdfModel = rdfModel;
+    }
+
+    static SchemaGraph walk(String ttlFile) {
+        Model model = ModelFactory.createDefaultModel();
+        model.read(Paths.get(ttlFile).toAbsolutePath().normalize().toUri().toString(), "TURTLE");
+        return new BaselineShapeWalker(model).walk();
+    }
+
+    private SchemaGraph walk() {
+        Resource nodeShapeType = rdfModel.createResource(SHACL_NS + "NodeShape");
+
+        ResIterator nodeShapes = rdfModel.listSubjectsWithProperty(RDF.type, nodeShapeType);
+        while (nodeShapes.hasNext()) {
+            createNodeFromShape(nodeShapes.next());
+        }
+
+        nodeShapes = rdfModel.listSubjectsWithProperty(RDF.type, nodeShapeType);
+        while (nodeShapes.hasNext()) {
+            processNodeProperties(nodeShapes.next());
+        }
+        return statementGraph;
+    }
+
+    private void createNodeFromShape(Resource nodeShape) {
+        Statement targetClass = nodeShape.getProperty(property("targetClass"));
+        if (targetClass != null) {
+            String nodeId = getLocalName(targetClass.getObject().toString());
+            SchemaNode typeStatement = new SchemaNode(nodeId);
+            typeStatement.addLabel(nodeId);
+            statementGraph.addNode(typeStatement);
+            nodeStatements.put(nodeId, typeStatement);
+        }
+    }
+
+    private void processNodeProperties(Resource nodeShape) {
+        Statement targetClass = nodeShape.getProperty(property("targetClass"));
+        if (targetClass == null) {
+            return;
+        }
+        SchemaNode node = nodeStatements.get(getLocalName(targetClass.getObject().toString()));
+        if (node == null) {
+            return;
+        }
+        StmtIterator properties = nodeShape.listProperties(property("property"));
+        while (properties.hasNext()) {
+            processPropertyShape(properties.next().getObject().asResource(), node);
+        }
+    }
+
+    private void processPropertyShape(Resource propertyShape, SchemaNode sourceNode) {
+        Statement pathStmt = propertyShape.getProperty(property("path"));
+        if (pathStmt == null) {
+            return;
+        }
+        String propertyName = getLocalName(pathStmt.getObject().toString());
+        Statement classStmt = propertyShape.getProperty(property("class"));
+
+        if (classStmt != null) {
+            processRelationshipShape(propertyShape, sourceNode, propertyName, classStmt);
+
+            StmtIterator nestedProps = propertyShape.listProperties(property("property"));
+            while (nestedProps.hasNext()) {
+                Resource nestedShape = nestedProps.next().getObject().asResource();
+                Statement nestedPath = nestedShape.getProperty(property("path"));
+                if (nestedPath != null) {
+                    String compoundName = propertyName + "_" + getLocalName(nestedPath.getObject().toString());
+                    PropertyConstraint constraint = createConstraint(nestedShape, compoundName);
+                    if (constraint != null) {
+                        sourceNode.addPropertyConstraint(constraint);
+                    }
+                }
+            }
+        } else {
+            PropertyConstraint constraint = createConstraint(propertyShape, propertyName);
+            if (constraint != null) {
+                sourceNode.addPropertyConstraint(constraint);
+            }
+        }
+    }
+
+    private void processRelationshipShape(Resource propertyShape, SchemaNode sourceNode,
+                                          String propertyName, Statement classStmt) {
+        SchemaNode targetNode = nodeStatements.get(getLocalName(classStmt.getObject().toString()));
+        if (targetNode == null) {
+            return;
+        }
+        SchemaEdge edge = new SchemaEdge(
+            propertyName.toUpperCase(),
+            sourceNode,
+            targetNode,
+            propertyName.toUpperCase()
+        );
+
+        StmtIterator nestedProps = propertyShape.listProperties(property("property"));
+        while (nestedProps.hasNext()) {
+            Resource nestedShape = nestedProps.next().getObject().asResource();
+            Statement nestedPath = nestedShape.getProperty(property("path"));
+            if (nestedPath != null) {
+                PropertyConstraint constraint = createConstraint(nestedShape,
+                    getLocalName(nestedPath.getObject().toString()));
+                if (constraint != null) {
+                    edge.addPropertyConstraint(constraint);
+                }
+            }
+        }
+
+        String relationshipIRI = propertyShape.getProperty(property("path")).getObject().toString();
+        StmtIterator relProps = rdfModel.listStatements(
+            null, property("path"), rdfModel.createResource(relationshipIRI));
+        while (relProps.hasNext()) {
+            PropertyConstraint constraint = createConstraint(relProps.next().getSubject(),
+                getLocalName(relationshipIRI) + "_property");
+            if (constraint != null) {
+                edge.addPropertyConstraint(constraint);
+            }
+        }
+
+        Statement minCount = propertyShape.getProperty(property("minCount"));
+        Statement maxCount = propertyShape.getProperty(property("maxCount"));
+        if (minCount != null) {
+            edge.addProperty("minCount", String.valueOf(minCount.getInt()));
+        }
+        if (maxCount != null) {
+            edge.addProperty("maxCount", String.valueOf(maxCount.getInt()));
+        }
+
+        statementGraph.addEdge(edge);
+    }
+
+    private PropertyConstraint createConstraint(Resource shape, String name) {
+        Statement datatypeStmt = shape.getProperty(property("datatype"));
+        if (datatypeStmt == null) {
+            return null;
+        }
+        PropertyConstraint constraint = new PropertyConstraint(name, datatypeStmt.getObject().toString());
+        Statement minCount = shape.getProperty(property("minCount"));
+        Statement maxCount = shape.getProperty(property("maxCount"));
+        if (minCount != null || maxCount != null) {
+            constraint.setCardinality(minCount != null ? minCount.getInt() : 0,
+                                      maxCount != null ? maxCount.getInt() : -1);
+        }
+        return constraint;
+    }
+
+    private Property property(String localName) {
+        return rdfModel.createProperty(SHACL_NS + localName);
+    }
+
+    private static String getLocalName(String uri) {
+        if (uri.contains("#")) {
+            return uri.substring(uri.lastIndexOf("#") + 1);
+        } else if (uri.contains("/")) {
+            return uri.substring(uri.lastIndexOf("/") + 1);
+        }
+        return uri;
+    }
+}
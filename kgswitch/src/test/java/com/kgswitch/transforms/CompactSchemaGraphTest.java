@@ -0,0 +1,119 @@
+package com.kgswitch.transforms;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import com.kgswitch.models.graph.CompactSchemaGraph;
+import com.kgswitch.models.graph.SchemaEdge;
+import com.kgswitch.models.graph.SchemaGraph;
+import com.kgswitch.models.graph.SchemaNode;
+import com.kgswitch.transforms.pg.PGSchemaToStatementTransformer;
+import com.kgswitch.transforms.pg.PGStatementToSchemaTransformer;
+import com.kgswitch.transforms.rdf.RDFSchemaTransformer;
+import com.kgswitch.util.CypherQueryGenerator;
+import com.kgswitch.util.JsonSchemaGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class CompactSchemaGraphTest {
+    private static final String XSD_STRING = "http://www.w3.org/2001/XMLSchema#string";
+
+    private SchemaGraph flightSchema() {
+        SchemaGraph rdfGraph = new RDFSchemaTransformer()
+            .transformToStatementGraph("src/test/resources/datasets/flight-schema.ttl");
+        SchemaGraph statementGraph = new PGSchemaToStatementTransformer(rdfGraph).transformToStatementGraph();
+        return new PGStatementToSchemaTransformer(statementGraph).transformToPGSchema();
+    }
+
+    @Test
+    void testWritersMatchObjectGraph() throws Exception {
+        SchemaGraph pgSchema = flightSchema();
+        CompactSchemaGraph compact = CompactSchemaGraph.from(pgSchema);
+
+        JsonSchemaGenerator jsonGenerator = new JsonSchemaGenerator();
+        String json = jsonGenerator.generateJson(pgSchema);
+        assertEquals(json, jsonGenerator.generateJson(compact));
+
+        CypherQueryGenerator cypherGenerator = new CypherQueryGenerator();
+        assertEquals(cypherGenerator.generateCypherFromJson(json), cypherGenerator.generateCypher(compact));
+    }
+
+    @Test
+    void testRoundTrip() {
+        SchemaGraph pgSchema = flightSchema();
+        SchemaGraph roundTrip = CompactSchemaGraph.from(pgSchema).toSchemaGraph();
+
+        assertEquals(pgSchema.getNodes().size(), roundTrip.getNodes().size());
+        assertEquals(pgSchema.getEdges().size(), roundTrip.getEdges().size());
+        for (SchemaNode node : pgSchema.getNodes()) {
+            SchemaNode copy = roundTrip.getNode(node.getId());
+            assertNotNull(copy, node.getId());
+            assertEquals(node.getLabels(), copy.getLabels());
+            assertEquals(node.getPropertyConstraints().keySet(), copy.getPropertyConstraints().keySet());
+            node.getPropertyConstraints().forEach((name, constraint) ->
+                assertSame(constraint.getShape(), copy.getPropertyConstraints().get(name).getShape()));
+        }
+    }
+
+    @Test
+    void testNullPropertyValuesStayNull() {
+        SchemaGraph graph = new SchemaGraph("test");
+        SchemaNode person = new SchemaNode("Person");
+        person.addProperty("comment", null);
+        person.addProperty("minCount", 1);
+        graph.addNode(person);
+
+        CompactSchemaGraph compact = CompactSchemaGraph.from(graph);
+        int n = compact.getNodeIndex("Person");
+        assertEquals(2, compact.getNodePropertyCount(n));
+        for (int i = 0; i < compact.getNodePropertyCount(n); i++) {
+            String expected = "comment".equals(compact.getNodePropertyKey(n, i)) ? null : "1";
+            assertEquals(expected, compact.getNodePropertyValue(n, i));
+        }
+
+        SchemaNode copy = compact.toSchemaGraph().getNode("Person");
+        assertTrue(copy.getProperties().containsKey("comment"));
+        assertNull(copy.getProperties().get("comment"));
+    }
+
+    @Test
+    void testAdjacency() {
+        SchemaGraph pgSchema = flightSchema();
+        CompactSchemaGraph compact = CompactSchemaGraph.from(pgSchema);
+
+        for (SchemaNode node : pgSchema.getNodes()) {
+            int n = compact.getNodeIndex(node.getId());
+            List<String> expected = new ArrayList<>();
+            for (SchemaEdge edge : pgSchema.getOutgoingEdges(node.getId())) {
+                expected.add(edge.getId());
+            }
+            List<String> actual = new ArrayList<>();
+            for (int i = 0; i < compact.getOutDegree(n); i++) {
+                actual.add(compact.getEdgeId(compact.getOutgoingEdge(n, i)));
+            }
+            assertEquals(expected, actual, node.getId());
+        }
+    }
+
+    @Test
+    void testBuilder() {
+        CompactSchemaGraph.Builder builder = new CompactSchemaGraph.Builder("test", "http://example.org/");
+        int person = builder.addNode("Person");
+        builder.addLabel("Person");
+        builder.addNodeConstraint("name", XSD_STRING, 1, 1);
+        int org = builder.addNode("Organization");
+        builder.addLabel("Organization");
+        builder.addEdge("Person_memberOf_Organization", person, org, "memberOf", "memberOf");
+        CompactSchemaGraph compact = builder.build();
+
+        assertEquals(2, compact.getNodeCount());
+        assertEquals(1, compact.getNodeConstraintCount(person));
+        assertEquals(0, compact.getNodeConstraintCount(org));
+        assertEquals(XSD_STRING, compact.getNodeConstraintDataType(person, 0));
+        assertEquals(1, compact.getOutDegree(person));
+        assertEquals(1, compact.getInDegree(org));
+        assertEquals(0, compact.getOutDegree(org));
+        assertThrows(IndexOutOfBoundsException.class, () -> builder.addEdge("bad", person, 5, "x", "x"));
+    }
+}
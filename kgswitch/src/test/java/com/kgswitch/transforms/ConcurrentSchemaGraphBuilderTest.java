@@ -0,0 +1,91 @@
+package com.kgswitch.transforms;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import com.kgswitch.models.graph.ConcurrentSchemaGraphBuilder;
+import com.kgswitch.models.graph.SchemaEdge;
+import com.kgswitch.models.graph.SchemaGraph;
+import com.kgswitch.models.graph.SchemaNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class ConcurrentSchemaGraphBuilderTest {
+
+    @Test
+    void testSingleThreadedOrder() {
+        ConcurrentSchemaGraphBuilder builder = new ConcurrentSchemaGraphBuilder("test");
+        SchemaNode reservation = builder.computeNodeIfAbsent("FlightReservation", SchemaNode::new);
+        SchemaNode person = builder.computeNodeIfAbsent("Person", SchemaNode::new);
+        SchemaEdge underName = new SchemaEdge("UNDERNAME", reservation, person, "UNDERNAME");
+
+        assertSame(person, builder.computeNodeIfAbsent("Person", SchemaNode::new));
+        assertFalse(builder.addNode(new SchemaNode("Person")));
+        assertTrue(builder.addEdge(underName));
+        assertFalse(builder.addEdge(new SchemaEdge("UNDERNAME_2", reservation, person, "UNDERNAME")));
+        assertTrue(builder.addEdge(new SchemaEdge("PILOT", reservation, person, "PILOT")));
+
+        SchemaGraph graph = builder.build();
+        assertEquals(List.of(reservation, person), new ArrayList<>(graph.getNodes()));
+        assertEquals(2, graph.getEdges().size());
+        assertSame(underName, graph.getEdgesByType("UNDERNAME").get(0));
+        assertSame(person, graph.getNode("Person"));
+    }
+
+    @Test
+    void testSingleThreadedOrderAcrossSequenceBlocks() {
+        ConcurrentSchemaGraphBuilder builder = new ConcurrentSchemaGraphBuilder("test");
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            builder.computeNodeIfAbsent("N" + i, SchemaNode::new);
+            expected.add("N" + i);
+        }
+
+        List<String> ids = new ArrayList<>();
+        builder.build().getNodes().forEach(node -> ids.add(node.getId()));
+        assertEquals(expected, ids);
+    }
+
+    @Test
+    void testConcurrentInsertion() throws Exception {
+        ConcurrentSchemaGraphBuilder builder = new ConcurrentSchemaGraphBuilder("test");
+        AtomicInteger created = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        SchemaNode source = builder.computeNodeIfAbsent("C" + i, id -> {
+                            created.incrementAndGet();
+                            return new SchemaNode(id);
+                        });
+                        SchemaNode target = builder.computeNodeIfAbsent("C" + ((i + 1) % 500), id -> {
+                            created.incrementAndGet();
+                            return new SchemaNode(id);
+                        });
+                        builder.addEdge(new SchemaEdge("next" + i, source, target, "NEXT"));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(500, created.get());
+        SchemaGraph graph = builder.build();
+        assertEquals(500, graph.getNodes().size());
+        assertEquals(500, graph.getEdges().size());
+        for (int i = 0; i < 500; i++) {
+            assertEquals(1, graph.getOutgoingEdges("C" + i).size());
+        }
+    }
+}
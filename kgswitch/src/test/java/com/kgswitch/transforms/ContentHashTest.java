@@ -0,0 +1,137 @@
+package com.kgswitch.transforms;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import com.kgswitch.models.constraints.PropertyConstraint;
+import com.kgswitch.models.graph.CompactSchemaGraph;
+import com.kgswitch.models.graph.SchemaDiff;
+import com.kgswitch.models.graph.SchemaEdge;
+import com.kgswitch.models.graph.SchemaGraph;
+import com.kgswitch.models.graph.SchemaNode;
+import com.kgswitch.transforms.pg.PGSchemaToStatementTransformer;
+import com.kgswitch.transforms.pg.PGStatementToSchemaTransformer;
+import com.kgswitch.transforms.rdf.RDFSchemaTransformer;
+
+import java.util.List;
+
+class ContentHashTest {
+    private static final String XSD_STRING = "http://www.w3.org/2001/XMLSchema#string";
+
+    private SchemaGraph flightSchema() {
+        SchemaGraph rdfGraph = new RDFSchemaTransformer()
+            .transformToStatementGraph("src/test/resources/datasets/flight-schema.ttl");
+        SchemaGraph statementGraph = new PGSchemaToStatementTransformer(rdfGraph).transformToStatementGraph();
+        return new PGStatementToSchemaTransformer(statementGraph).transformToPGSchema();
+    }
+
+    private SchemaGraph reservationSchema(boolean reversed) {
+        SchemaGraph graph = new SchemaGraph("test");
+        SchemaNode reservation = new SchemaNode("FlightReservation");
+        reservation.addLabel("FlightReservation");
+        reservation.addPropertyConstraint(new PropertyConstraint("reservationId", XSD_STRING));
+        SchemaNode person = new SchemaNode("Person");
+        person.addLabel("Person");
+        person.addPropertyConstraint(new PropertyConstraint("name", XSD_STRING));
+        for (SchemaNode node : reversed ? List.of(person, reservation) : List.of(reservation, person)) {
+            graph.addNode(node);
+        }
+        graph.addEdge(new SchemaEdge("UNDERNAME", reservation, person, "UNDERNAME"));
+        return graph;
+    }
+
+    @Test
+    void testSameContentSameHash() {
+        SchemaGraph pgSchema = flightSchema();
+        assertEquals(pgSchema.contentHash(), flightSchema().contentHash());
+        assertEquals(pgSchema.contentHash(), CompactSchemaGraph.from(pgSchema).toSchemaGraph().contentHash());
+        assertEquals(reservationSchema(false).contentHash(), reservationSchema(true).contentHash());
+        assertEquals(new PropertyConstraint("name", XSD_STRING).contentHash(),
+                     new PropertyConstraint("name", XSD_STRING).contentHash());
+    }
+
+    @Test
+    void testMutationInvalidates() {
+        SchemaGraph graph = reservationSchema(false);
+        SchemaNode person = graph.getNode("Person");
+        SchemaEdge edge = graph.getEdges().iterator().next();
+        long graphHash = graph.contentHash();
+        long personHash = person.contentHash();
+        long edgeHash = edge.contentHash();
+        assertEquals(graphHash, graph.contentHash());
+
+        person.addPropertyConstraint(new PropertyConstraint("email", XSD_STRING));
+        assertNotEquals(personHash, person.contentHash());
+        assertNotEquals(edgeHash, edge.contentHash());
+        assertNotEquals(graphHash, graph.contentHash());
+
+        long labelledHash = graph.contentHash();
+        edge.setLabel("underName");
+        assertNotEquals(labelledHash, graph.contentHash());
+        assertThrows(UnsupportedOperationException.class, () -> person.getLabels().add("Agent"));
+    }
+
+    @Test
+    void testChangesReachEveryOwningGraph() {
+        SchemaGraph graph = reservationSchema(false);
+        SchemaGraph other = reservationSchema(false);
+        SchemaNode person = graph.getNode("Person");
+        SchemaGraph sharing = new SchemaGraph("sharing");
+        sharing.addNode(person);
+
+        // Endpoint outside the graph's node set
+        SchemaGraph edgeOnly = new SchemaGraph("edgeOnly");
+        edgeOnly.addEdge(graph.getEdges().iterator().next());
+
+        long graphHash = graph.contentHash();
+        long otherHash = other.contentHash();
+        long sharingHash = sharing.contentHash();
+        long edgeOnlyHash = edgeOnly.contentHash();
+
+        person.addProperty("comment", "changed");
+        assertNotEquals(graphHash, graph.contentHash());
+        assertNotEquals(sharingHash, sharing.contentHash());
+        assertNotEquals(edgeOnlyHash, edgeOnly.contentHash());
+        assertEquals(otherHash, other.contentHash());
+    }
+
+    @Test
+    void testAddedConstraintIsCopied() {
+        SchemaNode person = new SchemaNode("Person");
+        PropertyConstraint name = new PropertyConstraint("name", XSD_STRING);
+        name.setCardinality(1, 1);
+        person.addPropertyConstraint(name);
+        long hash = person.contentHash();
+
+        // The caller's constraint stays changeable; the node keeps its own sealed copy
+        assertFalse(name.isSealed());
+        name.setCardinality(0, 1);
+        assertEquals(hash, person.contentHash());
+        assertEquals(1, person.getPropertyConstraints().get("name").getMinCardinality());
+        PropertyConstraint held = person.getPropertyConstraints().get("name");
+        assertTrue(held.isSealed());
+        assertThrows(IllegalStateException.class, () -> held.setCardinality(0, 1));
+
+        person.addPropertyConstraint(name);
+        assertNotEquals(hash, person.contentHash());
+    }
+
+    @Test
+    void testDiff() {
+        SchemaGraph before = reservationSchema(false);
+        SchemaGraph after = reservationSchema(true);
+        assertTrue(SchemaDiff.between(before, after).isEmpty());
+
+        after.getNode("Person").addProperty("comment", "changed");
+        SchemaNode airport = new SchemaNode("Airport");
+        airport.addLabel("Airport");
+        after.addNode(airport);
+
+        SchemaDiff diff = SchemaDiff.between(before, after);
+        assertEquals(List.of(after.getNode("Person")), diff.getChangedNodes());
+        assertEquals(List.of(airport), diff.getAddedNodes());
+        assertTrue(diff.getRemovedNodes().isEmpty());
+        assertEquals(1, diff.getChangedEdges().size());
+        assertTrue(diff.getAddedEdges().isEmpty());
+    }
+}
@@ -0,0 +1,65 @@
+package com.kgswitch.transforms;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import com.kgswitch.models.graph.SchemaGraph;
+import com.kgswitch.transforms.pg.PGSchemaToStatementTransformer;
+import com.kgswitch.transforms.pg.PGStatementToSchemaTransformer;
+import com.kgswitch.transforms.rdf.RDFSchemaTransformer;
+import com.kgswitch.util.CypherQueryGenerator;
+import com.kgswitch.util.JsonSchemaGenerator;
+
+import java.io.IOException;
+
+class FusedPipelineTest {
+    private static final String FLIGHT_SCHEMA = "src/test/resources/datasets/flight-schema.ttl";
+    private static final String ACADEMIC_SCHEMA = "src/test/resources/datasets/academic-schema.ttl";
+    private static final String DBPEDIA_SCHEMA = "src/test/resources/datasets/Dbpedia-SHACL-Shape.ttl";
+    private static final String BIOLINK_SCHEMA = "src/test/resources/datasets/biolink_model.shacl.ttl";
+
+    @Test
+    void testFusedMatchesStagedOnFlightSchema() throws IOException {
+        assertSameOutput(FLIGHT_SCHEMA, 1);
+    }
+
+    @Test
+    void testFusedMatchesStagedOnAcademicSchema() throws IOException {
+        assertSameOutput(ACADEMIC_SCHEMA, 1);
+    }
+
+    @Test
+    void testFusedMatchesStagedOnDbpediaSchema() throws IOException {
+        assertSameOutput(DBPEDIA_SCHEMA, 1);
+    }
+
+    @Test
+    void testFusedMatchesStagedOnBiolinkSchema() throws IOException {
+        assertSameOutput(BIOLINK_SCHEMA, 1);
+    }
+
+    @Test
+    void testParallelFusedMatchesStaged() throws IOException {
+        assertSameOutput(BIOLINK_SCHEMA, 4);
+    }
+
+    private void assertSameOutput(String schemaFile, int parallelism) throws IOException {
+        SchemaGraph rdfGraph = new RDFSchemaTransformer().transformToStatementGraph(schemaFile);
+        SchemaGraph statementGraph = new PGSchemaToStatementTransformer(rdfGraph).transformToStatementGraph();
+        SchemaGraph staged = new PGStatementToSchemaTransformer(statementGraph).transformToPGSchema();
+
+        RDFSchemaTransformer fusedTransformer = new RDFSchemaTransformer();
+        fusedTransformer.setParallelism(parallelism);
+        SchemaGraph fused = fusedTransformer.transformToPGSchema(schemaFile);
+
+        assertEquals(staged.contentHash(), fused.contentHash());
+
+        String stagedJson = new JsonSchemaGenerator().generateJson(staged);
+        String fusedJson = new JsonSchemaGenerator().generateJson(fused);
+        assertEquals(stagedJson, fusedJson);
+
+        CypherQueryGenerator cypherGenerator = new CypherQueryGenerator();
+        assertEquals(cypherGenerator.generateCypherFromJson(stagedJson),
+                     cypherGenerator.generateCypherFromJson(fusedJson));
+    }
+}
@@ -0,0 +1,83 @@
+package com.kgswitch.transforms;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.kgswitch.models.graph.MappedSchemaGraph;
+import com.kgswitch.models.graph.SchemaEdge;
+import com.kgswitch.models.graph.SchemaGraph;
+import com.kgswitch.models.graph.SchemaNode;
+import com.kgswitch.transforms.pg.PGSchemaToStatementTransformer;
+import com.kgswitch.transforms.pg.PGStatementToSchemaTransformer;
+import com.kgswitch.transforms.rdf.RDFSchemaTransformer;
+import com.kgswitch.util.JsonSchemaGenerator;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+class MappedSchemaGraphTest {
+
+    @TempDir
+    Path tempDir;
+
+    private SchemaGraph flightSchema() {
+        SchemaGraph rdfGraph = new RDFSchemaTransformer()
+            .transformToStatementGraph("src/test/resources/datasets/flight-schema.ttl");
+        SchemaGraph statementGraph = new PGSchemaToStatementTransformer(rdfGraph).transformToStatementGraph();
+        return new PGStatementToSchemaTransformer(statementGraph).transformToPGSchema();
+    }
+
+    @Test
+    void testFacadeMatchesObjectGraph() throws Exception {
+        SchemaGraph pgSchema = flightSchema();
+        Path store = tempDir.resolve("flight" + MappedSchemaGraph.EXTENSION);
+        MappedSchemaGraph.write(pgSchema, store);
+        MappedSchemaGraph mapped = MappedSchemaGraph.open(store);
+
+        JsonSchemaGenerator json = new JsonSchemaGenerator();
+        assertEquals(json.generateJson(pgSchema), json.generateJson(mapped));
+        assertEquals(pgSchema.getEdgeTypes(), mapped.getEdgeTypes());
+
+        for (SchemaNode node : pgSchema.getNodes()) {
+            SchemaNode view = mapped.getNode(node.getId());
+            assertNotNull(view, node.getId());
+            assertSame(view, mapped.getNode(node.getId()));
+            assertEquals(node.getLabels(), view.getLabels());
+            assertEquals(node.getPropertyConstraints().keySet(), view.getPropertyConstraints().keySet());
+            assertEquals(pgSchema.getOutgoingEdges(node.getId()).size(), mapped.getOutgoingEdges(node.getId()).size());
+            assertEquals(pgSchema.getIncomingEdges(node.getId()).size(), mapped.getIncomingEdges(node.getId()).size());
+            for (SchemaEdge edge : mapped.getOutgoingEdges(node.getId())) {
+                assertSame(view, edge.getSource());
+            }
+        }
+        for (String type : pgSchema.getEdgeTypes()) {
+            assertEquals(pgSchema.getEdgesByType(type).size(), mapped.getEdgesByType(type).size());
+        }
+        assertNull(mapped.getNode("NoSuchClass"));
+        assertTrue(mapped.getOutgoingEdges("NoSuchClass").isEmpty());
+    }
+
+    @Test
+    void testReadOnly() throws Exception {
+        SchemaGraph graph = new SchemaGraph("test");
+        SchemaNode person = new SchemaNode("Person");
+        person.addLabel("Person");
+        graph.addNode(person);
+        Path store = tempDir.resolve("test" + MappedSchemaGraph.EXTENSION);
+        MappedSchemaGraph.write(graph, store);
+
+        MappedSchemaGraph mapped = MappedSchemaGraph.open(store);
+        SchemaNode view = mapped.getNode("Person");
+        assertThrows(UnsupportedOperationException.class, () -> mapped.addNode(new SchemaNode("Other")));
+        assertThrows(UnsupportedOperationException.class, () -> view.addLabel("Other"));
+        assertThrows(UnsupportedOperationException.class, () -> view.addProperty("key", "value"));
+    }
+
+    @Test
+    void testRejectsOtherFiles() throws Exception {
+        Path file = tempDir.resolve("not-a-store" + MappedSchemaGraph.EXTENSION);
+        Files.writeString(file, "@prefix sh: <http://www.w3.org/ns/shacl#> .");
+        assertThrows(java.io.IOException.class, () -> MappedSchemaGraph.open(file));
+    }
+}
@@ -4,6 +4,7 @@ import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 
+import com.kgswitch.models.constraints.PropertyConstraint;
 import com.kgswitch.models.graph.SchemaGraph;
 import com.kgswitch.models.graph.SchemaNode;
 import com.kgswitch.transforms.pg.PGSchemaTransformer;
@@ -130,4 +131,41 @@ class PGSchemaTransformerTest {
         assertEquals("String", personNode.getPropertyConstraints().get("email")
             .getDataType());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testRelationshipProperties() {
+        for (String type : new String[] {"Person", "Organization"}) {
+            SchemaNode typeStatement = new SchemaNode("type_stmt_" + type);
+            typeStatement.addLabel("TypeStatement");
+            typeStatement.addProperty("subject", type);
+            typeStatement.addProperty("object", "http://schema.org/" + type);
+            inputGraph.addNode(typeStatement);
+        }
+
+        SchemaNode edgeStatement = new SchemaNode("rel_Person_memberOf");
+        edgeStatement.addLabel("EdgeStatement");
+        edgeStatement.addProperty("predicate", "memberOf");
+        edgeStatement.addProperty("subject", "Person");
+        edgeStatement.addProperty("object", "Organization");
+        inputGraph.addNode(edgeStatement);
+
+        // A property statement about the relationship, placed after the edge statement
+        SchemaNode propertyStatement = new SchemaNode("prop_stmt_memberOf_since");
+        propertyStatement.addLabel("PropertyStatement");
+        propertyStatement.addProperty("predicate", "since");
+        propertyStatement.addProperty("subject", "memberOf");
+        propertyStatement.addProperty("datatype", "http://www.w3.org/2001/XMLSchema#integer");
+        propertyStatement.addProperty("minCount", "1");
+        inputGraph.addNode(propertyStatement);
+
+        SchemaGraph result = transformer.transformToPGSchema(inputGraph);
+
+        assertEquals(1, result.getEdges().size());
+        PropertyConstraint since = result.getEdges().iterator().next().getPropertyConstraints().get("since");
+        assertNotNull(since);
+        assertEquals("Integer", since.getDataType());
+        assertEquals(1, since.getMinCardinality());
+        assertEquals(-1, since.getMaxCardinality());
+        assertTrue(result.getNode("Person").getPropertyConstraints().isEmpty());
+    }
+}
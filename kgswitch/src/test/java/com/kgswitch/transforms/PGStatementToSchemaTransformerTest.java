@@ -4,8 +4,12 @@ import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import com.kgswitch.models.graph.*;
+import com.kgswitch.models.statements.*;
 import com.kgswitch.transforms.*;
 import com.kgswitch.transforms.pg.*;
+import com.kgswitch.transforms.rdf.RDFSchemaTransformer;
+
+import java.util.Iterator;
 
 class PGStatementToSchemaTransformerTest {
     private SchemaGraph statementGraph;
@@ -45,4 +49,65 @@ class PGStatementToSchemaTransformerTest {
         assertTrue(node.getLabels().contains("Person"));
         assertTrue(node.getPropertyConstraints().containsKey("name"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testRelationshipProperties() {
+        SchemaGraph graph = new SchemaGraph("test");
+        graph.addNode(new StatementNode("t1", new TypeStatement("reservation", "FlightReservation")));
+        graph.addNode(new StatementNode("t2", new TypeStatement("person", "Person")));
+        graph.addNode(new StatementNode("e1", new EdgeStatement("reservation", "underName", "person", 1, 1)));
+        // Subject match, compound-name match, and a statement for another relationship
+        graph.addNode(new StatementNode("p1", new PropertyStatement("underName", "since", "date", 1, 1)));
+        graph.addNode(new StatementNode("p2", new PropertyStatement("reservation", "underName_role", "string", 0, 1)));
+        graph.addNode(new StatementNode("p3", new PropertyStatement("reservation", "underNameX_role", "string", 0, 1)));
+        graph.addNode(new StatementNode("p4", new PropertyStatement("pilot", "since", "date", 0, 1)));
+
+        SchemaGraph result = new PGStatementToSchemaTransformer(graph).transformToPGSchema();
+        assertEquals(1, result.getEdges().size());
+        SchemaEdge edge = result.getEdges().iterator().next();
+        assertEquals(java.util.Set.of("since", "underName_role"), edge.getPropertyConstraints().keySet());
+        assertEquals(1, edge.getPropertyConstraints().get("since").getMinCardinality());
+    }
+
+    @Test
+    void testRepeatedParallelRuns() {
+        long expected = transformer.transformToPGSchema().contentHash();
+
+        PGStatementToSchemaTransformer parallel = new PGStatementToSchemaTransformer(statementGraph);
+        parallel.setParallelism(2);
+        // Later runs reuse the transformer's pool, or replace it when the parallelism changes
+        assertEquals(expected, parallel.transformToPGSchema().contentHash());
+        assertEquals(expected, parallel.transformToPGSchema().contentHash());
+        parallel.setParallelism(3);
+        assertEquals(expected, parallel.transformToPGSchema().contentHash());
+    }
+
+    @Test
+    void testParallelMatchesSequential() {
+        SchemaGraph rdfGraph = new RDFSchemaTransformer()
+            .transformToStatementGraph("src/test/resources/datasets/biolink_model.shacl.ttl");
+        SchemaGraph sequentialStatements = new PGSchemaToStatementTransformer(rdfGraph).transformToStatementGraph();
+        SchemaGraph sequential = new PGStatementToSchemaTransformer(sequentialStatements).transformToPGSchema();
+
+        PGSchemaToStatementTransformer statementTransformer = new PGSchemaToStatementTransformer(rdfGraph);
+        statementTransformer.setParallelism(4);
+        SchemaGraph parallelStatements = statementTransformer.transformToStatementGraph();
+        assertEquals(sequentialStatements.contentHash(), parallelStatements.contentHash());
+
+        PGStatementToSchemaTransformer schemaTransformer = new PGStatementToSchemaTransformer(parallelStatements);
+        schemaTransformer.setParallelism(4);
+        SchemaGraph parallel = schemaTransformer.transformToPGSchema();
+        assertEquals(sequential.contentHash(), parallel.contentHash());
+
+        // Same order too, so the JSON and Cypher output is the same
+        Iterator<SchemaNode> nodes = parallel.getNodes().iterator();
+        for (SchemaNode node : sequential.getNodes()) {
+            assertEquals(node.getId(), nodes.next().getId());
+        }
+        Iterator<SchemaEdge> edges = parallel.getEdges().iterator();
+        for (SchemaEdge edge : sequential.getEdges()) {
+            assertEquals(edge.getId(), edges.next().getId());
+        }
+        assertThrows(IllegalArgumentException.class, () -> schemaTransformer.setParallelism(0));
+    }
+}
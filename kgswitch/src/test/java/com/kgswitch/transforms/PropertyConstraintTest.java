@@ -0,0 +1,70 @@
+package com.kgswitch.transforms;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import com.kgswitch.models.constraints.ConstraintShape;
+import com.kgswitch.models.constraints.PropertyConstraint;
+import com.kgswitch.models.graph.SchemaGraph;
+import com.kgswitch.models.graph.SchemaNode;
+import com.kgswitch.transforms.pg.StatementGraphTransformer;
+
+class PropertyConstraintTest {
+    private static final String XSD_STRING = "http://www.w3.org/2001/XMLSchema#string";
+
+    @Test
+    void testShapesAreShared() {
+        PropertyConstraint name = new PropertyConstraint("name", XSD_STRING);
+        PropertyConstraint email = new PropertyConstraint("email", new String(XSD_STRING));
+        name.setCardinality(1, 1);
+        email.setCardinality(1, 1);
+
+        assertSame(name.getShape(), email.getShape());
+        assertSame(ConstraintShape.of(XSD_STRING, 1, 1), name.getShape());
+        assertTrue(name.isRequired());
+    }
+
+    @Test
+    void testUnusedShapesAreDropped() throws InterruptedException {
+        int before = ConstraintShape.internedCount();
+        for (int i = 0; i < 1000; i++) {
+            ConstraintShape.of("http://example.org/unused#t" + i, 0, 1);
+        }
+        for (int attempt = 0; attempt < 50 && ConstraintShape.internedCount() > before; attempt++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertTrue(ConstraintShape.internedCount() <= before);
+    }
+
+    @Test
+    void testSetCardinalityDoesNotAffectOthers() {
+        PropertyConstraint name = new PropertyConstraint("name", XSD_STRING);
+        PropertyConstraint email = new PropertyConstraint("email", XSD_STRING);
+        email.setCardinality(1, -1);
+
+        assertEquals(0, name.getMinCardinality());
+        assertEquals(1, name.getMaxCardinality());
+        assertFalse(name.isRequired());
+        assertEquals(1, email.getMinCardinality());
+        assertEquals(-1, email.getMaxCardinality());
+    }
+
+    @Test
+    void testCopyPathSharesShapes() {
+        SchemaGraph statementGraph = new SchemaGraph("test");
+        SchemaNode person = new SchemaNode("Person");
+        person.addLabel("Person");
+        PropertyConstraint name = new PropertyConstraint("name", XSD_STRING);
+        name.setCardinality(1, 1);
+        person.addPropertyConstraint(name);
+        statementGraph.addNode(person);
+
+        SchemaGraph pgSchema = new StatementGraphTransformer(statementGraph).transformToPGSchema();
+        PropertyConstraint copied = pgSchema.getNode("Person").getPropertyConstraints().get("name");
+
+        assertNotSame(name, copied);
+        assertSame(name.getShape(), copied.getShape());
+        assertEquals("name", copied.getName());
+    }
+}
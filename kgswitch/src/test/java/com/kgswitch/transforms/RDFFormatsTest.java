@@ -0,0 +1,139 @@
+package com.kgswitch.transforms;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.apache.jena.riot.Lang;
+
+import com.kgswitch.models.graph.SchemaGraph;
+import com.kgswitch.transforms.rdf.RDFFormats;
+import com.kgswitch.transforms.rdf.RDFSchemaTransformer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.GZIPOutputStream;
+
+class RDFFormatsTest {
+    private static final Path FLIGHT_SCHEMA = Paths.get("src/test/resources/datasets/flight-schema.ttl");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testDetectByExtension() throws IOException {
+        assertEquals(Lang.TURTLE, RDFFormats.detect(FLIGHT_SCHEMA));
+        assertEquals(Lang.NTRIPLES, RDFFormats.detect(convert("nt", Lang.NTRIPLES)));
+        assertEquals(Lang.RDFTHRIFT, RDFFormats.detect(convert("trdf", Lang.RDFTHRIFT)));
+        assertEquals(Lang.RDFPROTO, RDFFormats.detect(convert("rpb", Lang.RDFPROTO)));
+    }
+
+    @Test
+    void testDetectByContent() throws IOException {
+        assertEquals(Lang.TURTLE, RDFFormats.detect(renamed(FLIGHT_SCHEMA)));
+        assertEquals(Lang.NTRIPLES, RDFFormats.detect(renamed(convert("nt", Lang.NTRIPLES))));
+        assertEquals(Lang.RDFTHRIFT, RDFFormats.detect(renamed(convert("trdf", Lang.RDFTHRIFT))));
+        assertEquals(Lang.RDFPROTO, RDFFormats.detect(renamed(convert("rpb", Lang.RDFPROTO))));
+    }
+
+    @Test
+    void testSniffTellsThriftFromProtobufRowLengths() {
+        // Thrift rows: prefix declaration, triple, quad
+        assertEquals(Lang.RDFTHRIFT, RDFFormats.sniff(new byte[] {0x1c, 0x18, 0x02}, 3));
+        assertEquals(Lang.RDFTHRIFT, RDFFormats.sniff(new byte[] {0x2c, 0x1c, 0x1c}, 3));
+        assertEquals(Lang.RDFTHRIFT, RDFFormats.sniff(new byte[] {0x3c, 0x1c, 0x1c}, 3));
+        // Protobuf rows of 28 and 44 bytes start with the same byte as a Thrift row
+        assertEquals(Lang.RDFPROTO, RDFFormats.sniff(new byte[] {0x1c, 0x0a, 0x04}, 3));
+        assertEquals(Lang.RDFPROTO, RDFFormats.sniff(new byte[] {0x2c, 0x12, 0x2a}, 3));
+    }
+
+    @Test
+    void testBinaryInputGivesSameStatementGraph() throws IOException {
+        SchemaGraph fromTurtle = new RDFSchemaTransformer()
+            .transformToStatementGraph(FLIGHT_SCHEMA.toString());
+
+        for (Lang lang : new Lang[] {Lang.NTRIPLES, Lang.RDFTHRIFT, Lang.RDFPROTO}) {
+            Path converted = convert(lang.getFileExtensions().get(0), lang);
+            SchemaGraph fromBinary = new RDFSchemaTransformer()
+                .transformToStatementGraph(converted.toString());
+            SchemaGraph streamed = new RDFSchemaTransformer()
+                .transformToStatementGraphStreaming(converted.toString());
+
+            assertEquals(fromTurtle.getNodes().size(), fromBinary.getNodes().size(), lang.getName());
+            assertEquals(fromTurtle.getEdges().size(), fromBinary.getEdges().size(), lang.getName());
+            assertEquals(fromTurtle.getNodes().size(), streamed.getNodes().size(), lang.getName());
+            assertEquals(fromTurtle.getEdges().size(), streamed.getEdges().size(), lang.getName());
+        }
+    }
+
+    @Test
+    void testCompressedInputGivesSameStatementGraph() throws IOException {
+        SchemaGraph fromTurtle = new RDFSchemaTransformer()
+            .transformToStatementGraph(FLIGHT_SCHEMA.toString());
+
+        Path gzip = tempDir.resolve("flight-schema.ttl.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzip))) {
+            Files.copy(FLIGHT_SCHEMA, out);
+        }
+        Path bzip2 = tempDir.resolve("flight-schema.nt.bz2");
+        try (OutputStream out = new BZip2CompressorOutputStream(Files.newOutputStream(bzip2))) {
+            Files.copy(convert("nt", Lang.NTRIPLES), out);
+        }
+        assertEquals(Lang.TURTLE, RDFFormats.detect(gzip));
+        assertEquals(Lang.NTRIPLES, RDFFormats.detect(bzip2));
+
+        for (Path compressed : new Path[] {gzip, bzip2}) {
+            RDFSchemaTransformer transformer = new RDFSchemaTransformer();
+            transformer.setBackgroundDecompression(true);
+            SchemaGraph fromCompressed = transformer.transformToStatementGraph(compressed.toString());
+            SchemaGraph streamed = new RDFSchemaTransformer()
+                .transformToStatementGraphStreaming(compressed.toString());
+
+            assertEquals(fromTurtle.getNodes().size(), fromCompressed.getNodes().size(), compressed.toString());
+            assertEquals(fromTurtle.getEdges().size(), fromCompressed.getEdges().size(), compressed.toString());
+            assertEquals(fromTurtle.getNodes().size(), streamed.getNodes().size(), compressed.toString());
+            assertEquals(fromTurtle.getEdges().size(), streamed.getEdges().size(), compressed.toString());
+        }
+    }
+
+    @Test
+    void testListShapeFilesSkipsUnsupportedSyntaxes() throws IOException {
+        Path dir = Files.createDirectory(tempDir.resolve("shapes"));
+        for (String name : new String[] {"a.ttl", "b.nt.gz", "c.trdf", "d.rpb", "e.rdf", "f.jsonld", "g.owl", "h.txt"}) {
+            Files.writeString(dir.resolve(name), "");
+        }
+
+        assertEquals(java.util.List.of("a.ttl", "b.nt.gz", "c.trdf", "d.rpb"),
+            RDFFormats.listShapeFiles(dir).stream().map(file -> file.getFileName().toString()).toList());
+    }
+
+    @Test
+    void testStripExtension() {
+        assertEquals("/data/schema", RDFFormats.stripExtension("/data/schema.ttl"));
+        assertEquals("/data/schema", RDFFormats.stripExtension("/data/schema.nt"));
+        assertEquals("/data/schema", RDFFormats.stripExtension("/data/schema.trdf"));
+        assertEquals("/data/schema", RDFFormats.stripExtension("/data/schema.rpb"));
+        assertEquals("/data/schema", RDFFormats.stripExtension("/data/schema.ttl.gz"));
+        assertEquals("/data/schema", RDFFormats.stripExtension("/data/schema.nt.bz2"));
+        assertEquals("/data/schema.tar.gz", RDFFormats.stripExtension("/data/schema.tar.gz"));
+        assertEquals("/data/schema.ttl.bak", RDFFormats.stripExtension("/data/schema.ttl.bak"));
+        assertEquals("/data.dir/schema", RDFFormats.stripExtension("/data.dir/schema"));
+    }
+
+    private Path convert(String extension, Lang lang) throws IOException {
+        Path target = tempDir.resolve("flight-schema." + extension);
+        if (!Files.exists(target)) {
+            RDFFormats.convert(FLIGHT_SCHEMA, target, lang);
+        }
+        return target;
+    }
+
+    private Path renamed(Path file) throws IOException {
+        Path copy = tempDir.resolve(file.getFileName() + ".dat");
+        return Files.copy(file, copy);
+    }
+}
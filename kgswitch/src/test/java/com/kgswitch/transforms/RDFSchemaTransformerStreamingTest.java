@@ -0,0 +1,387 @@
+package com.kgswitch.transforms;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.vocabulary.RDF;
+
+import com.kgswitch.models.constraints.PropertyConstraint;
+import com.kgswitch.models.graph.SchemaEdge;
+import com.kgswitch.models.graph.SchemaGraph;
+import com.kgswitch.models.graph.SchemaNode;
+import com.kgswitch.transforms.rdf.PropertyShapeCache;
+import com.kgswitch.transforms.rdf.RDFSchemaTransformer;
+import com.kgswitch.transforms.rdf.ShapeReferenceResolver;
+import com.kgswitch.transforms.rdf.TDBShapeStore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+class RDFSchemaTransformerStreamingTest {
+    private static final String FLIGHT_SCHEMA = "src/test/resources/datasets/flight-schema.ttl";
+    private static final String ACADEMIC_SCHEMA = "src/test/resources/datasets/academic-schema.ttl";
+    private static final String DBPEDIA_SCHEMA = "src/test/resources/datasets/Dbpedia-SHACL-Shape.ttl";
+    private static final String BIOLINK_SCHEMA = "src/test/resources/datasets/biolink_model.shacl.ttl";
+    private static final String BIO2RDF_SCHEMA = "src/test/resources/shapes_to_benchmark/Bio2rdf_QSE.ttl";
+
+    @Test
+    void testStreamingMatchesModelOnFlightSchema() {
+        assertSameStatementGraph(FLIGHT_SCHEMA);
+    }
+
+    @Test
+    void testStreamingMatchesModelOnAcademicSchema() {
+        assertSameStatementGraph(ACADEMIC_SCHEMA);
+    }
+
+    @Test
+    void testStreamingMatchesModelOnDbpediaSchema() {
+        assertSameStatementGraph(DBPEDIA_SCHEMA);
+    }
+
+    @Test
+    void testStreamingMatchesModelOnBiolinkSchema() {
+        assertSameStatementGraph(BIOLINK_SCHEMA);
+    }
+
+    @Test
+    void testFlightSchemaMatchesBaseline() {
+        assertMatchesBaseline(FLIGHT_SCHEMA);
+    }
+
+    @Test
+    void testBiolinkSchemaMatchesBaseline() {
+        assertMatchesBaseline(BIOLINK_SCHEMA);
+    }
+
+    @Test
+    void testSharedPropertyShapesDecodedOnce() {
+        RDFSchemaTransformer transformer = new RDFSchemaTransformer();
+        transformer.transformToStatementGraph(BIO2RDF_SCHEMA);
+
+        PropertyShapeCache cache = transformer.getPropertyShapeCache();
+        // QSE property shapes are IRIs shared between NodeShapes, so most lookups are hits
+        assertTrue(cache.getHits() > 0, "Shared property shapes should be served from the cache");
+        assertEquals(cache.size(), cache.getMisses(), "Each property shape should be decoded once");
+    }
+
+    @Test
+    void testSeveralTargetClassesMatchBaseline(@TempDir Path shapesDir) throws IOException {
+        String prefixes = """
+            @prefix schema: <http://schema.org/> .
+            @prefix sh: <http://www.w3.org/ns/shacl#> .
+            @prefix xsd: <http://www.w3.org/2001/XMLSchema#> .
+            """;
+        Path forward = shapesDir.resolve("forward.ttl");
+        Files.writeString(forward, prefixes + """
+            schema:AnimalShape a sh:NodeShape ;
+                sh:targetClass schema:Zebra , schema:Animal ;
+                sh:property [ sh:path schema:name ; sh:datatype xsd:string ] ;
+                sh:property [ sh:path schema:name ; sh:datatype xsd:integer ] .
+            """);
+        Path reversed = shapesDir.resolve("reversed.ttl");
+        Files.writeString(reversed, prefixes + """
+            schema:AnimalShape sh:property [ sh:path schema:name ; sh:datatype xsd:integer ] ;
+                sh:property [ sh:path schema:name ; sh:datatype xsd:string ] ;
+                sh:targetClass schema:Animal , schema:Zebra ;
+                a sh:NodeShape .
+            """);
+
+        // The first sh:targetClass wins, and the later of two same-named constraints
+        assertMatchesBaseline(forward.toString());
+        assertMatchesBaseline(reversed.toString());
+        assertEquals(1, new RDFSchemaTransformer().transformToStatementGraph(forward.toString())
+            .getNodes().size());
+    }
+
+    @Test
+    void testCardinalityFromPlainLiterals(@TempDir Path shapesDir) throws IOException {
+        Path shapes = shapesDir.resolve("plain.ttl");
+        Files.writeString(shapes, """
+            @prefix schema: <http://schema.org/> .
+            @prefix sh: <http://www.w3.org/ns/shacl#> .
+            @prefix xsd: <http://www.w3.org/2001/XMLSchema#> .
+
+            schema:PersonShape a sh:NodeShape ;
+                sh:targetClass schema:Person ;
+                sh:property [ sh:path schema:name ; sh:datatype xsd:string ;
+                              sh:minCount "1" ; sh:maxCount "2"^^xsd:string ] .
+            """);
+
+        PropertyConstraint name = new RDFSchemaTransformer().transformToStatementGraph(shapes.toString())
+            .getNode("Person").getPropertyConstraints().get("name");
+        assertEquals(1, name.getMinCardinality());
+        assertEquals(2, name.getMaxCardinality());
+    }
+
+    @Test
+    void testShapeReferencesExpandWithCycles(@TempDir Path shapesDir) throws IOException {
+        Path shapes = shapesDir.resolve("composed.ttl");
+        Files.writeString(shapes, """
+            @prefix ex: <http://example.org/> .
+            @prefix schema: <http://schema.org/> .
+            @prefix sh: <http://www.w3.org/ns/shacl#> .
+            @prefix xsd: <http://www.w3.org/2001/XMLSchema#> .
+
+            ex:NamedShape sh:property [ sh:path schema:name ; sh:datatype xsd:string ] ;
+                sh:node ex:AgedShape .
+            ex:AgedShape sh:property [ sh:path schema:age ; sh:datatype xsd:integer ] ;
+                sh:node ex:NamedShape .
+
+            schema:PersonShape a sh:NodeShape ;
+                sh:targetClass schema:Person ;
+                sh:node ex:NamedShape .
+            schema:EmployeeShape a sh:NodeShape ;
+                sh:targetClass schema:Employee ;
+                sh:and ( ex:NamedShape [ sh:property [ sh:path schema:salary ; sh:datatype xsd:decimal ] ] ) .
+            schema:DocumentShape a sh:NodeShape ;
+                sh:targetClass schema:Document ;
+                sh:property [ sh:path schema:author ;
+                              sh:or ( [ sh:class schema:Person ] [ sh:class schema:Employee ] ) ] ;
+                sh:property [ sh:path schema:code ;
+                              sh:xone ( [ sh:datatype xsd:string ] [ sh:datatype xsd:integer ] ) ] .
+            """);
+
+        RDFSchemaTransformer transformer = new RDFSchemaTransformer();
+        SchemaGraph graph = transformer.transformToStatementGraph(shapes.toString());
+
+        assertEquals(Set.of("name", "age"), graph.getNode("Person").getPropertyConstraints().keySet());
+        assertEquals(Set.of("name", "age", "salary"), graph.getNode("Employee").getPropertyConstraints().keySet());
+        assertEquals("http://www.w3.org/2001/XMLSchema#string",
+            graph.getNode("Document").getPropertyConstraints().get("code").getDataType());
+        assertEquals(List.of("Document -AUTHOR-> Person"), listEdges(graph));
+
+        ShapeReferenceResolver resolver = transformer.getShapeReferenceResolver();
+        assertTrue(resolver.getCyclesCut() > 0, "The NamedShape/AgedShape cycle should be cut");
+        assertTrue(resolver.getSaved() > 0, "NamedShape is shared and should be expanded once");
+
+        assertSameStatementGraph(shapes.toString());
+
+        // The graph-backed walk resolves references and lists through the store
+        SchemaGraph storedGraph = new RDFSchemaTransformer()
+            .transformToStatementGraphPersistent(shapes.toString(), shapesDir.resolve("tdb"));
+        assertEquals(describeNodes(graph), describeNodes(storedGraph));
+        assertEquals(describeEdges(graph), describeEdges(storedGraph));
+    }
+
+    @Test
+    void testPropertyShapeNodeConstrainsTargetClass(@TempDir Path shapesDir) throws IOException {
+        Path shapes = shapesDir.resolve("value.ttl");
+        Files.writeString(shapes, """
+            @prefix ex: <http://example.org/> .
+            @prefix schema: <http://schema.org/> .
+            @prefix sh: <http://www.w3.org/ns/shacl#> .
+            @prefix xsd: <http://www.w3.org/2001/XMLSchema#> .
+
+            ex:AddressShape sh:property [ sh:path schema:postalCode ; sh:datatype xsd:string ] .
+
+            schema:PersonShape a sh:NodeShape ;
+                sh:targetClass schema:Person ;
+                sh:property [ sh:path schema:address ; sh:class schema:PostalAddress ;
+                              sh:node ex:AddressShape ] .
+            schema:PostalAddressShape a sh:NodeShape ;
+                sh:targetClass schema:PostalAddress .
+            """);
+
+        SchemaGraph graph = new RDFSchemaTransformer().transformToStatementGraph(shapes.toString());
+
+        assertEquals(Set.of("postalCode"),
+            graph.getNode("PostalAddress").getPropertyConstraints().keySet());
+        assertFalse(graph.getNode("Person").getPropertyConstraints().containsKey("address_postalCode"));
+        assertEquals(List.of("Person -ADDRESS-> PostalAddress"), listEdges(graph));
+        assertTrue(graph.getEdges().iterator().next().getPropertyConstraints().isEmpty());
+
+        assertSameStatementGraph(shapes.toString());
+    }
+
+    @Test
+    void testParallelMatchesSequentialOnDbpediaSchema() {
+        SchemaGraph sequential = new RDFSchemaTransformer().transformToStatementGraph(DBPEDIA_SCHEMA);
+        RDFSchemaTransformer parallelTransformer = new RDFSchemaTransformer();
+        parallelTransformer.setParallelism(4);
+        SchemaGraph parallel = parallelTransformer.transformToStatementGraph(DBPEDIA_SCHEMA);
+
+        // Same content in the same order
+        assertEquals(listNodes(sequential), listNodes(parallel));
+        assertEquals(listEdges(sequential), listEdges(parallel));
+        assertEquals(describeNodes(sequential), describeNodes(parallel));
+        assertEquals(describeEdges(sequential), describeEdges(parallel));
+    }
+
+    @Test
+    void testPersistentMatchesModelOnDbpediaSchema(@TempDir Path tdbDir) {
+        SchemaGraph modelGraph = new RDFSchemaTransformer().transformToStatementGraph(DBPEDIA_SCHEMA);
+        SchemaGraph storedGraph = new RDFSchemaTransformer()
+            .transformToStatementGraphPersistent(DBPEDIA_SCHEMA, tdbDir.resolve("shapes"));
+
+        assertEquals(describeNodes(modelGraph), describeNodes(storedGraph));
+        assertEquals(describeEdges(modelGraph), describeEdges(storedGraph));
+    }
+
+    @Test
+    void testPersistentStoreSkipsUnchangedShapes(@TempDir Path tdbDir) throws IOException {
+        Path location = tdbDir.resolve("shapes");
+        Path flight = Paths.get(FLIGHT_SCHEMA);
+
+        try (TDBShapeStore store = new TDBShapeStore(location)) {
+            assertTrue(store.load(flight, false), "First load should parse the file");
+            assertTrue(store.isLoaded(flight));
+        }
+        // Reopened after close, the store still holds the file
+        try (TDBShapeStore store = new TDBShapeStore(location)) {
+            assertFalse(store.load(flight, false), "Unchanged file should not be reloaded");
+
+            assertTrue(store.load(Paths.get(ACADEMIC_SCHEMA), false), "A different file should replace the shapes");
+            assertFalse(store.isLoaded(flight));
+        }
+    }
+
+    @Test
+    void testValidateAgainstPersistentShapes(@TempDir Path tdbDir) {
+        RDFSchemaTransformer inMemory = new RDFSchemaTransformer();
+        inMemory.transformToStatementGraph(FLIGHT_SCHEMA);
+        RDFSchemaTransformer persistent = new RDFSchemaTransformer();
+        persistent.transformToStatementGraphPersistent(FLIGHT_SCHEMA, tdbDir.resolve("shapes"));
+
+        // A reservation without the required reservationId
+        Model data = ModelFactory.createDefaultModel();
+        Resource reservation = data.createResource("http://example.org/reservation1");
+        reservation.addProperty(RDF.type, data.createResource("http://schema.org/FlightReservation"));
+
+        assertEquals(inMemory.validateSHACL(data), persistent.validateSHACL(data));
+    }
+
+    @Test
+    void testMultiFileResolvesCrossFileTargets(@TempDir Path shapesDir) throws IOException {
+        Files.writeString(shapesDir.resolve("person.ttl"), """
+            @prefix schema: <http://schema.org/> .
+            @prefix sh: <http://www.w3.org/ns/shacl#> .
+            @prefix xsd: <http://www.w3.org/2001/XMLSchema#> .
+
+            schema:PersonShape a sh:NodeShape ;
+                sh:targetClass schema:Person ;
+                sh:property [ sh:path schema:name ; sh:datatype xsd:string ] .
+            """);
+        Files.writeString(shapesDir.resolve("reservation.nt"),
+            "<http://schema.org/ReservationShape> <http://www.w3.org/1999/02/22-rdf-syntax-ns#type> " +
+                "<http://www.w3.org/ns/shacl#NodeShape> .\n" +
+            "<http://schema.org/ReservationShape> <http://www.w3.org/ns/shacl#targetClass> " +
+                "<http://schema.org/Reservation> .\n" +
+            "<http://schema.org/ReservationShape> <http://www.w3.org/ns/shacl#property> _:p .\n" +
+            "_:p <http://www.w3.org/ns/shacl#path> <http://schema.org/underName> .\n" +
+            "_:p <http://www.w3.org/ns/shacl#class> <http://schema.org/Person> .\n");
+        Files.writeString(shapesDir.resolve("README.md"), "not a shapes file");
+        // RDF/XML is not a supported shapes syntax and must not be sniffed as Turtle
+        Files.writeString(shapesDir.resolve("vocabulary.rdf"), """
+            <?xml version="1.0"?>
+            <rdf:RDF xmlns:rdf="http://www.w3.org/1999/02/22-rdf-syntax-ns#">
+              <rdf:Description rdf:about="http://schema.org/Person"/>
+            </rdf:RDF>
+            """);
+
+        SchemaGraph graph = new RDFSchemaTransformer().transformToStatementGraph(List.of(shapesDir));
+
+        assertEquals(List.of("Person", "Reservation"), listNodes(graph).stream().sorted().toList());
+        assertEquals(List.of("Reservation -UNDERNAME-> Person"), listEdges(graph));
+        assertTrue(graph.getNode("Person").getPropertyConstraints().containsKey("name"));
+    }
+
+    @Test
+    void testMultiFileMatchesSingleFiles() {
+        SchemaGraph flight = new RDFSchemaTransformer().transformToStatementGraph(FLIGHT_SCHEMA);
+        SchemaGraph academic = new RDFSchemaTransformer().transformToStatementGraph(ACADEMIC_SCHEMA);
+        SchemaGraph merged = new RDFSchemaTransformer().transformToStatementGraph(
+            List.of(Paths.get(FLIGHT_SCHEMA), Paths.get(ACADEMIC_SCHEMA)));
+
+        List<String> expectedNodes = new ArrayList<>(describeNodes(flight));
+        expectedNodes.addAll(describeNodes(academic));
+        Collections.sort(expectedNodes);
+        List<String> expectedEdges = new ArrayList<>(describeEdges(flight));
+        expectedEdges.addAll(describeEdges(academic));
+        Collections.sort(expectedEdges);
+
+        assertEquals(expectedNodes, describeNodes(merged));
+        assertEquals(expectedEdges, describeEdges(merged));
+    }
+
+    private List<String> listNodes(SchemaGraph graph) {
+        List<String> ids = new ArrayList<>();
+        graph.getNodes().forEach(node -> ids.add(node.getId()));
+        return ids;
+    }
+
+    private List<String> listEdges(SchemaGraph graph) {
+        List<String> edges = new ArrayList<>();
+        graph.getEdges().forEach(edge -> edges.add(
+            edge.getSource().getId() + " -" + edge.getType() + "-> " + edge.getTarget().getId()));
+        return edges;
+    }
+
+    private void assertSameStatementGraph(String schemaFile) {
+        SchemaGraph modelGraph = new RDFSchemaTransformer().transformToStatementGraph(schemaFile);
+        SchemaGraph streamedGraph = new RDFSchemaTransformer().transformToStatementGraphStreaming(schemaFile);
+
+        assertEquals(modelGraph.getNodes().size(), streamedGraph.getNodes().size(),
+            "Node count should match for " + schemaFile);
+        assertEquals(modelGraph.getEdges().size(), streamedGraph.getEdges().size(),
+            "Edge count should match for " + schemaFile);
+        assertEquals(describeNodes(modelGraph), describeNodes(streamedGraph));
+        assertEquals(describeEdges(modelGraph), describeEdges(streamedGraph));
+    }
+
+    /**
+     * Compare the Model and streaming entry points against the original
+     * Model API walk, which does not go through ShapeIndex.
+     */
+    private void assertMatchesBaseline(String schemaFile) {
+        SchemaGraph baseline = BaselineShapeWalker.walk(schemaFile);
+        SchemaGraph modelGraph = new RDFSchemaTransformer().transformToStatementGraph(schemaFile);
+        SchemaGraph streamedGraph = new RDFSchemaTransformer().transformToStatementGraphStreaming(schemaFile);
+
+        assertEquals(describeNodes(baseline), describeNodes(modelGraph), "Model nodes for " + schemaFile);
+        assertEquals(describeEdges(baseline), describeEdges(modelGraph), "Model edges for " + schemaFile);
+        assertEquals(describeNodes(baseline), describeNodes(streamedGraph), "Streamed nodes for " + schemaFile);
+        assertEquals(describeEdges(baseline), describeEdges(streamedGraph), "Streamed edges for " + schemaFile);
+    }
+
+    private List<String> describeNodes(SchemaGraph graph) {
+        List<String> nodes = new ArrayList<>();
+        for (SchemaNode node : graph.getNodes()) {
+            nodes.add(node.getId() + " " + new TreeMap<>(node.getProperties()) +
+                      " " + describeConstraints(node.getPropertyConstraints()));
+        }
+        Collections.sort(nodes);
+        return nodes;
+    }
+
+    private List<String> describeEdges(SchemaGraph graph) {
+        List<String> edges = new ArrayList<>();
+        for (SchemaEdge edge : graph.getEdges()) {
+            edges.add(edge.getSource().getId() + " -" + edge.getType() + "-> " +
+                      edge.getTarget().getId() + " " + new TreeMap<>(edge.getProperties()) +
+                      " " + describeConstraints(edge.getPropertyConstraints()));
+        }
+        Collections.sort(edges);
+        return edges;
+    }
+
+    private String describeConstraints(Map<String, PropertyConstraint> constraints) {
+        TreeMap<String, String> described = new TreeMap<>();
+        constraints.forEach((name, c) -> described.put(name,
+            c.getDataType() + "[" + c.getMinCardinality() + ".." + c.getMaxCardinality() + "]"));
+        return described.toString();
+    }
+}
@@ -0,0 +1,164 @@
+package com.kgswitch.transforms;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.kgswitch.models.constraints.PropertyConstraint;
+import com.kgswitch.models.graph.SchemaEdge;
+import com.kgswitch.models.graph.SchemaGraph;
+import com.kgswitch.models.graph.SchemaGraphSerializer;
+import com.kgswitch.models.graph.SchemaNode;
+import com.kgswitch.models.statements.StatementNode;
+import com.kgswitch.transforms.pg.PGSchemaToStatementTransformer;
+import com.kgswitch.transforms.pg.PGStatementToSchemaTransformer;
+import com.kgswitch.transforms.rdf.RDFSchemaTransformer;
+import com.kgswitch.util.JsonSchemaGenerator;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+class SchemaGraphSerializerTest {
+    private static final String XSD_STRING = "http://www.w3.org/2001/XMLSchema#string";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testPipelineStagesRoundTrip() throws Exception {
+        SchemaGraph rdfGraph = new RDFSchemaTransformer()
+            .transformToStatementGraph("src/test/resources/datasets/flight-schema.ttl");
+        SchemaGraph statementGraph = new PGSchemaToStatementTransformer(rdfGraph).transformToStatementGraph();
+        SchemaGraph pgSchema = new PGStatementToSchemaTransformer(statementGraph).transformToPGSchema();
+
+        SchemaGraph rdfCopy = roundTrip(rdfGraph, SchemaGraphSerializer.Stage.RDF_STATEMENTS);
+        SchemaGraph statementCopy = roundTrip(statementGraph, SchemaGraphSerializer.Stage.PG_STATEMENTS);
+        SchemaGraph pgCopy = roundTrip(pgSchema, SchemaGraphSerializer.Stage.PG_SCHEMA);
+
+        assertSameGraph(rdfGraph, rdfCopy);
+        assertSameGraph(statementGraph, statementCopy);
+        assertSameGraph(pgSchema, pgCopy);
+        for (SchemaNode node : statementCopy.getNodes()) {
+            assertTrue(node instanceof StatementNode, node.getId());
+        }
+
+        // Later stages give the same result from the reloaded graphs
+        SchemaGraph fromSnapshot = new PGStatementToSchemaTransformer(
+            new PGSchemaToStatementTransformer(rdfCopy).transformToStatementGraph()).transformToPGSchema();
+        JsonSchemaGenerator json = new JsonSchemaGenerator();
+        assertEquals(json.generateJson(pgSchema), json.generateJson(fromSnapshot));
+        assertEquals(json.generateJson(pgSchema), json.generateJson(pgCopy));
+    }
+
+    @Test
+    void testHandBuiltGraph() throws Exception {
+        SchemaGraph graph = new SchemaGraph("test", "http://example.org/");
+        SchemaNode reservation = new SchemaNode("FlightReservation");
+        reservation.addLabel("FlightReservation");
+        reservation.addPropertyConstraint(new PropertyConstraint("reservationId", XSD_STRING));
+        reservation.addProperty("count", 3);
+        reservation.addProperty("note", null);
+        graph.addNode(reservation);
+        // Edge target outside the graph's node set
+        SchemaNode person = new SchemaNode("Person");
+        person.addLabel("Person");
+
+        SchemaEdge edge = new SchemaEdge("UNDERNAME", reservation, person, "UNDERNAME");
+        edge.setLabel("underName");
+        edge.addProperty("minCount", "1");
+        PropertyConstraint since = new PropertyConstraint("since", "date");
+        since.setCardinality(1, -1);
+        edge.addPropertyConstraint(since);
+        graph.addEdge(edge);
+
+        SchemaGraph copy = roundTrip(graph, SchemaGraphSerializer.Stage.PG_SCHEMA);
+        assertEquals("test", copy.getName());
+        assertEquals("http://example.org/", copy.getNamespace());
+        assertEquals(1, copy.getNodes().size());
+        SchemaNode reservationCopy = copy.getNode("FlightReservation");
+        assertEquals(3, reservationCopy.getProperties().get("count"));
+        assertTrue(reservationCopy.hasProperty("note"));
+
+        SchemaEdge edgeCopy = copy.getEdges().iterator().next();
+        assertSame(reservationCopy, edgeCopy.getSource());
+        assertEquals("Person", edgeCopy.getTarget().getId());
+        assertEquals(person.getLabels(), edgeCopy.getTarget().getLabels());
+        assertEquals("underName", edgeCopy.getLabel());
+        assertEquals("1", edgeCopy.getProperty("minCount"));
+        assertSame(since.getShape(), edgeCopy.getPropertyConstraints().get("since").getShape());
+    }
+
+    @Test
+    void testRejectsOtherFiles() throws Exception {
+        Path file = tempDir.resolve("not-a-graph.kgsg");
+        Files.writeString(file, "@prefix sh: <http://www.w3.org/ns/shacl#> .");
+        assertThrows(java.io.IOException.class, () -> SchemaGraphSerializer.read(file));
+        assertEquals("schema", SchemaGraphSerializer.stripExtension("schema_pg_schema.kgsg"));
+    }
+
+    @Test
+    void testRejectsCorruptLengths() throws Exception {
+        SchemaGraph graph = new SchemaGraph("test");
+        graph.addNode(new SchemaNode("Person"));
+        Path file = tempDir.resolve("schema" + SchemaGraphSerializer.Stage.PG_SCHEMA.fileSuffix());
+        SchemaGraphSerializer.write(graph, SchemaGraphSerializer.Stage.PG_SCHEMA, file);
+        byte[] saved = Files.readAllBytes(file);
+
+        // String table size after the 6-byte header: huge, then negative as a long
+        byte[][] counts = {
+            {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07},
+            {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+             (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x01},
+        };
+        for (byte[] count : counts) {
+            byte[] corrupt = new byte[6 + count.length];
+            System.arraycopy(saved, 0, corrupt, 0, 6);
+            System.arraycopy(count, 0, corrupt, 6, count.length);
+            Path corruptFile = tempDir.resolve("corrupt.kgsg");
+            Files.write(corruptFile, corrupt);
+            assertThrows(java.io.IOException.class, () -> SchemaGraphSerializer.read(corruptFile));
+        }
+
+        // A string length running past the end of the file
+        byte[] truncated = java.util.Arrays.copyOf(saved, 9);
+        truncated[7] = 0x7F;
+        Path truncatedFile = tempDir.resolve("truncated.kgsg");
+        Files.write(truncatedFile, truncated);
+        assertThrows(java.io.IOException.class, () -> SchemaGraphSerializer.read(truncatedFile));
+    }
+
+    private SchemaGraph roundTrip(SchemaGraph graph, SchemaGraphSerializer.Stage stage) throws Exception {
+        Path file = tempDir.resolve("schema" + stage.fileSuffix());
+        SchemaGraphSerializer.write(graph, stage, file);
+        assertEquals(stage, SchemaGraphSerializer.readStage(file));
+        return SchemaGraphSerializer.read(file);
+    }
+
+    private void assertSameGraph(SchemaGraph expected, SchemaGraph actual) {
+        List<SchemaNode> expectedNodes = new ArrayList<>(expected.getNodes());
+        List<SchemaNode> actualNodes = new ArrayList<>(actual.getNodes());
+        assertEquals(expectedNodes.size(), actualNodes.size());
+        for (int i = 0; i < expectedNodes.size(); i++) {
+            SchemaNode e = expectedNodes.get(i);
+            SchemaNode a = actualNodes.get(i);
+            assertEquals(e.getId(), a.getId());
+            assertEquals(e.getLabels(), a.getLabels());
+            assertEquals(e.getProperties(), a.getProperties());
+            assertEquals(e.getPropertyConstraints().keySet(), a.getPropertyConstraints().keySet());
+        }
+        assertEquals(expected.getEdges().size(), actual.getEdges().size());
+        Iterator<SchemaEdge> actualEdges = actual.getEdges().iterator();
+        for (SchemaEdge e : expected.getEdges()) {
+            SchemaEdge a = actualEdges.next();
+            assertEquals(e.getId(), a.getId());
+            assertEquals(e.getType(), a.getType());
+            assertEquals(e.getSource().getId(), a.getSource().getId());
+            assertEquals(e.getTarget().getId(), a.getTarget().getId());
+            assertEquals(e.getProperties(), a.getProperties());
+            assertEquals(e.getPropertyConstraints().keySet(), a.getPropertyConstraints().keySet());
+        }
+    }
+}
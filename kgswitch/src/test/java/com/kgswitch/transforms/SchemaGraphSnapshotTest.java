@@ -0,0 +1,176 @@
+package com.kgswitch.transforms;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import com.kgswitch.models.constraints.PropertyConstraint;
+import com.kgswitch.models.graph.SchemaEdge;
+import com.kgswitch.models.graph.SchemaGraph;
+import com.kgswitch.models.graph.SchemaGraphSnapshot;
+import com.kgswitch.models.graph.SchemaNode;
+import com.kgswitch.util.PersistentHashMap;
+import com.kgswitch.util.PersistentVector;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+class SchemaGraphSnapshotTest {
+
+    private SchemaGraph flightGraph() {
+        SchemaGraph graph = new SchemaGraph("test");
+        SchemaNode reservation = new SchemaNode("FlightReservation");
+        SchemaNode person = new SchemaNode("Person");
+        SchemaNode flight = new SchemaNode("Flight");
+        graph.addNode(reservation);
+        graph.addNode(person);
+        graph.addNode(flight);
+        graph.addEdge(new SchemaEdge("UNDERNAME", reservation, person, "UNDERNAME"));
+        graph.addEdge(new SchemaEdge("RESERVATIONFOR", reservation, flight, "RESERVATIONFOR"));
+        graph.addEdge(new SchemaEdge("PILOT", flight, person, "PILOT"));
+        return graph;
+    }
+
+    private static List<String> nodeIds(Collection<SchemaNode> nodes) {
+        return nodes.stream().map(SchemaNode::getId).collect(Collectors.toList());
+    }
+
+    private static List<String> edgeIds(Collection<SchemaEdge> edges) {
+        return edges.stream().map(SchemaEdge::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    void testFreezeMatchesGraph() {
+        SchemaGraph graph = flightGraph();
+        SchemaGraphSnapshot snapshot = graph.freeze();
+
+        assertEquals(nodeIds(graph.getNodes()), nodeIds(snapshot.getNodes()));
+        assertEquals(edgeIds(graph.getEdges()), edgeIds(snapshot.getEdges()));
+        assertEquals(edgeIds(graph.getOutgoingEdges("FlightReservation")),
+                     edgeIds(snapshot.getOutgoingEdges("FlightReservation")));
+        assertEquals(edgeIds(graph.getIncomingEdges("Person")), edgeIds(snapshot.getIncomingEdges("Person")));
+        assertEquals(new ArrayList<>(graph.getEdgeTypes()), snapshot.getEdgeTypes());
+        assertEquals(graph.getNode("Flight").contentHash(), snapshot.getNode("Flight").contentHash());
+        assertSame(snapshot.getNode("Flight"), snapshot.getEdgesByType("PILOT").get(0).getSource());
+        assertTrue(snapshot.getOutgoingEdges("Person").isEmpty());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getNodes().clear());
+
+        // Later changes to the graph do not leak into the snapshot
+        graph.addNode(new SchemaNode("Airport"));
+        assertFalse(snapshot.hasNode("Airport"));
+        assertEquals(3, snapshot.getNodes().size());
+    }
+
+    @Test
+    void testSnapshotDoesNotShareNodesOrEdges() {
+        SchemaGraph graph = flightGraph();
+        graph.getNode("Flight").addPropertyConstraint(new PropertyConstraint("flightNumber", "xsd:string"));
+        SchemaGraphSnapshot snapshot = graph.freeze();
+        long flightHash = snapshot.getNode("Flight").contentHash();
+        long pilotHash = snapshot.getEdgesByType("PILOT").get(0).contentHash();
+
+        // Later changes to the graph's nodes and edges do not leak into the snapshot
+        graph.getNode("Flight").addLabel("Trip");
+        graph.getNode("Flight").addPropertyConstraint(new PropertyConstraint("departureTime", "xsd:dateTime"));
+        graph.getEdgesByType("PILOT").get(0).addProperty("minCount", "1");
+        assertEquals(Set.of(), snapshot.getNode("Flight").getLabels());
+        assertEquals(Set.of("flightNumber"), snapshot.getNode("Flight").getPropertyConstraints().keySet());
+        assertFalse(snapshot.getEdgesByType("PILOT").get(0).hasProperty("minCount"));
+        assertEquals(flightHash, snapshot.getNode("Flight").contentHash());
+        assertEquals(pilotHash, snapshot.getEdgesByType("PILOT").get(0).contentHash());
+
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getNode("Flight").addLabel("Trip"));
+        assertThrows(UnsupportedOperationException.class,
+            () -> snapshot.getEdgesByType("PILOT").get(0).addProperty("minCount", "1"));
+
+        // Thawing gives mutable copies that do not write back
+        SchemaGraph thawed = snapshot.toSchemaGraph();
+        thawed.getNode("Flight").addLabel("Trip");
+        assertTrue(snapshot.getNode("Flight").getLabels().isEmpty());
+        assertSame(thawed.getNode("Flight"), thawed.getEdgesByType("PILOT").get(0).getSource());
+    }
+
+    @Test
+    void testDerivedVersionsAreIndependent() {
+        SchemaGraphSnapshot base = flightGraph().freeze();
+        SchemaNode airport = new SchemaNode("Airport");
+        SchemaGraphSnapshot withAirport = base.withNode(airport);
+        SchemaEdge arrival = new SchemaEdge("ARRIVALAIRPORT", base.getNode("Flight"), airport, "ARRIVALAIRPORT");
+        SchemaGraphSnapshot withArrival = withAirport.withEdge(arrival);
+
+        assertFalse(base.hasNode("Airport"));
+        assertTrue(withAirport.hasNode("Airport"));
+        assertTrue(withAirport.getIncomingEdges("Airport").isEmpty());
+        assertEquals(List.of("ARRIVALAIRPORT"), edgeIds(withArrival.getIncomingEdges("Airport")));
+        assertSame(withArrival.getNode("Airport"), withArrival.getIncomingEdges("Airport").get(0).getTarget());
+        assertSame(base.getNode("Flight"), withArrival.getIncomingEdges("Airport").get(0).getSource());
+        assertEquals(List.of("UNDERNAME", "RESERVATIONFOR", "PILOT", "ARRIVALAIRPORT"), withArrival.getEdgeTypes());
+        assertSame(withArrival, withArrival.withEdge(arrival));
+        assertSame(withArrival, withArrival.withNode(airport));
+
+        SchemaGraph thawed = withArrival.toSchemaGraph();
+        assertEquals(4, thawed.getNodes().size());
+        assertEquals(List.of("PILOT", "ARRIVALAIRPORT"), edgeIds(thawed.getOutgoingEdges("Flight")));
+    }
+
+    @Test
+    void testConcurrentReaders() throws Exception {
+        SchemaGraphSnapshot snapshot = flightGraph().freeze();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(pool.submit(() -> {
+                    int seen = 0;
+                    for (int i = 0; i < 1000; i++) {
+                        for (SchemaNode node : snapshot.getNodes()) {
+                            seen += snapshot.getOutgoingEdges(node.getId()).size();
+                        }
+                    }
+                    return seen;
+                }));
+            }
+            for (Future<Integer> future : futures) {
+                assertEquals(3000, future.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testPersistentCollections() {
+        PersistentVector<Integer> vector = PersistentVector.empty();
+        PersistentHashMap<String, Integer> map = PersistentHashMap.empty();
+        List<PersistentVector<Integer>> versions = new ArrayList<>();
+        for (int i = 0; i < 40000; i++) {
+            versions.add(vector);
+            vector = vector.plus(i);
+            map = map.plus("key" + i, i);
+        }
+        assertEquals(40000, vector.size());
+        assertEquals(40000, map.size());
+        for (int i = 0; i < 40000; i += 7) {
+            assertEquals(i, vector.get(i));
+            assertEquals(i, map.get("key" + i));
+            assertEquals(i, versions.get(i).size());
+        }
+        assertNull(map.get("missing"));
+        assertEquals(40000, map.plus("key5", 5).size());
+        assertEquals(-1, map.plus("key5", -1).get("key5"));
+        assertEquals(5, map.get("key5"));
+
+        // "Aa" and "BB" have the same hashCode
+        PersistentHashMap<String, Integer> colliding = PersistentHashMap.<String, Integer>empty()
+            .plus("Aa", 1).plus("BB", 2).plus("C#", 3);
+        assertEquals(3, colliding.size());
+        assertEquals(1, colliding.get("Aa"));
+        assertEquals(2, colliding.get("BB"));
+        assertEquals(3, colliding.get("C#"));
+    }
+}
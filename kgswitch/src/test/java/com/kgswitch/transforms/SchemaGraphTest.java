@@ -0,0 +1,74 @@
+package com.kgswitch.transforms;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.kgswitch.models.graph.SchemaEdge;
+import com.kgswitch.models.graph.SchemaGraph;
+import com.kgswitch.models.graph.SchemaNode;
+
+import java.util.List;
+import java.util.Set;
+
+class SchemaGraphTest {
+    private SchemaGraph graph;
+    private SchemaNode reservation;
+    private SchemaNode person;
+    private SchemaNode flight;
+
+    @BeforeEach
+    void setUp() {
+        graph = new SchemaGraph("test");
+        reservation = new SchemaNode("FlightReservation");
+        person = new SchemaNode("Person");
+        flight = new SchemaNode("Flight");
+        graph.addNode(reservation);
+        graph.addNode(person);
+        graph.addNode(flight);
+    }
+
+    @Test
+    void testAdjacencyIndexes() {
+        SchemaEdge underName = new SchemaEdge("UNDERNAME", reservation, person, "UNDERNAME");
+        SchemaEdge reservationFor = new SchemaEdge("RESERVATIONFOR", reservation, flight, "RESERVATIONFOR");
+        SchemaEdge pilot = new SchemaEdge("PILOT", flight, person, "PILOT");
+        graph.addEdge(underName);
+        graph.addEdge(reservationFor);
+        graph.addEdge(pilot);
+
+        assertEquals(List.of(underName, reservationFor), graph.getOutgoingEdges("FlightReservation"));
+        assertEquals(List.of(underName, pilot), graph.getIncomingEdges("Person"));
+        assertEquals(List.of(pilot), graph.getOutgoingEdges("Flight"));
+        assertTrue(graph.getOutgoingEdges("Person").isEmpty());
+        assertTrue(graph.getIncomingEdges("Unknown").isEmpty());
+    }
+
+    @Test
+    void testEdgesByType() {
+        SchemaNode hotelReservation = new SchemaNode("HotelReservation");
+        graph.addNode(hotelReservation);
+        SchemaEdge first = new SchemaEdge("UNDERNAME", reservation, person, "UNDERNAME");
+        SchemaEdge second = new SchemaEdge("UNDERNAME", hotelReservation, person, "UNDERNAME");
+        graph.addEdge(first);
+        graph.addEdge(second);
+        graph.addEdge(first);
+
+        assertEquals(List.of(first, second), graph.getEdgesByType("UNDERNAME"));
+        assertEquals(Set.of("UNDERNAME"), graph.getEdgeTypes());
+        assertEquals(2, graph.getEdges().size());
+        assertTrue(graph.getEdgesByType("PILOT").isEmpty());
+    }
+
+    @Test
+    void testViewsAreReadOnly() {
+        graph.addEdge(new SchemaEdge("UNDERNAME", reservation, person, "UNDERNAME"));
+
+        assertThrows(UnsupportedOperationException.class,
+            () -> graph.getOutgoingEdges("FlightReservation").clear());
+        assertThrows(UnsupportedOperationException.class,
+            () -> graph.getEdgesByType("UNDERNAME").clear());
+        assertThrows(UnsupportedOperationException.class, () -> graph.getEdges().clear());
+        assertThrows(UnsupportedOperationException.class, () -> graph.getNodes().clear());
+    }
+}
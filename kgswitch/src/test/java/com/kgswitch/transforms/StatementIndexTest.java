@@ -0,0 +1,79 @@
+package com.kgswitch.transforms;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.kgswitch.models.graph.SchemaGraph;
+import com.kgswitch.models.graph.SchemaNode;
+import com.kgswitch.models.graph.StatementIndex;
+
+import java.util.List;
+
+class StatementIndexTest {
+    private SchemaNode personType;
+    private SchemaNode personName;
+    private SchemaNode personEmail;
+    private SchemaNode flightNumber;
+    private SchemaNode pilot;
+    private StatementIndex index;
+
+    @BeforeEach
+    void setUp() {
+        SchemaGraph graph = new SchemaGraph("test");
+        personType = statement("type_stmt_Person", "TypeStatement", "Person", "type", "http://schema.org/Person");
+        personName = statement("prop_stmt_Person_name", "PropertyStatement", "Person", "name", null);
+        flightNumber = statement("prop_stmt_Flight_flightNumber", "PropertyStatement", "Flight", "flightNumber", null);
+        personEmail = statement("prop_stmt_Person_email", "PropertyStatement", "Person", "email", null);
+        pilot = statement("rel_Flight_pilot", "EdgeStatement", "Flight", "pilot", "Person");
+        graph.addNode(personType);
+        graph.addNode(personName);
+        graph.addNode(flightNumber);
+        graph.addNode(personEmail);
+        graph.addNode(pilot);
+        index = new StatementIndex(graph);
+    }
+
+    @Test
+    void testFindByKind() {
+        assertEquals(List.of(personType), index.find(StatementIndex.TYPE_STATEMENT));
+        assertEquals(List.of(personName, flightNumber, personEmail),
+                     index.find(StatementIndex.PROPERTY_STATEMENT));
+        assertTrue(index.find("UnknownStatement").isEmpty());
+    }
+
+    @Test
+    void testFindByPattern() {
+        assertEquals(List.of(personName, personEmail),
+                     index.find(StatementIndex.PROPERTY_STATEMENT, "Person", null, null));
+        assertEquals(List.of(personEmail),
+                     index.find(StatementIndex.PROPERTY_STATEMENT, "Person", "email", null));
+        assertEquals(List.of(pilot), index.find(StatementIndex.EDGE_STATEMENT, null, null, "Person"));
+        assertTrue(index.find(StatementIndex.EDGE_STATEMENT, "Person", null, null).isEmpty());
+
+        // Unbound kind: matches across kinds, in graph order
+        assertEquals(List.of(flightNumber, pilot), index.find(null, "Flight", null, null));
+        assertEquals(5, index.find(null, null, null, null).size());
+    }
+
+    @Test
+    void testUnionKeepsGraphOrder() {
+        List<SchemaNode> merged = index.union(
+            index.find(StatementIndex.EDGE_STATEMENT),
+            index.find(StatementIndex.PROPERTY_STATEMENT, "Person", null, null),
+            index.find(StatementIndex.PROPERTY_STATEMENT, null, "name", null));
+        assertEquals(List.of(personName, personEmail, pilot), merged);
+        assertEquals(List.of(personType, pilot), index.findWithProperty("object"));
+    }
+
+    private static SchemaNode statement(String id, String kind, String subject, String predicate, String object) {
+        SchemaNode statement = new SchemaNode(id);
+        statement.addLabel(kind);
+        statement.addProperty("subject", subject);
+        statement.addProperty("predicate", predicate);
+        if (object != null) {
+            statement.addProperty("object", object);
+        }
+        return statement;
+    }
+}
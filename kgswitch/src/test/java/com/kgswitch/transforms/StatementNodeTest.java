@@ -0,0 +1,108 @@
+package com.kgswitch.transforms;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import com.kgswitch.models.graph.SchemaGraph;
+import com.kgswitch.models.graph.SchemaNode;
+import com.kgswitch.models.statements.EdgeStatement;
+import com.kgswitch.models.statements.PropertyStatement;
+import com.kgswitch.models.statements.Statement;
+import com.kgswitch.models.statements.StatementNode;
+import com.kgswitch.models.statements.TypeStatement;
+import com.kgswitch.transforms.pg.PGSchemaToStatementTransformer;
+import com.kgswitch.transforms.pg.PGStatementToSchemaTransformer;
+import com.kgswitch.transforms.rdf.RDFSchemaTransformer;
+
+import java.util.Map;
+import java.util.Set;
+
+class StatementNodeTest {
+    private static final String XSD_STRING = "http://www.w3.org/2001/XMLSchema#string";
+
+    @Test
+    void testSchemaNodeView() {
+        StatementNode node = new StatementNode("prop_stmt_Person_name",
+            new PropertyStatement("Person", "name", XSD_STRING, 1, -1));
+
+        assertEquals(Set.of("PropertyStatement"), node.getLabels());
+        assertEquals(Map.of("subject", "Person", "predicate", "name", "datatype", XSD_STRING,
+                            "minCount", "1", "maxCount", "-1"),
+                     node.getProperties());
+        assertTrue(node.hasProperty("datatype"));
+        assertFalse(node.hasProperty("object"));
+        assertSame(node.getProperties(), node.getProperties());
+    }
+
+    @Test
+    void testChangesCopyOnWrite() {
+        PropertyStatement statement = new PropertyStatement("Person", "name", XSD_STRING, 1, -1);
+        StatementNode node = new StatementNode("prop_stmt_Person_name", statement);
+        long before = node.contentHash();
+
+        node.addProperty("minCount", "2");
+        node.addLabel("Reviewed");
+
+        assertNull(node.getStatement());
+        assertEquals(Set.of("PropertyStatement", "Reviewed"), node.getLabels());
+        assertEquals("2", node.getProperties().get("minCount"));
+        assertEquals(XSD_STRING, node.getProperties().get("datatype"));
+        assertNotEquals(before, node.contentHash());
+        // The change is read back through the property map, not the original statement
+        assertEquals(2, StatementNode.asPropertyStatement(node).getMinCount());
+        assertEquals(1, statement.getMinCount());
+    }
+
+    @Test
+    void testUnsetCardinalityIsOmitted() {
+        StatementNode node = new StatementNode("rel_Person_memberof",
+            new EdgeStatement("Person", "memberof", "Organization", Statement.UNSET, 1));
+
+        assertFalse(node.hasProperty("minCount"));
+        assertEquals("1", node.getProperties().get("maxCount"));
+        assertFalse(node.getProperties().containsKey("minCount"));
+    }
+
+    @Test
+    void testDecodeHandBuiltNodes() {
+        SchemaNode property = new SchemaNode("prop_stmt_Person_email");
+        property.addLabel("PropertyStatement");
+        property.addProperty("subject", "Person");
+        property.addProperty("predicate", "email");
+        property.addProperty("datatype", XSD_STRING);
+        property.addProperty("minCount", "1");
+
+        PropertyStatement decoded = StatementNode.asPropertyStatement(property);
+        assertEquals("Person", decoded.getSubject());
+        assertEquals("email", decoded.getPredicate());
+        assertEquals(1, decoded.getMinCount());
+        assertFalse(decoded.hasMaxCount());
+
+        SchemaNode type = new SchemaNode("type_stmt_Person");
+        type.addLabel("TypeStatement");
+        type.addProperty("subject", "Person");
+        type.addProperty("predicate", "type");
+        type.addProperty("object", "http://schema.org/Person");
+        assertEquals("http://schema.org/Person", StatementNode.asTypeStatement(type).getObject());
+
+        // Typed nodes hand back their own statement
+        TypeStatement typed = new TypeStatement("Person", "http://schema.org/Person");
+        assertSame(typed, StatementNode.asTypeStatement(new StatementNode("type_stmt_Person", typed)));
+    }
+
+    @Test
+    void testStatementGraphIsTyped() {
+        SchemaGraph rdfGraph = new RDFSchemaTransformer()
+            .transformToStatementGraph("src/test/resources/datasets/flight-schema.ttl");
+        SchemaGraph statementGraph = new PGSchemaToStatementTransformer(rdfGraph).transformToStatementGraph();
+
+        assertFalse(statementGraph.getNodes().isEmpty());
+        for (SchemaNode node : statementGraph.getNodes()) {
+            assertTrue(node instanceof StatementNode, node.getId());
+        }
+
+        SchemaGraph pgSchema = new PGStatementToSchemaTransformer(statementGraph).transformToPGSchema();
+        assertEquals(rdfGraph.getNodes().size(), pgSchema.getNodes().size());
+        assertEquals(rdfGraph.getEdges().size(), pgSchema.getEdges().size());
+    }
+}
@@ -0,0 +1,95 @@
+package com.kgswitch.transforms;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import com.kgswitch.models.constraints.PropertyConstraint;
+import com.kgswitch.util.SymbolTable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+class SymbolTableTest {
+    private static final String XSD_STRING = "http://www.w3.org/2001/XMLSchema#string";
+
+    @Test
+    void testIntern() {
+        SymbolTable symbols = new SymbolTable();
+        String first = symbols.intern(new String(XSD_STRING));
+        String second = symbols.intern(new String(XSD_STRING));
+
+        assertSame(first, second);
+        assertNull(symbols.intern(null));
+        assertEquals(1, symbols.size());
+    }
+
+    @Test
+    void testUnreferencedSymbolsAreDropped() throws InterruptedException {
+        SymbolTable symbols = new SymbolTable();
+        String kept = symbols.intern(new String("http://schema.org/kept"));
+        for (int i = 0; i < 1000; i++) {
+            symbols.upperCase(new String("http://schema.org/p" + i));
+        }
+        for (int attempt = 0; attempt < 50 && symbols.size() > 1; attempt++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertEquals(1, symbols.size());
+        assertSame(kept, symbols.intern(new String("http://schema.org/kept")));
+    }
+
+    @Test
+    void testNameSplits() {
+        SymbolTable symbols = new SymbolTable();
+        assertEquals("string", symbols.localName(XSD_STRING));
+        assertEquals("http://www.w3.org/2001/XMLSchema#", symbols.namespace(XSD_STRING));
+        assertEquals("Person", symbols.localName("http://schema.org/Person"));
+        assertEquals("http://schema.org/", symbols.namespace("http://schema.org/Person"));
+        assertEquals("name", symbols.localName("name"));
+        assertEquals("", symbols.namespace("name"));
+
+        // Cached forms are the canonical instances
+        assertSame(symbols.intern("string"), symbols.localName(new String(XSD_STRING)));
+        assertSame(symbols.intern("MEMBEROF"), symbols.upperCase("memberOf"));
+        assertSame(symbols.intern("memberof"), symbols.lowerCase(new String("memberOf")));
+    }
+
+    @Test
+    void testConcurrentInterning() throws Exception {
+        SymbolTable symbols = new SymbolTable();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        Set<String> canonical = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        String value = new String("http://schema.org/p" + (i % 100));
+                        canonical.add(symbols.intern(value));
+                        assertSame(symbols.intern(value), symbols.intern(new String(value)));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(100, symbols.size());
+        assertEquals(100, canonical.size());
+    }
+
+    @Test
+    void testModelStringsAreShared() {
+        PropertyConstraint name = new PropertyConstraint("name", new String(XSD_STRING));
+        PropertyConstraint email = new PropertyConstraint("email", new String(XSD_STRING));
+        assertSame(name.getDataType(), email.getDataType());
+    }
+}